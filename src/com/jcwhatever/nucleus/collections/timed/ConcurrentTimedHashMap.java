@@ -0,0 +1,682 @@
+/*
+ * This file is part of NucleusFramework for Bukkit, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) JCThePants (www.jcwhatever.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.jcwhatever.nucleus.collections.timed;
+
+import com.jcwhatever.nucleus.Nucleus;
+import com.jcwhatever.nucleus.managed.scheduler.IScheduledTask;
+import com.jcwhatever.nucleus.managed.scheduler.Scheduler;
+import com.jcwhatever.nucleus.mixins.IPluginOwned;
+import com.jcwhatever.nucleus.utils.PreCon;
+import com.jcwhatever.nucleus.utils.Rand;
+import com.jcwhatever.nucleus.utils.TimeScale;
+import com.jcwhatever.nucleus.utils.observer.update.IUpdateSubscriber;
+import com.jcwhatever.nucleus.utils.observer.update.UpdateAgent;
+
+import org.bukkit.plugin.Plugin;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.annotation.Nullable;
+
+/**
+ * A {@link ConcurrentHashMap} where each key value has an individual lifespan that
+ * when ended, causes the item to be removed.
+ *
+ * <p>A concurrent alternative to {@link TimedHashMap} for maps that are accessed
+ * from multiple threads. Reads do not lock. Each value is stored with its own
+ * expiration stamp and an expired value is removed by the first reader that
+ * encounters it.</p>
+ *
+ * <p>The lifespan can be reset by re-adding an item.</p>
+ *
+ * <p>Items can be added using the default lifespan time or a lifespan can be specified per item.</p>
+ *
+ * <p>Subscribers that are added to track when an item expires or the collection is
+ * empty will have a varying degree of resolution up to 10 ticks, meaning the subscriber
+ * may be notified up to 10 ticks after an element expires (but not before). Subscribers
+ * may be notified from any thread that accesses the map.</p>
+ *
+ * <p>Like {@link ConcurrentHashMap}, the size of the map and its views are weakly
+ * consistent while the map is being modified.</p>
+ *
+ * <p>Thread Safe.</p>
+ */
+public class ConcurrentTimedHashMap<K, V> extends AbstractMap<K, V>
+        implements ConcurrentMap<K, V>, IPluginOwned {
+
+    // The interval the janitor runs at
+    private static final int JANITOR_INTERVAL_TICKS = 10;
+
+    // random initial delay interval for janitor, random to help spread out
+    // task execution in relation to other scheduled tasks
+    private static final int JANITOR_INITIAL_DELAY_TICKS = Rand.getInt(1, 5);
+
+    private final static Map<ConcurrentTimedHashMap, Void> _instances = new WeakHashMap<>(10);
+    private static IScheduledTask _janitor;
+
+    private final Plugin _plugin;
+    private final ConcurrentHashMap<K, Stamp<V>> _map;
+
+    private final int _lifespan; // milliseconds
+    private final TimeScale _timeScale;
+
+    private final transient AtomicLong _nextExpiration = new AtomicLong(Long.MAX_VALUE);
+    private final transient AtomicBoolean _isExpiring = new AtomicBoolean();
+    private final transient EntrySetWrapper _entrySetWrapper = new EntrySetWrapper();
+
+    // agents are kept in separate fields since NamedUpdateAgents caches
+    // the most recent agent and is not safe for concurrent use.
+    private final transient UpdateAgent<Entry<K, V>> _lifespanAgent = new UpdateAgent<>();
+    private final transient UpdateAgent<ConcurrentTimedHashMap<K, V>> _emptyAgent = new UpdateAgent<>();
+    private transient volatile boolean _hasLifespanSubscribers;
+    private transient volatile boolean _hasEmptySubscribers;
+
+    /**
+     * Constructor.
+     *
+     * <p>Default lifespan is 20 ticks.</p>
+     *
+     * <p>The initial capacity is 10.</p>
+     */
+    public ConcurrentTimedHashMap(Plugin plugin) {
+        this(plugin, 10, 20, TimeScale.TICKS);
+    }
+
+    /**
+     * Constructor.
+     *
+     * <p>Default lifespan is 20 ticks.</p>
+     *
+     * @param capacity  The initial capacity of the map.
+     */
+    public ConcurrentTimedHashMap(Plugin plugin, int capacity) {
+        this(plugin, capacity, 20, TimeScale.TICKS);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param capacity         The initial capacity of the map.
+     * @param defaultLifespan  The default lifespan of items.
+     * @param timeScale        The lifespan time scale.
+     */
+    public ConcurrentTimedHashMap(Plugin plugin, int capacity, int defaultLifespan, TimeScale timeScale) {
+        PreCon.notNull(plugin);
+        PreCon.positiveNumber(defaultLifespan);
+        PreCon.notNull(timeScale);
+
+        _plugin = plugin;
+        _lifespan = defaultLifespan * timeScale.getTimeFactor();
+        _timeScale = timeScale;
+        _map = new ConcurrentHashMap<>(capacity);
+
+        synchronized (_instances) {
+            _instances.put(this, null);
+        }
+
+        startJanitor();
+    }
+
+    /**
+     * Put an item into the map using the specified lifespan in
+     * the time scale specified in the constructor.
+     *
+     * @param key        The item key.
+     * @param value      The item to add.
+     * @param lifespan   The items lifespan.
+     */
+    @Nullable
+    public V put(K key, V value, int lifespan) {
+        return put(key, value, lifespan, _timeScale);
+    }
+
+    /**
+     * Put an item into the map using the specified lifespan in
+     * the time scale specified.
+     *
+     * @param key        The item key.
+     * @param value      The item to add.
+     * @param lifespan   The items lifespan.
+     * @param timeScale  The time scale of the specified lifespan.
+     */
+    @Nullable
+    public V put(K key, V value, int lifespan, TimeScale timeScale) {
+        PreCon.notNull(key);
+        PreCon.notNull(value);
+        PreCon.positiveNumber(lifespan);
+        PreCon.notNull(timeScale);
+
+        Stamp<V> stamp = new Stamp<>(value, lifespan, timeScale);
+        Stamp<V> previous = _map.put(key, stamp);
+
+        lowerNextExpiration(stamp.expires);
+
+        return previous == null || previous.isExpired()
+                ? null
+                : previous.value;
+    }
+
+    /**
+     * Put an item into the map using the specified lifespan in the time scale
+     * specified in the constructor if the key does not have a value or its value
+     * is expired.
+     *
+     * @param key        The item key.
+     * @param value      The item to add.
+     * @param lifespan   The items lifespan.
+     *
+     * @return  The current value if one is present, otherwise null.
+     */
+    @Nullable
+    public V putIfAbsent(K key, V value, int lifespan) {
+        return putIfAbsent(key, value, lifespan, _timeScale);
+    }
+
+    /**
+     * Put an item into the map using the specified lifespan in the time scale
+     * specified if the key does not have a value or its value is expired.
+     *
+     * @param key        The item key.
+     * @param value      The item to add.
+     * @param lifespan   The items lifespan.
+     * @param timeScale  The time scale of the specified lifespan.
+     *
+     * @return  The current value if one is present, otherwise null.
+     */
+    @Nullable
+    public V putIfAbsent(K key, V value, int lifespan, TimeScale timeScale) {
+        PreCon.notNull(key);
+        PreCon.notNull(value);
+        PreCon.positiveNumber(lifespan);
+        PreCon.notNull(timeScale);
+
+        Stamp<V> stamp = new Stamp<>(value, lifespan, timeScale);
+
+        while (true) {
+
+            Stamp<V> current = _map.putIfAbsent(key, stamp);
+            if (current == null) {
+                lowerNextExpiration(stamp.expires);
+                return null;
+            }
+
+            if (!current.isExpired())
+                return current.value;
+
+            if (_map.replace(key, current, stamp)) {
+                lowerNextExpiration(stamp.expires);
+                onLifespanEnd(key, current.value);
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Put a map of items into the map using the specified lifespan in
+     * the time scale specified in the constructor.
+     *
+     * @param entries    The map to add.
+     * @param lifespan   The lifespan of the added items.
+     */
+    public void putAll(Map<? extends K, ? extends V> entries, int lifespan) {
+        putAll(entries, lifespan, _timeScale);
+    }
+
+    /**
+     * Put a map of items into the map using the specified lifespan in
+     * the time scale specified.
+     *
+     * @param entries    The map to add.
+     * @param lifespan   The lifespan of the added items.
+     * @param timeScale  The timeScale of the specified lifespan.
+     */
+    public void putAll(Map<? extends K, ? extends V> entries, int lifespan, TimeScale timeScale) {
+        PreCon.notNull(entries);
+        PreCon.positiveNumber(lifespan);
+        PreCon.notNull(timeScale);
+
+        long expires = Long.MAX_VALUE;
+
+        for (Map.Entry<? extends K, ? extends V> entry : entries.entrySet()) {
+
+            Stamp<V> stamp = new Stamp<V>(entry.getValue(), lifespan, timeScale);
+            _map.put(entry.getKey(), stamp);
+
+            expires = Math.min(expires, stamp.expires);
+        }
+
+        lowerNextExpiration(expires);
+    }
+
+    /**
+     * Register a subscriber to be notified whenever an entry is removed
+     * due to its lifespan ending.
+     *
+     * @param subscriber  The subscriber.
+     *
+     * @return  Self for chaining.
+     */
+    public ConcurrentTimedHashMap<K, V> onLifespanEnd(IUpdateSubscriber<Entry<K, V>> subscriber) {
+        PreCon.notNull(subscriber);
+
+        _lifespanAgent.addSubscriber(subscriber);
+        _hasLifespanSubscribers = true;
+
+        return this;
+    }
+
+    /**
+     * Register a subscriber to be notified whenever the map becomes
+     * empty due to an entries lifespan ending.
+     *
+     * @param subscriber  The subscriber.
+     *
+     * @return  Self for chaining.
+     */
+    public ConcurrentTimedHashMap<K, V> onEmpty(IUpdateSubscriber<ConcurrentTimedHashMap<K, V>> subscriber) {
+        PreCon.notNull(subscriber);
+
+        _emptyAgent.addSubscriber(subscriber);
+        _hasEmptySubscribers = true;
+
+        return this;
+    }
+
+    @Override
+    public Plugin getPlugin() {
+        return _plugin;
+    }
+
+    @Override
+    public void clear() {
+        _map.clear();
+    }
+
+    @Override
+    public Set<Entry<K, V>> entrySet() {
+        return _entrySetWrapper;
+    }
+
+    @Override
+    public int size() {
+        expire();
+        return _map.size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        expire();
+        return _map.isEmpty();
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return get(key) != null;
+    }
+
+    @Override
+    public boolean containsValue(Object value) {
+        PreCon.notNull(value);
+
+        for (Map.Entry<K, Stamp<V>> entry : _map.entrySet()) {
+
+            Stamp<V> stamp = entry.getValue();
+
+            if (stamp.value.equals(value) && !isExpiredRemove(entry.getKey(), stamp))
+                return true;
+        }
+
+        return false;
+    }
+
+    @Override
+    @Nullable
+    public V get(Object key) {
+        PreCon.notNull(key);
+
+        //noinspection SuspiciousMethodCalls
+        Stamp<V> stamp = _map.get(key);
+        if (stamp == null)
+            return null;
+
+        @SuppressWarnings("unchecked")
+        K k = (K)key;
+
+        return isExpiredRemove(k, stamp)
+                ? null
+                : stamp.value;
+    }
+
+    @Override
+    @Nullable
+    public V put(K key, V value) {
+        return put(key, value, _lifespan, TimeScale.MILLISECONDS);
+    }
+
+    @Override
+    public void putAll(Map<? extends K, ? extends V> entries) {
+        putAll(entries, _lifespan, TimeScale.MILLISECONDS);
+    }
+
+    @Override
+    @Nullable
+    public V putIfAbsent(K key, V value) {
+        return putIfAbsent(key, value, _lifespan, TimeScale.MILLISECONDS);
+    }
+
+    @Override
+    @Nullable
+    public V remove(Object key) {
+        PreCon.notNull(key);
+
+        //noinspection SuspiciousMethodCalls
+        Stamp<V> stamp = _map.remove(key);
+
+        return stamp == null || stamp.isExpired()
+                ? null
+                : stamp.value;
+    }
+
+    @Override
+    public boolean remove(Object key, Object value) {
+        PreCon.notNull(key);
+
+        if (value == null)
+            return false;
+
+        //noinspection SuspiciousMethodCalls
+        Stamp<V> stamp = _map.get(key);
+
+        return stamp != null && !stamp.isExpired() &&
+                stamp.value.equals(value) && _map.remove(key, stamp);
+    }
+
+    @Override
+    public boolean replace(K key, V oldValue, V newValue) {
+        PreCon.notNull(key);
+        PreCon.notNull(oldValue);
+        PreCon.notNull(newValue);
+
+        Stamp<V> stamp = _map.get(key);
+        if (stamp == null || stamp.isExpired() || !stamp.value.equals(oldValue))
+            return false;
+
+        Stamp<V> replacement = new Stamp<>(newValue, _lifespan, TimeScale.MILLISECONDS);
+
+        if (_map.replace(key, stamp, replacement)) {
+            lowerNextExpiration(replacement.expires);
+            return true;
+        }
+
+        return false;
+    }
+
+    @Override
+    @Nullable
+    public V replace(K key, V value) {
+        PreCon.notNull(key);
+        PreCon.notNull(value);
+
+        Stamp<V> replacement = new Stamp<>(value, _lifespan, TimeScale.MILLISECONDS);
+
+        while (true) {
+
+            Stamp<V> stamp = _map.get(key);
+            if (stamp == null || isExpiredRemove(key, stamp))
+                return null;
+
+            if (_map.replace(key, stamp, replacement)) {
+                lowerNextExpiration(replacement.expires);
+                return stamp.value;
+            }
+        }
+    }
+
+    /*
+     * Remove the stamp from the map if it is expired. Only the thread that
+     * removes the stamp notifies subscribers.
+     */
+    private boolean isExpiredRemove(K key, Stamp<V> stamp) {
+
+        if (!stamp.isExpired())
+            return false;
+
+        if (_map.remove(key, stamp))
+            onLifespanEnd(key, stamp.value);
+
+        return true;
+    }
+
+    private void onLifespanEnd(K key, V value) {
+
+        if (_hasLifespanSubscribers)
+            _lifespanAgent.update(new SimpleImmutableEntry<>(key, value));
+
+        if (_hasEmptySubscribers && _map.isEmpty())
+            _emptyAgent.update(this);
+    }
+
+    /*
+     * Remove expired entries if the earliest known expiration has passed.
+     * Only one thread sweeps the map at a time.
+     */
+    private void expire() {
+
+        long now = System.currentTimeMillis();
+
+        if (_nextExpiration.get() > now || !_isExpiring.compareAndSet(false, true))
+            return;
+
+        try {
+            // stamps added during the sweep lower the next expiration again
+            _nextExpiration.set(Long.MAX_VALUE);
+
+            long next = Long.MAX_VALUE;
+
+            for (Map.Entry<K, Stamp<V>> entry : _map.entrySet()) {
+
+                Stamp<V> stamp = entry.getValue();
+
+                if (stamp.expires <= now) {
+                    if (_map.remove(entry.getKey(), stamp))
+                        onLifespanEnd(entry.getKey(), stamp.value);
+                }
+                else if (stamp.expires < next) {
+                    next = stamp.expires;
+                }
+            }
+
+            lowerNextExpiration(next);
+        }
+        finally {
+            _isExpiring.set(false);
+        }
+    }
+
+    private void lowerNextExpiration(long expires) {
+
+        long current;
+
+        do {
+            current = _nextExpiration.get();
+            if (current <= expires)
+                return;
+
+        } while (!_nextExpiration.compareAndSet(current, expires));
+    }
+
+    private void startJanitor() {
+        if (_janitor != null)
+            return;
+
+        _janitor = Scheduler.runTaskRepeatAsync(
+                Nucleus.getPlugin(), JANITOR_INITIAL_DELAY_TICKS, JANITOR_INTERVAL_TICKS, new Runnable() {
+                    @Override
+                    public void run() {
+
+                        List<ConcurrentTimedHashMap> maps;
+
+                        synchronized (_instances) {
+                            maps = new ArrayList<ConcurrentTimedHashMap>(_instances.keySet());
+                        }
+
+                        for (ConcurrentTimedHashMap map : maps) {
+
+                            // remove from instances if owning plugin is disabled
+                            if (!map._plugin.isEnabled()) {
+                                synchronized (_instances) {
+                                    _instances.remove(map);
+                                }
+                                continue;
+                            }
+
+                            map.expire();
+                        }
+                    }
+                });
+    }
+
+    /*
+     * An immutable value and its expiration time. Stamps are compared
+     * by identity so that an expired stamp can be removed without removing
+     * a replacement added by another thread.
+     */
+    private static final class Stamp<V> {
+
+        final V value;
+        final long expires;
+
+        Stamp(V value, long lifespan, TimeScale timeScale) {
+            PreCon.notNull(value);
+
+            this.value = value;
+            this.expires = System.currentTimeMillis() + (lifespan * timeScale.getTimeFactor());
+        }
+
+        boolean isExpired() {
+            return System.currentTimeMillis() >= expires;
+        }
+    }
+
+    /*
+     * Entry set view that skips expired entries.
+     */
+    private final class EntrySetWrapper extends AbstractSet<Entry<K, V>> {
+
+        @Override
+        public int size() {
+            return ConcurrentTimedHashMap.this.size();
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return ConcurrentTimedHashMap.this.isEmpty();
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            if (!(o instanceof Entry))
+                return false;
+
+            Entry entry = (Entry)o;
+            Object key = entry.getKey();
+            if (key == null)
+                return false;
+
+            V value = get(key);
+            return value != null && value.equals(entry.getValue());
+        }
+
+        @Override
+        public boolean remove(Object o) {
+            if (!(o instanceof Entry))
+                return false;
+
+            Entry entry = (Entry)o;
+            return entry.getKey() != null &&
+                    ConcurrentTimedHashMap.this.remove(entry.getKey(), entry.getValue());
+        }
+
+        @Override
+        public void clear() {
+            ConcurrentTimedHashMap.this.clear();
+        }
+
+        @Override
+        public Iterator<Entry<K, V>> iterator() {
+            return new Iterator<Entry<K, V>>() {
+
+                Iterator<Entry<K, Stamp<V>>> iterator = _map.entrySet().iterator();
+                Entry<K, V> peek;
+                Entry<K, V> current;
+
+                @Override
+                public boolean hasNext() {
+
+                    while (peek == null && iterator.hasNext()) {
+
+                        Entry<K, Stamp<V>> entry = iterator.next();
+                        Stamp<V> stamp = entry.getValue();
+
+                        if (!isExpiredRemove(entry.getKey(), stamp))
+                            peek = new SimpleImmutableEntry<>(entry.getKey(), stamp.value);
+                    }
+
+                    return peek != null;
+                }
+
+                @Override
+                public Entry<K, V> next() {
+                    if (!hasNext())
+                        throw new NoSuchElementException();
+
+                    current = peek;
+                    peek = null;
+                    return current;
+                }
+
+                @Override
+                public void remove() {
+                    if (current == null)
+                        throw new IllegalStateException();
+
+                    ConcurrentTimedHashMap.this.remove(current.getKey(), current.getValue());
+                    current = null;
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,271 @@
+/*
+ * This file is part of NucleusFramework for Bukkit, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) JCThePants (www.jcwhatever.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.jcwhatever.nucleus.collections.timed;
+
+import com.jcwhatever.nucleus.utils.TimeScale;
+
+import java.util.Arrays;
+import javax.annotation.Nullable;
+
+/**
+ * A binary min-heap of expiring nodes ordered by expiration time.
+ *
+ * <p>Used by the timed collections to find expired elements without scanning
+ * every element. Each node tracks its own position in the heap so that it can
+ * be removed or re-positioned in O(log n).</p>
+ *
+ * <p>A node can be in at most one heap at a time.</p>
+ *
+ * <p>Not thread safe.</p>
+ *
+ * @param <E>  The node type.
+ */
+final class ExpiryHeap<E extends ExpiryHeap.Node> {
+
+    private Node[] _heap;
+    private int _size;
+
+    /**
+     * Constructor.
+     *
+     * @param capacity  The initial capacity.
+     */
+    ExpiryHeap(int capacity) {
+        _heap = new Node[Math.max(capacity, 4)];
+    }
+
+    /**
+     * Get the number of nodes in the heap.
+     */
+    int size() {
+        return _size;
+    }
+
+    /**
+     * Determine if the heap is empty.
+     */
+    boolean isEmpty() {
+        return _size == 0;
+    }
+
+    /**
+     * Get the time in epoch milliseconds that the next node expires.
+     *
+     * @return  The expiration time or {@link Long#MAX_VALUE} if the heap is empty.
+     */
+    long getNextExpiration() {
+        return _size == 0 ? Long.MAX_VALUE : _heap[0].expires;
+    }
+
+    /**
+     * Add a node to the heap. If the node is already in the heap, its
+     * position is updated to reflect its current expiration time.
+     *
+     * @param node  The node to add.
+     */
+    void add(E node) {
+
+        if (node.heapIndex != -1) {
+            update(node);
+            return;
+        }
+
+        if (_size == _heap.length)
+            _heap = Arrays.copyOf(_heap, _size * 2);
+
+        node.heapIndex = _size;
+        _heap[_size] = node;
+        _size++;
+
+        siftUp(node.heapIndex);
+    }
+
+    /**
+     * Update the position of a node in the heap after its expiration
+     * time is changed.
+     *
+     * @param node  The node to update.
+     */
+    void update(E node) {
+
+        int index = node.heapIndex;
+        if (index == -1)
+            return;
+
+        siftDown(siftUp(index));
+    }
+
+    /**
+     * Remove a node from the heap.
+     *
+     * @param node  The node to remove.
+     *
+     * @return  True if the node was in the heap and removed.
+     */
+    boolean remove(E node) {
+
+        int index = node.heapIndex;
+        if (index == -1)
+            return false;
+
+        removeAt(index);
+        return true;
+    }
+
+    /**
+     * Remove and return the next node if it is expired.
+     *
+     * @param now  The current time in epoch milliseconds.
+     *
+     * @return  The expired node or null if no nodes are expired.
+     */
+    @Nullable
+    E pollExpired(long now) {
+
+        if (_size == 0 || _heap[0].expires > now)
+            return null;
+
+        @SuppressWarnings("unchecked")
+        E node = (E)_heap[0];
+
+        removeAt(0);
+
+        return node;
+    }
+
+    /**
+     * Remove all nodes.
+     */
+    void clear() {
+
+        for (int i = 0; i < _size; i++) {
+            _heap[i].heapIndex = -1;
+            _heap[i] = null;
+        }
+
+        _size = 0;
+    }
+
+    private void removeAt(int index) {
+
+        Node removed = _heap[index];
+        removed.heapIndex = -1;
+
+        _size--;
+
+        if (index == _size) {
+            _heap[index] = null;
+            return;
+        }
+
+        Node last = _heap[_size];
+        _heap[_size] = null;
+
+        _heap[index] = last;
+        last.heapIndex = index;
+
+        siftDown(siftUp(index));
+    }
+
+    private int siftUp(int index) {
+
+        Node node = _heap[index];
+
+        while (index > 0) {
+
+            int parentIndex = (index - 1) >>> 1;
+            Node parent = _heap[parentIndex];
+
+            if (parent.expires <= node.expires)
+                break;
+
+            _heap[index] = parent;
+            parent.heapIndex = index;
+            index = parentIndex;
+        }
+
+        _heap[index] = node;
+        node.heapIndex = index;
+
+        return index;
+    }
+
+    private void siftDown(int index) {
+
+        Node node = _heap[index];
+        int half = _size >>> 1;
+
+        while (index < half) {
+
+            int childIndex = (index << 1) + 1;
+            Node child = _heap[childIndex];
+
+            int rightIndex = childIndex + 1;
+            if (rightIndex < _size && _heap[rightIndex].expires < child.expires) {
+                childIndex = rightIndex;
+                child = _heap[childIndex];
+            }
+
+            if (node.expires <= child.expires)
+                break;
+
+            _heap[index] = child;
+            child.heapIndex = index;
+            index = childIndex;
+        }
+
+        _heap[index] = node;
+        node.heapIndex = index;
+    }
+
+    /**
+     * A node that expires.
+     */
+    abstract static class Node {
+
+        // expiration time in epoch milliseconds
+        long expires;
+
+        // index of the node in the heap, -1 if not in a heap.
+        int heapIndex = -1;
+
+        /**
+         * Set the expiration time using a lifespan that starts now.
+         *
+         * @param lifespan   The lifespan.
+         * @param timeScale  The time scale of the lifespan.
+         */
+        void setLifespan(long lifespan, TimeScale timeScale) {
+            expires = System.currentTimeMillis() + (lifespan * timeScale.getTimeFactor());
+        }
+
+        /**
+         * Determine if the node is expired.
+         */
+        boolean isExpired() {
+            return System.currentTimeMillis() >= expires;
+        }
+    }
+}
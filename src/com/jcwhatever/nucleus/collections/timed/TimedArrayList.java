@@ -69,8 +69,8 @@ import javax.annotation.Nullable;
  * empty will have a varying degree of resolution up to 10 ticks, meaning the subscriber
  * may be notified up to 10 ticks after an element expires (but not before).</p>
  *
- * <p>Getter operations cease to return an element within approximately 50 milliseconds
- * (1 tick) of expiring.</p>
+ * <p>Getter operations cease to return an element as soon as it expires. The list is
+ * only compacted when at least one element has expired.</p>
  *
  * <p>Note that the indexing operations of the list should be used with care or avoided.
  * It is possible to check the size of the list then use an indexing operation and have
@@ -86,10 +86,6 @@ import javax.annotation.Nullable;
  */
 public class TimedArrayList<E> implements List<E>, IPluginOwned {
 
-    // The minimum interval the cleanup is allowed to run at.
-    // Used to prevent cleanup from being run too often.
-    private static final int MIN_CLEANUP_INTERVAL_MS = 50;
-
     // The interval the janitor runs at
     private static final int JANITOR_INTERVAL_TICKS = 10;
 
@@ -107,7 +103,9 @@ public class TimedArrayList<E> implements List<E>, IPluginOwned {
     private final TimeScale _timeScale;
 
     private final transient Object _sync;
-    private transient long _nextCleanup;
+    private final transient ExpiryHeap<Element<E>> _expiryHeap;
+    private final transient List<Element<E>> _expired = new ArrayList<>(10);
+    private transient volatile long _nextExpiration = Long.MAX_VALUE;
 
     private final transient NamedUpdateAgents _agents = new NamedUpdateAgents();
 
@@ -151,6 +149,7 @@ public class TimedArrayList<E> implements List<E>, IPluginOwned {
         _lifespan = defaultTime * timeScale.getTimeFactor();
         _timeScale = timeScale;
         _list = new ArrayList<>(capacity);
+        _expiryHeap = new ExpiryHeap<>(capacity);
         _sync = this;
 
         _elementPool = new SimpleConcurrentPool<Element>(50,
@@ -197,7 +196,9 @@ public class TimedArrayList<E> implements List<E>, IPluginOwned {
         assert nelm != null;
 
         synchronized (_sync) {
-            return _list.add(nelm.asElement(item, lifespan, timeScale));
+            boolean isAdded = _list.add(nelm.asElement(item, lifespan, timeScale));
+            addExpiry(nelm);
+            return isAdded;
         }
     }
 
@@ -235,6 +236,7 @@ public class TimedArrayList<E> implements List<E>, IPluginOwned {
 
         synchronized (_sync) {
             _list.add(index, nelm.asElement(item, lifespan, timeScale));
+            addExpiry(nelm);
         }
     }
 
@@ -309,7 +311,15 @@ public class TimedArrayList<E> implements List<E>, IPluginOwned {
             list.add(nelm.asElement(item, lifespan, timeScale));
         }
         synchronized (_sync) {
-            return _list.addAll(index, list);
+
+            boolean isChanged = _list.addAll(index, list);
+
+            for (Element<E> element : list) {
+                _expiryHeap.add(element);
+            }
+            updateNextExpiration();
+
+            return isChanged;
         }
     }
 
@@ -372,7 +382,7 @@ public class TimedArrayList<E> implements List<E>, IPluginOwned {
     @Override
     public int size() {
         synchronized (_sync) {
-            cleanup();
+            expire();
             return _list.size();
         }
     }
@@ -380,7 +390,7 @@ public class TimedArrayList<E> implements List<E>, IPluginOwned {
     @Override
     public boolean isEmpty() {
         synchronized (_sync) {
-            cleanup();
+            expire();
             return _list.isEmpty();
         }
     }
@@ -417,7 +427,7 @@ public class TimedArrayList<E> implements List<E>, IPluginOwned {
     @Override
     public Object[] toArray() {
         synchronized (_sync) {
-            cleanup();
+            expire();
 
             Object[] array = new Object[_list.size()];
 
@@ -432,7 +442,7 @@ public class TimedArrayList<E> implements List<E>, IPluginOwned {
     @Override
     public <T> T[] toArray(T[] array) {
         synchronized (_sync) {
-            cleanup();
+            expire();
 
             for (int i = 0; i < array.length; i++) {
 
@@ -478,6 +488,9 @@ public class TimedArrayList<E> implements List<E>, IPluginOwned {
     public void clear() {
         synchronized (_sync) {
 
+            _expiryHeap.clear();
+            updateNextExpiration();
+
             for (Element<E> element : _list) {
                 element.recycle();
             }
@@ -505,6 +518,8 @@ public class TimedArrayList<E> implements List<E>, IPluginOwned {
             assert nelm != null;
 
             Element<E> previous = _list.set(index, nelm.asElement(element, _lifespan, TimeScale.MILLISECONDS));
+            addExpiry(nelm);
+
             if (previous == null)
                 return null;
 
@@ -527,7 +542,17 @@ public class TimedArrayList<E> implements List<E>, IPluginOwned {
             assert nelm != null;
 
             //noinspection unchecked
-            return _list.remove(nelm.asMatcher(item));
+            int index = _list.indexOf(nelm.asMatcher(item));
+
+            nelm.recycle();
+
+            if (index == -1)
+                return false;
+
+            _list.remove(index).recycle();
+            updateNextExpiration();
+
+            return true;
         }
     }
 
@@ -537,7 +562,7 @@ public class TimedArrayList<E> implements List<E>, IPluginOwned {
 
         synchronized (_sync) {
 
-            cleanup();
+            expire();
 
             @SuppressWarnings("unchecked")
             Element<E> nelm = (Element<E>)_elementPool.retrieve();
@@ -654,7 +679,13 @@ public class TimedArrayList<E> implements List<E>, IPluginOwned {
                     Element<E> nelm = (Element<E>)_elementPool.retrieve();
                     assert nelm != null;
 
-                    return nelm.asElement(element, _lifespan, _timeScale);
+                    nelm.asElement(element, _lifespan, _timeScale);
+
+                    synchronized (_sync) {
+                        addExpiry(nelm);
+                    }
+
+                    return nelm;
                 }
             };
         }
@@ -678,47 +709,100 @@ public class TimedArrayList<E> implements List<E>, IPluginOwned {
     public boolean retainAll(final Collection<?> c) {
         PreCon.notNull(c);
 
-        return !CollectionUtils.retainAll(_list, new IValidator<Element<E>>() {
-            @Override
-            public boolean isValid(Element<E> element) {
-                return c.contains(element.element);
+        synchronized (_sync) {
+
+            List<Element<E>> removed = CollectionUtils.retainAll(_list, new IValidator<Element<E>>() {
+                @Override
+                public boolean isValid(Element<E> element) {
+                    return c.contains(element.element);
+                }
+            });
+
+            for (Element<E> element : removed) {
+                element.recycle();
             }
-        }).isEmpty();
+
+            updateNextExpiration();
+
+            return !removed.isEmpty();
+        }
     }
 
     private void onLifespanEnd(E item) {
         _agents.update("onLifespanEnd", item);
 
-        if (isEmpty()) {
+        if (_list.isEmpty()) {
             _agents.update("onEmpty", this);
         }
     }
 
-    private void cleanup() {
+    /*
+     * Track the expiration of an element. Must be invoked while synchronized.
+     */
+    private void addExpiry(Element<E> element) {
+        _expiryHeap.add(element);
+        updateNextExpiration();
+    }
 
-        if (_list.isEmpty())
-            return;
+    /*
+     * Remove expired elements. The list is only compacted if
+     * an element has expired.
+     */
+    private void expire() {
+
+        long now = System.currentTimeMillis();
 
-        // prevent cleanup from running too often
-        if (_nextCleanup > System.currentTimeMillis())
+        if (_nextExpiration > now)
             return;
 
-        _nextCleanup = System.currentTimeMillis() + MIN_CLEANUP_INTERVAL_MS;
+        boolean hasExpired = false;
+
+        while (_expiryHeap.pollExpired(now) != null) {
+            hasExpired = true;
+        }
+
+        updateNextExpiration();
+
+        if (!hasExpired)
+            return;
 
         int size = _list.size();
+        int write = 0;
 
-        // remove backwards to reduce the amount of
-        // element shifting
-        for (int i = size - 1; i >= 0; i--) {
+        // compact the list in a single pass
+        for (int read = 0; read < size; read++) {
 
-            Element<E> element = _list.get(i);
+            Element<E> element = _list.get(read);
 
-            if (element.isExpired()) {
-                _list.remove(i);
-                onLifespanEnd(element.element);
-                element.recycle();
+            if (element.expires <= now) {
+                _expired.add(element);
+                continue;
             }
+
+            if (write != read)
+                _list.set(write, element);
+
+            write++;
+        }
+
+        if (write == size)
+            return;
+
+        _list.subList(write, size).clear();
+
+        for (Element<E> element : _expired) {
+            _agents.update("onLifespanEnd", element.element);
+            element.recycle();
         }
+
+        _expired.clear();
+
+        if (_list.isEmpty())
+            _agents.update("onEmpty", this);
+    }
+
+    private void updateNextExpiration() {
+        _nextExpiration = _expiryHeap.getNextExpiration();
     }
 
     private void startJanitor() {
@@ -747,8 +831,12 @@ public class TimedArrayList<E> implements List<E>, IPluginOwned {
                                 continue;
                             }
 
+                            // skip lists without expired elements
+                            if (list._nextExpiration > System.currentTimeMillis())
+                                continue;
+
                             synchronized (list._sync) {
-                                list.cleanup();
+                                list.expire();
                             }
                         }
 
@@ -757,11 +845,10 @@ public class TimedArrayList<E> implements List<E>, IPluginOwned {
                 });
     }
 
-    private final static class Element<T> {
+    private final static class Element<T> extends ExpiryHeap.Node {
 
         TimedArrayList<T> parent;
         T element;
-        long expires;
         Object matcher;
         boolean isRecycled;
 
@@ -771,8 +858,8 @@ public class TimedArrayList<E> implements List<E>, IPluginOwned {
 
         Element<T> asElement(T item, long lifespan, TimeScale timeScale) {
             this.element = item;
-            this.expires = System.currentTimeMillis() + (lifespan * timeScale.getTimeFactor());
             this.matcher = item;
+            setLifespan(lifespan, timeScale);
             this.isRecycled = false;
 
             return this;
@@ -787,10 +874,6 @@ public class TimedArrayList<E> implements List<E>, IPluginOwned {
             return this;
         }
 
-        boolean isExpired() {
-            return System.currentTimeMillis() >= expires;
-        }
-
         void recycle() {
 
             if (this.isRecycled)
@@ -800,6 +883,7 @@ public class TimedArrayList<E> implements List<E>, IPluginOwned {
             this.element = null;
             this.matcher = null;
 
+            parent._expiryHeap.remove(this);
             parent._elementPool.recycle(this);
         }
 
@@ -849,7 +933,13 @@ public class TimedArrayList<E> implements List<E>, IPluginOwned {
             Element<E> nelm = (Element<E>)_elementPool.retrieve();
             assert nelm != null;
 
-            return nelm.asElement(e, _lifespan, _timeScale);
+            nelm.asElement(e, _lifespan, _timeScale);
+
+            synchronized (_sync) {
+                addExpiry(nelm);
+            }
+
+            return nelm;
         }
 
         @Override
@@ -66,8 +66,9 @@ import javax.annotation.Nullable;
  * empty will have a varying degree of resolution up to 10 ticks, meaning the subscriber
  * may be notified up to 10 ticks after an element expires (but not before).</p>
  *
- * <p>Getter operations cease to return an element within approximately 50 milliseconds
- * (1 tick) of expiring.</p>
+ * <p>Getter operations cease to return an element as soon as it expires. Expired
+ * elements are tracked in order of expiration so removing them only costs time for
+ * the elements that have actually expired.</p>
  *
  * <p>Thread Safe.</p>
  *
@@ -76,10 +77,6 @@ import javax.annotation.Nullable;
  */
 public class TimedHashMap<K, V> implements Map<K, V>, IPluginOwned {
 
-    // The minimum interval the cleanup is allowed to run at.
-    // Used to prevent cleanup from being run too often.
-    private static final int MIN_CLEANUP_INTERVAL_MS = 50;
-
     // The interval the janitor runs at
     private static final int JANITOR_INTERVAL_TICKS = 10;
 
@@ -102,7 +99,8 @@ public class TimedHashMap<K, V> implements Map<K, V>, IPluginOwned {
 
     private final transient Object _sync;
     private final transient SyncStrategy _strategy;
-    private transient long _nextCleanup;
+    private final transient ExpiryHeap<DateEntry<K, V>> _expiryHeap;
+    private transient volatile long _nextExpiration = Long.MAX_VALUE;
 
     private final transient NamedUpdateAgents _agents = new NamedUpdateAgents();
     private final transient SimpleConcurrentPool<DateEntry> _entryPool;
@@ -147,6 +145,7 @@ public class TimedHashMap<K, V> implements Map<K, V>, IPluginOwned {
         _lifespan = defaultLifespan * timeScale.getTimeFactor();
         _timeScale = timeScale;
         _map = new HashMap<>(capacity);
+        _expiryHeap = new ExpiryHeap<>(capacity);
         _valuesWrapper = new ValuesWrapper();
         _keySetWrapper = new KeySetWrapper();
         _entrySetWrapper = new EntrySetWrapper();
@@ -202,6 +201,12 @@ public class TimedHashMap<K, V> implements Map<K, V>, IPluginOwned {
             assert entry != null;
 
             previous = _map.put(key, entry.asEntry(key, value, lifespan, timeScale));
+
+            if (previous != null)
+                _expiryHeap.remove(previous);
+
+            _expiryHeap.add(entry);
+            updateNextExpiration();
         }
 
         if (previous == null)
@@ -242,9 +247,16 @@ public class TimedHashMap<K, V> implements Map<K, V>, IPluginOwned {
                 DateEntry<K, V> dateEntry = (DateEntry<K, V>)_entryPool.retrieve();
                 assert dateEntry != null;
 
-                _map.put(entry.getKey(), dateEntry.asEntry(
+                DateEntry<K, V> previous = _map.put(entry.getKey(), dateEntry.asEntry(
                         entry.getKey(), entry.getValue(), lifespan, timeScale));
+
+                if (previous != null)
+                    _expiryHeap.remove(previous);
+
+                _expiryHeap.add(dateEntry);
             }
+
+            updateNextExpiration();
         }
     }
 
@@ -310,6 +322,9 @@ public class TimedHashMap<K, V> implements Map<K, V>, IPluginOwned {
     public void clear() {
         synchronized (_sync) {
 
+            _expiryHeap.clear();
+            updateNextExpiration();
+
             for (Entry<K, DateEntry<K, V>> entry : _map.entrySet()) {
                 entry.getValue().recycle();
             }
@@ -337,7 +352,7 @@ public class TimedHashMap<K, V> implements Map<K, V>, IPluginOwned {
     @Override
     public int size() {
         synchronized (_sync) {
-            cleanup();
+            expire();
             return _map.size();
         }
     }
@@ -345,7 +360,7 @@ public class TimedHashMap<K, V> implements Map<K, V>, IPluginOwned {
     @Override
     public boolean isEmpty() {
         synchronized (_sync) {
-            cleanup();
+            expire();
             return _map.isEmpty();
         }
     }
@@ -366,6 +381,7 @@ public class TimedHashMap<K, V> implements Map<K, V>, IPluginOwned {
                 _map.remove(key);
                 onLifespanEnd(getEntry(entry.key, entry.value));
                 entry.recycle();
+                updateNextExpiration();
                 return false;
             }
 
@@ -378,7 +394,7 @@ public class TimedHashMap<K, V> implements Map<K, V>, IPluginOwned {
         PreCon.notNull(value);
 
         synchronized (_sync) {
-            cleanup();
+            expire();
             return _map.containsValue(value);
         }
     }
@@ -397,6 +413,8 @@ public class TimedHashMap<K, V> implements Map<K, V>, IPluginOwned {
                 //noinspection SuspiciousMethodCalls
                 _map.remove(key);
                 onLifespanEnd(getEntry(entry.key, entry.value));
+                _expiryHeap.remove(entry);
+                updateNextExpiration();
             }
             else {
                 return entry.value;
@@ -435,6 +453,7 @@ public class TimedHashMap<K, V> implements Map<K, V>, IPluginOwned {
 
             V result = value.value;
             value.recycle();
+            updateNextExpiration();
 
             return result;
         }
@@ -450,28 +469,34 @@ public class TimedHashMap<K, V> implements Map<K, V>, IPluginOwned {
             _agents.update("onEmpty", this);
     }
 
-    private void cleanup() {
+    /*
+     * Remove expired entries. Only the expired entries are visited.
+     */
+    private void expire() {
 
-        if (_map.isEmpty())
-            return;
+        long now = System.currentTimeMillis();
 
-        // prevent cleanup from running too often
-        if (_nextCleanup > System.currentTimeMillis())
+        if (_nextExpiration > now)
             return;
 
-        _nextCleanup = System.currentTimeMillis() + MIN_CLEANUP_INTERVAL_MS;
-
-        Iterator<Entry<K, DateEntry<K, V>>> iterator = _map.entrySet().iterator();
+        DateEntry<K, V> entry;
 
-        while (iterator.hasNext()) {
-            Entry<K, DateEntry<K, V>> entry = iterator.next();
+        while ((entry = _expiryHeap.pollExpired(now)) != null) {
 
-            if (entry.getValue().isExpired()) {
-                iterator.remove();
-                onLifespanEnd(getEntry(entry.getKey(), entry.getValue().value));
-                entry.getValue().recycle();
+            // make sure the entry was not removed from the map by a view
+            if (_map.get(entry.key) == entry) {
+                _map.remove(entry.key);
+                onLifespanEnd(getEntry(entry.key, entry.value));
             }
+
+            entry.recycle();
         }
+
+        updateNextExpiration();
+    }
+
+    private void updateNextExpiration() {
+        _nextExpiration = _expiryHeap.getNextExpiration();
     }
 
     private void startJanitor() {
@@ -499,9 +524,12 @@ public class TimedHashMap<K, V> implements Map<K, V>, IPluginOwned {
                                 continue;
                             }
 
-                            // run cleanup
+                            // skip maps without expired entries
+                            if (map._nextExpiration > System.currentTimeMillis())
+                                continue;
+
                             synchronized (map._sync) {
-                                map.cleanup();
+                                map.expire();
                             }
                         }
                     }
@@ -553,17 +581,23 @@ public class TimedHashMap<K, V> implements Map<K, V>, IPluginOwned {
                 DateEntry<K, V> dateEntry = (DateEntry<K, V>)_entryPool.retrieve();
                 assert dateEntry != null;
 
-                return dateEntry.asEntry(key, external, _lifespan, TimeScale.MILLISECONDS);
+                dateEntry.asEntry(key, external, _lifespan, TimeScale.MILLISECONDS);
+
+                synchronized (_sync) {
+                    _expiryHeap.add(dateEntry);
+                    updateNextExpiration();
+                }
+
+                return dateEntry;
             }
         };
     }
 
-    private static final class DateEntry<K, V> {
+    private static final class DateEntry<K, V> extends ExpiryHeap.Node {
 
         TimedHashMap<K, V> parent;
         K key;
         V value;
-        long expires;
         Object match;
         boolean isRecycled;
 
@@ -574,8 +608,8 @@ public class TimedHashMap<K, V> implements Map<K, V>, IPluginOwned {
         DateEntry<K, V> asEntry(K key,V value, long lifespan, TimeScale timeScale) {
             this.key = key;
             this.value = value;
-            this.expires = System.currentTimeMillis() + (lifespan * timeScale.getTimeFactor());
             this.match = value;
+            setLifespan(lifespan, timeScale);
             this.isRecycled = false;
             return this;
         }
@@ -598,13 +632,10 @@ public class TimedHashMap<K, V> implements Map<K, V>, IPluginOwned {
             this.value = null;
             this.match = null;
 
+            parent._expiryHeap.remove(this);
             parent._entryPool.recycle(this);
         }
 
-        boolean isExpired() {
-            return System.currentTimeMillis() >= expires;
-        }
-
         @Override
         public int hashCode() {
             return match != null ? match.hashCode() : 0;
@@ -906,6 +937,7 @@ public class TimedHashMap<K, V> implements Map<K, V>, IPluginOwned {
                             _map.remove(entry.getKey());
                             onLifespanEnd(getEntry(value.key, value.value));
                             value.recycle();
+                            updateNextExpiration();
                             return false;
                         }
 
@@ -62,8 +62,7 @@ import java.util.WeakHashMap;
  * empty will have a varying degree of resolution up to 10 ticks, meaning the subscriber
  * may be notified up to 10 ticks after an element expires (but not before).</p>
  *
- * <p>Getter operations cease to return an element within approximately 50 milliseconds
- * (1 tick) of expiring.</p>
+ * <p>Getter operations cease to return an element as soon as it expires.</p>
  *
  * <p>Thread safe.</p>
  *
@@ -72,10 +71,6 @@ import java.util.WeakHashMap;
  */
 public class TimedHashSet<E> implements Set<E>, IPluginOwned {
 
-    // The minimum interval the cleanup is allowed to run at.
-    // Used to prevent cleanup from being run too often.
-    private static final int MIN_CLEANUP_INTERVAL_MS = 50;
-
     // The interval the janitor runs at
     private static final int JANITOR_INTERVAL_TICKS = 10;
 
@@ -93,10 +88,10 @@ public class TimedHashSet<E> implements Set<E>, IPluginOwned {
     private final TimeScale _timeScale;
 
     private final transient Object _sync;
-    private transient long _nextCleanup;
+    private final transient ExpiryHeap<ExpireInfo> _expiryHeap;
+    private transient volatile long _nextExpiration = Long.MAX_VALUE;
 
     private final transient NamedUpdateAgents _agents = new NamedUpdateAgents();
-    private final transient List<Entry<E, ExpireInfo>> _cleanupList = new ArrayList<>(20);
 
     private final transient SimpleConcurrentPool<ExpireInfo> _expirePool;
 
@@ -149,6 +144,7 @@ public class TimedHashSet<E> implements Set<E>, IPluginOwned {
         _lifespan = defaultLifespan * timeScale.getTimeFactor();
         _timeScale = timeScale;
         _expireMap = new HashMap<>(capacity);
+        _expiryHeap = new ExpiryHeap<>(capacity);
 
         _expirePool = new SimpleConcurrentPool<ExpireInfo>(capacity,
                 new IPoolElementFactory<ExpireInfo>() {
@@ -199,14 +195,14 @@ public class TimedHashSet<E> implements Set<E>, IPluginOwned {
             if (info.isExpired()) {
                 _expireMap.remove(item);
                 onLifespanEnd(item);
-                _expirePool.recycle(info);
+                recycle(info);
+                updateNextExpiration();
                 return false;
             }
 
-            ExpireInfo expireInfo = _expirePool.retrieve();
-            assert expireInfo != null;
-
-            _expireMap.put(item, expireInfo.set(lifespan, timeScale));
+            info.setLifespan(lifespan, timeScale);
+            _expiryHeap.update(info);
+            updateNextExpiration();
 
             return true;
         }
@@ -248,11 +244,8 @@ public class TimedHashSet<E> implements Set<E>, IPluginOwned {
         PreCon.notNull(timeScale);
 
         synchronized (_sync) {
-
-            ExpireInfo expireInfo = _expirePool.retrieve();
-            assert expireInfo != null;
-
-            _expireMap.put(item, expireInfo.set(lifespan, timeScale));
+            put(item, lifespan, timeScale);
+            updateNextExpiration();
             return true;
         }
     }
@@ -292,12 +285,9 @@ public class TimedHashSet<E> implements Set<E>, IPluginOwned {
 
         synchronized (_sync) {
             for (E item : collection) {
-
-                ExpireInfo expireInfo = _expirePool.retrieve();
-                assert expireInfo != null;
-
-                _expireMap.put(item, expireInfo.set(lifespan, timeScale));
+                put(item, lifespan, timeScale);
             }
+            updateNextExpiration();
         }
 
         return true;
@@ -364,7 +354,7 @@ public class TimedHashSet<E> implements Set<E>, IPluginOwned {
     @Override
     public int size() {
         synchronized (_sync) {
-            cleanup();
+            expire();
             return _expireMap.size();
         }
     }
@@ -372,7 +362,7 @@ public class TimedHashSet<E> implements Set<E>, IPluginOwned {
     @Override
     public boolean isEmpty() {
         synchronized (_sync) {
-            cleanup();
+            expire();
             return _expireMap.isEmpty();
         }
     }
@@ -391,7 +381,8 @@ public class TimedHashSet<E> implements Set<E>, IPluginOwned {
             if (info.isExpired()) {
                 //noinspection SuspiciousMethodCalls
                 _expireMap.remove(o);
-                _expirePool.recycle(info);
+                recycle(info);
+                updateNextExpiration();
                 return false;
             }
 
@@ -407,7 +398,7 @@ public class TimedHashSet<E> implements Set<E>, IPluginOwned {
     @Override
     public Object[] toArray() {
         synchronized (_sync) {
-            cleanup();
+            expire();
             return _expireMap.keySet().toArray();
         }
     }
@@ -417,7 +408,7 @@ public class TimedHashSet<E> implements Set<E>, IPluginOwned {
         PreCon.notNull(a);
 
         synchronized (_sync) {
-            cleanup();
+            expire();
             //noinspection SuspiciousToArrayCall
             return _expireMap.keySet().toArray(a);
         }
@@ -441,17 +432,37 @@ public class TimedHashSet<E> implements Set<E>, IPluginOwned {
     public boolean retainAll(Collection<?> c) {
         PreCon.notNull(c);
 
+        boolean isChanged = false;
+
         synchronized (_sync) {
-            return _expireMap.keySet().retainAll(c);
+
+            Iterator<Entry<E, ExpireInfo>> iterator = _expireMap.entrySet().iterator();
+
+            while (iterator.hasNext()) {
+                Entry<E, ExpireInfo> entry = iterator.next();
+
+                if (!c.contains(entry.getKey())) {
+                    iterator.remove();
+                    recycle(entry.getValue());
+                    isChanged = true;
+                }
+            }
+
+            updateNextExpiration();
         }
+
+        return isChanged;
     }
 
     @Override
     public void clear() {
         synchronized (_sync) {
 
+            _expiryHeap.clear();
+            updateNextExpiration();
+
             for (Entry<E, ExpireInfo> entry : _expireMap.entrySet()) {
-                _expirePool.recycle(entry.getValue());
+                recycle(entry.getValue());
             }
 
             _expireMap.clear();
@@ -467,13 +478,13 @@ public class TimedHashSet<E> implements Set<E>, IPluginOwned {
             if (info == null)
                 return false;
 
-            if (info.isExpired()) {
-                _expirePool.recycle(info);
-                return false;
-            }
-        }
+            boolean isExpired = info.isExpired();
 
-        return true;
+            recycle(info);
+            updateNextExpiration();
+
+            return !isExpired;
+        }
     }
 
     @Override
@@ -481,7 +492,7 @@ public class TimedHashSet<E> implements Set<E>, IPluginOwned {
         PreCon.notNull(c);
 
         synchronized (_sync) {
-            cleanup();
+            expire();
             return _expireMap.keySet().containsAll(c);
         }
     }
@@ -502,9 +513,11 @@ public class TimedHashSet<E> implements Set<E>, IPluginOwned {
                 if (!info.isExpired())
                     isChanged = true;
 
-                _expirePool.recycle(info);
+                recycle(info);
             }
 
+            updateNextExpiration();
+
             return isChanged;
         }
     }
@@ -518,29 +531,60 @@ public class TimedHashSet<E> implements Set<E>, IPluginOwned {
         }
     }
 
-    private void cleanup() {
+    /*
+     * Add or update an item. Must be invoked while synchronized.
+     */
+    private void put(E item, long lifespan, TimeScale timeScale) {
+
+        ExpireInfo info = _expireMap.get(item);
+        if (info == null) {
+            info = _expirePool.retrieve();
+            assert info != null;
 
-        if (_expireMap.isEmpty())
-            return;
+            info.item = item;
+            _expireMap.put(item, info);
+        }
+
+        info.setLifespan(lifespan, timeScale);
+        _expiryHeap.add(info);
+    }
 
-        // prevent cleanup from running too often
-        if (_nextCleanup > System.currentTimeMillis())
+    /*
+     * Remove expired items. Only the expired items are visited.
+     */
+    private void expire() {
+
+        long now = System.currentTimeMillis();
+
+        if (_nextExpiration > now)
             return;
 
-        _nextCleanup = System.currentTimeMillis() + MIN_CLEANUP_INTERVAL_MS;
+        ExpireInfo info;
 
-        _cleanupList.addAll(_expireMap.entrySet());
+        while ((info = _expiryHeap.pollExpired(now)) != null) {
 
-        for (Entry<E, ExpireInfo> entry : _cleanupList) {
-            if (!entry.getValue().isExpired())
-                continue;
+            @SuppressWarnings("unchecked")
+            E item = (E)info.item;
 
-            _expireMap.remove(entry.getKey());
-            onLifespanEnd(entry.getKey());
-            _expirePool.recycle(entry.getValue());
+            if (_expireMap.get(item) == info) {
+                _expireMap.remove(item);
+                onLifespanEnd(item);
+            }
+
+            recycle(info);
         }
 
-        _cleanupList.clear();
+        updateNextExpiration();
+    }
+
+    private void updateNextExpiration() {
+        _nextExpiration = _expiryHeap.getNextExpiration();
+    }
+
+    private void recycle(ExpireInfo info) {
+        _expiryHeap.remove(info);
+        info.item = null;
+        _expirePool.recycle(info);
     }
 
     private void startJanitor() {
@@ -576,9 +620,12 @@ public class TimedHashSet<E> implements Set<E>, IPluginOwned {
                                 continue;
                             }
 
-                            // cleanup instance
+                            // skip sets without expired items
+                            if (set._nextExpiration > System.currentTimeMillis())
+                                continue;
+
                             synchronized (set._sync) {
-                                set.cleanup();
+                                set.expire();
                             }
                         }
 
@@ -588,18 +635,9 @@ public class TimedHashSet<E> implements Set<E>, IPluginOwned {
                 });
     }
 
-    private static final class ExpireInfo {
-
-        long expires;
-
-        ExpireInfo set(long lifespan, TimeScale timeScale) {
-            expires = System.currentTimeMillis() + (lifespan * timeScale.getTimeFactor());
-            return this;
-        }
+    private static final class ExpireInfo extends ExpiryHeap.Node {
 
-        boolean isExpired() {
-            return System.currentTimeMillis() >= expires;
-        }
+        Object item;
     }
 
     private final class Itr implements Iterator<E> {
@@ -608,6 +646,7 @@ public class TimedHashSet<E> implements Set<E>, IPluginOwned {
                 = _expireMap.entrySet().iterator();
 
         Entry<E, ExpireInfo> peek;
+        Entry<E, ExpireInfo> current;
         boolean invokedHasNext;
         boolean invokedNext;
 
@@ -626,6 +665,8 @@ public class TimedHashSet<E> implements Set<E>, IPluginOwned {
 
                 if (peek.getValue().isExpired()) {
                     iterator.remove();
+                    recycle(peek.getValue());
+                    peek = null;
                 }
                 else {
                     return true;
@@ -653,9 +694,9 @@ public class TimedHashSet<E> implements Set<E>, IPluginOwned {
             if (peek == null)
                 throw new NoSuchElementException();
 
-            Entry<E, ExpireInfo> n = peek;
+            current = peek;
             peek = null;
-            return n.getKey();
+            return current.getKey();
         }
 
         @Override
@@ -666,7 +707,10 @@ public class TimedHashSet<E> implements Set<E>, IPluginOwned {
             if (!invokedNext)
                 throw new IllegalStateException("Cannot invoke 'remove' before invoking 'next'");
 
+            invokedNext = false;
+
             iterator.remove();
+            recycle(current.getValue());
         }
     }
 }
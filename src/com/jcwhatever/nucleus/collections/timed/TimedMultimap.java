@@ -67,8 +67,7 @@ import javax.annotation.Nullable;
  * empty will have a varying degree of resolution up to 10 ticks, meaning the subscriber
  * may be notified up to 10 ticks after an element expires (but not before).</p>
  *
- * <p>Getter operations cease to return an element within approximately 50 milliseconds
- * (1 tick) of expiring.</p>
+ * <p>Getter operations cease to return an element as soon as it expires.</p>
  *
  * <p>Thread safe.</p>
  *
@@ -77,10 +76,6 @@ import javax.annotation.Nullable;
  */
 public abstract class TimedMultimap<K, V> implements Multimap<K, V>, IPluginOwned {
 
-    // The minimum interval the cleanup is allowed to run at.
-    // Used to prevent cleanup from being run too often.
-    private static final int MIN_CLEANUP_INTERVAL_MS = 50;
-
     // The interval the janitor runs at
     private static final int JANITOR_INTERVAL_TICKS = 10;
 
@@ -105,10 +100,10 @@ public abstract class TimedMultimap<K, V> implements Multimap<K, V>, IPluginOwne
 
     private final transient Object _sync;
     private final transient SyncStrategy _strategy;
-    private transient long _nextCleanup;
+    private final transient ExpiryHeap<ExpireInfo<K>> _expiryHeap = new ExpiryHeap<>(10);
+    private transient volatile long _nextExpiration = Long.MAX_VALUE;
 
     private final transient NamedUpdateAgents _agents = new NamedUpdateAgents();
-    private final transient List<Map.Entry<K, ExpireInfo<K>>> _cleanupList = new ArrayList<>(20);
 
     private final transient SimpleConcurrentPool<ExpireInfo> _expirePool;
 
@@ -190,13 +185,7 @@ public abstract class TimedMultimap<K, V> implements Multimap<K, V>, IPluginOwne
         synchronized (_sync) {
 
             if (_map.put(key, value)) {
-
-                @SuppressWarnings("unchecked")
-                ExpireInfo<K> expireInfo = (ExpireInfo<K>)_expirePool.retrieve();
-                assert expireInfo != null;
-
-                _expireMap.put(key, expireInfo.set(key, lifespan, timeScale));
-
+                setExpiration(key, lifespan, timeScale);
                 return true;
             }
             return false;
@@ -300,14 +289,16 @@ public abstract class TimedMultimap<K, V> implements Multimap<K, V>, IPluginOwne
 
     @Override
     public void clear() {
-        _map.clear();
-        _expireMap.clear();
+        synchronized (_sync) {
+            _map.clear();
+            clearExpirations();
+        }
     }
 
     @Override
     public int size() {
         synchronized (_sync) {
-            cleanup();
+            expire();
             return _map.size();
         }
     }
@@ -315,7 +306,7 @@ public abstract class TimedMultimap<K, V> implements Multimap<K, V>, IPluginOwne
     @Override
     public boolean isEmpty() {
         synchronized (_sync) {
-            cleanup();
+            expire();
             return _map.isEmpty();
         }
     }
@@ -334,7 +325,7 @@ public abstract class TimedMultimap<K, V> implements Multimap<K, V>, IPluginOwne
     public boolean containsValue(@Nullable Object value) {
 
         synchronized (_sync) {
-            cleanup();
+            expire();
             return _map.containsValue(value);
         }
     }
@@ -343,7 +334,7 @@ public abstract class TimedMultimap<K, V> implements Multimap<K, V>, IPluginOwne
     public boolean containsEntry(@Nullable Object o, @Nullable Object o1) {
 
         synchronized (_sync) {
-            cleanup();
+            expire();
             return _map.containsEntry(o, o1);
         }
     }
@@ -412,26 +403,25 @@ public abstract class TimedMultimap<K, V> implements Multimap<K, V>, IPluginOwne
     public Collection<V> replaceValues(@Nullable K k, Iterable<? extends V> iterable) {
         synchronized (_sync) {
             Collection<V> result = _map.replaceValues(k, iterable);
-
-            @SuppressWarnings("unchecked")
-            ExpireInfo<K> expireInfo = (ExpireInfo<K>)_expirePool.retrieve();
-            assert expireInfo != null;
-
-            _expireMap.put(k, expireInfo.set(k, _lifespan, TimeScale.MILLISECONDS));
+            setExpiration(k, _lifespan, TimeScale.MILLISECONDS);
             return result;
         }
     }
 
     @Override
     public Collection<V> removeAll(@Nullable Object o) {
-        Collection<V> result = _map.removeAll(o);
+        synchronized (_sync) {
+            Collection<V> result = _map.removeAll(o);
 
-        //noinspection unchecked,SuspiciousMethodCalls
-        ExpireInfo<K> expireInfo = _expireMap.remove(o);
-        if (expireInfo != null)
-            expireInfo.recycle();
+            //noinspection unchecked,SuspiciousMethodCalls
+            ExpireInfo<K> expireInfo = _expireMap.remove(o);
+            if (expireInfo != null) {
+                expireInfo.recycle();
+                updateNextExpiration();
+            }
 
-        return result;
+            return result;
+        }
     }
 
     @Override
@@ -461,7 +451,7 @@ public abstract class TimedMultimap<K, V> implements Multimap<K, V>, IPluginOwne
 
         _agents.update("onLifespanEnd", getEntry(key, values));
 
-        if (isEmpty()) {
+        if (_map.isEmpty()) {
             _agents.update("onEmpty", this);
         }
     }
@@ -483,6 +473,7 @@ public abstract class TimedMultimap<K, V> implements Multimap<K, V>, IPluginOwne
             onLifespanEnd(info.key, collection);
 
             info.recycle();
+            updateNextExpiration();
 
             return true;
         }
@@ -490,37 +481,76 @@ public abstract class TimedMultimap<K, V> implements Multimap<K, V>, IPluginOwne
         return false;
     }
 
-    private void cleanup() {
+    /*
+     * Set the expiration of a key. Must be invoked while synchronized.
+     */
+    private void setExpiration(K key, long lifespan, TimeScale timeScale) {
 
-        if (_expireMap.isEmpty())
-            return;
+        ExpireInfo<K> info = _expireMap.get(key);
+        if (info == null) {
+
+            @SuppressWarnings("unchecked")
+            ExpireInfo<K> expireInfo = (ExpireInfo<K>)_expirePool.retrieve();
+            assert expireInfo != null;
+
+            info = expireInfo;
+            _expireMap.put(key, info);
+        }
+
+        info.set(key, lifespan, timeScale);
+        _expiryHeap.add(info);
+        updateNextExpiration();
+    }
+
+    /*
+     * Remove all key expirations. Must be invoked while synchronized.
+     */
+    private void clearExpirations() {
+
+        _expiryHeap.clear();
+        updateNextExpiration();
 
-        // prevent cleanup from running too often
-        if (_nextCleanup > System.currentTimeMillis())
+        for (ExpireInfo info : _expireMap.values()) {
+            info.recycle();
+        }
+
+        _expireMap.clear();
+    }
+
+    /*
+     * Remove expired keys. Only the expired keys are visited.
+     */
+    private void expire() {
+
+        long now = System.currentTimeMillis();
+
+        if (_nextExpiration > now)
             return;
 
-        _nextCleanup = System.currentTimeMillis() + MIN_CLEANUP_INTERVAL_MS;
+        ExpireInfo<K> info;
 
-        _cleanupList.addAll(_expireMap.entrySet());
+        while ((info = _expiryHeap.pollExpired(now)) != null) {
 
-        // iterate over entry set for items to remove
-        for (Map.Entry<K, ExpireInfo<K>> entry : _cleanupList) {
+            K key = info.key;
 
-            // check if entry is expired
-            if (!entry.getValue().isExpired())
-                continue;
+            if (_expireMap.get(key) == info) {
 
-            _expireMap.remove(entry.getKey());
+                _expireMap.remove(key);
 
-            Collection<V> removed = _map.removeAll(entry.getKey());
+                Collection<V> removed = _map.removeAll(key);
 
-            // notify subscribers
-            onLifespanEnd(entry.getKey(), removed);
+                // notify subscribers
+                onLifespanEnd(key, removed);
+            }
 
-            entry.getValue().recycle();
+            info.recycle();
         }
 
-        _cleanupList.clear();
+        updateNextExpiration();
+    }
+
+    private void updateNextExpiration() {
+        _nextExpiration = _expiryHeap.getNextExpiration();
     }
 
     private Entry<K, Collection<V>> getEntry(final K key, final Collection<V> values) {
@@ -578,8 +608,12 @@ public abstract class TimedMultimap<K, V> implements Multimap<K, V>, IPluginOwne
                                     continue;
                                 }
 
+                                // skip maps without expired keys
+                                if (map._nextExpiration > System.currentTimeMillis())
+                                    continue;
+
                                 synchronized (map._sync) {
-                                    map.cleanup();
+                                    map.expire();
                                 }
                             }
 
@@ -589,11 +623,10 @@ public abstract class TimedMultimap<K, V> implements Multimap<K, V>, IPluginOwne
         }
     }
 
-    private static final class ExpireInfo<K> {
+    private static final class ExpireInfo<K> extends ExpiryHeap.Node {
 
         TimedMultimap<K, ?> parent;
         K key;
-        long expires;
         boolean isRecycled;
 
         ExpireInfo(TimedMultimap<K, ?> parent) {
@@ -602,8 +635,8 @@ public abstract class TimedMultimap<K, V> implements Multimap<K, V>, IPluginOwne
 
         ExpireInfo<K> set(K key, long lifespan, TimeScale timeScale) {
             this.key = key;
-            this.expires = System.currentTimeMillis() + (lifespan * timeScale.getTimeFactor());
             this.isRecycled = false;
+            setLifespan(lifespan, timeScale);
             return this;
         }
 
@@ -613,11 +646,10 @@ public abstract class TimedMultimap<K, V> implements Multimap<K, V>, IPluginOwne
 
             this.isRecycled = true;
             this.key = null;
-            this.parent._expirePool.recycle(this);
-        }
 
-        boolean isExpired() {
-            return System.currentTimeMillis() >= expires;
+            //noinspection unchecked
+            ((ExpiryHeap)this.parent._expiryHeap).remove(this);
+            this.parent._expirePool.recycle(this);
         }
     }
 
@@ -637,20 +669,17 @@ public abstract class TimedMultimap<K, V> implements Multimap<K, V>, IPluginOwne
             synchronized (TimedMultimap.this._sync) {
                 //noinspection SuspiciousMethodCalls
                 ExpireInfo<K> info = _expireMap.remove(o);
-                if (info != null)
+                if (info != null) {
                     info.recycle();
+                    updateNextExpiration();
+                }
             }
         }
 
         @Override
         protected void onClear(Collection<K> values) {
             synchronized (TimedMultimap.this._sync) {
-
-                for (ExpireInfo info : _expireMap.values()) {
-                    info.recycle();
-                }
-
-                _expireMap.clear();
+                clearExpirations();
             }
         }
 
@@ -696,13 +725,7 @@ public abstract class TimedMultimap<K, V> implements Multimap<K, V>, IPluginOwne
         @Override
         protected void onAdded(Entry<K, V> entry) {
             synchronized (TimedMultimap.this._sync) {
-
-                @SuppressWarnings("unchecked")
-                ExpireInfo<K> expireInfo = (ExpireInfo<K>)_expirePool.retrieve();
-                assert expireInfo != null;
-
-                _expireMap.put(entry.getKey(),
-                        expireInfo.set(entry.getKey(), _lifespan, TimeScale.MILLISECONDS));
+                setExpiration(entry.getKey(), _lifespan, TimeScale.MILLISECONDS);
             }
         }
 
@@ -714,12 +737,7 @@ public abstract class TimedMultimap<K, V> implements Multimap<K, V>, IPluginOwne
         @Override
         protected void onClear(Collection<Entry<K, V>> values) {
             synchronized (TimedMultimap.this._sync) {
-
-                for (ExpireInfo<K> info : _expireMap.values()) {
-                    info.recycle();
-                }
-
-                _expireMap.clear();
+                clearExpirations();
             }
         }
 
@@ -182,10 +182,16 @@ import org.bukkit.event.world.WorldUnloadEvent;
 import org.bukkit.plugin.EventExecutor;
 import org.bukkit.plugin.Plugin;
 
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.WeakHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Used to forward Bukkit events.
@@ -197,37 +203,226 @@ import java.util.WeakHashMap;
  * another event manager instance that is used in a context that might be
  * interested in the event.</p>
  *
+ * <p>Forwarders also receive the globally forwarded events. A global event type is
+ * only forwarded while there is demand for it. The Bukkit executor for the event
+ * type is registered when demand starts and unregistered when it ends.</p>
+ *
+ * <p>Each {@link EventManager} with a subscriber for a global event type is demand
+ * for that type. Each forwarder that is not disposed is demand for all global event
+ * types unless it is constructed with {@code isGlobalDemand} set to false.</p>
+ *
  * <p>If you need to unregister the forwarder, invoke the {@link #dispose} method.</p>
  */
 public abstract class BukkitEventForwarder implements IPluginOwned, IDisposable {
 
-    private static final Listener GLOBAL_DUMMY_LISTENER = new Listener() {};
     private static final ElementCounter<Class<? extends Event>> ALL_REGISTERED =
             new ElementCounter<Class<? extends Event>>(ElementCounter.RemovalPolicy.REMOVE);
-    private static final Set<Class<? extends Event>> GLOBAL_REGISTERED = new HashSet<>(35);
 
-    private static final Map<Forwarder, Void> FORWARDERS = new WeakHashMap<>(35);
-    private static final EventExecutor GLOBAL_EXECUTOR = new EventExecutor() {
-        @Override
-        public void execute(Listener listener, Event event) throws EventException {
-            for (Forwarder forwarder : FORWARDERS.keySet()) {
-                forwarder.on(event);
-            }
+    // event types that can be globally forwarded
+    private static final Map<Class<? extends Event>, GlobalEvent> GLOBAL_EVENTS = new HashMap<>(200);
 
-        }
-    };
+    // number of event managers with subscribers for each event type
+    private static final ElementCounter<Class<? extends Event>> GLOBAL_DEMAND =
+            new ElementCounter<Class<? extends Event>>(ElementCounter.RemovalPolicy.REMOVE);
+
+    // forwarders that are not disposed. A forwarder that is never disposed can still be garbage collected.
+    private static final Map<Forwarder, Void> FORWARDERS = new WeakHashMap<>(35);
     private static boolean _isInitialized;
 
+    // copy of the forwarders, replaced on write so events can be forwarded without locking.
+    private static volatile List<WeakReference<Forwarder>> _forwarders = Collections.emptyList();
+
+    // copy of the global event types, replaced on write so it can be read without locking.
+    private static volatile Set<Class<? extends Event>> _globalEventTypes = Collections.emptySet();
+
+    // number of forwarders that are demand for all global event types
+    private static int _forwarderDemand;
+
+    /**
+     * Register an event type that can be globally forwarded.
+     *
+     * <p>The event is forwarded while there is an {@link EventManager}
+     * subscriber for the event type or a forwarder that is global demand.</p>
+     *
+     * @param plugin  The plugin used to register the Bukkit executor.
+     * @param event   The event type.
+     */
     public static void registerGlobal(Plugin plugin, Class<? extends Event> event) {
+        PreCon.notNull(plugin);
         PreCon.notNull(event);
 
-        if (GLOBAL_REGISTERED.contains(event))
-            return;
+        synchronized (GLOBAL_EVENTS) {
+
+            if (GLOBAL_EVENTS.containsKey(event))
+                return;
+
+            GlobalEvent globalEvent = new GlobalEvent(plugin, event);
+            GLOBAL_EVENTS.put(event, globalEvent);
+
+            Set<Class<? extends Event>> types = new HashSet<>(_globalEventTypes);
+            types.add(event);
+            _globalEventTypes = types;
+
+            if (_forwarderDemand > 0 || GLOBAL_DEMAND.contains(event))
+                globalEvent.register();
+        }
+    }
+
+    /**
+     * Determine if a Bukkit executor is currently registered to
+     * globally forward an event type.
+     *
+     * @param event  The event type.
+     */
+    public static boolean isForwarding(Class<? extends Event> event) {
+        PreCon.notNull(event);
 
-        GLOBAL_REGISTERED.add(event);
-        ALL_REGISTERED.add(event);
-        Bukkit.getPluginManager().registerEvent(event, GLOBAL_DUMMY_LISTENER,
-                EventPriority.HIGHEST, GLOBAL_EXECUTOR, plugin, false);
+        synchronized (GLOBAL_EVENTS) {
+            GlobalEvent globalEvent = GLOBAL_EVENTS.get(event);
+            return globalEvent != null && globalEvent.isRegistered();
+        }
+    }
+
+    /**
+     * Get the number of times an event type was globally forwarded.
+     *
+     * @param event  The event type.
+     */
+    public static long getForwardedCount(Class<? extends Event> event) {
+        PreCon.notNull(event);
+
+        synchronized (GLOBAL_EVENTS) {
+            GlobalEvent globalEvent = GLOBAL_EVENTS.get(event);
+            return globalEvent != null ? globalEvent.forwarded.get() : 0;
+        }
+    }
+
+    /**
+     * Get the number of times each event type was globally forwarded.
+     *
+     * <p>Event types that have not been forwarded are not included.</p>
+     */
+    public static Map<Class<? extends Event>, Long> getForwardedCounts() {
+
+        synchronized (GLOBAL_EVENTS) {
+
+            Map<Class<? extends Event>, Long> result = new HashMap<>(GLOBAL_EVENTS.size());
+
+            for (GlobalEvent globalEvent : GLOBAL_EVENTS.values()) {
+                long count = globalEvent.forwarded.get();
+                if (count > 0)
+                    result.put(globalEvent.event, count);
+            }
+
+            return result;
+        }
+    }
+
+    /**
+     * Invoked by {@link EventManager} when it has its first subscriber
+     * for an event type.
+     */
+    static void addGlobalDemand(Class<? extends Event> event) {
+
+        synchronized (GLOBAL_EVENTS) {
+
+            if (GLOBAL_DEMAND.add(event) != 1)
+                return;
+
+            GlobalEvent globalEvent = GLOBAL_EVENTS.get(event);
+            if (globalEvent != null)
+                globalEvent.register();
+        }
+    }
+
+    /**
+     * Invoked by {@link EventManager} when it no longer has any subscribers
+     * for an event type.
+     */
+    static void removeGlobalDemand(Class<? extends Event> event) {
+
+        synchronized (GLOBAL_EVENTS) {
+
+            if (GLOBAL_DEMAND.subtract(event) != 0 || _forwarderDemand > 0)
+                return;
+
+            GlobalEvent globalEvent = GLOBAL_EVENTS.get(event);
+            if (globalEvent != null)
+                globalEvent.unregister();
+        }
+    }
+
+    /*
+     * Add a forwarder that global events are forwarded to.
+     */
+    private static void addForwarder(Forwarder forwarder) {
+
+        synchronized (FORWARDERS) {
+            FORWARDERS.put(forwarder, null);
+            updateForwarders();
+        }
+    }
+
+    /*
+     * Remove a forwarder that global events are forwarded to.
+     */
+    private static void removeForwarder(Forwarder forwarder) {
+
+        synchronized (FORWARDERS) {
+            FORWARDERS.remove(forwarder);
+            updateForwarders();
+        }
+    }
+
+    /*
+     * Replace the copy of the forwarders. Requires the FORWARDERS lock.
+     */
+    private static void updateForwarders() {
+
+        List<WeakReference<Forwarder>> forwarders = new ArrayList<>(FORWARDERS.size());
+
+        for (Forwarder forwarder : FORWARDERS.keySet()) {
+            forwarders.add(new WeakReference<>(forwarder));
+        }
+
+        _forwarders = forwarders;
+    }
+
+    /*
+     * Invoked when a forwarder that is global demand is constructed.
+     */
+    private static void addForwarderDemand() {
+
+        synchronized (GLOBAL_EVENTS) {
+
+            _forwarderDemand++;
+
+            if (_forwarderDemand != 1)
+                return;
+
+            for (GlobalEvent globalEvent : GLOBAL_EVENTS.values()) {
+                globalEvent.register();
+            }
+        }
+    }
+
+    /*
+     * Invoked when a forwarder that is global demand is disposed.
+     */
+    private static void removeForwarderDemand() {
+
+        synchronized (GLOBAL_EVENTS) {
+
+            _forwarderDemand--;
+
+            if (_forwarderDemand != 0)
+                return;
+
+            for (GlobalEvent globalEvent : GLOBAL_EVENTS.values()) {
+                if (!GLOBAL_DEMAND.contains(globalEvent.event))
+                    globalEvent.unregister();
+            }
+        }
     }
 
     public static void init() {
@@ -398,6 +593,7 @@ public abstract class BukkitEventForwarder implements IPluginOwned, IDisposable
     private final Plugin _plugin;
     private final Forwarder _forwarder;
     private final EventPriority _priority;
+    private final boolean _isGlobalDemand;
     private final Listener _dummyListener = new Listener() {};
     private final Set<Class<? extends Event>> _registered = new HashSet<>(35);
     private final EventExecutor _executor = new EventExecutor() {
@@ -407,22 +603,41 @@ public abstract class BukkitEventForwarder implements IPluginOwned, IDisposable
         }
     };
 
-    private boolean _isDisposed;
+    private volatile boolean _isDisposed;
 
     /**
      * Constructor.
      *
+     * <p>The forwarder keeps all global event types forwarded until it is disposed.</p>
+     *
      * @param plugin        The owning plugin.
      * @param priority      The priority of the forwarded events.
      */
     public BukkitEventForwarder(Plugin plugin, EventPriority priority) {
+        this(plugin, priority, true);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param plugin          The owning plugin.
+     * @param priority        The priority of the forwarded events.
+     * @param isGlobalDemand  True to keep all global event types forwarded until the
+     *                        forwarder is disposed. False to only receive the global
+     *                        events that are forwarded because of other demand.
+     */
+    protected BukkitEventForwarder(Plugin plugin, EventPriority priority, boolean isGlobalDemand) {
         PreCon.notNull(plugin);
         PreCon.notNull(priority);
 
         _plugin = plugin;
         _priority = priority;
+        _isGlobalDemand = isGlobalDemand;
         _forwarder = new Forwarder();
-        FORWARDERS.put(_forwarder, null);
+        addForwarder(_forwarder);
+
+        if (isGlobalDemand)
+            addForwarderDemand();
     }
 
     /**
@@ -454,10 +669,17 @@ public abstract class BukkitEventForwarder implements IPluginOwned, IDisposable
     @Override
     public void dispose() {
 
+        if (_isDisposed)
+            return;
+
         _isDisposed = true;
 
         HandlerList.unregisterAll(_dummyListener);
         ALL_REGISTERED.subtractAll(_registered);
+        removeForwarder(_forwarder);
+
+        if (_isGlobalDemand)
+            removeForwarderDemand();
     }
 
     /**
@@ -525,7 +747,8 @@ public abstract class BukkitEventForwarder implements IPluginOwned, IDisposable
 
         public void on(Object e) {
 
-            if (!(e instanceof Event))
+            // the forwarder may be disposed while an event is forwarded
+            if (_isDisposed || !(e instanceof Event))
                 return;
 
             Event event = (Event) e;
@@ -553,6 +776,68 @@ public abstract class BukkitEventForwarder implements IPluginOwned, IDisposable
         }
     }
 
+    /*
+     * An event type that can be globally forwarded.
+     */
+    private static class GlobalEvent implements EventExecutor {
+
+        final Plugin plugin;
+        final Class<? extends Event> event;
+        final AtomicLong forwarded = new AtomicLong();
+
+        // dummy listener used to register the executor, null if not registered.
+        Listener listener;
+
+        GlobalEvent(Plugin plugin, Class<? extends Event> event) {
+            this.plugin = plugin;
+            this.event = event;
+        }
+
+        boolean isRegistered() {
+            return listener != null;
+        }
+
+        void register() {
+            if (listener != null)
+                return;
+
+            listener = new Listener() {};
+            Bukkit.getPluginManager().registerEvent(event, listener,
+                    EventPriority.HIGHEST, this, plugin, false);
+            ALL_REGISTERED.add(event);
+        }
+
+        void unregister() {
+            if (listener == null)
+                return;
+
+            HandlerList.unregisterAll(listener);
+            ALL_REGISTERED.subtract(event);
+            listener = null;
+        }
+
+        @Override
+        public void execute(Listener listener, Event event) throws EventException {
+
+            // Event types without their own handler list share the handler list of
+            // their super type. Do not forward an event from the super types executor
+            // if the event type has its own global event.
+            if (event.getClass() != this.event && _globalEventTypes.contains(event.getClass()))
+                return;
+
+            forwarded.incrementAndGet();
+
+            // iterate a copy so forwarders can be constructed or disposed by
+            // a forwarder that receives the event.
+            for (WeakReference<Forwarder> reference : _forwarders) {
+
+                Forwarder forwarder = reference.get();
+                if (forwarder != null)
+                    forwarder.on(event);
+            }
+        }
+    }
+
     private static class RegistrationHelper {
 
         RegistrationHelper reg(Class<? extends Event> event) {
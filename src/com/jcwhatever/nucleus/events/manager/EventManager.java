@@ -30,13 +30,13 @@ import com.jcwhatever.nucleus.collections.observer.agent.AgentHashMap;
 import com.jcwhatever.nucleus.collections.observer.agent.AgentMap;
 import com.jcwhatever.nucleus.collections.observer.subscriber.SubscriberMultimap;
 import com.jcwhatever.nucleus.collections.observer.subscriber.SubscriberSetMultimap;
-import com.jcwhatever.nucleus.collections.timed.TimedHashSet;
 import com.jcwhatever.nucleus.mixins.ICancellable;
 import com.jcwhatever.nucleus.mixins.IDisposable;
 import com.jcwhatever.nucleus.mixins.IPluginOwned;
 import com.jcwhatever.nucleus.utils.CollectionUtils;
 import com.jcwhatever.nucleus.utils.PreCon;
-import com.jcwhatever.nucleus.utils.TimeScale;
+import com.jcwhatever.nucleus.utils.ThreadSingletons;
+import com.jcwhatever.nucleus.utils.ThreadSingletons.ISingletonFactory;
 import com.jcwhatever.nucleus.utils.observer.ISubscriber;
 import com.jcwhatever.nucleus.utils.observer.event.EventAgent;
 import com.jcwhatever.nucleus.utils.observer.event.EventSubscriber;
@@ -50,8 +50,12 @@ import org.bukkit.event.Cancellable;
 import org.bukkit.event.Event;
 import org.bukkit.plugin.Plugin;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
@@ -80,14 +84,14 @@ import javax.annotation.Nullable;
  * Bukkit events. This will first call the event using Bukkit's event system, then again on the Nucleus
  * event manager to allow its event subscribers to handle the event.</p>
  *
- * <p>Event managers cannot receive the same event more than once. This is because of the combination of event
- * forwarding to specific manager contexts and event bubbling. It is possible to forward an event from an event
- * manager that is higher in the hierarchy to a manager that is lower, which would then bubble to the
- * manager that forwarded the event in the first place. To prevent this managers will drop calls to event
- * instances that they have already called.</p>
+ * <p>Event managers cannot receive the same event more than once while it is being called. This is because
+ * of the combination of event forwarding to specific manager contexts and event bubbling. It is possible to
+ * forward an event from an event manager that is higher in the hierarchy to a manager that is lower, which would
+ * then bubble to the manager that forwarded the event in the first place. To prevent this managers will drop
+ * calls to an event instance that they have already called from within the same outermost {@link #call} or
+ * {@link #callBukkit} invocation on the current thread.</p>
  *
- * <p>In order to prevent undesired dropping of events, the event type should not override the equals method, or
- * if it does, should compare instances using ==.</p>
+ * <p>Event instances are compared by identity, the equals method of the event type is not used.</p>
  *
  * <p>Note: The event manager runs events slightly different from Bukkit events. When an event is cancelled,
  * all event handlers that would have been called after are not called unless they have been set to be invoked
@@ -101,6 +105,15 @@ public class EventManager implements IPluginOwned, IDisposable {
     private static final SubscriberMultimap<Plugin, IUpdateSubscriber> _pluginCallMap
             = new SubscriberSetMultimap<>(7, 3);
 
+    // events being called on the current thread and the managers that have called them.
+    private static final ThreadSingletons<CallContext> CALL_CONTEXTS = new ThreadSingletons<>(
+            new ISingletonFactory<CallContext>() {
+                @Override
+                public CallContext create(Thread thread) {
+                    return new CallContext();
+                }
+            });
+
     /**
      * Remove all registered event handlers and listeners from
      * the specified plugin from all event managers.
@@ -131,7 +144,6 @@ public class EventManager implements IPluginOwned, IDisposable {
     private final EventManager _parent;
     private final AgentMap<Class<?>, EventAgent> _eventAgents = new AgentHashMap<>(10);
     private final Map<IEventListener, ListenerInfo> _listeners = new HashMap<>(10);
-    private final TimedHashSet<Object> _calledEvents;
     private final UpdateAgent<Object> _callAgent = new UpdateAgent<>();
     private final Object _sync = new Object();
 
@@ -160,7 +172,6 @@ public class EventManager implements IPluginOwned, IDisposable {
 
         _plugin = plugin;
         _parent = parent;
-        _calledEvents = new TimedHashSet<>(plugin, 10, 1, TimeScale.TICKS);
     }
 
     @Override
@@ -284,9 +295,23 @@ public class EventManager implements IPluginOwned, IDisposable {
         if (isDisposed())
             throw new RuntimeException("Cannot use a disposed event manager.");
 
-        Bukkit.getPluginManager().callEvent(event);
+        CallContext context = CALL_CONTEXTS.get();
+
+        // The Bukkit call is forwarded to the global manager, include it in the
+        // same call context so the event is not called on the global manager again.
+        boolean isOutermost = context.getFrame(event) == null;
+        if (isOutermost)
+            context.push(event);
+
+        try {
+            Bukkit.getPluginManager().callEvent(event);
 
-        return call(caller, event);
+            return call(caller, event);
+        }
+        finally {
+            if (isOutermost)
+                context.pop();
+        }
     }
 
     /**
@@ -304,15 +329,37 @@ public class EventManager implements IPluginOwned, IDisposable {
         if (isDisposed())
             throw new RuntimeException("Cannot use a disposed event manager.");
 
+        CallContext context = CALL_CONTEXTS.get();
+        CallFrame frame = context.getFrame(event);
+        boolean isOutermost = frame == null;
+
+        if (isOutermost) {
+            frame = context.push(event);
+        }
         // prevent redirected events from bubbling back to
         // an event manager its was already called on.
-        synchronized (_sync) {
-            if (_calledEvents.contains(event))
-                return event;
+        else if (frame.contains(this)) {
+            return event;
+        }
 
-            _calledEvents.add(event);
+        frame.add(this);
+
+        try {
+            callEvent(caller, event);
+        }
+        finally {
+            if (isOutermost)
+                context.pop();
         }
 
+        return event;
+    }
+
+    /*
+     * Call an event on the parent and on the managers subscribers.
+     */
+    private <T> void callEvent(@Nullable Object caller, T event) {
+
         // call event on parent first
         if (_parent != null) {
             _parent.call(caller, event);
@@ -322,7 +369,7 @@ public class EventManager implements IPluginOwned, IDisposable {
 
         EventAgent agent = getEventAgent(event.getClass(), false);
         if (agent == null)
-            return event;
+            return;
 
         // check for Bukkit cancellable event
         if (event instanceof Cancellable) {
@@ -331,8 +378,6 @@ public class EventManager implements IPluginOwned, IDisposable {
         else {
             agent.call(caller, event);
         }
-
-        return event;
     }
 
     /**
@@ -415,7 +460,9 @@ public class EventManager implements IPluginOwned, IDisposable {
         synchronized (_sync) {
             EventAgent agent = _eventAgents.get(eventClass);
             if (agent == null && create) {
-                agent = new EventAgent();
+                agent = Event.class.isAssignableFrom(eventClass)
+                        ? new BukkitEventAgent(eventClass.asSubclass(Event.class))
+                        : new EventAgent();
                 _eventAgents.put(eventClass, agent);
             }
             return agent;
@@ -450,13 +497,19 @@ public class EventManager implements IPluginOwned, IDisposable {
 
     /*
      * An event subscriber wrapper for a method extracted from an event listener.
+     *
+     * <p>The method is invoked through a {@link MethodHandle} bound to the listener
+     * when the wrapper is created instead of reflectively on every event.</p>
      */
     private static class EventMethodWrapper<E> extends EventSubscriber<E> implements IEventSubscriber<E> {
 
+        private static final MethodType INVOKER_TYPE = MethodType.methodType(void.class, Object.class);
+
         final Object listener;
         final Class<?> event;
         final Method method;
         final EventMethod annotation;
+        final MethodHandle invoker;
 
         EventMethodWrapper(Object listener, Class<?> event, Method method, EventMethod annotation) {
             this.listener = listener;
@@ -465,6 +518,15 @@ public class EventManager implements IPluginOwned, IDisposable {
             this.annotation = annotation;
             method.setAccessible(true);
 
+            try {
+                this.invoker = MethodHandles.lookup()
+                        .unreflect(method)
+                        .bindTo(listener)
+                        .asType(INVOKER_TYPE);
+            } catch (IllegalAccessException e) {
+                throw new RuntimeException("Failed to access event method: " + method.getName(), e);
+            }
+
             setPriority(annotation.priority());
             setInvokedForCancelled(annotation.invokeForCancelled());
         }
@@ -472,13 +534,119 @@ public class EventManager implements IPluginOwned, IDisposable {
         @Override
         public void onEvent(@Nullable Object caller, E event) {
             try {
-                this.method.invoke(this.listener, event);
+                this.invoker.invokeExact((Object)event);
             } catch (Throwable throwable) {
                 throwable.printStackTrace();
             }
         }
     }
 
+    /*
+     * Event agent for a Bukkit event type. Lets the global Bukkit event
+     * forwarder know when the event type has subscribers.
+     */
+    private static class BukkitEventAgent extends EventAgent {
+
+        final Class<? extends Event> event;
+
+        BukkitEventAgent(Class<? extends Event> event) {
+            this.event = event;
+        }
+
+        @Override
+        protected void onFirstEventSubscriberAdded() {
+            BukkitEventForwarder.addGlobalDemand(event);
+        }
+
+        @Override
+        protected void onLastEventSubscriberRemoved() {
+            BukkitEventForwarder.removeGlobalDemand(event);
+        }
+    }
+
+    /*
+     * Stack of events being called on a thread.
+     */
+    private static class CallContext {
+
+        CallFrame[] frames = new CallFrame[4];
+        int depth;
+
+        /**
+         * Get the frame of an event that is being called.
+         *
+         * @return  The frame or null if the event is not being called.
+         */
+        @Nullable
+        CallFrame getFrame(Object event) {
+            // nested calls are usually for the most recent event
+            for (int i = depth - 1; i >= 0; i--) {
+                if (frames[i].event == event)
+                    return frames[i];
+            }
+            return null;
+        }
+
+        /**
+         * Push a frame for an event that is not being called yet.
+         */
+        CallFrame push(Object event) {
+
+            if (depth == frames.length)
+                frames = Arrays.copyOf(frames, depth * 2);
+
+            CallFrame frame = frames[depth];
+            if (frame == null) {
+                frame = new CallFrame();
+                frames[depth] = frame;
+            }
+
+            depth++;
+            frame.event = event;
+            return frame;
+        }
+
+        /**
+         * Pop the most recent frame.
+         */
+        void pop() {
+            depth--;
+            frames[depth].clear();
+        }
+    }
+
+    /*
+     * An event being called and the managers that have called it.
+     */
+    private static class CallFrame {
+
+        Object event;
+        EventManager[] managers = new EventManager[4];
+        int size;
+
+        boolean contains(EventManager manager) {
+            for (int i = 0; i < size; i++) {
+                if (managers[i] == manager)
+                    return true;
+            }
+            return false;
+        }
+
+        void add(EventManager manager) {
+
+            if (size == managers.length)
+                managers = Arrays.copyOf(managers, size * 2);
+
+            managers[size++] = manager;
+        }
+
+        void clear() {
+            event = null;
+            Arrays.fill(managers, 0, size, null);
+            size = 0;
+        }
+    }
+
     /*
      * A wrapper for Bukkit events used to make the events cancel methods
      * available.
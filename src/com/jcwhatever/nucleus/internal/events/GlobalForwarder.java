@@ -32,6 +32,9 @@ import org.bukkit.event.EventPriority;
 
 /**
  * Global forwarder for the global event manager.
+ *
+ * <p>Is not global demand. Global events are forwarded while the
+ * global event manager has subscribers for them.</p>
  */
 class GlobalForwarder extends BukkitEventForwarder {
 
@@ -41,7 +44,7 @@ class GlobalForwarder extends BukkitEventForwarder {
      * Constructor.
      */
     GlobalForwarder(InternalEventManager manager) {
-        super(Nucleus.getPlugin(), EventPriority.HIGH);
+        super(Nucleus.getPlugin(), EventPriority.HIGH, false);
 
         _manager = manager;
     }
@@ -34,7 +34,6 @@ import com.jcwhatever.nucleus.utils.CollectionUtils;
 import com.jcwhatever.nucleus.utils.PreCon;
 import com.jcwhatever.nucleus.utils.observer.future.FutureResultAgent;
 import com.jcwhatever.nucleus.utils.observer.future.IFutureResult;
-import com.jcwhatever.nucleus.utils.text.TextUtils;
 import org.bukkit.Bukkit;
 import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
@@ -54,12 +53,19 @@ import java.util.UUID;
 
 /**
  * Nucleus frameworks default player lookup provider
+ *
+ * <p>Player names are indexed in memory when the player data is loaded
+ * and when a player joins with a new name so that name lookups and name
+ * searches do not iterate the stored data of every player.</p>
  */
 public final class InternalPlayerLookupProvider extends Provider implements IPlayerLookupProvider {
 
     private final Object _dataSync = new Object();
     private volatile IDataNode _nameData;
 
+    // guarded by _dataSync
+    private final PlayerNameIndex _nameIndex = new PlayerNameIndex();
+
     public InternalPlayerLookupProvider(Plugin plugin) {
         Bukkit.getPluginManager().registerEvents(new BukkitEventListener(), plugin);
         setInfo(new InternalProviderInfo(this.getClass(),
@@ -76,27 +82,13 @@ public final class InternalPlayerLookupProvider extends Provider implements IPla
         if (p != null)
             return p.getUniqueId();
 
-        // check stored id/name map
-        IDataNode nameData = getPlayerData();
+        // make sure the name index is built
+        getPlayerData();
 
+        // check stored id/name map
         synchronized (_dataSync) {
-
-            for (IDataNode node : nameData) {
-                String name = node.getString("name");
-
-                if (name != null && name.equalsIgnoreCase(playerName)) {
-
-                    try {
-                        return UUID.fromString(node.getName());
-                    } catch (Exception e) {
-                        e.printStackTrace();
-                        return null;
-                    }
-                }
-            }
+            return _nameIndex.getPlayerId(playerName);
         }
-
-        return null;
     }
 
     @Nullable
@@ -156,18 +148,20 @@ public final class InternalPlayerLookupProvider extends Provider implements IPla
 
     @Override
     public IFutureResult<Collection<UUID>> searchNames(String searchText, int maxResults) {
+        PreCon.notNull(searchText);
 
         Deque<PlayerData> unsorted = new ArrayDeque<>(15);
-        String lower = searchText.toLowerCase();
 
-        IDataNode playersNode = getPlayerData();
-        for (IDataNode node : playersNode) {
-            String name = node.getString("name");
-            if (name == null)
-                continue;
+        // make sure the name index is built
+        getPlayerData();
+
+        synchronized (_dataSync) {
+
+            List<UUID> matches = _nameIndex.search(searchText, maxResults);
 
-            if (name.toLowerCase().contains(lower))
-                unsorted.add(new PlayerData(name, TextUtils.parseUUID(node.getName())));
+            for (UUID playerId : matches) {
+                unsorted.add(new PlayerData(_nameIndex.getName(playerId), playerId));
+            }
         }
 
         Collection<PlayerData> sorted = CollectionUtils.textSearch(
@@ -222,6 +216,7 @@ public final class InternalPlayerLookupProvider extends Provider implements IPla
 
         synchronized (_dataSync) {
             data.set("name", name);
+            _nameIndex.add(playerId, name);
         }
 
         data.save();
@@ -242,6 +237,8 @@ public final class InternalPlayerLookupProvider extends Provider implements IPla
                 if (!data.load()) {
                     NucMsg.warning("Failed to load player data file.");
                 }
+
+                _nameIndex.addAll(data);
                 _nameData = data;
             }
         }
@@ -39,6 +39,7 @@ import com.jcwhatever.nucleus.internal.providers.permissions.bukkit.BukkitProvid
 import com.jcwhatever.nucleus.internal.providers.permissions.vault.VaultProvider;
 import com.jcwhatever.nucleus.internal.providers.selection.NucleusSelectionProvider;
 import com.jcwhatever.nucleus.internal.providers.selection.WorldEditSelectionProvider;
+import com.jcwhatever.nucleus.internal.providers.storage.BinaryStorageProvider;
 import com.jcwhatever.nucleus.internal.providers.storage.JsonStorageProvider;
 import com.jcwhatever.nucleus.internal.providers.storage.YamlStorageProvider;
 import com.jcwhatever.nucleus.mixins.IDisposable;
@@ -134,6 +135,7 @@ public final class InternalProviderManager implements IProviderManager {
         addName(WorldEditSelectionProvider.NAME, ProviderType.REGION_SELECT);
         addName(YamlStorageProvider.NAME, ProviderType.STORAGE);
         addName(JsonStorageProvider.NAME, ProviderType.STORAGE);
+        addName(BinaryStorageProvider.NAME, ProviderType.STORAGE);
 
         _dataNode = isTest
                 ? new MemoryDataNode(Nucleus.getPlugin())
@@ -142,6 +144,7 @@ public final class InternalProviderManager implements IProviderManager {
         _dataNode.load();
 
         registerStorageProvider(new JsonStorageProvider());
+        registerStorageProvider(new BinaryStorageProvider());
 
         // setup preferred internal bank items
         String prefBankItems = getPreferred(ProviderType.BANK_ITEMS);
@@ -0,0 +1,221 @@
+/*
+ * This file is part of NucleusFramework for Bukkit, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) JCThePants (www.jcwhatever.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.jcwhatever.nucleus.internal.providers;
+
+import com.jcwhatever.nucleus.storage.IDataNode;
+import com.jcwhatever.nucleus.utils.PreCon;
+import com.jcwhatever.nucleus.utils.text.TextUtils;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.UUID;
+import javax.annotation.Nullable;
+
+/**
+ * In memory index of player names used by {@link InternalPlayerLookupProvider}.
+ *
+ * <p>Names are indexed in lower case. Each name is indexed to a single player
+ * and each player is indexed under a single name.</p>
+ *
+ * <p>Not thread safe.</p>
+ */
+class PlayerNameIndex {
+
+    // lower case name to player ID
+    private final Map<String, UUID> _nameIndex = new HashMap<>(100);
+    // sorted lower case name to player ID, used for prefix searches
+    private final NavigableMap<String, UUID> _prefixIndex = new TreeMap<>();
+    // player ID to player name
+    private final Map<UUID, String> _indexedNames = new HashMap<>(100);
+
+    /**
+     * Get the number of indexed names.
+     */
+    int size() {
+        return _nameIndex.size();
+    }
+
+    /**
+     * Get the ID of the player indexed under a name.
+     *
+     * @param name  The case insensitive player name.
+     *
+     * @return  The player ID or null if the name is not indexed.
+     */
+    @Nullable
+    UUID getPlayerId(String name) {
+        PreCon.notNull(name);
+
+        return _nameIndex.get(name.toLowerCase());
+    }
+
+    /**
+     * Get the name a player is indexed under.
+     *
+     * @param playerId  The ID of the player.
+     *
+     * @return  The name or null if the player is not indexed.
+     */
+    @Nullable
+    String getName(UUID playerId) {
+        PreCon.notNull(playerId);
+
+        return _indexedNames.get(playerId);
+    }
+
+    /**
+     * Index a player name. If the player was indexed under a different name,
+     * the previous name is removed. If the name was indexed to a different
+     * player, the other player is removed.
+     *
+     * @param playerId  The ID of the player.
+     * @param name      The player name.
+     */
+    void add(UUID playerId, String name) {
+        PreCon.notNull(playerId);
+        PreCon.notNullOrEmpty(name);
+
+        String lower = name.toLowerCase();
+
+        String previous = _indexedNames.put(playerId, name);
+        if (previous != null) {
+
+            String previousLower = previous.toLowerCase();
+
+            if (!previousLower.equals(lower) && playerId.equals(_nameIndex.get(previousLower))) {
+                _nameIndex.remove(previousLower);
+                _prefixIndex.remove(previousLower);
+            }
+        }
+
+        UUID previousId = _nameIndex.put(lower, playerId);
+        _prefixIndex.put(lower, playerId);
+
+        // the name belonged to a different player that has not
+        // logged in since the name changed owners.
+        if (previousId != null && !previousId.equals(playerId))
+            _indexedNames.remove(previousId);
+    }
+
+    /**
+     * Index the names in stored player data.
+     *
+     * <p>Each child node of the data node is named using a player ID and
+     * contains the "name" and "last" login date of the player.</p>
+     *
+     * <p>A name can be stored for more than one player if it has changed owners.
+     * The player that logged in most recently is indexed.</p>
+     *
+     * @param data  The player data.
+     */
+    void addAll(IDataNode data) {
+        PreCon.notNull(data);
+
+        Map<UUID, Date> lastLogins = new HashMap<>(100);
+
+        for (IDataNode node : data) {
+
+            String name = node.getString("name");
+            if (name == null || name.isEmpty())
+                continue;
+
+            UUID playerId = TextUtils.parseUUID(node.getName());
+            if (playerId == null)
+                continue;
+
+            Date lastLogin = node.getDate("last");
+            UUID currentId = _nameIndex.get(name.toLowerCase());
+
+            if (currentId != null) {
+                Date currentLogin = lastLogins.get(currentId);
+
+                if (currentLogin != null &&
+                        (lastLogin == null || !lastLogin.after(currentLogin))) {
+                    continue;
+                }
+            }
+
+            lastLogins.put(playerId, lastLogin);
+            add(playerId, name);
+        }
+    }
+
+    /**
+     * Get the IDs of players whose name contains the search text.
+     *
+     * <p>Names that start with the search text are the best matches and are
+     * found first. If they do not fill the results, the remaining results are
+     * filled with names that contain the search text. Finding them requires
+     * checking indexed names until the results are filled.</p>
+     *
+     * @param searchText  The case insensitive search text.
+     * @param maxResults  The max number of results.
+     *
+     * @return  The player IDs. Prefix matches are in name order followed
+     * by other matches in no particular order.
+     */
+    List<UUID> search(String searchText, int maxResults) {
+        PreCon.notNull(searchText);
+
+        List<UUID> result = new ArrayList<>(Math.max(0, Math.min(maxResults, 15)));
+        if (maxResults <= 0)
+            return result;
+
+        String lower = searchText.toLowerCase();
+
+        Map<String, UUID> prefixed = _prefixIndex.subMap(
+                lower, true, lower + Character.MAX_VALUE, false);
+
+        for (UUID playerId : prefixed.values()) {
+            result.add(playerId);
+
+            if (result.size() == maxResults)
+                return result;
+        }
+
+        if (lower.isEmpty())
+            return result;
+
+        for (Entry<String, UUID> entry : _nameIndex.entrySet()) {
+
+            String name = entry.getKey();
+
+            if (!name.startsWith(lower) && name.contains(lower)) {
+                result.add(entry.getValue());
+
+                if (result.size() == maxResults)
+                    break;
+            }
+        }
+
+        return result;
+    }
+}
@@ -0,0 +1,438 @@
+/*
+ * This file is part of NucleusFramework for Bukkit, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) JCThePants (www.jcwhatever.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.jcwhatever.nucleus.internal.providers.economy;
+
+import com.jcwhatever.nucleus.internal.NucMsg;
+import com.jcwhatever.nucleus.managed.scheduler.IScheduledTask;
+import com.jcwhatever.nucleus.managed.scheduler.Scheduler;
+import com.jcwhatever.nucleus.utils.PreCon;
+import com.jcwhatever.nucleus.utils.file.BasicByteReader;
+import com.jcwhatever.nucleus.utils.file.BasicByteWriter;
+
+import org.bukkit.plugin.Plugin;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.UUID;
+
+/**
+ * Append only journal of account balances.
+ *
+ * <p>Accounts set their balance on their data node in memory and record the
+ * balance in the journal instead of saving the account storage after each transaction.
+ * Recorded balances are written to the journal file in batches by an async task
+ * and the file is synced once per batch so all transactions recorded within the
+ * same interval share a single disk sync.</p>
+ *
+ * <p>Balances of accounts changed by the same transaction can be recorded together
+ * as a batch. A batch is written as a single framed record which is only replayed
+ * if it was completely written.</p>
+ *
+ * <p>The journal is periodically compacted by saving the account storage and deleting
+ * the journal file. When the journal is created, balances remaining in the journal
+ * file are replayed into the account storage.</p>
+ */
+class AccountJournal {
+
+    static final String FILE_EXTENSION = "journal";
+
+    private static final int FLUSH_INTERVAL = 2; // ticks
+    private static final int COMPACT_INTERVAL = 20 * 60 * 5; // ticks
+    private static final long MAX_JOURNAL_SIZE = 4 * 1024 * 1024; // bytes
+
+    // ID written in place of a player ID at the start of a batch record.
+    private static final UUID BATCH_HEADER = new UUID(0L, 0L);
+
+    private final Plugin _plugin;
+    private final IAccountStorage _storage;
+    private final File _file;
+
+    private final Object _sync = new Object();
+    private final Object _writeSync = new Object();
+
+    private Map<UUID, Double> _pending = new LinkedHashMap<>(25);
+    private List<Map<UUID, Double>> _pendingBatches = new ArrayList<>(5);
+    private FileOutputStream _stream;
+    private BasicByteWriter _writer;
+    private IScheduledTask _flushTask;
+    private IScheduledTask _compactTask;
+    private boolean _isClosed;
+
+    /**
+     * Constructor.
+     *
+     * <p>Replays any balances left in the journal file into the account
+     * storage and compacts the journal.</p>
+     *
+     * @param plugin   The owning plugin.
+     * @param storage  The account storage.
+     * @param file     The journal file.
+     */
+    AccountJournal(Plugin plugin, IAccountStorage storage, File file) {
+        PreCon.notNull(plugin);
+        PreCon.notNull(storage);
+        PreCon.notNull(file);
+
+        _plugin = plugin;
+        _storage = storage;
+        _file = file;
+
+        if (_file.exists() && _file.length() > 0) {
+            replay();
+        }
+
+        _flushTask = Scheduler.runTaskRepeatAsync(_plugin, FLUSH_INTERVAL, FLUSH_INTERVAL, new Runnable() {
+            @Override
+            public void run() {
+                flush();
+            }
+        });
+
+        _compactTask = Scheduler.runTaskRepeatAsync(_plugin, COMPACT_INTERVAL, COMPACT_INTERVAL, new Runnable() {
+            @Override
+            public void run() {
+                compact();
+            }
+        });
+    }
+
+    /**
+     * Get the journal file.
+     */
+    File getFile() {
+        return _file;
+    }
+
+    /**
+     * Record the balance of an account.
+     *
+     * <p>The balance should already be set on the accounts data node. Multiple
+     * balances recorded for the same account before the next flush are written
+     * as a single record.</p>
+     *
+     * @param playerId  The ID of the account owner.
+     * @param balance   The new account balance.
+     */
+    void record(UUID playerId, double balance) {
+        PreCon.notNull(playerId);
+
+        synchronized (_sync) {
+
+            _storage.setChanged(playerId);
+
+            if (_isClosed) {
+                // journal is no longer flushed, fall back to saving the storage
+                _storage.save();
+                return;
+            }
+
+            _pending.put(playerId, balance);
+        }
+    }
+
+    /**
+     * Record the balances of multiple accounts as a single batch.
+     *
+     * <p>The balances should already be set on the accounts data nodes. When
+     * the journal is replayed, either all or none of the balances in the batch
+     * are recovered.</p>
+     *
+     * @param balances  Map of account owner ID to new account balance.
+     */
+    void record(Map<UUID, Double> balances) {
+        PreCon.notNull(balances);
+
+        if (balances.isEmpty())
+            return;
+
+        synchronized (_sync) {
+
+            for (UUID playerId : balances.keySet()) {
+                _storage.setChanged(playerId);
+            }
+
+            if (_isClosed) {
+                _storage.save();
+                return;
+            }
+
+            // the batch supersedes balances recorded before it
+            for (UUID playerId : balances.keySet()) {
+                _pending.remove(playerId);
+            }
+
+            _pendingBatches.add(new LinkedHashMap<>(balances));
+        }
+    }
+
+    /**
+     * Record the removal of an account.
+     *
+     * <p>The account should already be removed from the account storage.</p>
+     *
+     * @param playerId  The ID of the account owner.
+     */
+    void recordRemoved(UUID playerId) {
+        record(playerId, Double.NaN);
+    }
+
+    /**
+     * Write recorded balances to the journal file and sync the file.
+     */
+    void flush() {
+
+        synchronized (_writeSync) {
+
+            Map<UUID, Double> pending;
+            List<Map<UUID, Double>> batches;
+
+            synchronized (_sync) {
+                if (_pending.isEmpty() && _pendingBatches.isEmpty())
+                    return;
+
+                pending = _pending;
+                batches = _pendingBatches;
+                _pending = new LinkedHashMap<>(25);
+                _pendingBatches = new ArrayList<>(5);
+            }
+
+            try {
+                if (_writer == null) {
+                    _stream = new FileOutputStream(_file, true);
+                    _writer = new BasicByteWriter(_stream);
+                }
+
+                // batches are written first, balances recorded after a batch
+                // are not in the batch and balances recorded before were removed.
+                for (Map<UUID, Double> batch : batches) {
+                    writeRecord(BATCH_HEADER, batch.size());
+
+                    for (Entry<UUID, Double> entry : batch.entrySet()) {
+                        writeRecord(entry.getKey(), Double.doubleToLongBits(entry.getValue()));
+                    }
+                }
+
+                for (Entry<UUID, Double> entry : pending.entrySet()) {
+                    writeRecord(entry.getKey(), Double.doubleToLongBits(entry.getValue()));
+                }
+
+                _writer.flush();
+                _stream.getChannel().force(false);
+            }
+            catch (IOException e) {
+                e.printStackTrace();
+
+                NucMsg.severe("Failed to write to economy journal '{0}'. Saving accounts instead.",
+                        _file.getName());
+
+                closeWriter();
+                _storage.save();
+                return;
+            }
+
+            if (_file.length() > MAX_JOURNAL_SIZE)
+                compact();
+        }
+    }
+
+    /**
+     * Save the account storage and delete the journal file.
+     *
+     * <p>Recorded balances that are not flushed are kept for the
+     * next flush.</p>
+     */
+    void compact() {
+
+        synchronized (_writeSync) {
+
+            flush();
+
+            if (!_file.exists() || _file.length() == 0)
+                return;
+
+            // balances in the journal were set on the account data nodes before they
+            // were recorded, so the saved account storage contains all of them.
+            if (!_storage.saveSync()) {
+                NucMsg.severe("Failed to save accounts while compacting economy journal '{0}'.",
+                        _file.getName());
+                return;
+            }
+
+            closeWriter();
+
+            if (!_file.delete()) {
+                NucMsg.severe("Failed to delete compacted economy journal '{0}'.", _file.getName());
+            }
+        }
+    }
+
+    /**
+     * Flush and compact the journal and stop the journal tasks.
+     *
+     * <p>Balances recorded after the journal is closed are saved
+     * directly to the account storage.</p>
+     */
+    void close() {
+
+        synchronized (_sync) {
+            if (_isClosed)
+                return;
+
+            _isClosed = true;
+        }
+
+        _flushTask.cancel();
+        _compactTask.cancel();
+
+        synchronized (_writeSync) {
+            compact();
+            closeWriter();
+        }
+    }
+
+    /*
+     * Read balances from the journal file into the account storage,
+     * then compact the journal.
+     */
+    private void replay() {
+
+        int total = 0;
+
+        BasicByteReader reader = null;
+
+        try {
+            reader = new BasicByteReader(new FileInputStream(_file));
+
+            while (true) {
+
+                UUID playerId;
+                long value;
+                Map<UUID, Double> batch = null;
+
+                try {
+                    playerId = new UUID(reader.getLong(), reader.getLong());
+                    value = reader.getLong();
+
+                    if (playerId.equals(BATCH_HEADER)) {
+
+                        if (value < 0)
+                            throw new IOException("Invalid batch size: " + value);
+
+                        batch = new LinkedHashMap<>((int)Math.min(value, 64) + 1);
+
+                        for (long i = 0; i < value; i++) {
+                            batch.put(new UUID(reader.getLong(), reader.getLong()),
+                                    Double.longBitsToDouble(reader.getLong()));
+                        }
+                    }
+                }
+                catch (EOFException e) {
+                    // end of journal or a record or batch that was not completely written
+                    break;
+                }
+
+                if (batch != null) {
+                    for (Entry<UUID, Double> entry : batch.entrySet()) {
+                        replayBalance(entry.getKey(), entry.getValue());
+                        total++;
+                    }
+                }
+                else {
+                    replayBalance(playerId, Double.longBitsToDouble(value));
+                    total++;
+                }
+            }
+        }
+        catch (IOException e) {
+            e.printStackTrace();
+
+            NucMsg.severe("Failed to read economy journal '{0}'. " +
+                    "Recovered {1} balances.", _file.getName(), total);
+        }
+        finally {
+            if (reader != null) {
+                try {
+                    reader.close();
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }
+        }
+
+        NucMsg.info("Recovered {0} account balances from economy journal '{1}'.",
+                total, _file.getName());
+
+        compact();
+    }
+
+    /*
+     * Set a balance read from the journal file in the account storage.
+     */
+    private void replayBalance(UUID playerId, double balance) {
+
+        if (Double.isNaN(balance)) {
+            _storage.remove(playerId);
+        }
+        else {
+            _storage.getNode(playerId).set("balance", balance);
+            _storage.setChanged(playerId);
+        }
+    }
+
+    /*
+     * Write a single 24 byte record to the journal file.
+     */
+    private void writeRecord(UUID playerId, long value) throws IOException {
+        _writer.write(playerId.getMostSignificantBits());
+        _writer.write(playerId.getLeastSignificantBits());
+        _writer.write(value);
+    }
+
+    /*
+     * Close the journal file output stream.
+     */
+    private void closeWriter() {
+
+        if (_writer == null)
+            return;
+
+        try {
+            _writer.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+
+        _writer = null;
+        _stream = null;
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * This file is part of NucleusFramework for Bukkit, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) JCThePants (www.jcwhatever.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.jcwhatever.nucleus.internal.providers.economy;
+
+import com.jcwhatever.nucleus.storage.IDataNode;
+
+import java.util.UUID;
+
+/**
+ * Interface for the storage of economy account data nodes.
+ */
+interface IAccountStorage {
+
+    /**
+     * Get the data node of an account, loading it if needed.
+     *
+     * @param playerId  The ID of the account owner.
+     */
+    IDataNode getNode(UUID playerId);
+
+    /**
+     * Remove the data of an account.
+     *
+     * @param playerId  The ID of the account owner.
+     */
+    void remove(UUID playerId);
+
+    /**
+     * Mark the data node of an account as changed so it is
+     * included in the next save.
+     *
+     * @param playerId  The ID of the account owner.
+     */
+    void setChanged(UUID playerId);
+
+    /**
+     * Save changed account data nodes.
+     *
+     * @return  True if all changed nodes were saved.
+     */
+    boolean saveSync();
+
+    /**
+     * Save changed account data nodes on an async thread.
+     */
+    void save();
+}
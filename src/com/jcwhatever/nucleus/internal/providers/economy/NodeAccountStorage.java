@@ -0,0 +1,85 @@
+/*
+ * This file is part of NucleusFramework for Bukkit, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) JCThePants (www.jcwhatever.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.jcwhatever.nucleus.internal.providers.economy;
+
+import com.jcwhatever.nucleus.storage.IDataNode;
+import com.jcwhatever.nucleus.utils.PreCon;
+
+import java.util.UUID;
+
+/**
+ * Account storage that keeps all accounts as child nodes of a single data node.
+ */
+class NodeAccountStorage implements IAccountStorage {
+
+    private final IDataNode _dataNode;
+
+    /**
+     * Constructor.
+     *
+     * @param dataNode  The data node that contains the account nodes.
+     */
+    NodeAccountStorage(IDataNode dataNode) {
+        PreCon.notNull(dataNode);
+
+        _dataNode = dataNode;
+    }
+
+    /**
+     * Get the data node that contains the account nodes.
+     */
+    IDataNode getDataNode() {
+        return _dataNode;
+    }
+
+    @Override
+    public IDataNode getNode(UUID playerId) {
+        PreCon.notNull(playerId);
+
+        return _dataNode.getNode(playerId.toString());
+    }
+
+    @Override
+    public void remove(UUID playerId) {
+        PreCon.notNull(playerId);
+
+        _dataNode.remove(playerId.toString());
+    }
+
+    @Override
+    public void setChanged(UUID playerId) {
+        // changes are tracked by the data node
+    }
+
+    @Override
+    public boolean saveSync() {
+        return _dataNode.saveSync();
+    }
+
+    @Override
+    public void save() {
+        _dataNode.save();
+    }
+}
@@ -47,15 +47,18 @@ class NucleusAccount implements IAccount {
     private final NucleusBank _bank;
     private final NucleusEconomyProvider _provider;
     private final IDataNode _dataNode;
+    private final AccountJournal _journal;
 
     private double _balance;
 
     NucleusAccount(NucleusEconomyProvider provider,
-                   UUID playerId, @Nullable NucleusBank bank, IDataNode dataNode) {
+                   UUID playerId, @Nullable NucleusBank bank,
+                   IDataNode dataNode, AccountJournal journal) {
         _provider = provider;
         _playerId = playerId;
         _bank = bank;
         _dataNode = dataNode;
+        _journal = journal;
 
         _balance = _dataNode.getDouble("balance", 0);
     }
@@ -116,7 +119,7 @@ class NucleusAccount implements IAccount {
         }
 
         _dataNode.set("balance", _balance);
-        _dataNode.save();
+        _journal.record(_playerId, _balance);
 
         return amount;
     }
@@ -148,11 +151,43 @@ class NucleusAccount implements IAccount {
         }
 
         _dataNode.set("balance", _balance);
-        _dataNode.save();
+        _journal.record(_playerId, _balance);
 
         return amount;
     }
 
+    /**
+     * Get the journal the account records its balance in.
+     */
+    AccountJournal getJournal() {
+        return _journal;
+    }
+
+    /**
+     * Change the account balance without calling events or recording
+     * the balance in the journal.
+     *
+     * <p>Used by {@link NucleusTransaction} to commit multiple accounts as a
+     * single batch. The caller must hold the accounts monitor and is responsible
+     * for recording the new balance.</p>
+     *
+     * @param amount  The amount to add to the balance. Negative to withdraw.
+     *
+     * @return  The new balance.
+     */
+    double applyDelta(double amount) {
+
+        _balance += amount;
+
+        if (_bank != null) {
+            _bank.incrementBalance(amount);
+        }
+
+        _dataNode.set("balance", _balance);
+
+        return _balance;
+    }
+
     @Override
     public Object getHandle() {
         return this;
@@ -46,16 +46,18 @@ class NucleusBank implements IBank {
     private final String _name;
     private final UUID _ownerId;
     private final IDataNode _dataNode;
+    private final AccountJournal _journal;
     private final Map<UUID, IAccount> _accounts = new HashMap<>(5);
     private final NucleusEconomyProvider _provider;
 
     private double _balance;
 
     NucleusBank(NucleusEconomyProvider provider, String name,
-                @Nullable UUID ownerId, IDataNode dataNode) {
+                @Nullable UUID ownerId, IDataNode dataNode, AccountJournal journal) {
         _name = name;
         _ownerId = ownerId;
         _dataNode = dataNode;
+        _journal = journal;
         _provider = provider;
     }
 
@@ -63,6 +65,13 @@ class NucleusBank implements IBank {
         return _dataNode;
     }
 
+    /**
+     * Get the journal that records the balances of the banks accounts.
+     */
+    AccountJournal getJournal() {
+        return _journal;
+    }
+
     public NucleusEconomyProvider getProvider() {
         return _provider;
     }
@@ -116,7 +125,7 @@ class NucleusBank implements IBank {
             return null;
 
         NucleusAccount account = new NucleusAccount(
-                _provider, playerId, this, _dataNode.getNode(playerId.toString()));
+                _provider, playerId, this, _dataNode.getNode(playerId.toString()), _journal);
 
         _accounts.put(playerId, account);
 
@@ -135,7 +144,8 @@ class NucleusBank implements IBank {
 
         IDataNode node = _dataNode.getNode(playerId.toString());
         node.remove();
-        node.save();
+
+        _journal.recordRemoved(playerId);
 
         return new FutureAgent().success("Account deleted.");
     }
@@ -153,7 +163,7 @@ class NucleusBank implements IBank {
                 continue;
 
             NucleusAccount account = new NucleusAccount(
-                    _provider, playerId, this, dataNode);
+                    _provider, playerId, this, dataNode, _journal);
 
             _balance += account.getBalance();
 
@@ -26,6 +26,7 @@ package com.jcwhatever.nucleus.internal.providers.economy;
 
 import com.google.common.collect.MapMaker;
 import com.jcwhatever.nucleus.Nucleus;
+import com.jcwhatever.nucleus.internal.NucMsg;
 import com.jcwhatever.nucleus.internal.providers.InternalProviderInfo;
 import com.jcwhatever.nucleus.providers.Provider;
 import com.jcwhatever.nucleus.providers.economy.IAccount;
@@ -49,12 +50,16 @@ import java.util.UUID;
 
 /**
  * NucleusFramework's simple economy provider
+ *
+ * <p>Player accounts are stored in separate files that are loaded the first time
+ * the account is requested.</p>
  */
 public final class NucleusEconomyProvider extends Provider implements IBankEconomyProvider {
 
     public static final String NAME = "NucleusEconomy";
 
-    private final IDataNode _globalAccountNode;
+    private final ShardedAccountStorage _globalStorage;
+    private final AccountJournal _globalJournal;
 
     private final Map<UUID, NucleusAccount> _accounts =
             new MapMaker().weakValues().concurrencyLevel(2).initialCapacity(100).makeMap();
@@ -72,9 +77,13 @@ public final class NucleusEconomyProvider extends Provider implements IBankEcono
                 NAME, "Default economy provider."));
 
 
-        _globalAccountNode = new YamlDataNode(plugin, getDataPath("global"));
+        File journalFile = new File(getDataFolder(), "global." + AccountJournal.FILE_EXTENSION);
+
+        _globalStorage = new ShardedAccountStorage(plugin, new File(getDataFolder(), "accounts"));
 
-        _globalAccountNode.load();
+        importGlobalAccounts(plugin, journalFile);
+
+        _globalJournal = new AccountJournal(plugin, _globalStorage, journalFile);
 
         IDataNode dataNode = getDataNode();
         dataNode.setDefaultsSaved(true);
@@ -103,8 +112,8 @@ public final class NucleusEconomyProvider extends Provider implements IBankEcono
             NucleusAccount account = _accounts.get(playerId);
 
             if (account == null) {
-                account = new NucleusAccount(
-                        this, playerId, null, _globalAccountNode.getNode(playerId.toString()));
+                account = new NucleusAccount(this, playerId, null,
+                        _globalStorage.getNode(playerId), _globalJournal);
                 _accounts.put(playerId, account);
             }
 
@@ -159,7 +168,10 @@ public final class NucleusEconomyProvider extends Provider implements IBankEcono
         IDataNode node = new YamlDataNode(Nucleus.getPlugin(), getDataPath("banks." + bankName));
         node.load();
 
-        NucleusBank bank = new NucleusBank(this, bankName, playerId, node);
+        AccountJournal journal = new AccountJournal(Nucleus.getPlugin(), new NodeAccountStorage(node),
+                new File(getBankFolder(), bankName + '.' + AccountJournal.FILE_EXTENSION));
+
+        NucleusBank bank = new NucleusBank(this, bankName, playerId, node, journal);
 
         synchronized (_bankSync) {
             _banks.put(bankName, bank);
@@ -180,9 +192,64 @@ public final class NucleusEconomyProvider extends Provider implements IBankEcono
                 return false;
         }
 
-        File bankFolder = new File(getDataFolder(), "banks");
-        File accountFile = new File(bankFolder, bank.getName() + ".yml");
+        AccountJournal journal = ((NucleusBank)bank).getJournal();
+        journal.close();
+
+        File accountFile = new File(getBankFolder(), bank.getName() + ".yml");
+
+        return (!journal.getFile().exists() || journal.getFile().delete()) &&
+                accountFile.delete();
+    }
+
+    @Override
+    protected void onDisable() {
+
+        _globalJournal.close();
+
+        synchronized (_bankSync) {
+            for (IBank bank : _banks.values()) {
+                ((NucleusBank)bank).getJournal().close();
+            }
+        }
+    }
+
+    /*
+     * Move the accounts from the single global accounts file used by
+     * previous versions into the sharded account storage.
+     */
+    private void importGlobalAccounts(Plugin plugin, File journalFile) {
+
+        File file = new File(getDataFolder(), "global.yml");
+        if (!file.exists())
+            return;
+
+        IDataNode dataNode = new YamlDataNode(plugin, file);
+        if (!dataNode.load()) {
+            NucMsg.severe("Failed to load global economy accounts file for import.");
+            return;
+        }
+
+        // apply balances left in the journal of the global accounts file
+        new AccountJournal(plugin, new NodeAccountStorage(dataNode), journalFile).close();
+
+        int total = _globalStorage.importAccounts(dataNode);
+
+        if (!_globalStorage.saveSync()) {
+            NucMsg.severe("Failed to import global economy accounts.");
+            return;
+        }
+
+        if (!file.renameTo(new File(getDataFolder(), "global.yml.imported"))) {
+            NucMsg.severe("Failed to rename imported global economy accounts file.");
+        }
+
+        NucMsg.info("Imported {0} economy accounts from the global accounts file.", total);
+    }
 
-        return accountFile.delete();
+    /*
+     * Get the folder that bank data files are stored in.
+     */
+    private File getBankFolder() {
+        return new File(getDataFolder(), "banks");
     }
 }
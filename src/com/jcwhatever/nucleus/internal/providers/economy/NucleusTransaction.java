@@ -24,21 +24,28 @@
 
 package com.jcwhatever.nucleus.internal.providers.economy;
 
+import com.jcwhatever.nucleus.Nucleus;
 import com.jcwhatever.nucleus.internal.NucLang;
 import com.jcwhatever.nucleus.internal.NucMsg;
 import com.jcwhatever.nucleus.managed.language.Localizable;
 import com.jcwhatever.nucleus.providers.economy.IAccount;
 import com.jcwhatever.nucleus.providers.economy.ICurrency;
 import com.jcwhatever.nucleus.providers.economy.IEconomyTransaction;
+import com.jcwhatever.nucleus.providers.economy.events.EconTransactionEvent;
 import com.jcwhatever.nucleus.utils.PreCon;
 import com.jcwhatever.nucleus.utils.observer.future.FutureResultAgent;
 import com.jcwhatever.nucleus.utils.observer.future.IFutureResult;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.UUID;
 
 /**
  * NucleusFrameworks {@link IEconomyTransaction} transaction implementation.
@@ -46,6 +53,14 @@ import java.util.Set;
  * <p>Does not support multiple currency balances.</p>
  *
  * <p>Only works with {@link NucleusAccount} or {@link VaultAccount}.</p>
+ *
+ * <p>If all accounts in the transaction are {@link NucleusAccount}'s, the transaction
+ * is committed as a single batch. A single {@link EconTransactionEvent} is called instead
+ * of deposit and withdraw events for each account, the account monitors are acquired in a
+ * stable order and the new balances are recorded in each account journal as a single
+ * batch. The event is called before the monitors are acquired so event handlers can use
+ * the accounts without risking deadlock. The funds are checked again once the monitors
+ * are held.</p>
  */
 class NucleusTransaction implements IEconomyTransaction {
 
@@ -61,9 +76,31 @@ class NucleusTransaction implements IEconomyTransaction {
     @Localizable static final String _TRANSACTION_SUCCESS =
             "Transaction success.";
 
+    @Localizable static final String _TRANSACTION_CANCELLED =
+            "Transaction cancelled.";
+
     @Localizable static final String _GLOBAL_BANK =
             "<global>";
 
+    /**
+     * The order account monitors are acquired in when a transaction is committed
+     * as a batch. Ordered by bank name, the global bank first, then by player ID.
+     */
+    static final Comparator<NucleusAccount> LOCK_ORDER = new Comparator<NucleusAccount>() {
+        @Override
+        public int compare(NucleusAccount o1, NucleusAccount o2) {
+
+            String bank1 = o1.getBank() != null ? o1.getBank().getName() : "";
+            String bank2 = o2.getBank() != null ? o2.getBank().getName() : "";
+
+            int result = bank1.compareTo(bank2);
+            if (result != 0)
+                return result;
+
+            return o1.getPlayerId().compareTo(o2.getPlayerId());
+        }
+    };
+
     private final Map<IAccount, Double> _balanceDelta = new HashMap<>(5);
     private boolean _isCommitted;
     private String _error;
@@ -185,6 +222,7 @@ class NucleusTransaction implements IEconomyTransaction {
 
         Map<IAccount, Double> deposit = new HashMap<>(3);
         Map<IAccount, Double> withdraw = new HashMap<>(3);
+        boolean isBatchable = true;
 
         while (iterator.hasNext()) {
             Entry<IAccount, Double> entry = iterator.next();
@@ -197,6 +235,9 @@ class NucleusTransaction implements IEconomyTransaction {
             IAccount account = entry.getKey();
             Double delta = entry.getValue();
 
+            if (!(account instanceof NucleusAccount))
+                isBatchable = false;
+
             if (delta > 0) {
                 deposit.put(account, delta);
             } else {
@@ -210,9 +251,93 @@ class NucleusTransaction implements IEconomyTransaction {
             }
         }
 
+        if (isBatchable)
+            return commitBatch(force);
+
         return commit(deposit, withdraw);
     }
 
+    /*
+     * Commit the transaction as a single batch. Only works if all accounts
+     * are NucleusAccount instances.
+     */
+    private IFutureResult<IEconomyTransaction> commitBatch(boolean force) {
+
+        List<NucleusAccount> accounts = new ArrayList<>(_balanceDelta.size());
+
+        for (IAccount account : _balanceDelta.keySet()) {
+            accounts.add((NucleusAccount) account);
+        }
+
+        // the event is called before the account monitors are acquired so
+        // handlers do not run while the accounts are locked.
+        EconTransactionEvent event = new EconTransactionEvent(this, new HashMap<>(_balanceDelta));
+        Nucleus.getEventManager().callBukkit(this, event);
+
+        if (event.isCancelled()) {
+            return FutureResultAgent
+                    .errorResult((IEconomyTransaction)this,
+                            NucLang.get(_TRANSACTION_CANCELLED));
+        }
+
+        // lock accounts in a stable order to prevent deadlock with
+        // transactions committed concurrently on other threads.
+        Collections.sort(accounts, LOCK_ORDER);
+
+        return commitLocked(accounts, 0, force);
+    }
+
+    /*
+     * Acquire the monitor of each account in order then commit.
+     */
+    private IFutureResult<IEconomyTransaction> commitLocked(
+            List<NucleusAccount> accounts, int index, boolean force) {
+
+        if (index < accounts.size()) {
+            synchronized (accounts.get(index)) {
+                return commitLocked(accounts, index + 1, force);
+            }
+        }
+
+        // balances may have changed while the event was called. Only withdrawals
+        // need funds, a deposit into an account with a negative balance is allowed.
+        if (!force) {
+            for (NucleusAccount account : accounts) {
+
+                double delta = _balanceDelta.get(account);
+
+                if (delta < 0 && account.getBalance() + delta < 0) {
+                    return FutureResultAgent
+                            .errorResult((IEconomyTransaction)this,
+                                    NucLang.get(_INSUFFICIENT_FUNDS));
+                }
+            }
+        }
+
+        // group new balances by journal so each journal records a single batch
+        Map<AccountJournal, Map<UUID, Double>> balances = new HashMap<>(3);
+
+        for (NucleusAccount account : accounts) {
+
+            double balance = account.applyDelta(_balanceDelta.get(account));
+
+            Map<UUID, Double> journalBalances = balances.get(account.getJournal());
+            if (journalBalances == null) {
+                journalBalances = new HashMap<>(accounts.size());
+                balances.put(account.getJournal(), journalBalances);
+            }
+
+            journalBalances.put(account.getPlayerId(), balance);
+        }
+
+        for (Entry<AccountJournal, Map<UUID, Double>> entry : balances.entrySet()) {
+            entry.getKey().record(entry.getValue());
+        }
+
+        return FutureResultAgent.successResult((IEconomyTransaction)this,
+                NucLang.get(_TRANSACTION_SUCCESS));
+    }
+
     private IFutureResult<IEconomyTransaction> commit(
             Map<IAccount, Double> deposits, final Map<IAccount, Double> withdrawals) {
 
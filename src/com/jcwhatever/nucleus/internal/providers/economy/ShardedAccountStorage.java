@@ -0,0 +1,227 @@
+/*
+ * This file is part of NucleusFramework for Bukkit, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) JCThePants (www.jcwhatever.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.jcwhatever.nucleus.internal.providers.economy;
+
+import com.google.common.collect.MapMaker;
+import com.jcwhatever.nucleus.internal.NucMsg;
+import com.jcwhatever.nucleus.storage.IDataNode;
+import com.jcwhatever.nucleus.storage.YamlDataNode;
+import com.jcwhatever.nucleus.utils.PreCon;
+import com.jcwhatever.nucleus.utils.text.TextUtils;
+
+import org.bukkit.plugin.Plugin;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.UUID;
+
+/**
+ * Account storage that keeps each account in its own file.
+ *
+ * <p>Account files are sharded into sub folders named after the first 2 characters
+ * of the account owners ID so that no folder contains more than a fraction of the
+ * accounts.</p>
+ *
+ * <p>Account data nodes are loaded when first requested and are only held
+ * weakly, unless they have changes that are not saved yet.</p>
+ */
+class ShardedAccountStorage implements IAccountStorage {
+
+    private final Plugin _plugin;
+    private final File _folder;
+
+    private final Map<UUID, IDataNode> _nodes =
+            new MapMaker().weakValues().concurrencyLevel(2).initialCapacity(100).makeMap();
+
+    private final Object _sync = new Object();
+
+    // changed nodes are strongly referenced until saved
+    private Map<UUID, IDataNode> _changed = new HashMap<>(25);
+
+    /**
+     * Constructor.
+     *
+     * @param plugin  The owning plugin.
+     * @param folder  The folder to store account files in.
+     */
+    ShardedAccountStorage(Plugin plugin, File folder) {
+        PreCon.notNull(plugin);
+        PreCon.notNull(folder);
+
+        _plugin = plugin;
+        _folder = folder;
+    }
+
+    /**
+     * Get the folder account files are stored in.
+     */
+    File getFolder() {
+        return _folder;
+    }
+
+    @Override
+    public IDataNode getNode(UUID playerId) {
+        PreCon.notNull(playerId);
+
+        synchronized (_sync) {
+
+            IDataNode node = _nodes.get(playerId);
+            if (node == null) {
+
+                node = new YamlDataNode(_plugin, getFile(playerId));
+                node.load();
+
+                _nodes.put(playerId, node);
+            }
+
+            return node;
+        }
+    }
+
+    @Override
+    public void remove(UUID playerId) {
+        PreCon.notNull(playerId);
+
+        synchronized (_sync) {
+
+            IDataNode node = _nodes.remove(playerId);
+            if (node != null)
+                node.clear();
+
+            _changed.remove(playerId);
+
+            File file = getFile(playerId);
+            if (file.exists() && !file.delete()) {
+                NucMsg.severe("Failed to delete economy account file '{0}'.", file.getName());
+            }
+        }
+    }
+
+    @Override
+    public void setChanged(UUID playerId) {
+        PreCon.notNull(playerId);
+
+        synchronized (_sync) {
+            _changed.put(playerId, getNode(playerId));
+        }
+    }
+
+    @Override
+    public boolean saveSync() {
+
+        Map<UUID, IDataNode> changed;
+
+        synchronized (_sync) {
+            if (_changed.isEmpty())
+                return true;
+
+            changed = _changed;
+            _changed = new HashMap<>(25);
+        }
+
+        boolean isSaved = true;
+
+        for (Entry<UUID, IDataNode> entry : changed.entrySet()) {
+
+            File file = getFile(entry.getKey());
+            File shard = file.getParentFile();
+
+            if (!shard.exists() && !shard.mkdirs()) {
+                NucMsg.severe("Failed to create economy account folder '{0}'.", shard.getName());
+            }
+
+            if (!entry.getValue().saveSync()) {
+                isSaved = false;
+
+                // keep for the next save
+                synchronized (_sync) {
+                    if (!_changed.containsKey(entry.getKey()))
+                        _changed.put(entry.getKey(), entry.getValue());
+                }
+            }
+        }
+
+        return isSaved;
+    }
+
+    @Override
+    public void save() {
+
+        Map<UUID, IDataNode> changed;
+
+        synchronized (_sync) {
+            changed = new HashMap<>(_changed);
+        }
+
+        for (IDataNode node : changed.values()) {
+            node.save();
+        }
+    }
+
+    /**
+     * Move the accounts in a data node into the storage.
+     *
+     * <p>Each child node of the specified data node whose name is a player ID is
+     * copied into its own account file.</p>
+     *
+     * @param dataNode  The data node to import.
+     *
+     * @return  The number of accounts imported.
+     */
+    int importAccounts(IDataNode dataNode) {
+        PreCon.notNull(dataNode);
+
+        int total = 0;
+
+        for (IDataNode accountNode : dataNode) {
+
+            UUID playerId = TextUtils.parseUUID(accountNode.getName());
+            if (playerId == null)
+                continue;
+
+            IDataNode node = getNode(playerId);
+
+            for (String key : accountNode.getSubNodeNames()) {
+                node.set(key, accountNode.get(key));
+            }
+
+            setChanged(playerId);
+            total++;
+        }
+
+        return total;
+    }
+
+    /*
+     * Get the file of an account.
+     */
+    private File getFile(UUID playerId) {
+        String name = playerId.toString();
+        File shard = new File(_folder, name.substring(0, 2));
+        return new File(shard, name + ".yml");
+    }
+}
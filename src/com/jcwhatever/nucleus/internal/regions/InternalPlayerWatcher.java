@@ -26,21 +26,29 @@ package com.jcwhatever.nucleus.internal.regions;
 
 import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Deque;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Queue;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import javax.annotation.Nullable;
 
 import com.jcwhatever.nucleus.Nucleus;
 import com.jcwhatever.nucleus.collections.players.PlayerMap;
 import com.jcwhatever.nucleus.internal.regions.PlayerLocationCache.CachedLocation;
+import com.jcwhatever.nucleus.internal.regions.PlayerMovementGate.SkipReason;
 import com.jcwhatever.nucleus.managed.scheduler.Scheduler;
 import com.jcwhatever.nucleus.providers.npc.Npcs;
 import com.jcwhatever.nucleus.regions.IRegion;
+import com.jcwhatever.nucleus.regions.IRegionBatchEventListener;
 import com.jcwhatever.nucleus.regions.IRegionEventListener;
 import com.jcwhatever.nucleus.regions.options.LeaveRegionReason;
 import com.jcwhatever.nucleus.regions.options.RegionEventPriority.PriorityType;
@@ -58,30 +66,43 @@ import org.bukkit.entity.Player;
 /**
  * Watches and tracks players for the purpose of detecting
  * entry and exit from event listening regions.
+ *
+ * <p>Players are divided by ID hash into shards. Each shard has its own region cache
+ * and event queue and is processed by its own async task so shards are processed in
+ * parallel. Region events from all shards are called on the main thread in the order
+ * the players were queued.</p>
  */
 public final class InternalPlayerWatcher {
 
-    private final InternalRegionManager _manager;
+    // number of async player watcher shards
+    static final int SHARD_COUNT =
+            Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() / 2));
 
-    // cached regions the player was detected in during last player watcher cycle.
-    private final PlayerMap<EventOrderedRegions<IRegion>> _playerRegionCache;
+    private final InternalRegionManager _manager;
 
     // locations the player was detected in between player watcher cycles.
     private final PlayerMap<PlayerLocationCache> _playerLocationCache;
 
-    // async player watcher
-    private final PlayerWatcherAsync _watcherAsync = new PlayerWatcherAsync();
+    // async player watcher shards
+    private final WatcherShard[] _shards;
+
+    // sync task that queues players into the watcher shards
+    private final QueueFiller _queueFiller = new QueueFiller();
 
     // sync region event caller
     private final EventCaller _eventCaller = new EventCaller();
 
-    // IDs of players that have joined the server within a region and have not yet moved.
-    private Set<UUID> _joined = new HashSet<>(10);
-
     // pool of player location caches
     private final SimplePool<PlayerLocationCache> _pools;
 
-    private volatile boolean _isAsyncWatcherRunning;
+    // number of shards currently processing
+    private final AtomicInteger _runningShards = new AtomicInteger();
+
+    // movement sample counters
+    private final AtomicLong _recordedSamples = new AtomicLong();
+    private final AtomicLong _skippedSameBlock = new AtomicLong();
+    private final AtomicLong _skippedNearBoundary = new AtomicLong();
+    private final AtomicLong _skippedNoRegion = new AtomicLong();
 
     /**
      * Constructor.
@@ -89,9 +110,22 @@ public final class InternalPlayerWatcher {
      * @param manager  The parent manager.
      */
     InternalPlayerWatcher(InternalRegionManager manager) {
+        this(manager, SHARD_COUNT, true);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param manager      The parent manager.
+     * @param shardCount   The number of async player watcher shards.
+     * @param isScheduled  True to schedule the watcher tasks, false if the watcher is run
+     *                     by invoking {@link #fillQueues} and {@link #runShard}.
+     */
+    InternalPlayerWatcher(InternalRegionManager manager, int shardCount, boolean isScheduled) {
+        PreCon.positiveNumber(shardCount, "shardCount");
 
         _manager = manager;
-        _playerRegionCache = new PlayerMap<>(Nucleus.getPlugin());
+        _shards = new WatcherShard[shardCount];
         _playerLocationCache = new PlayerMap<>(Nucleus.getPlugin());
         _pools = new SimplePool<PlayerLocationCache>(100,
                 new IPoolElementFactory<PlayerLocationCache>() {
@@ -101,8 +135,18 @@ public final class InternalPlayerWatcher {
                     }
                 });
 
-        Scheduler.runTaskRepeat(Nucleus.getPlugin(), 1, 1, new QueueFiller());
-        Scheduler.runTaskRepeatAsync(Nucleus.getPlugin(), 1, 1, _watcherAsync);
+        for (int i = 0; i < _shards.length; i++) {
+            _shards[i] = new WatcherShard();
+        }
+
+        if (!isScheduled)
+            return;
+
+        Scheduler.runTaskRepeat(Nucleus.getPlugin(), 1, 1, _queueFiller);
+
+        for (WatcherShard shard : _shards) {
+            Scheduler.runTaskRepeatAsync(Nucleus.getPlugin(), 1, 1, shard);
+        }
     }
 
     /**
@@ -130,7 +174,9 @@ public final class InternalPlayerWatcher {
             return;
 
         PlayerLocationCache locations = getPlayerLocations(player.getUniqueId());
+        locations.getGate().reset();
         player.getLocation(locations.add(reason));
+        _recordedSamples.incrementAndGet();
     }
 
     /**
@@ -157,7 +203,16 @@ public final class InternalPlayerWatcher {
             return;
 
         PlayerLocationCache locations = getPlayerLocations(player.getUniqueId());
+
+        if (reason != RegionEventReason.MOVE) {
+            locations.getGate().reset();
+        }
+        else if (isGated(locations.getGate(), location)) {
+            return;
+        }
+
         LocationUtils.copy(location, locations.add(reason));
+        _recordedSamples.incrementAndGet();
     }
 
     /**
@@ -183,13 +238,23 @@ public final class InternalPlayerWatcher {
         if (regions == null)
             return;
 
-        synchronized (this) {
+        synchronized (getSync(playerId)) {
             Iterator<IRegion> iterator = regions.iterator(PriorityType.LEAVE);
             while (iterator.hasNext()) {
                 IRegion region = iterator.next();
 
-                if (region.isEventListener())
-                    region.getEventListener().onPlayerLeave(player, reason);
+                if (!region.isEventListener())
+                    continue;
+
+                IRegionEventListener listener = region.getEventListener();
+                listener.onPlayerLeave(player, reason);
+
+                // transitions outside of a watcher cycle are delivered
+                // to batch listeners as a single player batch.
+                if (listener instanceof IRegionBatchEventListener) {
+                    ((IRegionBatchEventListener) listener).onPlayersLeave(
+                            Collections.singletonMap(player, reason));
+                }
             }
         }
 
@@ -208,6 +273,37 @@ public final class InternalPlayerWatcher {
         }
     }
 
+    /**
+     * Get the number of movement samples that were recorded for processing.
+     */
+    public long getRecordedSamples() {
+        return _recordedSamples.get();
+    }
+
+    /**
+     * Get the number of movement samples skipped because the player
+     * did not leave the block of the previous sample.
+     */
+    public long getSkippedSameBlockSamples() {
+        return _skippedSameBlock.get();
+    }
+
+    /**
+     * Get the number of movement samples skipped because the player
+     * could not have reached the nearest region boundary.
+     */
+    public long getSkippedNearBoundarySamples() {
+        return _skippedNearBoundary.get();
+    }
+
+    /**
+     * Get the number of movement samples skipped because the player was not
+     * in a listener region before or after the movement.
+     */
+    public long getSkippedNoRegionSamples() {
+        return _skippedNoRegion.get();
+    }
+
     /**
      * Get the cached movement locations of a player that have not been processed
      * by the {@link InternalPlayerWatcher} yet.
@@ -226,18 +322,30 @@ public final class InternalPlayerWatcher {
         return locations;
     }
 
+    /**
+     * Get the object to synchronize on when using the cached regions
+     * of a player.
+     *
+     * @param playerId  The ID of the player.
+     */
+    Object getSync(UUID playerId) {
+        return getShard(playerId);
+    }
+
     /**
      * Get the regions a player is currently in.
      *
-     * <p>The {@link InternalPlayerWatcher} should be synchronized when using the returned
-     * {@link EventOrderedRegions}.</p>
+     * <p>The object returned by {@link #getSync} should be synchronized when using the
+     * returned {@link EventOrderedRegions}.</p>
      *
      * @param playerId  The ID of the player to check.
      */
     @Nullable
     EventOrderedRegions<IRegion> getCurrentRegions(UUID playerId) {
-        synchronized (this) {
-            return _playerRegionCache.get(playerId);
+        WatcherShard shard = getShard(playerId);
+
+        synchronized (shard) {
+            return shard.regionCache.get(playerId);
         }
     }
 
@@ -250,36 +358,119 @@ public final class InternalPlayerWatcher {
      */
     @Nullable
     EventOrderedRegions<IRegion> forgetPlayer(UUID playerId) {
-        synchronized (this) {
-            return _playerRegionCache.remove(playerId);
+        WatcherShard shard = getShard(playerId);
+
+        synchronized (shard) {
+            return shard.regionCache.remove(playerId);
         }
     }
 
+    /**
+     * Reset a players movement gate so their next movement sample
+     * is not skipped.
+     *
+     * @param playerId  The ID of the player.
+     */
+    void resetMovementGate(UUID playerId) {
+        PlayerLocationCache locations = _playerLocationCache.get(playerId);
+        if (locations != null)
+            locations.getGate().reset();
+    }
+
+    /**
+     * Call the region events of the previous watcher cycle and queue players
+     * into the watcher shards.
+     *
+     * <p>Invoked by a repeating main thread task if the watcher is scheduled.</p>
+     */
+    void fillQueues() {
+        _queueFiller.run();
+    }
+
+    /**
+     * Process the players queued into a watcher shard.
+     *
+     * <p>Invoked by a repeating async task for each shard if the watcher is scheduled.</p>
+     *
+     * @param index  The index of the shard.
+     */
+    void runShard(int index) {
+        _shards[index].run();
+    }
+
+    /**
+     * Get the number of shards that have queued players that have not been processed.
+     */
+    int getRunningShards() {
+        return _runningShards.get();
+    }
+
+    /*
+     * Get the shard that processes a player.
+     */
+    private WatcherShard getShard(UUID playerId) {
+        return _shards[(playerId.hashCode() & Integer.MAX_VALUE) % _shards.length];
+    }
+
     /*
      * Clear cached movement locations of a player
      */
     private void clearPlayerLocations(UUID playerId) {
         PlayerLocationCache locations = getPlayerLocations(playerId);
+        locations.getGate().reset();
         locations.getCheckedOut().recycle();
     }
 
+    /*
+     * Determine if a movement sample should be skipped because it cannot
+     * cause the player to enter or leave a region. Updates the gate when the
+     * sample is evaluated against the region index.
+     */
+    private boolean isGated(PlayerMovementGate gate, Location location) {
+
+        World world = location.getWorld();
+        if (world == null)
+            return false;
+
+        SkipReason reason = gate.check(_manager, world,
+                location.getBlockX(), location.getBlockY(), location.getBlockZ());
+
+        if (reason == null)
+            return false;
+
+        switch (reason) {
+            case SAME_BLOCK:
+                _skippedSameBlock.incrementAndGet();
+                break;
+            case NEAR_BOUNDARY:
+                _skippedNearBoundary.incrementAndGet();
+                break;
+            case NO_REGION:
+                _skippedNoRegion.incrementAndGet();
+                break;
+        }
+
+        return true;
+    }
+
     /*
      * Repeating task that pre-processes and filters player movement data before
-     * adding it to the async player watchers queue.
+     * adding it to the async player watcher shard queues.
      */
     private final class QueueFiller implements Runnable {
 
+        // order in which players were queued, used to order region events.
+        long sequence;
+
         @Override
         public void run() {
 
-            // do not run while async watcher is running
-            if (_isAsyncWatcherRunning)
+            // do not run while async watcher shards are running
+            if (_runningShards.get() != 0)
                 return;
 
             // call queued region events
-            if (!_eventCaller.queue.isEmpty()) {
-                _eventCaller.run();
-            }
+            _eventCaller.run();
 
             // get worlds where listener regions exist
             List<World> worlds = new ArrayList<World>(_manager.getListenerWorlds().getElements());
@@ -310,27 +501,50 @@ public final class InternalPlayerWatcher {
                         if (locations.getCheckedOut().size() == 0)
                             continue;
 
-                        WorldPlayer worldPlayer = new WorldPlayer(player, locations.getCheckedOut());
-                        _watcherAsync.queue.add(worldPlayer);
+                        WorldPlayer worldPlayer = new WorldPlayer(
+                                player, locations.getCheckedOut(), sequence++);
+
+                        getShard(player.getUniqueId()).queue.add(worldPlayer);
                     }
                 }
             }
 
+            int totalRunning = 0;
+            for (WatcherShard shard : _shards) {
+                if (!shard.queue.isEmpty())
+                    totalRunning++;
+            }
+
             // end if there are no players to process
-            if (_watcherAsync.queue.isEmpty())
+            if (totalRunning == 0)
                 return;
 
-            // let the async watcher run
-            _isAsyncWatcherRunning = true;
+            // let the async watcher shards run
+            _runningShards.set(totalRunning);
+
+            for (WatcherShard shard : _shards) {
+                if (!shard.queue.isEmpty())
+                    shard.isRunning.set(true);
+            }
         }
     }
 
     /*
-     * Async portion of the player watcher
+     * Async portion of the player watcher for a subset of players.
      */
-    private class PlayerWatcherAsync implements Runnable {
+    private class WatcherShard implements Runnable {
+
+        final Queue<WorldPlayer> queue = new ArrayDeque<>(Math.max(10, Bukkit.getMaxPlayers() / _shards.length));
+
+        // region events to call on the main thread, in the order they were detected.
+        final Deque<EventInfo> events = new ArrayDeque<>(10);
+
+        // cached regions the player was detected in during last player watcher cycle.
+        final PlayerMap<EventOrderedRegions<IRegion>> regionCache = new PlayerMap<>(Nucleus.getPlugin());
+
+        // IDs of players that have joined the server within a region and have not yet moved.
+        final Set<UUID> joined = new HashSet<>(10);
 
-        final Queue<WorldPlayer> queue = new ArrayDeque<>(Bukkit.getMaxPlayers());
         // Temporary queue to hold regions a player has possibly entered.
         // Because "enter" is processed before "leave", the new "enter" event
         // will not be processed unless regions in question are processed after
@@ -339,12 +553,29 @@ public final class InternalPlayerWatcher {
         // after "leave" events have been processed.
         final Queue<IRegion> enter = new ArrayDeque<>(20);
 
+        // reusable output list for listener region lookups
+        final List<IRegion> locationRegions = new ArrayList<>(10);
+
+        // set when the queue filler has queued a batch for the shard. Async repeating
+        // tasks can overlap, only the run that claims the batch processes it.
+        final AtomicBoolean isRunning = new AtomicBoolean();
+
         @Override
         public void run() {
 
-            if (!_isAsyncWatcherRunning)
+            if (!isRunning.compareAndSet(true, false))
                 return;
 
+            try {
+                processQueue();
+            }
+            finally {
+                _runningShards.decrementAndGet();
+            }
+        }
+
+        private void processQueue() {
+
             // iterate players
             while (!queue.isEmpty()) {
 
@@ -355,15 +586,12 @@ public final class InternalPlayerWatcher {
                 // get regions the player is in (cached from previous check)
                 EventOrderedRegions<IRegion> cachedRegions;
 
-                synchronized (InternalPlayerWatcher.this) {
-                    cachedRegions = _playerRegionCache.get(playerId);
-                }
-
-                if (cachedRegions == null) {
-                    cachedRegions = new EventOrderedRegions<>(7);
+                synchronized (this) {
+                    cachedRegions = regionCache.get(playerId);
 
-                    synchronized (InternalPlayerWatcher.this) {
-                        _playerRegionCache.put(playerId, cachedRegions);
+                    if (cachedRegions == null) {
+                        cachedRegions = new EventOrderedRegions<>(7);
+                        regionCache.put(playerId, cachedRegions);
                     }
                 }
 
@@ -373,11 +601,11 @@ public final class InternalPlayerWatcher {
                     if (location.getReason() == RegionEventReason.JOIN_SERVER) {
                         // do not notify regions until player has moved.
                         // Allows time for player to load resource packs.
-                        _joined.add(playerId);
+                        joined.add(playerId);
                         continue;
                     }
 
-                    boolean isJoining = _joined.contains(playerId);
+                    boolean isJoining = joined.contains(playerId);
 
                     if (isJoining && location.getReason() != RegionEventReason.MOVE) {
                         // ignore all other reasons until joined player moves
@@ -385,27 +613,30 @@ public final class InternalPlayerWatcher {
                     }
 
                     // get regions the player location is in
-                    List<IRegion> locationRegions = _manager.getListenerRegions(location, PriorityType.ENTER);
+                    locationRegions.clear();
+                    _manager.getListenerRegions(location.getWorld(),
+                            location.getBlockX(), location.getBlockY(), location.getBlockZ(),
+                            PriorityType.ENTER, locationRegions);
 
                     RegionEventReason reason = null;
 
                     // check ENTER regions
                     if (!locationRegions.isEmpty()) {
 
-                        reason = isJoining && _joined.remove(playerId)
+                        reason = isJoining && joined.remove(playerId)
                                 ? RegionEventReason.JOIN_SERVER
                                 : location.getReason();
 
                         for (IRegion region : locationRegions) {
-                            synchronized (InternalPlayerWatcher.this) {
+                            synchronized (this) {
                                 // check if player was not previously in region
                                 if (cachedRegions.contains(region)) {
                                     // add to "enter" queue to verify later
                                     enter.offer(region);
                                 } else {
                                     cachedRegions.add(region);
-                                    _eventCaller.queue.addLast(new EventInfo(
-                                            region, worldPlayer.player, reason, true
+                                    events.addLast(new EventInfo(
+                                            region, worldPlayer, reason, true
                                     ));
                                 }
                             }
@@ -413,7 +644,7 @@ public final class InternalPlayerWatcher {
                     }
 
                     // check LEAVE regions
-                    synchronized (InternalPlayerWatcher.this) {
+                    synchronized (this) {
 
                         if (!cachedRegions.isEmpty()) {
 
@@ -427,8 +658,8 @@ public final class InternalPlayerWatcher {
                                 if (!locationRegions.contains(region) || reason == RegionEventReason.DEAD) {
                                     //remove from players cached regions
                                     iterator.remove();
-                                    _eventCaller.queue.addLast(new EventInfo(
-                                            region, worldPlayer.player, location.getReason(), false
+                                    events.addLast(new EventInfo(
+                                            region, worldPlayer, location.getReason(), false
                                     ));
                                 }
                             }
@@ -439,16 +670,18 @@ public final class InternalPlayerWatcher {
                     while (reason != null && !enter.isEmpty()) {
                         IRegion region = enter.poll();
 
-                        synchronized (InternalPlayerWatcher.this) {
+                        synchronized (this) {
                             // check if player was not previously in region
                             if (!cachedRegions.contains(region)) {
                                 cachedRegions.add(region);
-                                _eventCaller.queue.addLast(new EventInfo(
-                                        region, worldPlayer.player, reason, true
+                                events.addLast(new EventInfo(
+                                        region, worldPlayer, reason, true
                                 ));
                             }
                         }
                     }
+
+                    enter.clear();
                 }
 
                 // recycle player locations so they can be reused
@@ -456,9 +689,7 @@ public final class InternalPlayerWatcher {
 
             } // END while(queue.isEmpty)
 
-            _isAsyncWatcherRunning = false;
-
-        } // END run()
+        } // END processQueue()
     }
 
     /**
@@ -469,10 +700,12 @@ public final class InternalPlayerWatcher {
 
         final Player player;
         final CheckedOutElements<CachedLocation> locations;
+        final long sequence;
 
-        public WorldPlayer(Player player, CheckedOutElements<CachedLocation> locations) {
+        public WorldPlayer(Player player, CheckedOutElements<CachedLocation> locations, long sequence) {
             this.player = player;
             this.locations = locations;
+            this.sequence = sequence;
         }
     }
 
@@ -485,53 +718,101 @@ public final class InternalPlayerWatcher {
         final Player player;
         final RegionEventReason reason;
         final boolean isEntering;
+        final long sequence;
 
-        EventInfo(IRegion region, Player player, RegionEventReason reason, boolean isEntering) {
+        EventInfo(IRegion region, WorldPlayer worldPlayer, RegionEventReason reason, boolean isEntering) {
             this.region = region;
-            this.player = player;
+            this.player = worldPlayer.player;
             this.reason = reason;
             this.isEntering = isEntering;
+            this.sequence = worldPlayer.sequence;
         }
     }
 
     /**
-     * Calls region events in queue on the main thread.
+     * Calls region events queued by the watcher shards on the main thread.
+     *
+     * <p>Events from all shards are merged in the order their players were queued
+     * so the order does not depend on how players are divided between shards.</p>
+     *
+     * <p>Events for regions whose listener is an {@link IRegionBatchEventListener} are
+     * also collected per region and delivered as one batch after all events of the
+     * cycle have been called.</p>
      */
-    private static class EventCaller implements Runnable {
+    private class EventCaller implements Runnable {
 
-        final Deque<EventInfo> queue = new ArrayDeque<EventInfo>(Bukkit.getMaxPlayers());
+        // batched transitions keyed by batch listener, in order of first event.
+        final Map<IRegionBatchEventListener, RegionEventBatch> batches = new LinkedHashMap<>(10);
 
         @Override
         public void run() {
 
-            while (!queue.isEmpty()) {
+            while (true) {
 
-                EventInfo info = queue.removeFirst();
-                if (info.region.isDisposed())
-                    continue;
-
-                IRegionEventListener listener;
+                WatcherShard next = null;
+                long nextSequence = Long.MAX_VALUE;
 
-                try {
-                    listener = info.region.getEventListener();
-                    if (listener == null) {
-                        // print null pointer exception message to console.
-                        throw new NullPointerException("Region event listener cannot be null.");
+                for (WatcherShard shard : _shards) {
+                    EventInfo info = shard.events.peekFirst();
+                    if (info != null && info.sequence < nextSequence) {
+                        next = shard;
+                        nextSequence = info.sequence;
                     }
-                } catch (Throwable e) {
-                    e.printStackTrace();
-                    continue;
                 }
 
-                try {
-                    if (info.isEntering)
-                        listener.onPlayerEnter(info.player, info.reason.getEnterReason());
-                    else
-                        listener.onPlayerLeave(info.player, info.reason.getLeaveReason());
+                if (next == null)
+                    break;
+
+                call(next.events.removeFirst());
+            }
+
+            if (batches.isEmpty())
+                return;
+
+            for (RegionEventBatch batch : batches.values()) {
+                batch.call();
+            }
+
+            batches.clear();
+        }
+
+        private void call(EventInfo info) {
+
+            if (info.region.isDisposed())
+                return;
+
+            IRegionEventListener listener;
+
+            try {
+                listener = info.region.getEventListener();
+                if (listener == null) {
+                    // print null pointer exception message to console.
+                    throw new NullPointerException("Region event listener cannot be null.");
                 }
-                catch (Throwable e) {
-                    e.printStackTrace();
+            } catch (Throwable e) {
+                e.printStackTrace();
+                return;
+            }
+
+            try {
+                if (info.isEntering)
+                    listener.onPlayerEnter(info.player, info.reason.getEnterReason());
+                else
+                    listener.onPlayerLeave(info.player, info.reason.getLeaveReason());
+            }
+            catch (Throwable e) {
+                e.printStackTrace();
+            }
+
+            if (listener instanceof IRegionBatchEventListener) {
+
+                RegionEventBatch batch = batches.get(listener);
+                if (batch == null) {
+                    batch = new RegionEventBatch(info.region, (IRegionBatchEventListener) listener);
+                    batches.put(batch.getListener(), batch);
                 }
+
+                batch.add(info.player, info.reason, info.isEntering);
             }
         }
     }
@@ -31,6 +31,8 @@ import com.jcwhatever.nucleus.Nucleus;
 import com.jcwhatever.nucleus.collections.ElementCounter;
 import com.jcwhatever.nucleus.collections.ElementCounter.RemovalPolicy;
 import com.jcwhatever.nucleus.internal.NucMsg;
+import com.jcwhatever.nucleus.internal.regions.RegionChunkIndex.IndexedRegion;
+import com.jcwhatever.nucleus.providers.regionselect.IRegionSelection;
 import com.jcwhatever.nucleus.regions.IGlobalRegionManager;
 import com.jcwhatever.nucleus.regions.IRegion;
 import com.jcwhatever.nucleus.regions.ReadOnlyRegion;
@@ -46,7 +48,9 @@ import org.bukkit.entity.Player;
 import org.bukkit.plugin.Plugin;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -83,6 +87,9 @@ public final class InternalRegionManager extends RegionTypeManager<IRegion> impl
     // watch region and players to detect when players enter/leave regions
     private final InternalPlayerWatcher _playerWatcher = new InternalPlayerWatcher(this);
 
+    // batch registration operations running on the current thread
+    private final ThreadLocal<RegionBatch> _batch = new ThreadLocal<>();
+
     /**
      * Constructor
      *
@@ -146,6 +153,18 @@ public final class InternalRegionManager extends RegionTypeManager<IRegion> impl
         return manager.getRegions(world, x, y, z);
     }
 
+    @Override
+    public <T extends IRegion> List<T> getRegions(IRegionSelection selection, Class<T> regionClass) {
+        PreCon.notNull(selection);
+        PreCon.notNull(regionClass);
+
+        RegionTypeManager<T> manager = getManager(regionClass, false);
+        if (manager == null)
+            return CollectionUtils.unmodifiableList();
+
+        return manager.getRegions(selection);
+    }
+
     @Override
     public <T extends IRegion> List<T> getListenerRegions(Location location, Class<T> regionClass) {
         PreCon.notNull(location);
@@ -227,7 +246,7 @@ public final class InternalRegionManager extends RegionTypeManager<IRegion> impl
     public List<IRegion> getPlayerRegions(Player player) {
         PreCon.notNull(player);
 
-        synchronized(_playerWatcher) {
+        synchronized(_playerWatcher.getSync(player.getUniqueId())) {
             Set<IRegion> regions = _playerWatcher.getCurrentRegions(player.getUniqueId());
             if (regions == null)
                 return new ArrayList<>(0);
@@ -241,7 +260,7 @@ public final class InternalRegionManager extends RegionTypeManager<IRegion> impl
         PreCon.notNull(p);
         PreCon.notNull(region);
 
-        synchronized(_playerWatcher) {
+        synchronized(_playerWatcher.getSync(p.getUniqueId())) {
 
             Set<IRegion> regions = _playerWatcher.getCurrentRegions(p.getUniqueId());
             if (regions == null)
@@ -249,22 +268,123 @@ public final class InternalRegionManager extends RegionTypeManager<IRegion> impl
 
             regions.remove(new ReadOnlyRegion(region));
         }
+
+        // make sure the next movement sample is processed so the enter event can re-fire
+        _playerWatcher.resetMovementGate(p.getUniqueId());
+    }
+
+    @Override
+    public void runBatchOperation(Runnable operations) {
+        PreCon.notNull(operations);
+
+        RegionBatch batch = _batch.get();
+        if (batch == null) {
+            batch = new RegionBatch();
+            _batch.set(batch);
+        }
+
+        batch.depth++;
+
+        try {
+            operations.run();
+        }
+        finally {
+            batch.depth--;
+
+            // register the regions that were registered by the
+            // batch operations when the outermost operation ends.
+            if (batch.depth == 0) {
+                _batch.remove();
+
+                if (!batch.regions.isEmpty())
+                    registerAll(new ArrayList<>(batch.regions));
+            }
+        }
     }
 
     @Override
     public void register(IRegion region) {
         PreCon.notNull(region);
 
+        region = getRegisterHandle(region);
+        if (region == null)
+            return;
+
+        // only registrations made by a batch operation on the
+        // current thread are deferred.
+        RegionBatch batch = _batch.get();
+        if (batch != null) {
+            batch.regions.add(region);
+            return;
+        }
+
+        @SuppressWarnings("unchecked")
+        RegionTypeManager<IRegion> manager = (RegionTypeManager<IRegion>)getManager(region.getClass(), true);
+        assert manager != null;
+        manager.register(region);
+
+        ReadOnlyRegion readOnlyRegion = new ReadOnlyRegion(region);
+        super.register(readOnlyRegion);
+
+        _regionNameMap.put(getLookupName(region.getPlugin(), region), readOnlyRegion);
+    }
+
+    @Override
+    public void registerAll(Collection<? extends IRegion> regions) {
+        PreCon.notNull(regions);
+
+        // group regions by type
+        Map<Class<? extends IRegion>, List<IRegion>> typeRegions = new HashMap<>(5);
+        List<ReadOnlyRegion> readOnlyRegions = new ArrayList<>(regions.size());
+
+        for (IRegion region : regions) {
+
+            region = getRegisterHandle(region);
+            if (region == null)
+                continue;
+
+            List<IRegion> list = typeRegions.get(region.getClass());
+            if (list == null) {
+                list = new ArrayList<>(regions.size());
+                typeRegions.put(region.getClass(), list);
+            }
+            list.add(region);
+
+            readOnlyRegions.add(new ReadOnlyRegion(region));
+        }
+
+        for (Map.Entry<Class<? extends IRegion>, List<IRegion>> entry : typeRegions.entrySet()) {
+
+            @SuppressWarnings("unchecked")
+            RegionTypeManager<IRegion> manager = (RegionTypeManager<IRegion>)getManager(entry.getKey(), true);
+            assert manager != null;
+            manager.registerAll(entry.getValue());
+        }
+
+        super.registerAll(readOnlyRegions);
+
+        for (ReadOnlyRegion readOnlyRegion : readOnlyRegions) {
+            _regionNameMap.put(getLookupName(readOnlyRegion.getPlugin(), readOnlyRegion), readOnlyRegion);
+        }
+    }
+
+    /*
+     * Validate a region that is being registered and get the region instance
+     * that should be registered. Returns null if the region cannot be registered.
+     */
+    @Nullable
+    private IRegion getRegisterHandle(IRegion region) {
+
         if (region.isDisposed()) {
             NucMsg.debug("Failed to register region '{0}' from plugin '{1}' with RegionManager because " +
                     "it is disposed.", region.getName(), region.getPlugin().getName());
-            return;
+            return null;
         }
 
         if (!region.isDefined() || !region.isWorldLoaded()) {
             NucMsg.debug("Failed to register region '{0}' with RegionManager because " +
                     "it's coords are undefined. Region Type: {1}", region.getName(), region.getClass().getName());
-            return;
+            return null;
         }
 
         if (region instanceof ReadOnlyRegion) {
@@ -275,21 +395,17 @@ public final class InternalRegionManager extends RegionTypeManager<IRegion> impl
             }
         }
 
-        @SuppressWarnings("unchecked")
-        RegionTypeManager<IRegion> manager = (RegionTypeManager<IRegion>)getManager(region.getClass(), true);
-        assert manager != null;
-        manager.register(region);
-
-        ReadOnlyRegion readOnlyRegion = new ReadOnlyRegion(region);
-        super.register(readOnlyRegion);
-
-        _regionNameMap.put(getLookupName(region.getPlugin(), region), readOnlyRegion);
+        return region;
     }
 
     @Override
     public void unregister(IRegion region) {
         PreCon.notNull(region);
 
+        RegionBatch batch = _batch.get();
+        if (batch != null)
+            batch.regions.remove(region);
+
         if (!region.isDefined() || !region.isWorldLoaded())
             return;
 
@@ -317,6 +433,29 @@ public final class InternalRegionManager extends RegionTypeManager<IRegion> impl
         }
     }
 
+    @Override
+    protected void onRegisterAll(Collection<IRegion> regions, Map<IRegion, IndexedRegion> previous) {
+
+        // count per world so the listener world counter is only updated once per world.
+        ElementCounter<World> added = new ElementCounter<>(RemovalPolicy.KEEP_COUNTING);
+        ElementCounter<World> removed = new ElementCounter<>(RemovalPolicy.KEEP_COUNTING);
+
+        for (IRegion region : regions) {
+
+            if (region.isEventListener()) {
+                //noinspection ConstantConditions
+                added.add(region.getWorld());
+            }
+            else if (isFormerListener(region, previous.get(region))) {
+                //noinspection ConstantConditions
+                removed.add(region.getWorld());
+            }
+        }
+
+        _listenerWorlds.add(added);
+        _listenerWorlds.subtract(removed);
+    }
+
     @Override
     protected void onUnregister(IRegion region) {
         if (region.isEventListener()) {
@@ -374,4 +513,15 @@ public final class InternalRegionManager extends RegionTypeManager<IRegion> impl
     private String getLookupName(Plugin plugin, String name) {
         return plugin.getName() + ':' + name.toLowerCase();
     }
+
+    /*
+     * Regions registered by the batch operations running on a thread.
+     */
+    private static class RegionBatch {
+
+        // number of nested batch operations
+        int depth;
+
+        final Set<IRegion> regions = new LinkedHashSet<>(10);
+    }
 }
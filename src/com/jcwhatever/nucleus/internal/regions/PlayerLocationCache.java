@@ -60,6 +60,8 @@ class PlayerLocationCache extends SimpleCheckoutPool<CachedLocation> {
                 }
             };
 
+    private final PlayerMovementGate _gate = new PlayerMovementGate();
+
     private UUID _playerId;
 
     public PlayerLocationCache() {
@@ -73,6 +75,7 @@ class PlayerLocationCache extends SimpleCheckoutPool<CachedLocation> {
      */
     public void setOwner(UUID playerId) {
         _playerId = playerId;
+        _gate.reset();
     }
 
     /**
@@ -82,6 +85,13 @@ class PlayerLocationCache extends SimpleCheckoutPool<CachedLocation> {
         return _playerId;
     }
 
+    /**
+     * Get the players movement gate.
+     */
+    public PlayerMovementGate getGate() {
+        return _gate;
+    }
+
     /**
      * Add a location to cache.
      *
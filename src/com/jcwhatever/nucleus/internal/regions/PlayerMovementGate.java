@@ -0,0 +1,177 @@
+/*
+ * This file is part of NucleusFramework for Bukkit, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) JCThePants (www.jcwhatever.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.jcwhatever.nucleus.internal.regions;
+
+import org.bukkit.World;
+
+import javax.annotation.Nullable;
+
+/**
+ * Tracks the last movement sample of a player that was evaluated by the
+ * {@link InternalPlayerWatcher} so movement samples that cannot possibly
+ * cause the player to enter or leave a region can be skipped.
+ */
+class PlayerMovementGate {
+
+    /**
+     * The reason a movement sample is skipped.
+     */
+    enum SkipReason {
+        /**
+         * The player did not leave the block of the previous sample.
+         */
+        SAME_BLOCK,
+        /**
+         * The player could not have reached the nearest region boundary.
+         */
+        NEAR_BOUNDARY,
+        /**
+         * The player was not in a listener region before or after the movement.
+         */
+        NO_REGION
+    }
+
+    private boolean _isSet;
+    private String _worldName;
+    private long _indexVersion;
+
+    private int _x;
+    private int _y;
+    private int _z;
+
+    // number of blocks the player can move from the sample location
+    // without possibly entering or leaving a region.
+    private int _boundaryDistance;
+
+    // true if the sample location is inside a listener region.
+    private boolean _isInRegion;
+
+    /**
+     * Determine if the gate has a sample that is still valid for the
+     * specified world and region index version.
+     *
+     * @param worldName     The name of the world the player is in.
+     * @param indexVersion  The current region index version.
+     */
+    public boolean isValid(String worldName, long indexVersion) {
+        return _isSet && _indexVersion == indexVersion && worldName.equals(_worldName);
+    }
+
+    /**
+     * Get the number of blocks between the gate sample and the specified coordinates
+     * along the axis with the greatest difference.
+     */
+    public int getDistance(int x, int y, int z) {
+        return Math.max(Math.abs(x - _x), Math.max(Math.abs(y - _y), Math.abs(z - _z)));
+    }
+
+    /**
+     * Get the number of blocks the player can move from the gate sample without
+     * possibly entering or leaving a region.
+     */
+    public int getBoundaryDistance() {
+        return _boundaryDistance;
+    }
+
+    /**
+     * Determine if the gate sample location is inside a listener region.
+     */
+    public boolean isInRegion() {
+        return _isInRegion;
+    }
+
+    /**
+     * Set the gate sample.
+     *
+     * @param worldName         The name of the world the sample is in.
+     * @param indexVersion      The region index version the sample was evaluated against.
+     * @param x                 The sample X coordinates.
+     * @param y                 The sample Y coordinates.
+     * @param z                 The sample Z coordinates.
+     * @param boundaryDistance  The distance to the nearest region or chunk boundary.
+     * @param isInRegion        True if the sample location is inside a listener region.
+     */
+    public void set(String worldName, long indexVersion, int x, int y, int z,
+                    int boundaryDistance, boolean isInRegion) {
+
+        _isSet = true;
+        _worldName = worldName;
+        _indexVersion = indexVersion;
+        _x = x;
+        _y = y;
+        _z = z;
+        _boundaryDistance = boundaryDistance;
+        _isInRegion = isInRegion;
+    }
+
+    /**
+     * Determine if a movement sample should be skipped because it cannot cause
+     * the player to enter or leave a listener region. The gate sample is updated
+     * when the movement sample is evaluated against the region index.
+     *
+     * @param manager  The region manager whose index the sample is evaluated against.
+     * @param world    The world the player is in.
+     * @param x        The sample X coordinates.
+     * @param y        The sample Y coordinates.
+     * @param z        The sample Z coordinates.
+     *
+     * @return  The reason the sample is skipped or null if it should be processed.
+     */
+    @Nullable
+    public SkipReason check(RegionTypeManager<?> manager, World world, int x, int y, int z) {
+
+        String worldName = world.getName();
+        long indexVersion = manager.getIndexVersion();
+
+        boolean isValid = isValid(worldName, indexVersion);
+
+        if (isValid) {
+
+            int distance = getDistance(x, y, z);
+
+            if (distance == 0)
+                return SkipReason.SAME_BLOCK;
+
+            if (distance <= _boundaryDistance)
+                return SkipReason.NEAR_BOUNDARY;
+        }
+
+        boolean isInRegion = manager.hasListenerRegion(world, x, y, z);
+        boolean isSkipped = isValid && !isInRegion && !_isInRegion;
+
+        set(worldName, indexVersion, x, y, z,
+                manager.getListenerBoundaryDistance(world, x, y, z), isInRegion);
+
+        return isSkipped ? SkipReason.NO_REGION : null;
+    }
+
+    /**
+     * Clear the gate sample so the next movement sample is not skipped.
+     */
+    public void reset() {
+        _isSet = false;
+        _worldName = null;
+    }
+}
@@ -0,0 +1,1030 @@
+/*
+ * This file is part of NucleusFramework for Bukkit, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) JCThePants (www.jcwhatever.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.jcwhatever.nucleus.internal.regions;
+
+import com.jcwhatever.nucleus.regions.IRegion;
+import com.jcwhatever.nucleus.regions.options.RegionEventPriority.PriorityType;
+import com.jcwhatever.nucleus.utils.PreCon;
+import com.jcwhatever.nucleus.utils.ThreadSingletons;
+import com.jcwhatever.nucleus.utils.ThreadSingletons.ISingletonFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.Nullable;
+
+/**
+ * A copy-on-write index of regions by world and chunk.
+ *
+ * <p>Each world has an open addressing hash table keyed by packed chunk coordinates.
+ * The value of each chunk entry is an immutable bucket of region arrays that are
+ * pre-sorted for each type of lookup.</p>
+ *
+ * <p>Chunks that contain many regions also have a {@link RegionRTree} of the
+ * regions in the chunk so point lookups do not need to scan every region. Box
+ * intersection lookups use an R-tree of every region in the world that is built
+ * on demand the first time the world is queried after it is modified.</p>
+ *
+ * <p>Point lookups do not lock and do not allocate. Modifications are synchronized
+ * and publish a modified copy of the affected world table.</p>
+ */
+class RegionChunkIndex<R extends IRegion> {
+
+    // number of regions in a chunk before a chunk R-tree is used for point lookups.
+    static final int DENSE_BUCKET_SIZE = 16;
+
+    private static final IndexedRegion[] EMPTY = new IndexedRegion[0];
+
+    // per thread query mask for dense chunk lookups
+    private static final ThreadSingletons<QueryMask> QUERY_MASKS = new ThreadSingletons<>(
+            new ISingletonFactory<QueryMask>() {
+                @Override
+                public QueryMask create(Thread thread) {
+                    return new QueryMask();
+                }
+            });
+
+    // published world tables. keyed by world name.
+    private volatile Map<String, ChunkTable> _worlds = new HashMap<>(0);
+
+    // incremented each time a modification is published.
+    private volatile long _version;
+
+    // writer side record of indexed regions.
+    private final Map<R, IndexedRegion> _indexed = new HashMap<>(10);
+
+    // synchronization object
+    private final Object _sync = new Object();
+
+    /**
+     * Get a packed chunk key from chunk coordinates.
+     *
+     * @param chunkX  The chunk X coordinates.
+     * @param chunkZ  The chunk Z coordinates.
+     */
+    static long getChunkKey(int chunkX, int chunkZ) {
+        return ((long)chunkX << 32) | (chunkZ & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Get the number of regions in the index.
+     */
+    public int size() {
+        synchronized (_sync) {
+            return _indexed.size();
+        }
+    }
+
+    /**
+     * Get the index version.
+     *
+     * <p>The version changes each time the index is modified.</p>
+     */
+    public long getVersion() {
+        return _version;
+    }
+
+    /**
+     * Add a region to the index or update its entry if the
+     * region is already indexed.
+     *
+     * <p>The regions world must be loaded and its coordinates defined.</p>
+     *
+     * @param region  The region to add.
+     *
+     * @return  The regions previous index entry or null if the region was not indexed.
+     */
+    @Nullable
+    public IndexedRegion add(R region) {
+        PreCon.notNull(region);
+
+        IndexedRegion entry = new IndexedRegion(region);
+
+        synchronized (_sync) {
+
+            IndexedRegion previous = _indexed.put(region, entry);
+
+            Map<String, ChunkTable> worlds = new HashMap<>(_worlds);
+
+            if (previous != null)
+                removeEntry(worlds, previous);
+
+            ChunkTable table = worlds.get(entry.worldName);
+            table = table != null ? table.copy() : new ChunkTable(16);
+
+            for (int x = entry.chunkX; x < entry.chunkXEnd; x++) {
+                for (int z = entry.chunkZ; z < entry.chunkZEnd; z++) {
+
+                    long key = getChunkKey(x, z);
+                    table.put(key, ChunkBucket.with(table.get(key), entry));
+                }
+            }
+
+            worlds.put(entry.worldName, table);
+
+            _worlds = worlds;
+            _version++;
+
+            return previous;
+        }
+    }
+
+    /**
+     * Add regions to the index or update their entries if they are
+     * already indexed.
+     *
+     * <p>Each affected world table is copied once and each affected chunk bucket
+     * is built once, regardless of the number of regions. The result is published
+     * atomically.</p>
+     *
+     * <p>The world of each region must be loaded and its coordinates defined.</p>
+     *
+     * @param regions  The regions to add.
+     *
+     * @return  A map of the previous index entries of regions that were already indexed.
+     */
+    public Map<R, IndexedRegion> addAll(Collection<? extends R> regions) {
+        PreCon.notNull(regions);
+
+        Map<R, IndexedRegion> entries = new HashMap<>(regions.size());
+        for (R region : regions) {
+            entries.put(region, new IndexedRegion(region));
+        }
+
+        synchronized (_sync) {
+
+            Map<R, IndexedRegion> previousEntries = new HashMap<>(10);
+
+            // previous entries that need to be removed from their chunks
+            Map<IndexedRegion, Boolean> removed = new IdentityHashMap<>(10);
+
+            // chunks that need to be rebuilt, by world, and the entries to add to them
+            Map<String, Map<Long, List<IndexedRegion>>> changes = new HashMap<>(5);
+
+            for (Map.Entry<R, IndexedRegion> mapEntry : entries.entrySet()) {
+
+                IndexedRegion entry = mapEntry.getValue();
+                IndexedRegion previous = _indexed.put(mapEntry.getKey(), entry);
+
+                if (previous != null) {
+                    previousEntries.put(mapEntry.getKey(), previous);
+                    removed.put(previous, Boolean.TRUE);
+                    addChanges(changes, previous, null);
+                }
+
+                addChanges(changes, entry, entry);
+            }
+
+            Map<String, ChunkTable> worlds = new HashMap<>(_worlds);
+
+            for (Map.Entry<String, Map<Long, List<IndexedRegion>>> worldEntry : changes.entrySet()) {
+
+                ChunkTable table = worlds.get(worldEntry.getKey());
+                table = table != null
+                        ? table.copy()
+                        : new ChunkTable(worldEntry.getValue().size() * 2);
+
+                for (Map.Entry<Long, List<IndexedRegion>> chunkEntry : worldEntry.getValue().entrySet()) {
+
+                    long key = chunkEntry.getKey();
+                    List<IndexedRegion> chunkRegions = chunkEntry.getValue();
+
+                    ChunkBucket bucket = table.get(key);
+                    if (bucket != null) {
+                        for (IndexedRegion region : bucket.byPriority) {
+                            if (!removed.containsKey(region))
+                                chunkRegions.add(region);
+                        }
+                    }
+
+                    table.put(key, chunkRegions.isEmpty() ? null : new ChunkBucket(chunkRegions));
+                }
+
+                if (table.size() == 0)
+                    worlds.remove(worldEntry.getKey());
+                else
+                    worlds.put(worldEntry.getKey(), table);
+            }
+
+            _worlds = worlds;
+            _version++;
+
+            return previousEntries;
+        }
+    }
+
+    /**
+     * Remove a region from the index.
+     *
+     * @param region  The region to remove.
+     *
+     * @return  The regions removed index entry or null if the region was not indexed.
+     */
+    @Nullable
+    public IndexedRegion remove(R region) {
+        PreCon.notNull(region);
+
+        synchronized (_sync) {
+
+            IndexedRegion previous = _indexed.remove(region);
+            if (previous == null)
+                return null;
+
+            Map<String, ChunkTable> worlds = new HashMap<>(_worlds);
+            removeEntry(worlds, previous);
+
+            _worlds = worlds;
+            _version++;
+
+            return previous;
+        }
+    }
+
+    /**
+     * Determine if any region contains the specified location.
+     *
+     * @param worldName  The name of the world.
+     * @param x          The X coordinates.
+     * @param y          The Y coordinates.
+     * @param z          The Z coordinates.
+     */
+    public boolean contains(String worldName, int x, int y, int z) {
+
+        ChunkBucket bucket = getBucket(worldName, x >> 4, z >> 4);
+        if (bucket == null)
+            return false;
+
+        if (bucket.tree != null)
+            return bucket.tree.contains(x, y, z);
+
+        IndexedRegion[] regions = bucket.byPriority;
+
+        for (IndexedRegion region : regions) {
+            if (region.contains(x, y, z))
+                return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * Determine if any event listener region contains the specified location.
+     *
+     * @param worldName  The name of the world.
+     * @param x          The X coordinates.
+     * @param y          The Y coordinates.
+     * @param z          The Z coordinates.
+     */
+    public boolean containsListener(String worldName, int x, int y, int z) {
+
+        ChunkBucket bucket = getBucket(worldName, x >> 4, z >> 4);
+        if (bucket == null)
+            return false;
+
+        for (IndexedRegion region : bucket.enter) {
+            if (region.contains(x, y, z))
+                return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * Get the number of blocks a location can move in any direction without
+     * possibly entering or leaving an event listener region.
+     *
+     * <p>The distance is measured as the greatest difference of any one axis and
+     * is limited to the chunk the location is in.</p>
+     *
+     * @param worldName  The name of the world.
+     * @param x          The X coordinates.
+     * @param y          The Y coordinates.
+     * @param z          The Z coordinates.
+     */
+    public int getListenerBoundaryDistance(String worldName, int x, int y, int z) {
+
+        int chunkLocalX = x & 15;
+        int chunkLocalZ = z & 15;
+
+        int distance = Math.min(
+                Math.min(chunkLocalX, 15 - chunkLocalX),
+                Math.min(chunkLocalZ, 15 - chunkLocalZ));
+
+        ChunkBucket bucket = getBucket(worldName, x >> 4, z >> 4);
+        if (bucket == null)
+            return distance;
+
+        for (IndexedRegion region : bucket.enter) {
+
+            distance = Math.min(distance, region.getBoundaryDistance(x, y, z));
+            if (distance == 0)
+                break;
+        }
+
+        return distance;
+    }
+
+    /**
+     * Add all regions that contain the specified location to an output collection.
+     *
+     * <p>Regions are added in order of priority. (highest to lowest order).</p>
+     *
+     * @param worldName  The name of the world.
+     * @param x          The X coordinates.
+     * @param y          The Y coordinates.
+     * @param z          The Z coordinates.
+     * @param output     The output collection.
+     *
+     * @return  The output collection.
+     */
+    public <T extends Collection<R>> T getRegions(String worldName, int x, int y, int z, T output) {
+
+        ChunkBucket bucket = getBucket(worldName, x >> 4, z >> 4);
+        if (bucket == null)
+            return output;
+
+        return addContaining(bucket.byPriority, null, bucket, x, y, z, output);
+    }
+
+    /**
+     * Add all event listener regions that contain the specified location to an
+     * output collection.
+     *
+     * @param worldName     The name of the world.
+     * @param x             The X coordinates.
+     * @param y             The Y coordinates.
+     * @param z             The Z coordinates.
+     * @param priorityType  The priority sort order of the added regions.
+     * @param output        The output collection.
+     *
+     * @return  The output collection.
+     */
+    public <T extends Collection<R>> T getListenerRegions(String worldName, int x, int y, int z,
+                                                         PriorityType priorityType, T output) {
+
+        ChunkBucket bucket = getBucket(worldName, x >> 4, z >> 4);
+        if (bucket == null)
+            return output;
+
+        switch (priorityType) {
+            case ENTER:
+                return addContaining(bucket.enter, bucket.enterIndexes, bucket, x, y, z, output);
+            case LEAVE:
+                return addContaining(bucket.leave, bucket.leaveIndexes, bucket, x, y, z, output);
+            default:
+                throw new AssertionError();
+        }
+    }
+
+    /**
+     * Add all regions that intersect the specified chunk to an output collection.
+     *
+     * <p>Regions are added in order of priority. (highest to lowest order).</p>
+     *
+     * @param worldName  The name of the world.
+     * @param chunkX     The chunk X coordinates.
+     * @param chunkZ     The chunk Z coordinates.
+     * @param output     The output collection.
+     *
+     * @return  The output collection.
+     */
+    public <T extends Collection<R>> T getRegionsInChunk(String worldName, int chunkX, int chunkZ,
+                                                        T output) {
+
+        ChunkBucket bucket = getBucket(worldName, chunkX, chunkZ);
+        if (bucket == null)
+            return output;
+
+        for (IndexedRegion region : bucket.byPriority) {
+            @SuppressWarnings("unchecked")
+            R r = (R)region.region;
+            output.add(r);
+        }
+
+        return output;
+    }
+
+    /**
+     * Add all regions that intersect the specified box to an output collection.
+     *
+     * <p>Regions are added in order of priority. (highest to lowest order).</p>
+     *
+     * @param worldName  The name of the world.
+     * @param minX       The box minimum X coordinates.
+     * @param minY       The box minimum Y coordinates.
+     * @param minZ       The box minimum Z coordinates.
+     * @param maxX       The box maximum X coordinates.
+     * @param maxY       The box maximum Y coordinates.
+     * @param maxZ       The box maximum Z coordinates.
+     * @param output     The output collection.
+     *
+     * @return  The output collection.
+     */
+    public <T extends Collection<R>> T getRegions(String worldName,
+                                                 int minX, int minY, int minZ,
+                                                 int maxX, int maxY, int maxZ, T output) {
+
+        ChunkTable table = _worlds.get(worldName);
+        if (table == null)
+            return output;
+
+        WorldTree worldTree = table.getWorldTree();
+
+        long[] mask = new long[worldTree.tree.getMaskLength()];
+        worldTree.tree.query(minX, minY, minZ, maxX, maxY, maxZ, mask);
+
+        return addMasked(worldTree.regions, mask, output);
+    }
+
+    /*
+     * Get the bucket for a chunk.
+     */
+    @Nullable
+    private ChunkBucket getBucket(@Nullable String worldName, int chunkX, int chunkZ) {
+
+        if (worldName == null)
+            return null;
+
+        ChunkTable table = _worlds.get(worldName);
+        if (table == null)
+            return null;
+
+        return table.get(getChunkKey(chunkX, chunkZ));
+    }
+
+    /*
+     * Add regions from a bucket array that contain the specified coordinates
+     * to an output collection.
+     */
+    private <T extends Collection<R>> T addContaining(IndexedRegion[] regions, @Nullable int[] remap,
+                                                     ChunkBucket bucket,
+                                                     int x, int y, int z, T output) {
+
+        if (regions.length == 0)
+            return output;
+
+        if (bucket.tree != null) {
+            long[] mask = QUERY_MASKS.get().clear(bucket.tree.getMaskLength());
+            bucket.tree.query(x, y, z, remap, mask);
+            return addMasked(regions, mask, output);
+        }
+
+        for (IndexedRegion region : regions) {
+            if (region.contains(x, y, z)) {
+                @SuppressWarnings("unchecked")
+                R r = (R)region.region;
+                output.add(r);
+            }
+        }
+        return output;
+    }
+
+    /*
+     * Add regions from an array whose bit is set in the specified mask
+     * to an output collection.
+     */
+    private <T extends Collection<R>> T addMasked(IndexedRegion[] regions, long[] mask, T output) {
+
+        for (int i = 0; i < mask.length; i++) {
+
+            long bits = mask[i];
+
+            while (bits != 0) {
+                int index = (i << 6) + Long.numberOfTrailingZeros(bits);
+                bits &= bits - 1;
+
+                @SuppressWarnings("unchecked")
+                R r = (R)regions[index].region;
+                output.add(r);
+            }
+        }
+        return output;
+    }
+
+    /*
+     * Add the chunks covered by an index entry to a map of changed chunks and
+     * optionally add an entry to the chunks.
+     */
+    private void addChanges(Map<String, Map<Long, List<IndexedRegion>>> changes,
+                            IndexedRegion entry, @Nullable IndexedRegion toAdd) {
+
+        Map<Long, List<IndexedRegion>> chunks = changes.get(entry.worldName);
+        if (chunks == null) {
+            chunks = new HashMap<>(entry.getChunkCount() * 2);
+            changes.put(entry.worldName, chunks);
+        }
+
+        for (int x = entry.chunkX; x < entry.chunkXEnd; x++) {
+            for (int z = entry.chunkZ; z < entry.chunkZEnd; z++) {
+
+                long key = getChunkKey(x, z);
+
+                List<IndexedRegion> chunkRegions = chunks.get(key);
+                if (chunkRegions == null) {
+                    chunkRegions = new ArrayList<>(3);
+                    chunks.put(key, chunkRegions);
+                }
+
+                if (toAdd != null)
+                    chunkRegions.add(toAdd);
+            }
+        }
+    }
+
+    /*
+     * Remove an index entry from a copy of the world table map.
+     */
+    private void removeEntry(Map<String, ChunkTable> worlds, IndexedRegion entry) {
+
+        ChunkTable table = worlds.get(entry.worldName);
+        if (table == null)
+            return;
+
+        table = table.copy();
+
+        for (int x = entry.chunkX; x < entry.chunkXEnd; x++) {
+            for (int z = entry.chunkZ; z < entry.chunkZEnd; z++) {
+
+                long key = getChunkKey(x, z);
+                ChunkBucket bucket = table.get(key);
+                if (bucket == null)
+                    continue;
+
+                table.put(key, ChunkBucket.without(bucket, entry));
+            }
+        }
+
+        if (table.size() == 0)
+            worlds.remove(entry.worldName);
+        else
+            worlds.put(entry.worldName, table);
+    }
+
+    /**
+     * Immutable snapshot of a region and the values it is indexed by.
+     *
+     * <p>Region bounds are captured so lookups do not need to call
+     * into the region.</p>
+     */
+    static final class IndexedRegion {
+
+        final IRegion region;
+        final String worldName;
+        final boolean isEventListener;
+        final int priority;
+        final int enterOrder;
+        final int leaveOrder;
+
+        final int xStart;
+        final int yStart;
+        final int zStart;
+        final int xEnd;
+        final int yEnd;
+        final int zEnd;
+
+        final int chunkX;
+        final int chunkZ;
+        final int chunkXEnd;
+        final int chunkZEnd;
+
+        IndexedRegion(IRegion region) {
+            this.region = region;
+            this.worldName = region.getWorldName();
+            this.isEventListener = region.isEventListener();
+            this.priority = region.getPriority();
+            this.enterOrder = region.getEventPriority(PriorityType.ENTER).getSortOrder();
+            this.leaveOrder = region.getEventPriority(PriorityType.LEAVE).getSortOrder();
+
+            this.xStart = region.getXStart();
+            this.yStart = region.getYStart();
+            this.zStart = region.getZStart();
+            this.xEnd = region.getXEnd();
+            this.yEnd = region.getYEnd();
+            this.zEnd = region.getZEnd();
+
+            this.chunkX = region.getChunkX();
+            this.chunkZ = region.getChunkZ();
+            this.chunkXEnd = chunkX + region.getChunkXWidth();
+            this.chunkZEnd = chunkZ + region.getChunkZWidth();
+        }
+
+        int getChunkCount() {
+            return (chunkXEnd - chunkX) * (chunkZEnd - chunkZ);
+        }
+
+        boolean contains(int x, int y, int z) {
+            return x >= xStart && x <= xEnd &&
+                    y >= yStart && y <= yEnd &&
+                    z >= zStart && z <= zEnd;
+        }
+
+        /*
+         * Get the number of blocks the coordinates can move along any axis
+         * without crossing the region boundary.
+         */
+        int getBoundaryDistance(int x, int y, int z) {
+
+            if (contains(x, y, z)) {
+                return Math.min(
+                        Math.min(Math.min(x - xStart, xEnd - x), Math.min(y - yStart, yEnd - y)),
+                        Math.min(z - zStart, zEnd - z));
+            }
+
+            int dx = x < xStart ? xStart - x : (x > xEnd ? x - xEnd : 0);
+            int dy = y < yStart ? yStart - y : (y > yEnd ? y - yEnd : 0);
+            int dz = z < zStart ? zStart - z : (z > zEnd ? z - zEnd : 0);
+
+            return Math.max(dx, Math.max(dy, dz)) - 1;
+        }
+    }
+
+    /**
+     * Immutable regions of a single chunk, pre-sorted for each lookup type.
+     */
+    static final class ChunkBucket {
+
+        // highest priority first
+        private static final Comparator<IndexedRegion> PRIORITY_COMPARATOR =
+                new Comparator<IndexedRegion>() {
+                    @Override
+                    public int compare(IndexedRegion o1, IndexedRegion o2) {
+                        return Integer.compare(o2.priority, o1.priority);
+                    }
+                };
+
+        private static final Comparator<IndexedRegion> ENTER_COMPARATOR =
+                new Comparator<IndexedRegion>() {
+                    @Override
+                    public int compare(IndexedRegion o1, IndexedRegion o2) {
+                        return Integer.compare(o1.enterOrder, o2.enterOrder);
+                    }
+                };
+
+        private static final Comparator<IndexedRegion> LEAVE_COMPARATOR =
+                new Comparator<IndexedRegion>() {
+                    @Override
+                    public int compare(IndexedRegion o1, IndexedRegion o2) {
+                        return Integer.compare(o1.leaveOrder, o2.leaveOrder);
+                    }
+                };
+
+        final IndexedRegion[] byPriority;
+        final IndexedRegion[] enter;
+        final IndexedRegion[] leave;
+
+        // chunk R-tree over the priority array, null if the chunk is not dense.
+        final RegionRTree tree;
+        // maps priority array indexes to enter and leave array indexes.
+        final int[] enterIndexes;
+        final int[] leaveIndexes;
+
+        ChunkBucket(List<IndexedRegion> regions) {
+
+            byPriority = regions.toArray(new IndexedRegion[regions.size()]);
+            Arrays.sort(byPriority, PRIORITY_COMPARATOR);
+
+            List<IndexedRegion> listeners = new ArrayList<>(regions.size());
+            for (IndexedRegion region : regions) {
+                if (region.isEventListener)
+                    listeners.add(region);
+            }
+
+            if (listeners.isEmpty()) {
+                enter = EMPTY;
+                leave = EMPTY;
+            }
+            else {
+                enter = listeners.toArray(new IndexedRegion[listeners.size()]);
+                Arrays.sort(enter, ENTER_COMPARATOR);
+
+                leave = listeners.toArray(new IndexedRegion[listeners.size()]);
+                Arrays.sort(leave, LEAVE_COMPARATOR);
+            }
+
+            if (byPriority.length < DENSE_BUCKET_SIZE) {
+                tree = null;
+                enterIndexes = null;
+                leaveIndexes = null;
+                return;
+            }
+
+            tree = new RegionRTree(byPriority);
+            enterIndexes = getIndexes(byPriority, enter);
+            leaveIndexes = getIndexes(byPriority, leave);
+        }
+
+        /*
+         * Map the indexes of regions in the source array to their index in the
+         * target array. Regions not in the target array are mapped to -1.
+         */
+        private static int[] getIndexes(IndexedRegion[] source, IndexedRegion[] target) {
+
+            Map<IndexedRegion, Integer> targetIndexes = new IdentityHashMap<>(target.length);
+            for (int i = 0; i < target.length; i++) {
+                targetIndexes.put(target[i], i);
+            }
+
+            int[] indexes = new int[source.length];
+            for (int i = 0; i < source.length; i++) {
+                Integer index = targetIndexes.get(source[i]);
+                indexes[i] = index != null ? index : -1;
+            }
+            return indexes;
+        }
+
+        /*
+         * Get a new bucket that contains the regions of the specified bucket
+         * and the specified region entry.
+         */
+        static ChunkBucket with(@Nullable ChunkBucket bucket, IndexedRegion entry) {
+
+            List<IndexedRegion> regions = new ArrayList<>(
+                    bucket != null ? bucket.byPriority.length + 1 : 1);
+
+            if (bucket != null) {
+                for (IndexedRegion region : bucket.byPriority) {
+                    if (!region.region.equals(entry.region))
+                        regions.add(region);
+                }
+            }
+
+            regions.add(entry);
+
+            return new ChunkBucket(regions);
+        }
+
+        /*
+         * Get a new bucket that contains the regions of the specified bucket
+         * without the specified region entry.
+         *
+         * Returns null if the new bucket is empty.
+         */
+        @Nullable
+        static ChunkBucket without(ChunkBucket bucket, IndexedRegion entry) {
+
+            List<IndexedRegion> regions = new ArrayList<>(bucket.byPriority.length);
+
+            for (IndexedRegion region : bucket.byPriority) {
+                if (region != entry)
+                    regions.add(region);
+            }
+
+            return regions.isEmpty() ? null : new ChunkBucket(regions);
+        }
+    }
+
+    /**
+     * Open addressing hash table of chunk buckets keyed by packed chunk coordinates.
+     *
+     * <p>A table is never modified after it is published. Modifications are
+     * made to a copy.</p>
+     */
+    static final class ChunkTable {
+
+        private long[] _keys;
+        private ChunkBucket[] _buckets;
+        private int _mask;
+        private int _size;
+
+        // lazily built R-tree of every region in the table
+        private volatile WorldTree _worldTree;
+
+        ChunkTable(int capacity) {
+            int size = Integer.highestOneBit(Math.max(capacity, 4) - 1) << 1;
+            _keys = new long[size];
+            _buckets = new ChunkBucket[size];
+            _mask = size - 1;
+        }
+
+        // the world tree is not copied because the copy is expected to be modified.
+        private ChunkTable(ChunkTable table) {
+            _keys = table._keys.clone();
+            _buckets = table._buckets.clone();
+            _mask = table._mask;
+            _size = table._size;
+        }
+
+        /**
+         * Get the number of chunks in the table.
+         */
+        int size() {
+            return _size;
+        }
+
+        /**
+         * Get a modifiable copy of the table.
+         */
+        ChunkTable copy() {
+            return new ChunkTable(this);
+        }
+
+        /**
+         * Get an R-tree of every region in the table.
+         *
+         * <p>The tree is built on the first call.</p>
+         */
+        WorldTree getWorldTree() {
+
+            WorldTree worldTree = _worldTree;
+            if (worldTree != null)
+                return worldTree;
+
+            Map<IndexedRegion, Boolean> unique = new IdentityHashMap<>(_size);
+
+            for (ChunkBucket bucket : _buckets) {
+                if (bucket == null)
+                    continue;
+
+                for (IndexedRegion region : bucket.byPriority) {
+                    unique.put(region, Boolean.TRUE);
+                }
+            }
+
+            IndexedRegion[] regions = unique.keySet().toArray(new IndexedRegion[unique.size()]);
+            Arrays.sort(regions, ChunkBucket.PRIORITY_COMPARATOR);
+
+            // benign race, the result is the same regardless of which thread builds it.
+            return _worldTree = new WorldTree(regions);
+        }
+
+        /**
+         * Get the bucket for a chunk key.
+         *
+         * @return  The bucket or null if not found.
+         */
+        @Nullable
+        ChunkBucket get(long key) {
+
+            long[] keys = _keys;
+            ChunkBucket[] buckets = _buckets;
+            int mask = _mask;
+
+            for (int i = hash(key) & mask;; i = (i + 1) & mask) {
+                ChunkBucket bucket = buckets[i];
+                if (bucket == null)
+                    return null;
+
+                if (keys[i] == key)
+                    return bucket;
+            }
+        }
+
+        /**
+         * Set the bucket for a chunk key.
+         *
+         * @param key     The chunk key.
+         * @param bucket  The bucket. Null to remove.
+         */
+        void put(long key, @Nullable ChunkBucket bucket) {
+
+            if (bucket == null) {
+                remove(key);
+                return;
+            }
+
+            if ((_size + 1) * 2 > _buckets.length)
+                resize(_buckets.length * 2);
+
+            for (int i = hash(key) & _mask;; i = (i + 1) & _mask) {
+
+                if (_buckets[i] == null) {
+                    _keys[i] = key;
+                    _buckets[i] = bucket;
+                    _size++;
+                    return;
+                }
+
+                if (_keys[i] == key) {
+                    _buckets[i] = bucket;
+                    return;
+                }
+            }
+        }
+
+        /*
+         * Remove a key using backward shift deletion so no
+         * tombstones are left in the table.
+         */
+        private void remove(long key) {
+
+            int i = hash(key) & _mask;
+
+            while (true) {
+                if (_buckets[i] == null)
+                    return;
+
+                if (_keys[i] == key)
+                    break;
+
+                i = (i + 1) & _mask;
+            }
+
+            _buckets[i] = null;
+            _size--;
+
+            int j = i;
+
+            while (true) {
+                j = (j + 1) & _mask;
+
+                if (_buckets[j] == null)
+                    return;
+
+                int k = hash(_keys[j]) & _mask;
+
+                // skip entries whose home slot is cyclically within (i, j]
+                if (i <= j ? (i < k && k <= j) : (i < k || k <= j))
+                    continue;
+
+                _keys[i] = _keys[j];
+                _buckets[i] = _buckets[j];
+                _buckets[j] = null;
+                i = j;
+            }
+        }
+
+        private void resize(int capacity) {
+
+            long[] keys = _keys;
+            ChunkBucket[] buckets = _buckets;
+
+            _keys = new long[capacity];
+            _buckets = new ChunkBucket[capacity];
+            _mask = capacity - 1;
+            _size = 0;
+
+            for (int i = 0; i < buckets.length; i++) {
+                if (buckets[i] != null)
+                    put(keys[i], buckets[i]);
+            }
+        }
+
+        private static int hash(long key) {
+            long hash = key * 0x9E3779B97F4A7C15L;
+            return (int)(hash ^ (hash >>> 32));
+        }
+    }
+
+    /**
+     * R-tree of every region in a world and the priority sorted
+     * region array it indexes.
+     */
+    static final class WorldTree {
+
+        final IndexedRegion[] regions;
+        final RegionRTree tree;
+
+        WorldTree(IndexedRegion[] regions) {
+            this.regions = regions;
+            this.tree = new RegionRTree(regions);
+        }
+    }
+
+    /**
+     * Reusable per thread bit mask for chunk R-tree queries.
+     */
+    private static final class QueryMask {
+
+        long[] mask = new long[1];
+
+        /*
+         * Get the cleared mask array, at least the specified length.
+         */
+        long[] clear(int length) {
+            if (mask.length < length) {
+                mask = new long[length];
+                return mask;
+            }
+
+            Arrays.fill(mask, 0L);
+            return mask;
+        }
+    }
+}
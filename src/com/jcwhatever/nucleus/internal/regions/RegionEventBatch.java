@@ -0,0 +1,161 @@
+/*
+ * This file is part of NucleusFramework for Bukkit, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) JCThePants (www.jcwhatever.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.jcwhatever.nucleus.internal.regions;
+
+import com.jcwhatever.nucleus.regions.IRegion;
+import com.jcwhatever.nucleus.regions.IRegionBatchEventListener;
+import com.jcwhatever.nucleus.regions.options.EnterRegionReason;
+import com.jcwhatever.nucleus.regions.options.LeaveRegionReason;
+import com.jcwhatever.nucleus.utils.PreCon;
+
+import org.bukkit.entity.Player;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Enter and leave transitions of a single region collected during
+ * a player watcher cycle for delivery to an {@link IRegionBatchEventListener}.
+ *
+ * <p>Transitions of a player are coalesced into the net change. An enter
+ * followed by a leave (or a leave followed by an enter) is not delivered.</p>
+ */
+class RegionEventBatch {
+
+    private final IRegion _region;
+    private final IRegionBatchEventListener _listener;
+    private final Map<Player, Transition> _transitions = new LinkedHashMap<>(10);
+
+    /**
+     * Constructor.
+     *
+     * @param region    The region the transitions are for.
+     * @param listener  The regions batch event listener.
+     */
+    RegionEventBatch(IRegion region, IRegionBatchEventListener listener) {
+        PreCon.notNull(region);
+        PreCon.notNull(listener);
+
+        _region = region;
+        _listener = listener;
+    }
+
+    /**
+     * Get the batch event listener.
+     */
+    IRegionBatchEventListener getListener() {
+        return _listener;
+    }
+
+    /**
+     * Determine if the batch has no transitions.
+     */
+    boolean isEmpty() {
+        return _transitions.isEmpty();
+    }
+
+    /**
+     * Add a transition.
+     *
+     * @param player      The player.
+     * @param reason      The reason for the transition.
+     * @param isEntering  True if the player entered the region, false if the player left.
+     */
+    void add(Player player, RegionEventReason reason, boolean isEntering) {
+
+        Transition transition = _transitions.get(player);
+        if (transition == null) {
+            transition = new Transition();
+            _transitions.put(player, transition);
+        }
+
+        if (isEntering) {
+            transition.netChange++;
+            transition.enterReason = reason.getEnterReason();
+        }
+        else {
+            transition.netChange--;
+            transition.leaveReason = reason.getLeaveReason();
+        }
+    }
+
+    /**
+     * Deliver the net transitions to the listener and clear the batch.
+     *
+     * <p>Leaving players are delivered before entering players.</p>
+     */
+    void call() {
+
+        if (_region.isDisposed()) {
+            _transitions.clear();
+            return;
+        }
+
+        Map<Player, EnterRegionReason> entered = new LinkedHashMap<>(_transitions.size());
+        Map<Player, LeaveRegionReason> left = new LinkedHashMap<>(_transitions.size());
+
+        for (Map.Entry<Player, Transition> entry : _transitions.entrySet()) {
+
+            Transition transition = entry.getValue();
+
+            if (transition.netChange > 0) {
+                entered.put(entry.getKey(), transition.enterReason);
+            }
+            else if (transition.netChange < 0) {
+                left.put(entry.getKey(), transition.leaveReason);
+            }
+        }
+
+        _transitions.clear();
+
+        if (!left.isEmpty()) {
+            try {
+                _listener.onPlayersLeave(Collections.unmodifiableMap(left));
+            }
+            catch (Throwable e) {
+                e.printStackTrace();
+            }
+        }
+
+        if (!entered.isEmpty()) {
+            try {
+                _listener.onPlayersEnter(Collections.unmodifiableMap(entered));
+            }
+            catch (Throwable e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /*
+     * Net enter/leave change of a player within the batch.
+     */
+    private static class Transition {
+        int netChange;
+        EnterRegionReason enterReason;
+        LeaveRegionReason leaveReason;
+    }
+}
@@ -0,0 +1,285 @@
+/*
+ * This file is part of NucleusFramework for Bukkit, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) JCThePants (www.jcwhatever.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.jcwhatever.nucleus.internal.regions;
+
+import com.jcwhatever.nucleus.internal.regions.RegionChunkIndex.IndexedRegion;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Immutable STR (Sort-Tile-Recursive) packed R-tree of indexed region bounds.
+ *
+ * <p>Query results are reported as a bit mask of indexes into the region
+ * array the tree was built from. This allows the caller to read matching
+ * regions in the order of the array without sorting or allocating.</p>
+ */
+final class RegionRTree {
+
+    // max number of children per node
+    static final int NODE_CAPACITY = 8;
+
+    private static final Comparator<Node> X_COMPARATOR = new Comparator<Node>() {
+        @Override
+        public int compare(Node o1, Node o2) {
+            return Long.compare((long)o1.minX + o1.maxX, (long)o2.minX + o2.maxX);
+        }
+    };
+
+    private static final Comparator<Node> Y_COMPARATOR = new Comparator<Node>() {
+        @Override
+        public int compare(Node o1, Node o2) {
+            return Long.compare((long)o1.minY + o1.maxY, (long)o2.minY + o2.maxY);
+        }
+    };
+
+    private static final Comparator<Node> Z_COMPARATOR = new Comparator<Node>() {
+        @Override
+        public int compare(Node o1, Node o2) {
+            return Long.compare((long)o1.minZ + o1.maxZ, (long)o2.minZ + o2.maxZ);
+        }
+    };
+
+    private final Node _root;
+    private final int _size;
+
+    /**
+     * Constructor.
+     *
+     * @param regions  The regions to add to the tree. The tree does not keep a reference
+     *                 to the array. Query results are indexes into the array.
+     */
+    RegionRTree(IndexedRegion[] regions) {
+
+        _size = regions.length;
+
+        List<Node> nodes = new ArrayList<>(regions.length);
+        for (int i = 0; i < regions.length; i++) {
+            nodes.add(new Node(regions[i], i));
+        }
+
+        while (nodes.size() > 1) {
+            nodes = pack(nodes);
+        }
+
+        _root = nodes.isEmpty() ? null : nodes.get(0);
+    }
+
+    /**
+     * Get the number of regions in the tree.
+     */
+    int size() {
+        return _size;
+    }
+
+    /**
+     * Get the size of a bit mask array needed to hold the
+     * results of a query.
+     */
+    int getMaskLength() {
+        return (_size + 63) >>> 6;
+    }
+
+    /**
+     * Determine if any region contains the specified coordinates.
+     *
+     * @param x  The X coordinates.
+     * @param y  The Y coordinates.
+     * @param z  The Z coordinates.
+     */
+    boolean contains(int x, int y, int z) {
+        return _root != null && contains(_root, x, y, z);
+    }
+
+    /**
+     * Set the mask bits of regions that contain the specified coordinates.
+     *
+     * @param x      The X coordinates.
+     * @param y      The Y coordinates.
+     * @param z      The Z coordinates.
+     * @param remap  Optional array used to remap region indexes to mask bit indexes.
+     *               Regions whose remapped index is less than 0 are skipped.
+     * @param mask   The output bit mask. Must be cleared by the caller.
+     */
+    void query(int x, int y, int z, int[] remap, long[] mask) {
+        if (_root != null)
+            query(_root, x, y, z, x, y, z, remap, mask);
+    }
+
+    /**
+     * Set the mask bits of regions that intersect the specified box.
+     *
+     * @param minX   The box minimum X coordinates.
+     * @param minY   The box minimum Y coordinates.
+     * @param minZ   The box minimum Z coordinates.
+     * @param maxX   The box maximum X coordinates.
+     * @param maxY   The box maximum Y coordinates.
+     * @param maxZ   The box maximum Z coordinates.
+     * @param mask   The output bit mask. Must be cleared by the caller.
+     */
+    void query(int minX, int minY, int minZ, int maxX, int maxY, int maxZ, long[] mask) {
+        if (_root != null)
+            query(_root, minX, minY, minZ, maxX, maxY, maxZ, null, mask);
+    }
+
+    private static boolean contains(Node node, int x, int y, int z) {
+
+        if (!node.intersects(x, y, z, x, y, z))
+            return false;
+
+        if (node.children == null)
+            return true;
+
+        for (Node child : node.children) {
+            if (contains(child, x, y, z))
+                return true;
+        }
+
+        return false;
+    }
+
+    private static void query(Node node, int minX, int minY, int minZ,
+                              int maxX, int maxY, int maxZ, int[] remap, long[] mask) {
+
+        if (!node.intersects(minX, minY, minZ, maxX, maxY, maxZ))
+            return;
+
+        if (node.children == null) {
+
+            int index = remap != null ? remap[node.index] : node.index;
+            if (index >= 0)
+                mask[index >>> 6] |= 1L << index;
+
+            return;
+        }
+
+        for (Node child : node.children) {
+            query(child, minX, minY, minZ, maxX, maxY, maxZ, remap, mask);
+        }
+    }
+
+    /*
+     * Pack a level of nodes into parent nodes.
+     *
+     * Nodes are sorted into X slabs, each X slab into Z slabs and each Z slab
+     * by Y before being grouped into parents.
+     */
+    private static List<Node> pack(List<Node> nodes) {
+
+        int parentCount = (nodes.size() + NODE_CAPACITY - 1) / NODE_CAPACITY;
+        int slices = (int)Math.ceil(Math.cbrt(parentCount));
+
+        List<Node> parents = new ArrayList<>(parentCount);
+
+        Collections.sort(nodes, X_COMPARATOR);
+
+        int xSlabSize = (nodes.size() + slices - 1) / slices;
+
+        for (int x = 0; x < nodes.size(); x += xSlabSize) {
+
+            List<Node> xSlab = nodes.subList(x, Math.min(x + xSlabSize, nodes.size()));
+            Collections.sort(xSlab, Z_COMPARATOR);
+
+            int zSlabSize = (xSlab.size() + slices - 1) / slices;
+
+            for (int z = 0; z < xSlab.size(); z += zSlabSize) {
+
+                List<Node> zSlab = xSlab.subList(z, Math.min(z + zSlabSize, xSlab.size()));
+                Collections.sort(zSlab, Y_COMPARATOR);
+
+                for (int y = 0; y < zSlab.size(); y += NODE_CAPACITY) {
+
+                    List<Node> children = zSlab.subList(y, Math.min(y + NODE_CAPACITY, zSlab.size()));
+                    parents.add(new Node(children.toArray(new Node[children.size()])));
+                }
+            }
+        }
+
+        return parents;
+    }
+
+    /**
+     * A tree node. Nodes without children are region entries.
+     */
+    private static final class Node {
+
+        final int minX;
+        final int minY;
+        final int minZ;
+        final int maxX;
+        final int maxY;
+        final int maxZ;
+
+        final Node[] children;
+        final int index;
+
+        Node(IndexedRegion region, int index) {
+            this.minX = region.xStart;
+            this.minY = region.yStart;
+            this.minZ = region.zStart;
+            this.maxX = region.xEnd;
+            this.maxY = region.yEnd;
+            this.maxZ = region.zEnd;
+            this.children = null;
+            this.index = index;
+        }
+
+        Node(Node[] children) {
+
+            int minX = Integer.MAX_VALUE;
+            int minY = Integer.MAX_VALUE;
+            int minZ = Integer.MAX_VALUE;
+            int maxX = Integer.MIN_VALUE;
+            int maxY = Integer.MIN_VALUE;
+            int maxZ = Integer.MIN_VALUE;
+
+            for (Node child : children) {
+                minX = Math.min(minX, child.minX);
+                minY = Math.min(minY, child.minY);
+                minZ = Math.min(minZ, child.minZ);
+                maxX = Math.max(maxX, child.maxX);
+                maxY = Math.max(maxY, child.maxY);
+                maxZ = Math.max(maxZ, child.maxZ);
+            }
+
+            this.minX = minX;
+            this.minY = minY;
+            this.minZ = minZ;
+            this.maxX = maxX;
+            this.maxY = maxY;
+            this.maxZ = maxZ;
+            this.children = children;
+            this.index = -1;
+        }
+
+        boolean intersects(int minX, int minY, int minZ, int maxX, int maxY, int maxZ) {
+            return minX <= this.maxX && maxX >= this.minX &&
+                    minY <= this.maxY && maxY >= this.minY &&
+                    minZ <= this.maxZ && maxZ >= this.minZ;
+        }
+    }
+}
@@ -25,37 +25,33 @@
 package com.jcwhatever.nucleus.internal.regions;
 
 import com.jcwhatever.nucleus.internal.NucMsg;
+import com.jcwhatever.nucleus.internal.regions.RegionChunkIndex.IndexedRegion;
+import com.jcwhatever.nucleus.providers.regionselect.IRegionSelection;
 import com.jcwhatever.nucleus.regions.IRegion;
 import com.jcwhatever.nucleus.regions.options.RegionEventPriority.PriorityType;
 import com.jcwhatever.nucleus.utils.CollectionUtils;
 import com.jcwhatever.nucleus.utils.PreCon;
-import com.jcwhatever.nucleus.utils.coords.ChunkCoords;
-import com.jcwhatever.nucleus.utils.coords.IChunkCoords;
 
 import org.bukkit.Chunk;
 import org.bukkit.Location;
 import org.bukkit.World;
 
 import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.Iterator;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
+import javax.annotation.Nullable;
 
 /**
  * A region manager responsible for storing a specific region type.
+ *
+ * <p>Region lookups are backed by a {@link RegionChunkIndex} and do not lock. Lookup
+ * methods that accept an output collection do not allocate.</p>
  */
 class RegionTypeManager<R extends IRegion> {
 
-    // Player watcher regions chunk map.
-    private final Map<IChunkCoords, EventOrderedRegions<R>> _listenerRegionsMap = new HashMap<>(10);
-
-    // All regions chunk map.
-    private final Map<IChunkCoords, Set<R>> _allRegionsMap = new HashMap<>(15);
-
-    // hash set of all registered regions
-    private final Set<R> _regions = new RegionSet<>(10, false);
+    // per world chunk index of all regions.
+    private final RegionChunkIndex<R> _index = new RegionChunkIndex<>();
 
     // synchronization object
     private final Object _sync = new Object();
@@ -84,7 +80,7 @@ class RegionTypeManager<R extends IRegion> {
      * Get number of regions registered.
      */
     public int getRegionCount() {
-        return _regions.size();
+        return _index.size();
     }
 
     /**
@@ -107,30 +103,43 @@ class RegionTypeManager<R extends IRegion> {
      * @param z      The Z coordinates to check.
      */
     public boolean hasRegion(World world, int x, int y, int z) {
+        return world != null && _index.contains(world.getName(), x, y, z);
+    }
 
-        synchronized(_sync) {
-
-            if (_regions.size() == 0)
-                return false;
-
-            // calculate chunk location instead of getting it from chunk
-            // to prevent asynchronous issues
-            int chunkX = (int)Math.floor((double)x / 16);
-            int chunkZ = (int)Math.floor((double)z / 16);
-
-            IChunkCoords key = getChunkKey(world, chunkX, chunkZ);
+    /**
+     * Get the version of the region index.
+     *
+     * <p>The version changes each time a region is registered or unregistered.</p>
+     */
+    public long getIndexVersion() {
+        return _index.getVersion();
+    }
 
-            Set<R> regions = _allRegionsMap.get(key);
-            if (regions == null)
-                return false;
+    /**
+     * Determine if there is a player watcher/listener region at the specified location.
+     *
+     * @param world  The world to check in.
+     * @param x      The X coordinates to check.
+     * @param y      The Y coordinates to check.
+     * @param z      The Z coordinates to check.
+     */
+    public boolean hasListenerRegion(World world, int x, int y, int z) {
+        return world != null && _index.containsListener(world.getName(), x, y, z);
+    }
 
-            for (R region : regions) {
-                if (region.contains(x, y, z))
-                    return true;
-            }
+    /**
+     * Get the number of blocks the specified location can move along any axis
+     * without possibly entering or leaving a player watcher/listener region.
+     *
+     * @param world  The world to check in.
+     * @param x      The X coordinates to check.
+     * @param y      The Y coordinates to check.
+     * @param z      The Z coordinates to check.
+     */
+    public int getListenerBoundaryDistance(World world, int x, int y, int z) {
+        PreCon.notNull(world);
 
-            return false;
-        }
+        return _index.getListenerBoundaryDistance(world.getName(), x, y, z);
     }
 
     /**
@@ -141,9 +150,8 @@ class RegionTypeManager<R extends IRegion> {
     public List<R> getRegions(Location location) {
         PreCon.notNull(location);
 
-        return getRegion(location.getWorld(),
-                location.getBlockX(), location.getBlockY(), location.getBlockZ(),
-                PriorityType.ENTER, _allRegionsMap);
+        return getRegions(location.getWorld(),
+                location.getBlockX(), location.getBlockY(), location.getBlockZ());
     }
 
     /**
@@ -157,7 +165,55 @@ class RegionTypeManager<R extends IRegion> {
     public List<R> getRegions(World world, int x, int y, int z) {
         PreCon.notNull(world);
 
-        return getRegion(world, x, y, z, PriorityType.ENTER, _allRegionsMap);
+        return getRegions(world, x, y, z, new ArrayList<R>(10));
+    }
+
+    /**
+     * Add regions that contain the specified location to an output collection.
+     *
+     * @param world   The world to check.
+     * @param x       The x coordinates.
+     * @param y       The y coordinates.
+     * @param z       The z coordinates.
+     * @param output  The output collection.
+     *
+     * @return  The output collection.
+     */
+    public <T extends Collection<R>> T getRegions(World world, int x, int y, int z, T output) {
+        PreCon.notNull(world);
+        PreCon.notNull(output);
+
+        return _index.getRegions(world.getName(), x, y, z, output);
+    }
+
+    /**
+     * Get all regions that intersect with the specified region selection.
+     *
+     * @param selection  The region selection to check.
+     */
+    public List<R> getRegions(IRegionSelection selection) {
+        return getRegions(selection, new ArrayList<R>(10));
+    }
+
+    /**
+     * Add all regions that intersect with the specified region selection
+     * to an output collection.
+     *
+     * @param selection  The region selection to check.
+     * @param output     The output collection.
+     *
+     * @return  The output collection.
+     */
+    public <T extends Collection<R>> T getRegions(IRegionSelection selection, T output) {
+        PreCon.notNull(selection);
+        PreCon.notNull(output);
+
+        if (!selection.isDefined())
+            return output;
+
+        return _index.getRegions(selection.getWorldName(),
+                selection.getXStart(), selection.getYStart(), selection.getZStart(),
+                selection.getXEnd(), selection.getYEnd(), selection.getZEnd(), output);
     }
 
     /**
@@ -167,9 +223,7 @@ class RegionTypeManager<R extends IRegion> {
      * @param location  The location to check.
      */
     public List<R> getListenerRegions(Location location) {
-        return getRegion(location.getWorld(),
-                location.getBlockX(), location.getBlockY(), location.getBlockZ(),
-                PriorityType.ENTER, _listenerRegionsMap);
+        return getListenerRegions(location, PriorityType.ENTER);
     }
 
     /**
@@ -182,7 +236,7 @@ class RegionTypeManager<R extends IRegion> {
      * @param z      The z coordinates.
      */
     public List<R> getListenerRegions(World world, int x, int y, int z) {
-        return getRegion(world, x, y, z, PriorityType.ENTER, _listenerRegionsMap);
+        return getListenerRegions(world, x, y, z, PriorityType.ENTER);
     }
 
     /**
@@ -193,9 +247,9 @@ class RegionTypeManager<R extends IRegion> {
      * @param priorityType  The priority sorting type of the returned list.
      */
     public List<R> getListenerRegions(Location location, PriorityType priorityType) {
-        return getRegion(location.getWorld(),
+        return getListenerRegions(location.getWorld(),
                 location.getBlockX(), location.getBlockY(), location.getBlockZ(),
-                priorityType, _listenerRegionsMap);
+                priorityType);
     }
 
     /**
@@ -209,7 +263,29 @@ class RegionTypeManager<R extends IRegion> {
      * @param priorityType  The priority sorting type of the returned list.
      */
     public List<R> getListenerRegions(World world, int x, int y, int z, PriorityType priorityType) {
-        return getRegion(world, x, y, z, priorityType, _listenerRegionsMap);
+        return getListenerRegions(world, x, y, z, priorityType, new ArrayList<R>(10));
+    }
+
+    /**
+     * Add regions that the specified location is inside of and are player
+     * watchers/listeners to an output collection.
+     *
+     * @param world         The world to check.
+     * @param x             The X coordinates.
+     * @param y             The Y coordinates.
+     * @param z             The Z coordinates.
+     * @param priorityType  The priority sorting type of the added regions.
+     * @param output        The output collection.
+     *
+     * @return  The output collection.
+     */
+    public <T extends Collection<R>> T getListenerRegions(World world, int x, int y, int z,
+                                                         PriorityType priorityType, T output) {
+        PreCon.notNull(world);
+        PreCon.notNull(priorityType);
+        PreCon.notNull(output);
+
+        return _index.getListenerRegions(world.getName(), x, y, z, priorityType, output);
     }
 
     /**
@@ -229,58 +305,12 @@ class RegionTypeManager<R extends IRegion> {
      * @param z      The chunks Z coordinates.
      */
     public List<R> getRegionsInChunk(World world, int x, int z) {
-        synchronized(_sync) {
-
-            IChunkCoords key = getChunkKey(world, x, z);
-
-            Set<R> regions = _allRegionsMap.get(key);
-            if (regions == null)
-                return CollectionUtils.unmodifiableList();
-
-            return CollectionUtils.unmodifiableList(regions);
-        }
-    }
-
-    /*
-     * Get all regions contained in the specified location using
-     * the supplied region map.
-     */
-    private <T extends Set<R>> List<R> getRegion(World world, int x, int y, int z,
-                                                             PriorityType priorityType,
-                                                             Map<IChunkCoords, T> map) {
-        synchronized(_sync) {
-
-            List<R> results = new ArrayList<>(10);
-
-            if (_regions.size() == 0)
-                return results;
 
-            // calculate chunk location instead of getting it from chunk
-            // to prevent asynchronous issues
-            int chunkX = (int)Math.floor((double)x / 16);
-            int chunkZ = (int)Math.floor((double)z / 16);
+        List<R> regions = _index.getRegionsInChunk(world.getName(), x, z, new ArrayList<R>(5));
+        if (regions.isEmpty())
+            return CollectionUtils.unmodifiableList();
 
-            IChunkCoords key = getChunkKey(world, chunkX, chunkZ);
-
-            Set<R> regions = map.get(key);
-            if (regions == null)
-                return results;
-
-            Iterator<R> iterator;
-
-            iterator = regions instanceof EventOrderedRegions
-                    ? ((EventOrderedRegions<R>) regions).iterator(priorityType)
-                    : regions.iterator();
-
-            while (iterator.hasNext()) {
-                R region = iterator.next();
-
-                if (region.contains(x, y, z))
-                    results.add(region);
-            }
-
-            return results;
-        }
+        return CollectionUtils.unmodifiableList(regions);
     }
 
     /**
@@ -298,46 +328,46 @@ class RegionTypeManager<R extends IRegion> {
             return;
         }
 
-        _regions.add(region);
-
         synchronized(_sync) {
 
-            boolean isFormerListener = false;
-
-            int xMax = region.getChunkX() + region.getChunkXWidth();
-            int zMax = region.getChunkZ() + region.getChunkZWidth();
-
-            for (int x= region.getChunkX(); x < xMax; x++) {
-                for (int z= region.getChunkZ(); z < zMax; z++) {
-
-                    //noinspection ConstantConditions
-                    IChunkCoords key = getChunkKey(region.getWorld(), x, z);
-
-                    if (region.isEventListener()) {
-
-                        // add to listener regions map
-                        EventOrderedRegions<R> regions = _listenerRegionsMap.get(key);
-                        if (regions == null) {
-                            regions = new EventOrderedRegions<R>(5);
-                            _listenerRegionsMap.put(key, regions);
-                        }
-                        regions.add(region);
-                    }
-                    else {
-                        isFormerListener = removeFromMap(_listenerRegionsMap, key, region);
-                    }
-
-                    // add to all regions map
-                    Set<R> regions = _allRegionsMap.get(key);
-                    if (regions == null) {
-                        regions = new RegionSet<>(5, true);
-                        _allRegionsMap.put(key, regions);
-                    }
-                    regions.add(region);
-                }
+            IndexedRegion previous = _index.add(region);
+
+            onRegister(region, isFormerListener(region, previous));
+        }
+    }
+
+    /**
+     * Register a collection of regions in one pass.
+     *
+     * <p>Equivalent to registering each region individually, except that the
+     * regions are indexed and published together.</p>
+     *
+     * @param regions  The regions to register.
+     */
+    public void registerAll(Collection<? extends R> regions) {
+        PreCon.notNull(regions);
+
+        List<R> valid = new ArrayList<>(regions.size());
+
+        for (R region : regions) {
+
+            if (!region.isDefined() || !region.isWorldLoaded()) {
+                NucMsg.debug("Failed to register region '{0}' with RegionManager because " +
+                        "it's coords are undefined.", region.getName());
+                continue;
             }
 
-            onRegister(region, isFormerListener);
+            valid.add(region);
+        }
+
+        if (valid.isEmpty())
+            return;
+
+        synchronized(_sync) {
+
+            Map<R, IndexedRegion> previous = _index.addAll(valid);
+
+            onRegisterAll(valid, previous);
         }
     }
 
@@ -356,21 +386,7 @@ class RegionTypeManager<R extends IRegion> {
 
         synchronized(_sync) {
 
-            int xMax = region.getChunkX() + region.getChunkXWidth();
-            int zMax = region.getChunkZ() + region.getChunkZWidth();
-
-            for (int x= region.getChunkX(); x < xMax; x++) {
-                for (int z= region.getChunkZ(); z < zMax; z++) {
-
-                    //noinspection ConstantConditions
-                    IChunkCoords key = getChunkKey(region.getWorld(), x, z);
-
-                    removeFromMap(_listenerRegionsMap, key, region);
-                    removeFromMap(_allRegionsMap, key, region);
-                }
-            }
-
-            if (_regions.remove(region)) {
+            if (_index.remove(region) != null) {
                 onUnregister(region);
             }
         }
@@ -385,6 +401,22 @@ class RegionTypeManager<R extends IRegion> {
      */
     protected void onRegister(R region, boolean isFormerListener) {}
 
+    /**
+     * Invoked after a collection of regions is registered.
+     *
+     * <p>Invokes {@link #onRegister} for each region by default.</p>
+     *
+     * @param regions   The regions that were registered.
+     * @param previous  The previous index entries of regions that were
+     *                  already registered.
+     */
+    protected void onRegisterAll(Collection<R> regions, Map<R, IndexedRegion> previous) {
+
+        for (R region : regions) {
+            onRegister(region, isFormerListener(region, previous.get(region)));
+        }
+    }
+
     /**
      * Invoked after a region is un-registered.
      *
@@ -392,18 +424,14 @@ class RegionTypeManager<R extends IRegion> {
      */
     protected void onUnregister(R region) {}
 
-    /*
-     * Remove a region from a region map.
-     */
-    protected <T extends Set<R>> boolean removeFromMap(Map<IChunkCoords, T> map, IChunkCoords key, R region) {
-        Set<R> regions = map.get(key);
-        return regions != null && regions.remove(region);
-    }
-
-    /*
-     * Get a regions chunk map key.
+    /**
+     * Determine if a region was formerly registered as a listener and
+     * is now registered as a non-listener.
+     *
+     * @param region    The registered region.
+     * @param previous  The regions previous index entry, if any.
      */
-    protected IChunkCoords getChunkKey(World world, int x, int z) {
-        return new ChunkCoords(world, x, z);
+    protected boolean isFormerListener(R region, @Nullable IndexedRegion previous) {
+        return previous != null && previous.isEventListener && !region.isEventListener();
     }
 }
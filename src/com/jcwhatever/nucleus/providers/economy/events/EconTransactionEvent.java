@@ -0,0 +1,119 @@
+/*
+ * This file is part of NucleusFramework for Bukkit, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) JCThePants (www.jcwhatever.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.jcwhatever.nucleus.providers.economy.events;
+
+import com.jcwhatever.nucleus.mixins.ICancellable;
+import com.jcwhatever.nucleus.providers.economy.IAccount;
+import com.jcwhatever.nucleus.providers.economy.IEconomyTransaction;
+import com.jcwhatever.nucleus.utils.PreCon;
+
+import org.bukkit.event.Cancellable;
+import org.bukkit.event.Event;
+import org.bukkit.event.HandlerList;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Called when an {@link IEconomyTransaction} is committed as a single batch
+ * using NucleusFramework.
+ *
+ * <p>The event is called once for the entire transaction instead of calling
+ * {@link EconDepositEvent} and {@link EconWithdrawEvent} for each account.
+ * Cancelling the event cancels the transaction.</p>
+ */
+public class EconTransactionEvent extends Event implements Cancellable, ICancellable {
+
+    private static final HandlerList handlers = new HandlerList();
+
+    private final IEconomyTransaction _transaction;
+    private final Map<IAccount, Double> _deltas;
+    private boolean _isCancelled;
+
+    /**
+     * Constructor.
+     *
+     * @param transaction  The transaction being committed.
+     * @param deltas       The balance change of each account in the transaction.
+     */
+    public EconTransactionEvent(IEconomyTransaction transaction, Map<IAccount, Double> deltas) {
+        PreCon.notNull(transaction);
+        PreCon.notNull(deltas);
+
+        _transaction = transaction;
+        _deltas = Collections.unmodifiableMap(deltas);
+    }
+
+    /**
+     * Get the transaction being committed.
+     */
+    public IEconomyTransaction getTransaction() {
+        return _transaction;
+    }
+
+    /**
+     * Get the accounts whose balances are changed by the transaction.
+     */
+    public Set<IAccount> getAccounts() {
+        return _deltas.keySet();
+    }
+
+    /**
+     * Get the amount the balance of an account is changed by in the
+     * providers default currency.
+     *
+     * <p>Deposits are positive and withdrawals are negative.</p>
+     *
+     * @param account  The account.
+     *
+     * @return  The amount or 0 if the account is not part of the transaction.
+     */
+    public double getDelta(IAccount account) {
+        PreCon.notNull(account);
+
+        Double delta = _deltas.get(account);
+        return delta != null ? delta : 0.0D;
+    }
+
+    @Override
+    public boolean isCancelled() {
+        return _isCancelled;
+    }
+
+    @Override
+    public void setCancelled(boolean isCancelled) {
+        _isCancelled = isCancelled;
+    }
+
+    @Override
+    public HandlerList getHandlers() {
+        return handlers;
+    }
+
+    public static HandlerList getHandlerList() {
+        return handlers;
+    }
+}
@@ -24,6 +24,7 @@
 
 package com.jcwhatever.nucleus.regions;
 
+import com.jcwhatever.nucleus.providers.regionselect.IRegionSelection;
 import com.jcwhatever.nucleus.regions.options.RegionEventPriority.PriorityType;
 
 import org.bukkit.Chunk;
@@ -32,6 +33,7 @@ import org.bukkit.World;
 import org.bukkit.entity.Player;
 import org.bukkit.plugin.Plugin;
 
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -126,6 +128,43 @@ public interface IGlobalRegionManager {
      */
     <T extends IRegion> List<T> getRegions(World world, int x, int y, int z, Class<T> regionClass);
 
+    /**
+     * Add regions that contain the specified location to an output collection.
+     *
+     * @param world   The world to check.
+     * @param x       The x coordinates.
+     * @param y       The y coordinates.
+     * @param z       The z coordinates.
+     * @param output  The output collection.
+     *
+     * @param <T>  The output collection type.
+     *
+     * @return  The output collection. Regions are added in order of the priority returned
+     * from {@link IRegion#getPriority} (highest to lowest order).
+     */
+    <T extends Collection<IRegion>> T getRegions(World world, int x, int y, int z, T output);
+
+    /**
+     * Get a list of regions that intersect with the specified region selection.
+     *
+     * @param selection  The region selection to check.
+     *
+     * @return  A list sorted by the priority returned from {@link IRegion#getPriority}.
+     * (highest to lowest order).
+     */
+    List<IRegion> getRegions(IRegionSelection selection);
+
+    /**
+     * Get a list of regions that intersect with the specified region selection.
+     *
+     * @param selection    The region selection to check.
+     * @param regionClass  The class of the region type to get.
+     *
+     * @return  A list sorted by the priority returned from {@link IRegion#getPriority}.
+     * (highest to lowest order).
+     */
+    <T extends IRegion> List<T> getRegions(IRegionSelection selection, Class<T> regionClass);
+
     /**
      * Get a list of regions that are region event listeners and contain the specified location.
      *
@@ -209,6 +248,25 @@ public interface IGlobalRegionManager {
      */
     List<IRegion> getListenerRegions(World world, int x, int y, int z, PriorityType priorityType);
 
+    /**
+     * Add regions that are region event listeners and contain the specified location
+     * to an output collection.
+     *
+     * @param world         The world to check.
+     * @param x             The X coordinates.
+     * @param y             The Y coordinates.
+     * @param z             The Z coordinates.
+     * @param priorityType  The priority sorting type of the added regions.
+     * @param output        The output collection.
+     *
+     * @param <T>  The output collection type.
+     *
+     * @return  The output collection. Regions are added in the order of the
+     * specified {@link PriorityType}.
+     */
+    <T extends Collection<IRegion>> T getListenerRegions(World world, int x, int y, int z,
+                                                        PriorityType priorityType, T output);
+
     /**
      * Get a list of regions that are region event listeners and contain the specified location.
      *
@@ -289,4 +347,20 @@ public interface IGlobalRegionManager {
      * @param region   The region to forget the player is in.
      */
     void forgetPlayer(Player player, IRegion region);
+
+    /**
+     * Run a batch operation of region registrations.
+     *
+     * <p>Creating or loading many regions should be done inside of a batch operation.
+     * Regions registered while the operation runs are indexed in a single pass when
+     * the outermost batch operation completes instead of one at a time. Until then,
+     * the regions are not returned by region lookups.</p>
+     *
+     * <p>Only regions registered by the thread that runs the batch operation are
+     * deferred. Registrations made on other threads at the same time are not
+     * affected.</p>
+     *
+     * @param operations  The runnable that runs the region operations.
+     */
+    void runBatchOperation(Runnable operations);
 }
@@ -0,0 +1,63 @@
+/*
+ * This file is part of NucleusFramework for Bukkit, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) JCThePants (www.jcwhatever.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.jcwhatever.nucleus.regions;
+
+import com.jcwhatever.nucleus.regions.options.EnterRegionReason;
+import com.jcwhatever.nucleus.regions.options.LeaveRegionReason;
+
+import org.bukkit.entity.Player;
+
+import java.util.Map;
+
+/**
+ * An {@link IRegionEventHandler} that receives the players that entered or left
+ * a {@link Region} during a player watcher cycle as a single batch.
+ *
+ * <p>A batch event handler receives transitions only through the batch methods,
+ * {@link #onPlayerEnter} and {@link #onPlayerLeave} are not invoked. Handlers that
+ * do not implement this interface continue to receive one call per transition in
+ * the order the transitions are detected.</p>
+ *
+ * <p>Only players for which {@link #canDoPlayerEnter} or {@link #canDoPlayerLeave}
+ * returned true are included. Batch methods are not invoked with an empty map.</p>
+ *
+ * @see IRegionBatchEventListener
+ */
+public interface IRegionBatchEventHandler extends IRegionEventHandler {
+
+    /**
+     * Invoked with the players that entered the region during a player watcher cycle.
+     *
+     * @param players  Unmodifiable map of players to the reason they entered.
+     */
+    void onPlayersEnter(Map<Player, EnterRegionReason> players);
+
+    /**
+     * Invoked with the players that left the region during a player watcher cycle.
+     *
+     * @param players  Unmodifiable map of players to the reason they left.
+     */
+    void onPlayersLeave(Map<Player, LeaveRegionReason> players);
+}
@@ -0,0 +1,71 @@
+/*
+ * This file is part of NucleusFramework for Bukkit, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) JCThePants (www.jcwhatever.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.jcwhatever.nucleus.regions;
+
+import com.jcwhatever.nucleus.regions.options.EnterRegionReason;
+import com.jcwhatever.nucleus.regions.options.LeaveRegionReason;
+
+import org.bukkit.entity.Player;
+
+import java.util.Map;
+
+/**
+ * An {@link IRegionEventListener} that, in addition to the per player
+ * {@link #onPlayerEnter} and {@link #onPlayerLeave} calls, receives the enter
+ * and leave transitions detected for its region during a player watcher cycle
+ * as a single batch.
+ *
+ * <p>The per player methods are still invoked for every transition in the
+ * order the transitions are detected. The batch is delivered after all of the
+ * per player calls of the cycle.</p>
+ *
+ * <p>A player that enters and then leaves the region (or leaves and then re-enters)
+ * within the same cycle is not included in the batch since the transitions cancel
+ * out.</p>
+ *
+ * <p>Transitions that are not detected by the player watcher, such as a player
+ * leaving the region by quitting the server, are delivered immediately as a
+ * batch containing only that player.</p>
+ */
+public interface IRegionBatchEventListener extends IRegionEventListener {
+
+    /**
+     * Invoked once per player watcher cycle with the players that entered the region.
+     *
+     * <p>Invoked after {@link #onPlayersLeave} for the same cycle.</p>
+     *
+     * @param players  Unmodifiable map of players that entered the region to the reason
+     *                 they entered, in the order the transitions were detected.
+     */
+    void onPlayersEnter(Map<Player, EnterRegionReason> players);
+
+    /**
+     * Invoked once per player watcher cycle with the players that left the region.
+     *
+     * @param players  Unmodifiable map of players that left the region to the reason
+     *                 they left, in the order the transitions were detected.
+     */
+    void onPlayersLeave(Map<Player, LeaveRegionReason> players);
+}
@@ -28,8 +28,11 @@ package com.jcwhatever.nucleus.regions;
 import com.jcwhatever.nucleus.regions.file.IRegionFileFactory;
 import com.jcwhatever.nucleus.regions.file.IRegionFileLoader.LoadSpeed;
 import com.jcwhatever.nucleus.regions.file.basic.BasicFileFactory;
+import com.jcwhatever.nucleus.regions.file.basic.CompactRegionFileFormat;
+import com.jcwhatever.nucleus.regions.file.basic.CompactRegionFileWriter;
 import com.jcwhatever.nucleus.storage.IDataNode;
 import com.jcwhatever.nucleus.utils.PreCon;
+import com.jcwhatever.nucleus.utils.observer.future.FutureAgent;
 import com.jcwhatever.nucleus.utils.observer.future.FutureSubscriber;
 import com.jcwhatever.nucleus.utils.observer.future.IFuture;
 import com.jcwhatever.nucleus.utils.observer.future.IFuture.FutureStatus;
@@ -47,6 +50,9 @@ import java.util.Set;
  * with multiple named saved snapshots.
  *
  * <p>The default snapshot name is "default".</p>
+ *
+ * <p>When the region uses {@link CompactRegionFileFormat}, snapshots can be saved
+ * incrementally against another snapshot so that only changed blocks are stored.</p>
  */
 public abstract class MultiSnapshotRegion extends RestorableRegion {
 
@@ -192,6 +198,10 @@ public abstract class MultiSnapshotRegion extends RestorableRegion {
     /**
      * Save the regions current state to the specified snapshot.
      *
+     * <p>When the region uses {@link CompactRegionFileFormat}, the save is cancelled if
+     * another snapshot was incrementally saved against the specified snapshot. Use
+     * {@link #compactSnapshot} on the dependent snapshot first.</p>
+     *
      * @param snapshotName  The name of the snapshot.
      *
      * @throws IOException
@@ -210,9 +220,85 @@ public abstract class MultiSnapshotRegion extends RestorableRegion {
         });
     }
 
+    /**
+     * Incrementally save the regions current state to the specified snapshot.
+     *
+     * <p>Only the blocks that are different from the base snapshot are saved. Chunks
+     * that are not in the base snapshot are saved in full. Restoring the snapshot fails
+     * if the base snapshot data no longer matches the data it was saved against.</p>
+     *
+     * <p>Requires the region file format to be {@link CompactRegionFileFormat}.</p>
+     *
+     * @param snapshotName      The name of the snapshot.
+     * @param baseSnapshotName  The name of the snapshot to save the changes against.
+     *
+     * @throws IOException
+     */
+    public IFuture saveData(String snapshotName, String baseSnapshotName) throws IOException {
+        PreCon.notNullOrEmpty(snapshotName);
+        PreCon.notNullOrEmpty(baseSnapshotName);
+
+        if (snapshotName.equals(baseSnapshotName))
+            return new FutureAgent().cancel("A snapshot cannot be saved against itself.");
+
+        if (!(getFileFormat() instanceof CompactRegionFileFormat))
+            return new FutureAgent().cancel("Incremental snapshots require the compact region file format.");
+
+        CompactRegionFileFormat format = (CompactRegionFileFormat)getFileFormat();
+
+        final String currentSnapshot = getFileFactory().snapshotName;
+
+        getFileFactory().snapshotName = snapshotName;
+
+        return saveData(format.getDeltaWriter(this, _fileFactory, baseSnapshotName))
+                .onStatus(new FutureSubscriber() {
+                    @Override
+                    public void on(FutureStatus status, @Nullable CharSequence message) {
+                        getFileFactory().snapshotName = currentSnapshot;
+                    }
+                });
+    }
+
+    /**
+     * Fold the incremental changes of the specified snapshot and the chain of
+     * snapshots it was saved against into a new full snapshot.
+     *
+     * <p>After compacting, the snapshot no longer depends on other snapshots.</p>
+     *
+     * <p>Requires the region file format to be {@link CompactRegionFileFormat}.</p>
+     *
+     * @param snapshotName  The name of the snapshot.
+     *
+     * @throws IOException
+     */
+    public IFuture compactSnapshot(String snapshotName) throws IOException {
+        PreCon.notNullOrEmpty(snapshotName);
+
+        if (isSaving() || isRestoring())
+            return new FutureAgent().cancel("Cannot compact snapshot while the region is saving or restoring.");
+
+        if (!(getFileFormat() instanceof CompactRegionFileFormat))
+            return new FutureAgent().cancel("Incremental snapshots require the compact region file format.");
+
+        CompactRegionFileFormat format = (CompactRegionFileFormat)getFileFormat();
+
+        final String currentSnapshot = getFileFactory().snapshotName;
+
+        getFileFactory().snapshotName = snapshotName;
+
+        CompactRegionFileWriter writer = format.getWriter(this, _fileFactory);
+
+        getFileFactory().snapshotName = currentSnapshot;
+
+        return writer.compactData();
+    }
+
     /**
      * Delete the specified snapshots data.
      *
+     * <p>Snapshots that were incrementally saved against the deleted snapshot can no
+     * longer be restored. Use {@link #compactSnapshot} on them first.</p>
+     *
      * @param snapshotName  The name of the snapshot.
      *
      * @throws IOException
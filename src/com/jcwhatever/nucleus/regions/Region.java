@@ -55,6 +55,8 @@ import javax.annotation.Nullable;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
@@ -81,7 +83,8 @@ public abstract class Region extends SimpleRegionSelection implements IRegion {
     private final String _name;
     private final String _searchName;
     private final IDataNode _dataNode;
-    private final IRegionEventListener _eventListener;
+    private final RegionListener _eventListener;
+    private final BatchRegionListener _batchEventListener;
     private final MetaStore _meta = new MetaStore();
 
     private RegionEventPriority _enterPriority = RegionEventPriority.DEFAULT;
@@ -92,6 +95,7 @@ public abstract class Region extends SimpleRegionSelection implements IRegion {
     private UUID _ownerId;
     private int _priority = 0;
     private List<IRegionEventHandler> _eventHandlers = new ArrayList<>(10);
+    private int _batchHandlers;
 
     /**
      * Constructor
@@ -102,6 +106,7 @@ public abstract class Region extends SimpleRegionSelection implements IRegion {
 
         _meta.setKey(InternalRegionManager.REGION_HANDLE, this);
         _eventListener = new RegionListener();
+        _batchEventListener = new BatchRegionListener();
 
         _name = name;
         _plugin = plugin;
@@ -188,7 +193,8 @@ public abstract class Region extends SimpleRegionSelection implements IRegion {
 
     @Override
     public final IRegionEventListener getEventListener() {
-        return _eventListener;
+        // batches are only collected when a handler has opted in.
+        return _batchHandlers > 0 ? _batchEventListener : _eventListener;
     }
 
     @Override
@@ -263,6 +269,10 @@ public abstract class Region extends SimpleRegionSelection implements IRegion {
         boolean isFirstHandler = _eventHandlers.isEmpty();
 
         if (_eventHandlers.add(handler)) {
+
+            if (handler instanceof IRegionBatchEventHandler)
+                _batchHandlers++;
+
             if (isFirstHandler) {
                 // update registration
                 regionManager().register(this);
@@ -278,6 +288,9 @@ public abstract class Region extends SimpleRegionSelection implements IRegion {
 
         if (_eventHandlers.remove(handler)) {
 
+            if (handler instanceof IRegionBatchEventHandler)
+                _batchHandlers--;
+
             if (_eventHandlers.isEmpty()) {
                 // update registration
                 regionManager().register(this);
@@ -622,12 +635,27 @@ public abstract class Region extends SimpleRegionSelection implements IRegion {
         @Override
         public void onPlayerEnter(Player player, EnterRegionReason reason) {
 
-            if (Region.this.canDoPlayerEnter(player, reason))
-                Region.this.onPlayerEnter(player, reason);
+            try {
+                if (Region.this.canDoPlayerEnter(player, reason))
+                    Region.this.onPlayerEnter(player, reason);
+            }
+            catch (Throwable e) {
+                e.printStackTrace();
+            }
 
             for (IRegionEventHandler handler : _eventHandlers) {
-                if (handler.canDoPlayerEnter(player, reason)) {
-                    handler.onPlayerEnter(player, reason);
+
+                // batch handlers receive transitions from BatchRegionListener
+                if (handler instanceof IRegionBatchEventHandler)
+                    continue;
+
+                try {
+                    if (handler.canDoPlayerEnter(player, reason)) {
+                        handler.onPlayerEnter(player, reason);
+                    }
+                }
+                catch (Throwable e) {
+                    e.printStackTrace();
                 }
             }
         }
@@ -635,12 +663,88 @@ public abstract class Region extends SimpleRegionSelection implements IRegion {
         @Override
         public void onPlayerLeave(Player player, LeaveRegionReason reason) {
 
-            if (Region.this.canDoPlayerLeave(player, reason))
-                Region.this.onPlayerLeave(player, reason);
+            try {
+                if (Region.this.canDoPlayerLeave(player, reason))
+                    Region.this.onPlayerLeave(player, reason);
+            }
+            catch (Throwable e) {
+                e.printStackTrace();
+            }
 
             for (IRegionEventHandler handler : _eventHandlers) {
-                if (handler.canDoPlayerLeave(player, reason)) {
-                    handler.onPlayerLeave(player, reason);
+
+                if (handler instanceof IRegionBatchEventHandler)
+                    continue;
+
+                try {
+                    if (handler.canDoPlayerLeave(player, reason)) {
+                        handler.onPlayerLeave(player, reason);
+                    }
+                }
+                catch (Throwable e) {
+                    e.printStackTrace();
+                }
+            }
+        }
+    }
+
+    /*
+     * Event listener used while the region has batch event handlers. Per player
+     * transitions are dispatched by RegionListener, batches are dispatched to
+     * IRegionBatchEventHandler's only.
+     */
+    private class BatchRegionListener extends RegionListener implements IRegionBatchEventListener {
+
+        @Override
+        public void onPlayersEnter(Map<Player, EnterRegionReason> players) {
+
+            for (IRegionEventHandler handler : _eventHandlers) {
+
+                if (!(handler instanceof IRegionBatchEventHandler))
+                    continue;
+
+                try {
+                    Map<Player, EnterRegionReason> accepted = new LinkedHashMap<>(players.size());
+
+                    for (Map.Entry<Player, EnterRegionReason> entry : players.entrySet()) {
+                        if (handler.canDoPlayerEnter(entry.getKey(), entry.getValue()))
+                            accepted.put(entry.getKey(), entry.getValue());
+                    }
+
+                    if (!accepted.isEmpty()) {
+                        ((IRegionBatchEventHandler) handler).onPlayersEnter(
+                                Collections.unmodifiableMap(accepted));
+                    }
+                }
+                catch (Throwable e) {
+                    e.printStackTrace();
+                }
+            }
+        }
+
+        @Override
+        public void onPlayersLeave(Map<Player, LeaveRegionReason> players) {
+
+            for (IRegionEventHandler handler : _eventHandlers) {
+
+                if (!(handler instanceof IRegionBatchEventHandler))
+                    continue;
+
+                try {
+                    Map<Player, LeaveRegionReason> accepted = new LinkedHashMap<>(players.size());
+
+                    for (Map.Entry<Player, LeaveRegionReason> entry : players.entrySet()) {
+                        if (handler.canDoPlayerLeave(entry.getKey(), entry.getValue()))
+                            accepted.put(entry.getKey(), entry.getValue());
+                    }
+
+                    if (!accepted.isEmpty()) {
+                        ((IRegionBatchEventHandler) handler).onPlayersLeave(
+                                Collections.unmodifiableMap(accepted));
+                    }
+                }
+                catch (Throwable e) {
+                    e.printStackTrace();
                 }
             }
         }
@@ -24,6 +24,7 @@
 
 package com.jcwhatever.nucleus.regions;
 
+import com.jcwhatever.nucleus.Nucleus;
 import com.jcwhatever.nucleus.mixins.IPluginOwned;
 import com.jcwhatever.nucleus.mixins.IReadOnly;
 import com.jcwhatever.nucleus.providers.regionselect.IRegionSelection;
@@ -108,6 +109,23 @@ public abstract class RegionManager<T extends IRegion> extends NamedInsensitiveD
 
     protected abstract T create(String name, @Nullable IDataNode dataNode, IRegionSelection selection);
 
+    /**
+     * Load regions from the data node.
+     *
+     * <p>Regions are loaded inside of a region batch operation so they are registered
+     * with the global region manager in a single pass.</p>
+     */
+    @Override
+    protected void load() {
+
+        Nucleus.getRegionManager().runBatchOperation(new Runnable() {
+            @Override
+            public void run() {
+                RegionManager.super.load();
+            }
+        });
+    }
+
     @Override
     protected void onRemove(T region) {
         super.onRemove(region);
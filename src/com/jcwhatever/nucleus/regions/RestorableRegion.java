@@ -25,9 +25,12 @@
 
 package com.jcwhatever.nucleus.regions;
 
+import com.jcwhatever.nucleus.providers.regionselect.IRegionSelection;
+import com.jcwhatever.nucleus.regions.file.IRegionFileAreaLoader;
 import com.jcwhatever.nucleus.regions.file.IRegionFileData;
 import com.jcwhatever.nucleus.regions.file.IRegionFileFactory;
 import com.jcwhatever.nucleus.regions.file.IRegionFileFormat;
+import com.jcwhatever.nucleus.regions.file.IRegionFileLoader;
 import com.jcwhatever.nucleus.regions.file.IRegionFileLoader.LoadSpeed;
 import com.jcwhatever.nucleus.regions.file.IRegionFileLoader.LoadType;
 import com.jcwhatever.nucleus.regions.file.IRegionFileWriter;
@@ -127,6 +130,18 @@ public abstract class RestorableRegion extends BuildableRegion {
      * @return  A future to receive the results of the save operation.
      */
     public IFuture saveData() throws IOException {
+        return saveData(getFileFormat().getWriter(this, getFileFactory()));
+    }
+
+    /**
+     * Save region data to disk using the specified writer.
+     *
+     * @param writer  The region file writer.
+     *
+     * @return  A future to receive the results of the save operation.
+     */
+    protected IFuture saveData(IRegionFileWriter writer) throws IOException {
+        PreCon.notNull(writer);
 
         Collection<IChunkCoords> chunks = this.getChunkCoords();
 
@@ -141,7 +156,6 @@ public abstract class RestorableRegion extends BuildableRegion {
         _isSaving = true;
         onPreSave();
 
-        IRegionFileWriter writer = getFileFormat().getWriter(this, getFileFactory());
         return writer.save().onStatus(new FutureSubscriber() {
             @Override
             public void on(FutureStatus status, @Nullable CharSequence message) {
@@ -203,6 +217,58 @@ public abstract class RestorableRegion extends BuildableRegion {
                 });
     }
 
+    /**
+     * Restore part of the region from disk.
+     *
+     * <p>Only blocks and block entities within the area are restored. Entities in the
+     * region are not removed or restored.</p>
+     *
+     * <p>The region file format loader must implement {@link IRegionFileAreaLoader}.</p>
+     *
+     * @param loadSpeed  The speed that the area is loaded and restored.
+     * @param area       The area to restore.
+     *
+     * @return  A future to receive the results of the restore operation.
+     *
+     * @throws IOException
+     */
+    public IFuture restoreData(LoadSpeed loadSpeed, IRegionSelection area) throws IOException {
+        PreCon.notNull(loadSpeed);
+        PreCon.notNull(area);
+
+        if (!area.isDefined())
+            return new FutureAgent().cancel("Area to restore is not defined.");
+
+        if (isSaving())
+            return new FutureAgent().cancel("Region is still saving.");
+
+        if (isRestoring())
+            return new FutureAgent().cancel("Region is still restoring.");
+
+        IRegionFileLoader loader = getFileFormat().getLoader(this, getFileFactory());
+
+        if (!(loader instanceof IRegionFileAreaLoader))
+            return new FutureAgent().cancel("The region file format cannot restore part of a region.");
+
+        if (!loader.canRead())
+            return new FutureAgent().cancel("Region cannot restore without restore files.");
+
+        _isRestoring = true;
+        onPreRestore();
+
+        IRegionFileData fileData = new WorldBuilder(getPlugin(), getWorld());
+
+        return ((IRegionFileAreaLoader) loader)
+                .load(area, LoadType.MISMATCHED, loadSpeed, fileData)
+                .onStatus(new FutureSubscriber() {
+                    @Override
+                    public void on(FutureStatus status, @Nullable CharSequence message) {
+                        _isRestoring = false;
+                        onRestoreComplete();
+                    }
+                });
+    }
+
     /**
      * Delete region data from disk.
      */
@@ -227,6 +293,11 @@ public abstract class RestorableRegion extends BuildableRegion {
     /**
      * Set the regions file format.
      *
+     * <p>The default format is {@link BasicRegionFileFormat}. Use
+     * {@link com.jcwhatever.nucleus.regions.file.basic.CompactRegionFileFormat} for
+     * smaller files that are faster to restore. The compact format reads files saved
+     * in the basic format until the region is saved again.</p>
+     *
      * @param fileFormat  The file format.
      */
     protected void setFileFormat(IRegionFileFormat fileFormat) {
@@ -335,10 +335,10 @@ public class RegionChunkSection implements IByteSerializable {
         _endChunkZ = (zEnd > _chunkBlockEndZ) ? 15 : 15 - (_chunkBlockEndZ - zEnd);
 
         _startBlockX = _chunkBlockX + _startChunkX;
-        _endBlockX = _startBlockX + _endChunkX;
+        _endBlockX = _chunkBlockX + _endChunkX;
 
         _startBlockZ = _chunkBlockZ + _startChunkZ;
-        _endBlockZ = _startBlockZ + _endChunkZ;
+        _endBlockZ = _chunkBlockZ + _endChunkZ;
 
         _p1 = new Location(p1.getWorld(), _startBlockX, _yStart, _startBlockZ);
         _p2 = new Location(p2.getWorld(), _endBlockX, _yEnd, _endBlockZ);
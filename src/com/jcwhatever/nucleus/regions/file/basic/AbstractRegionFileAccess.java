@@ -72,8 +72,19 @@ class AbstractRegionFileAccess implements IRegionFileAccess {
      * @param chunkZ   The chunk Z coordinates.
      */
     protected final String getChunkFilename(IRegion region, int chunkX, int chunkZ) {
+        return getChunkFilename(region, chunkX, chunkZ, "bin");
+    }
+
+    /**
+     * Get the name of the file used to store data for the specified chunk.
+     *
+     * @param chunkX     The chunk X coordinates.
+     * @param chunkZ     The chunk Z coordinates.
+     * @param extension  The file extension.
+     */
+    protected final String getChunkFilename(IRegion region, int chunkX, int chunkZ, String extension) {
         String prefix = _fileFactory.getFilename(region);
-        return (prefix != null ? prefix : "") + ".chunk." + chunkX + '.' + chunkZ + ".bin";
+        return (prefix != null ? prefix : "") + ".chunk." + chunkX + '.' + chunkZ + '.' + extension;
     }
 
     /**
@@ -89,7 +100,25 @@ class AbstractRegionFileAccess implements IRegionFileAccess {
                                       int chunkX, int chunkZ, boolean doDeleteExisting)
             throws IOException {
 
-        File file = new File(_fileFactory.getDirectory(region), getChunkFilename(region, chunkX, chunkZ));
+        return getChunkFile(region, chunkX, chunkZ, "bin", doDeleteExisting);
+    }
+
+    /**
+     * Get the file used to store data for the specified chunk.
+     *
+     * @param chunkX            The chunk X coordinates.
+     * @param chunkZ            The chunk Z coordinates.
+     * @param extension         The file extension.
+     * @param doDeleteExisting  True to delete existing file.
+     *
+     * @throws IOException
+     */
+    protected final File getChunkFile(IRegion region,
+                                      int chunkX, int chunkZ, String extension, boolean doDeleteExisting)
+            throws IOException {
+
+        File file = new File(_fileFactory.getDirectory(region),
+                getChunkFilename(region, chunkX, chunkZ, extension));
 
         if (!doDeleteExisting)
             return file;
@@ -0,0 +1,75 @@
+/*
+ * This file is part of NucleusFramework for Bukkit, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) JCThePants (www.jcwhatever.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.jcwhatever.nucleus.regions.file.basic;
+
+import com.jcwhatever.nucleus.providers.regionselect.IRegionSelection;
+import com.jcwhatever.nucleus.regions.file.IRegionFileData;
+import com.jcwhatever.nucleus.utils.file.IAppliedSerializable;
+import com.jcwhatever.nucleus.utils.file.SerializableBlockEntity;
+import com.jcwhatever.nucleus.utils.performance.queued.QueueTask;
+
+import org.bukkit.Location;
+import org.bukkit.Material;
+
+import javax.annotation.Nullable;
+
+/*
+ * Wraps an IRegionFileData and only passes on blocks and block
+ * entities that are inside an area.
+ */
+class AreaFileData implements IRegionFileData {
+
+    private final IRegionSelection _area;
+    private final IRegionFileData _data;
+
+    AreaFileData(IRegionSelection area, IRegionFileData data) {
+        _area = area;
+        _data = data;
+    }
+
+    @Override
+    public void addBlock(int x, int y, int z, Material material, int data, int light, int skylight) {
+        if (_area.contains(x, y, z))
+            _data.addBlock(x, y, z, material, data, light, skylight);
+    }
+
+    @Override
+    public void addSerializable(IAppliedSerializable blockEntity) {
+
+        if (!(blockEntity instanceof SerializableBlockEntity))
+            return;
+
+        Location location = ((SerializableBlockEntity) blockEntity).getLocation();
+        if (location != null &&
+                _area.contains(location.getBlockX(), location.getBlockY(), location.getBlockZ()))
+            _data.addSerializable(blockEntity);
+    }
+
+    @Nullable
+    @Override
+    public QueueTask commit() {
+        return _data.commit();
+    }
+}
@@ -0,0 +1,1162 @@
+/*
+ * This file is part of NucleusFramework for Bukkit, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) JCThePants (www.jcwhatever.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.jcwhatever.nucleus.regions.file.basic;
+
+import com.jcwhatever.nucleus.regions.data.RegionChunkSection;
+import com.jcwhatever.nucleus.regions.file.basic.CompactRegionFileFormat.Compression;
+import com.jcwhatever.nucleus.utils.EnumUtils;
+import com.jcwhatever.nucleus.utils.file.BasicByteReader;
+import com.jcwhatever.nucleus.utils.file.BasicByteWriter;
+
+import org.bukkit.ChunkSnapshot;
+import org.bukkit.Material;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+import javax.annotation.Nullable;
+
+/**
+ * The block data of a regions chunk section, read from or written to
+ * compact format files and delta files.
+ *
+ * <p>Blocks are indexed in Y, X, Z order using the chunk relative X and Z
+ * coordinates of the section.</p>
+ *
+ * <p>Delta file layout:</p>
+ * <ul>
+ *     <li>Header - File version, region name, world name, {@link RegionChunkSection},
+ *     name of the base snapshot, hash of the base data and compression.</li>
+ *     <li>Changes - The uncompressed length followed by a byte array containing the
+ *     block type palette of the changed blocks followed by the index, palette index
+ *     and light value of each block that is different from the base snapshot.</li>
+ *     <li>Entities - The uncompressed length followed by a byte array containing
+ *     the block entities and entities.</li>
+ * </ul>
+ *
+ * <p>The hash of the base data is checked when the delta file is applied so a delta
+ * is never applied to a base snapshot that changed after the delta was saved.</p>
+ */
+final class CompactChunkData {
+
+    static final int COMPACT_FILE_VERSION = CompactChunkFileWriter.SAVE_FILE_VERSION;
+    static final int DELTA_FILE_VERSION = 2;
+
+    // first delta file version with the hash of the base data in the header
+    private static final int BASE_HASH_VERSION = 2;
+
+    // first compact file version with section hashes in the section table
+    private static final int SECTION_HASH_VERSION = 2;
+
+    // FNV-1a 64 bit offset basis and prime
+    private static final long HASH_OFFSET = 0xcbf29ce484222325L;
+    private static final long HASH_PRIME = 0x100000001b3L;
+
+    // max number of delta files between a delta file and its full base
+    private static final int MAX_DELTA_CHAIN = 256;
+
+    private static final byte[] NO_ENTITIES = new byte[0];
+
+    /**
+     * Read the data of a compact format file or a delta file.
+     *
+     * <p>The base files of a delta file are resolved and the delta files are
+     * applied in order. Block entities and entities are read from the specified
+     * file only.</p>
+     *
+     * <p>Only the 16 block high sections of a compact file that intersect the
+     * Y range are decoded.</p>
+     */
+    static CompactChunkData read(File file, RegionChunkSection section, int yStart, int yEnd)
+            throws IOException {
+        return read(file, section, yStart, yEnd, null);
+    }
+
+    /**
+     * Read the data of a compact format file or a delta file.
+     *
+     * <p>If a snapshot is specified, sections of a compact file whose stored hash matches
+     * the hash of the same section in the snapshot are not decoded and are marked as
+     * skipped. See {@link #isSectionSkipped}.</p>
+     */
+    static CompactChunkData read(File file, RegionChunkSection section, int yStart, int yEnd,
+                                 @Nullable ChunkSnapshot matching) throws IOException {
+
+        Deque<File> deltas = new ArrayDeque<>(5);
+        Set<File> visited = new HashSet<>(5);
+        File baseFile = file;
+
+        while (isDeltaFile(baseFile)) {
+
+            if (!visited.add(baseFile.getCanonicalFile()))
+                throw new IOException("Delta file chain is circular: " + file);
+
+            if (deltas.size() == MAX_DELTA_CHAIN)
+                throw new IOException("Delta file chain is too long: " + file);
+
+            deltas.push(baseFile);
+
+            String baseName = readBaseName(baseFile);
+
+            File next = getBaseFile(baseFile, baseName);
+            if (next == null) {
+                throw new IOException("The file for base snapshot '" + baseName +
+                        "' was not found for delta file: " + baseFile);
+            }
+
+            baseFile = next;
+        }
+
+        CompactChunkData data = new CompactChunkData(section);
+
+        if (deltas.isEmpty()) {
+            data.readCompact(read(baseFile), yStart, yEnd, true, matching);
+        }
+        else {
+            // delta changes can be anywhere in the chunk, read all sections of the base
+            data.readCompact(read(baseFile), section.getStartY(), section.getEndY(), false, null);
+
+            while (!deltas.isEmpty()) {
+                File delta = deltas.pop();
+                data.readDelta(read(delta), deltas.isEmpty());
+            }
+        }
+
+        return data;
+    }
+
+    /**
+     * Create data from a chunk snapshot.
+     */
+    static CompactChunkData capture(ChunkSnapshot snapshot, RegionChunkSection section,
+                                    byte[] rawEntities) {
+
+        CompactChunkData data = new CompactChunkData(section);
+        data._rawEntities = rawEntities;
+
+        int i = 0;
+
+        for (int y = section.getStartY(); y <= section.getEndY(); y++) {
+            for (int x = section.getStartChunkX(); x <= section.getEndChunkX(); x++) {
+                for (int z = section.getStartChunkZ(); z <= section.getEndChunkZ(); z++, i++) {
+
+                    data._keys[i] = (snapshot.getBlockTypeId(x, y, z) << 4) | snapshot.getBlockData(x, y, z);
+                    data._lights[i] = (byte)((snapshot.getBlockEmittedLight(x, y, z) << 4) |
+                            snapshot.getBlockSkyLight(x, y, z));
+                }
+            }
+        }
+
+        return data;
+    }
+
+    /**
+     * Determine if a file is a delta file.
+     */
+    static boolean isDeltaFile(File file) {
+        return file.getName().endsWith('.' + CompactRegionFileFormat.DELTA_FILE_EXTENSION);
+    }
+
+    /**
+     * Get the compact file or delta file of the chunk in the specified base
+     * snapshot. Snapshots are sibling directories of the directory the
+     * specified file is in.
+     *
+     * <p>Returns null if the base snapshot does not have a file for the chunk.</p>
+     */
+    @Nullable
+    static File getBaseFile(File file, String baseName) {
+
+        File snapshotFolder = file.getParentFile();
+        if (snapshotFolder == null || snapshotFolder.getParentFile() == null)
+            return null;
+
+        File baseFolder = new File(snapshotFolder.getParentFile(), baseName);
+
+        String fileName = file.getName();
+        int extIndex = fileName.lastIndexOf('.');
+        if (extIndex != -1)
+            fileName = fileName.substring(0, extIndex);
+
+        File compactFile = new File(baseFolder, fileName + '.' + CompactRegionFileFormat.FILE_EXTENSION);
+        if (compactFile.exists())
+            return compactFile;
+
+        File deltaFile = new File(baseFolder, fileName + '.' + CompactRegionFileFormat.DELTA_FILE_EXTENSION);
+        if (deltaFile.exists())
+            return deltaFile;
+
+        return null;
+    }
+
+    /**
+     * Get the delta files of the same chunk in other snapshots that were saved
+     * against the snapshot the specified file is in.
+     *
+     * <p>Snapshots are sibling directories of the directory the specified file is in.</p>
+     */
+    static List<File> getDependentFiles(File file) throws IOException {
+
+        File snapshotFolder = file.getParentFile();
+        if (snapshotFolder == null || snapshotFolder.getParentFile() == null)
+            return Collections.emptyList();
+
+        File[] folders = snapshotFolder.getParentFile().listFiles();
+        if (folders == null)
+            return Collections.emptyList();
+
+        String fileName = file.getName();
+        int extIndex = fileName.lastIndexOf('.');
+        if (extIndex != -1)
+            fileName = fileName.substring(0, extIndex);
+
+        List<File> result = new ArrayList<>(3);
+
+        for (File folder : folders) {
+
+            if (!folder.isDirectory() || folder.equals(snapshotFolder))
+                continue;
+
+            File deltaFile = new File(folder, fileName + '.' + CompactRegionFileFormat.DELTA_FILE_EXTENSION);
+            if (!deltaFile.exists())
+                continue;
+
+            if (snapshotFolder.getName().equals(readBaseName(deltaFile)))
+                result.add(deltaFile);
+        }
+
+        return result;
+    }
+
+    /**
+     * Read the name of the base snapshot from the header of a delta file.
+     */
+    static String readBaseName(File file) throws IOException {
+
+        // only the header is read, the rest of the file is not needed
+        try (BasicByteReader reader = new BasicByteReader(new FileInputStream(file))) {
+
+            readDeltaHeader(reader, null);
+
+            String baseName = reader.getString();
+            if (baseName == null)
+                throw new IOException("Delta file is missing the base snapshot name: " + file);
+
+            return baseName;
+        }
+    }
+
+    /**
+     * Encode and compress a byte array.
+     */
+    static byte[] compress(byte[] raw, Compression compression) {
+
+        if (compression == Compression.NONE || raw.length == 0)
+            return raw;
+
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(raw);
+            deflater.finish();
+
+            byte[] buffer = new byte[Math.max(64, raw.length / 2)];
+            int length = 0;
+
+            while (!deflater.finished()) {
+
+                if (length == buffer.length)
+                    buffer = Arrays.copyOf(buffer, buffer.length * 2);
+
+                length += deflater.deflate(buffer, length, buffer.length - length);
+            }
+
+            return Arrays.copyOf(buffer, length);
+        }
+        finally {
+            deflater.end();
+        }
+    }
+
+    /**
+     * Decompress a byte array.
+     */
+    static byte[] decompress(byte[] stored, int rawLength, Compression compression) throws IOException {
+
+        if (compression == Compression.NONE || rawLength == 0)
+            return stored;
+
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(stored);
+
+            byte[] raw = new byte[rawLength];
+            int length = 0;
+
+            while (length < rawLength && !inflater.finished()) {
+
+                int inflated = inflater.inflate(raw, length, rawLength - length);
+                if (inflated == 0 && (inflater.needsInput() || inflater.needsDictionary()))
+                    break;
+
+                length += inflated;
+            }
+
+            if (length != rawLength)
+                throw new IOException("Compressed data is truncated.");
+
+            return raw;
+        }
+        catch (DataFormatException e) {
+            throw new IOException("Compressed data is corrupt.", e);
+        }
+        finally {
+            inflater.end();
+        }
+    }
+
+    private final RegionChunkSection _section;
+    private final int _sizeX;
+    private final int _sizeZ;
+    private final int[] _keys;
+    private final byte[] _lights;
+    private final boolean[] _skipped;
+    private byte[] _rawEntities = NO_ENTITIES;
+
+    /**
+     * Constructor.
+     */
+    CompactChunkData(RegionChunkSection section) {
+        _section = section;
+        _sizeX = section.getEndChunkX() - section.getStartChunkX() + 1;
+        _sizeZ = section.getEndChunkZ() - section.getStartChunkZ() + 1;
+
+        int volume = _sizeX * _sizeZ * (section.getEndY() - section.getStartY() + 1);
+
+        _keys = new int[volume];
+        _lights = new byte[volume];
+        _skipped = new boolean[(section.getEndY() >> 4) - (section.getStartY() >> 4) + 1];
+    }
+
+    /**
+     * Get the chunk section.
+     */
+    RegionChunkSection getSection() {
+        return _section;
+    }
+
+    /**
+     * Get the index of a block using the chunk relative X and Z coordinates.
+     */
+    int getIndex(int x, int y, int z) {
+        return ((y - _section.getStartY()) * _sizeX + (x - _section.getStartChunkX())) * _sizeZ +
+                (z - _section.getStartChunkZ());
+    }
+
+    /**
+     * Get the type id of the block at the index.
+     */
+    int getTypeId(int index) {
+        return _keys[index] >> 4;
+    }
+
+    /**
+     * Get the data of the block at the index.
+     */
+    int getData(int index) {
+        return _keys[index] & 0xF;
+    }
+
+    /**
+     * Get the light of the block at the index. The upper 4 bits are the
+     * emitted light and the lower 4 bits are the sky light.
+     */
+    int getLight(int index) {
+        return _lights[index] & 0xFF;
+    }
+
+    /**
+     * Determine if a 16 block high section was not decoded because it
+     * matches the snapshot the data was read with.
+     */
+    boolean isSectionSkipped(int sectionY) {
+        int index = sectionY - (_section.getStartY() >> 4);
+        return index >= 0 && index < _skipped.length && _skipped[index];
+    }
+
+    /**
+     * Get the hash of the block types and data in a 16 block high section.
+     */
+    long getSectionHash(int sectionY) {
+
+        int start = getSectionStart(sectionY);
+        int end = start + getSectionVolume(sectionY);
+
+        long hash = HASH_OFFSET;
+
+        for (int i = start; i < end; i++) {
+            hash = (hash ^ _keys[i]) * HASH_PRIME;
+        }
+
+        return hash;
+    }
+
+    /**
+     * Get the hash of the block types and data in a 16 block high section
+     * of a chunk snapshot.
+     *
+     * <p>Matches {@link #getSectionHash} when the blocks are the same.</p>
+     */
+    static long getSectionHash(ChunkSnapshot snapshot, RegionChunkSection section, int sectionY) {
+
+        int yStart = Math.max(section.getStartY(), sectionY << 4);
+        int yEnd = Math.min(section.getEndY(), (sectionY << 4) + 15);
+
+        long hash = HASH_OFFSET;
+
+        for (int y = yStart; y <= yEnd; y++) {
+            for (int x = section.getStartChunkX(); x <= section.getEndChunkX(); x++) {
+                for (int z = section.getStartChunkZ(); z <= section.getEndChunkZ(); z++) {
+
+                    int key = (snapshot.getBlockTypeId(x, y, z) << 4) | snapshot.getBlockData(x, y, z);
+
+                    hash = (hash ^ key) * HASH_PRIME;
+                }
+            }
+        }
+
+        return hash;
+    }
+
+    /**
+     * Get the hash of the block types, data and light of all blocks.
+     *
+     * <p>Used to identify the base data of a delta file.</p>
+     */
+    long getDataHash() {
+
+        long hash = HASH_OFFSET;
+
+        for (int i=0; i < _keys.length; i++) {
+            hash = (hash ^ _keys[i]) * HASH_PRIME;
+            hash = (hash ^ _lights[i]) * HASH_PRIME;
+        }
+
+        return hash;
+    }
+
+    /**
+     * Get the uncompressed block entities and entities.
+     */
+    byte[] getRawEntities() {
+        return _rawEntities;
+    }
+
+    /**
+     * Write the data to a compact format file.
+     */
+    void write(File file, String regionName, String worldName,
+               Compression compression) throws IOException {
+
+        int firstSection = _section.getStartY() >> 4;
+        int totalSections = (_section.getEndY() >> 4) - firstSection + 1;
+
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(4096);
+        BasicByteWriter sectionWriter = new BasicByteWriter(buffer);
+
+        int[] rawLengths = new int[totalSections];
+        byte[][] sections = new byte[totalSections][];
+
+        for (int i=0; i < totalSections; i++) {
+
+            buffer.reset();
+            encodeSection(sectionWriter, firstSection + i);
+
+            byte[] raw = buffer.toByteArray();
+
+            rawLengths[i] = raw.length;
+            sections[i] = compress(raw, compression);
+        }
+
+        byte[] entities = compress(_rawEntities, compression);
+
+        BasicByteWriter writer = new BasicByteWriter(new FileOutputStream(file));
+
+        try {
+            writer.write(COMPACT_FILE_VERSION);
+
+            // write region name
+            writer.write(regionName);
+
+            // write world name
+            writer.write(worldName);
+
+            // write section info
+            writer.write(_section);
+
+            // write compression
+            writer.write((byte)compression.ordinal());
+
+            // write section table
+            writer.write((short)totalSections);
+
+            for (int i=0; i < totalSections; i++) {
+                writer.write((byte)(firstSection + i));
+                writer.write(rawLengths[i]);
+                writer.write(sections[i].length);
+                writer.write(getSectionHash(firstSection + i));
+            }
+
+            // write sections
+            for (byte[] section : sections) {
+                writer.write(section);
+            }
+
+            // write block entities and entities
+            writer.write(_rawEntities.length);
+            writer.write(entities);
+        }
+        finally {
+            writer.close();
+        }
+    }
+
+    /**
+     * Write the blocks that are different from the base data to a delta file.
+     */
+    void writeDelta(File file, String regionName, String worldName, String baseName,
+                    CompactChunkData base, Compression compression) throws IOException {
+
+        if (!isSameBounds(base._section))
+            throw new IOException("Region bounds of base snapshot do not match.");
+
+        int[] palette = new int[16];
+        int paletteSize = 0;
+
+        int[] changes = new int[64];
+        int totalChanges = 0;
+
+        for (int i=0; i < _keys.length; i++) {
+
+            if (_keys[i] == base._keys[i])
+                continue;
+
+            if (totalChanges == changes.length)
+                changes = Arrays.copyOf(changes, changes.length * 2);
+
+            changes[totalChanges] = i;
+            totalChanges++;
+
+            if (indexOf(palette, paletteSize, _keys[i]) == -1) {
+
+                if (paletteSize == palette.length)
+                    palette = Arrays.copyOf(palette, paletteSize * 2);
+
+                palette[paletteSize] = _keys[i];
+                paletteSize++;
+            }
+        }
+
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(Math.max(64, totalChanges * 7));
+        BasicByteWriter changeWriter = new BasicByteWriter(buffer);
+
+        writePalette(changeWriter, palette, paletteSize);
+
+        changeWriter.write(totalChanges);
+
+        for (int i=0; i < totalChanges; i++) {
+            int index = changes[i];
+            changeWriter.write(index);
+            changeWriter.write((short)indexOf(palette, paletteSize, _keys[index]));
+            changeWriter.write(_lights[index]);
+        }
+
+        changeWriter.flush();
+
+        byte[] rawChanges = buffer.toByteArray();
+
+        BasicByteWriter writer = new BasicByteWriter(new FileOutputStream(file));
+
+        try {
+            writer.write(DELTA_FILE_VERSION);
+
+            // write region name
+            writer.write(regionName);
+
+            // write world name
+            writer.write(worldName);
+
+            // write section info
+            writer.write(_section);
+
+            // write base snapshot name
+            writer.write(baseName);
+
+            // write hash of the base data
+            writer.write(base.getDataHash());
+
+            // write compression
+            writer.write((byte)compression.ordinal());
+
+            // write changed blocks
+            writer.write(rawChanges.length);
+            writer.write(compress(rawChanges, compression));
+
+            // write block entities and entities
+            writer.write(_rawEntities.length);
+            writer.write(compress(_rawEntities, compression));
+        }
+        finally {
+            writer.close();
+        }
+    }
+
+    /*
+     * Read a compact format file.
+     */
+    private void readCompact(ByteBuffer buffer, int yStart, int yEnd, boolean readEntities,
+                             @Nullable ChunkSnapshot matching) throws IOException {
+
+        int start = buffer.position();
+
+        BasicByteReader reader = new BasicByteReader(new ByteBufferInputStream(buffer));
+
+        // Read restore file version
+        int fileVersion = reader.getInteger();
+
+        // make sure the file version is correct
+        if (fileVersion < 1 || fileVersion > COMPACT_FILE_VERSION)
+            throw new IOException("Invalid region file. File version is not compatible.");
+
+        boolean hasHashes = fileVersion >= SECTION_HASH_VERSION;
+
+        // get name of the region associated with the restore file
+        reader.getString();
+
+        // get the name of the world the region was saved from.
+        reader.getString();
+
+        // make sure the file was saved with the same region bounds
+        readSection(reader);
+
+        Compression compression = readCompression(reader);
+
+        int firstSection = _section.getStartY() >> 4;
+
+        // read section table
+        int totalSections = reader.getShort();
+        if (totalSections != _skipped.length)
+            throw new IOException("Invalid section table. Section count mismatch.");
+
+        int[] sectionYs = new int[totalSections];
+        int[] rawLengths = new int[totalSections];
+        int[] storedLengths = new int[totalSections];
+        int[] offsets = new int[totalSections];
+        long[] hashes = hasHashes ? new long[totalSections] : null;
+
+        for (int i=0; i < totalSections; i++) {
+            sectionYs[i] = reader.getByte();
+            rawLengths[i] = reader.getInteger();
+            storedLengths[i] = reader.getInteger();
+
+            if (hashes != null)
+                hashes[i] = reader.getLong();
+
+            if (sectionYs[i] != firstSection + i || rawLengths[i] < 0 || storedLengths[i] < 0)
+                throw new IOException("Invalid section table entry " + i);
+        }
+
+        // each section is stored as a 4 byte length followed by the section bytes.
+        // The reader buffers ahead so the buffer position cannot be used.
+        long offset = start + reader.getBytesRead();
+
+        for (int i=0; i < totalSections; i++) {
+
+            if (offset + 4 + storedLengths[i] > buffer.limit())
+                throw new IOException("Region chunk file is truncated.");
+
+            offsets[i] = (int)offset + 4;
+            offset += 4 + storedLengths[i];
+        }
+
+        // read sections that intersect the Y range
+        for (int i=0; i < totalSections; i++) {
+
+            int sectionStart = sectionYs[i] << 4;
+            if (sectionStart > yEnd || sectionStart + 15 < yStart)
+                continue;
+
+            // skip sections that are the same as the snapshot
+            if (hashes != null && matching != null &&
+                    hashes[i] == getSectionHash(matching, _section, sectionYs[i])) {
+
+                int index = sectionYs[i] - (_section.getStartY() >> 4);
+                if (index >= 0 && index < _skipped.length) {
+                    _skipped[index] = true;
+                    continue;
+                }
+            }
+
+            byte[] stored = new byte[storedLengths[i]];
+
+            buffer.position(offsets[i]);
+            buffer.get(stored);
+
+            byte[] raw = decompress(stored, rawLengths[i], compression);
+
+            decodeSection(new BasicByteReader(new ByteArrayInputStream(raw)), sectionYs[i]);
+        }
+
+        if (!readEntities)
+            return;
+
+        // read block entities and entities
+        buffer.position((int)offset);
+        reader = new BasicByteReader(new ByteBufferInputStream(buffer));
+
+        int rawLength = reader.getInteger();
+        _rawEntities = decompress(reader.getBytes(), rawLength, compression);
+    }
+
+    /*
+     * Read a delta file and apply its changes.
+     */
+    private void readDelta(ByteBuffer buffer, boolean readEntities) throws IOException {
+
+        BasicByteReader reader = new BasicByteReader(new ByteBufferInputStream(buffer));
+
+        int fileVersion = readDeltaHeader(reader, this);
+
+        // get name of the base snapshot
+        String baseName = reader.getString();
+
+        // make sure the base data is the data the delta was saved against
+        if (fileVersion >= BASE_HASH_VERSION && reader.getLong() != getDataHash()) {
+            throw new IOException("Base snapshot '" + baseName +
+                    "' has changed since the delta file was saved.");
+        }
+
+        Compression compression = readCompression(reader);
+
+        int rawLength = reader.getInteger();
+        byte[] rawChanges = decompress(reader.getBytes(), rawLength, compression);
+
+        BasicByteReader changeReader = new BasicByteReader(new ByteArrayInputStream(rawChanges));
+
+        int[] palette = readPalette(changeReader);
+
+        int totalChanges = changeReader.getInteger();
+
+        for (int i=0; i < totalChanges; i++) {
+
+            int index = changeReader.getInteger();
+            int paletteIndex = changeReader.getShort();
+            byte light = changeReader.getByte();
+
+            if (index < 0 || index >= _keys.length || paletteIndex < 0 || paletteIndex >= palette.length)
+                throw new IOException("Invalid block change in delta file.");
+
+            _keys[index] = palette[paletteIndex];
+            _lights[index] = light;
+        }
+
+        if (!readEntities)
+            return;
+
+        rawLength = reader.getInteger();
+        _rawEntities = decompress(reader.getBytes(), rawLength, compression);
+    }
+
+    /*
+     * Encode the blocks of a 16 block high section of the chunk.
+     */
+    private void encodeSection(BasicByteWriter writer, int sectionY) throws IOException {
+
+        int start = getSectionStart(sectionY);
+        int end = start + getSectionVolume(sectionY);
+
+        int[] palette = new int[16];
+        int paletteSize = 0;
+
+        int[] indexes = new int[end - start];
+        int lastKey = -1;
+        int lastIndex = -1;
+
+        for (int i = start; i < end; i++) {
+
+            int key = _keys[i];
+
+            if (key != lastKey) {
+
+                lastIndex = indexOf(palette, paletteSize, key);
+
+                if (lastIndex == -1) {
+
+                    if (paletteSize == palette.length)
+                        palette = Arrays.copyOf(palette, paletteSize * 2);
+
+                    palette[paletteSize] = key;
+                    lastIndex = paletteSize;
+                    paletteSize++;
+                }
+
+                lastKey = key;
+            }
+
+            indexes[i - start] = lastIndex;
+        }
+
+        // write palette
+        writePalette(writer, palette, paletteSize);
+
+        // write palette index runs as length and index pairs
+        short[] runs = new short[countRuns(indexes, 0, indexes.length) * 2];
+        int totalValues = 0;
+
+        for (int runStart = 0; runStart < indexes.length;) {
+
+            int runEnd = runStart + 1;
+            while (runEnd < indexes.length && indexes[runEnd] == indexes[runStart])
+                runEnd++;
+
+            runs[totalValues++] = (short)(runEnd - runStart);
+            runs[totalValues++] = (short)indexes[runStart];
+            runStart = runEnd;
+        }
+
+        writer.write((short)(runs.length / 2));
+        writer.writeShorts(runs);
+
+        // write light runs
+        int lightRuns = start == end ? 0 : 1;
+        for (int i = start + 1; i < end; i++) {
+            if (_lights[i] != _lights[i - 1])
+                lightRuns++;
+        }
+
+        writer.write((short)lightRuns);
+
+        for (int runStart = start; runStart < end;) {
+
+            int runEnd = runStart + 1;
+            while (runEnd < end && _lights[runEnd] == _lights[runStart])
+                runEnd++;
+
+            writer.write((short)(runEnd - runStart));
+            writer.write(_lights[runStart]);
+            runStart = runEnd;
+        }
+
+        writer.flush();
+    }
+
+    /*
+     * Decode the blocks of a 16 block high section of the chunk.
+     */
+    private void decodeSection(BasicByteReader reader, int sectionY) throws IOException {
+
+        int start = getSectionStart(sectionY);
+        int end = start + getSectionVolume(sectionY);
+
+        if (start < 0 || end > _keys.length)
+            throw new IOException("Invalid section " + sectionY);
+
+        // read palette
+        int[] palette = readPalette(reader);
+
+        // read palette index runs
+        int totalRuns = reader.getShort();
+        if (totalRuns < 0)
+            throw new IOException("Invalid block run count in section " + sectionY);
+
+        short[] runs = reader.getShorts(new short[totalRuns * 2]);
+        int i = start;
+
+        for (int run=0; run < runs.length; run += 2) {
+
+            int length = runs[run];
+            int index = runs[run + 1];
+
+            if (index < 0 || index >= palette.length || length < 0 || i + length > end)
+                throw new IOException("Invalid block run in section " + sectionY);
+
+            Arrays.fill(_keys, i, i + length, palette[index]);
+            i += length;
+        }
+
+        if (i != end)
+            throw new IOException("Missing block runs in section " + sectionY);
+
+        // read light runs
+        totalRuns = reader.getShort();
+        i = start;
+
+        for (int run=0; run < totalRuns; run++) {
+
+            int length = reader.getShort();
+            byte light = reader.getByte();
+
+            if (length < 0 || i + length > end)
+                throw new IOException("Invalid light run in section " + sectionY);
+
+            Arrays.fill(_lights, i, i + length, light);
+            i += length;
+        }
+
+        if (i != end)
+            throw new IOException("Missing light runs in section " + sectionY);
+    }
+
+    /*
+     * Get the index of the first block in a 16 block high section.
+     */
+    private int getSectionStart(int sectionY) {
+        int yStart = Math.max(_section.getStartY(), sectionY << 4);
+        return (yStart - _section.getStartY()) * _sizeX * _sizeZ;
+    }
+
+    /*
+     * Get the number of blocks in a 16 block high section.
+     */
+    private int getSectionVolume(int sectionY) {
+        int yStart = Math.max(_section.getStartY(), sectionY << 4);
+        int yEnd = Math.min(_section.getEndY(), (sectionY << 4) + 15);
+        return Math.max(0, yEnd - yStart + 1) * _sizeX * _sizeZ;
+    }
+
+    /*
+     * Read the region chunk section from a file header and make sure it
+     * matches the bounds of the data.
+     */
+    private void readSection(BasicByteReader reader) throws IOException {
+
+        RegionChunkSection fileSection;
+        try {
+            fileSection = reader.deserialize(RegionChunkSection.class);
+        }
+        catch (InstantiationException e) {
+            throw new IOException("Failed to read region chunk section.", e);
+        }
+
+        if (fileSection == null || !isSameBounds(fileSection))
+            throw new IOException("Invalid region file. Region bounds mismatch.");
+    }
+
+    private boolean isSameBounds(RegionChunkSection fileSection) {
+        return fileSection.getStartChunkX() == _section.getStartChunkX() &&
+                fileSection.getEndChunkX() == _section.getEndChunkX() &&
+                fileSection.getStartChunkZ() == _section.getStartChunkZ() &&
+                fileSection.getEndChunkZ() == _section.getEndChunkZ() &&
+                fileSection.getStartY() == _section.getStartY() &&
+                fileSection.getEndY() == _section.getEndY();
+    }
+
+    /*
+     * Read the header of a delta file up to the base snapshot name and return the
+     * file version. If data is specified, the region bounds in the header are checked
+     * against the data.
+     */
+    private static int readDeltaHeader(BasicByteReader reader, @Nullable CompactChunkData data)
+            throws IOException {
+
+        int fileVersion = reader.getInteger();
+
+        if (fileVersion < 1 || fileVersion > DELTA_FILE_VERSION)
+            throw new IOException("Invalid delta file. File version is not compatible.");
+
+        // get name of the region associated with the file
+        reader.getString();
+
+        // get the name of the world the region was saved from.
+        reader.getString();
+
+        if (data != null) {
+            data.readSection(reader);
+        }
+        else {
+            try {
+                reader.deserialize(RegionChunkSection.class);
+            }
+            catch (InstantiationException e) {
+                throw new IOException("Failed to read region chunk section.", e);
+            }
+        }
+
+        return fileVersion;
+    }
+
+    private static Compression readCompression(BasicByteReader reader) throws IOException {
+
+        int compressionIndex = reader.getByte();
+        if (compressionIndex < 0 || compressionIndex >= Compression.values().length)
+            throw new IOException("Unknown compression: " + compressionIndex);
+
+        return Compression.values()[compressionIndex];
+    }
+
+    private static void writePalette(BasicByteWriter writer, int[] palette, int paletteSize)
+            throws IOException {
+
+        writer.write((short)paletteSize);
+
+        for (int p = 0; p < paletteSize; p++) {
+
+            Material type = Material.getMaterial(palette[p] >> 4);
+            if (type == null)
+                throw new IOException("Unknown block type id: " + (palette[p] >> 4));
+
+            writer.writeSmallString(type.name());
+            writer.write((byte)(palette[p] & 0xF));
+        }
+    }
+
+    private static int[] readPalette(BasicByteReader reader) throws IOException {
+
+        int paletteSize = reader.getShort();
+        if (paletteSize < 0)
+            throw new IOException("Invalid block palette size: " + paletteSize);
+
+        int[] palette = new int[paletteSize];
+
+        for (int i=0; i < paletteSize; i++) {
+
+            String typeName = reader.getSmallString();
+
+            Material type = typeName != null ? EnumUtils.getEnum(typeName, Material.class) : null;
+            if (type == null)
+                throw new IOException("Found a block type in file that is not a valid type: " + typeName);
+
+            palette[i] = (type.getId() << 4) | (reader.getByte() & 0xF);
+        }
+
+        return palette;
+    }
+
+    private static int indexOf(int[] palette, int paletteSize, int key) {
+        for (int p = 0; p < paletteSize; p++) {
+            if (palette[p] == key)
+                return p;
+        }
+        return -1;
+    }
+
+    private static int countRuns(int[] values, int start, int end) {
+        int runs = start == end ? 0 : 1;
+        for (int i = start + 1; i < end; i++) {
+            if (values[i] != values[i - 1])
+                runs++;
+        }
+        return runs;
+    }
+
+    /*
+     * Read the contents of a file into a heap buffer.
+     *
+     * The file is not memory mapped because a mapping is only released when the
+     * buffer is garbage collected, which prevents the file from being deleted or
+     * replaced on some platforms.
+     */
+    private static ByteBuffer read(File file) throws IOException {
+
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE)
+                throw new IOException("Region chunk file is too large: " + file);
+
+            ByteBuffer buffer = ByteBuffer.allocate((int) size);
+
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer) == -1)
+                    throw new EOFException("Region chunk file is truncated: " + file);
+            }
+
+            buffer.flip();
+            return buffer;
+        }
+    }
+
+    /*
+     * Input stream that reads from the current position of a byte buffer.
+     */
+    private static final class ByteBufferInputStream extends InputStream {
+
+        final ByteBuffer buffer;
+
+        ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() throws IOException {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) throws IOException {
+
+            if (length == 0)
+                return 0;
+
+            if (!buffer.hasRemaining())
+                return -1;
+
+            length = Math.min(length, buffer.remaining());
+            buffer.get(bytes, offset, length);
+            return length;
+        }
+
+        @Override
+        public long skip(long length) throws IOException {
+
+            int skipped = (int)Math.min(Math.max(length, 0), buffer.remaining());
+            buffer.position(buffer.position() + skipped);
+            return skipped;
+        }
+
+        @Override
+        public int available() throws IOException {
+            return buffer.remaining();
+        }
+    }
+}
@@ -0,0 +1,342 @@
+/*
+ * This file is part of NucleusFramework for Bukkit, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) JCThePants (www.jcwhatever.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.jcwhatever.nucleus.regions.file.basic;
+
+import com.jcwhatever.nucleus.internal.NucMsg;
+import com.jcwhatever.nucleus.regions.IRegion;
+import com.jcwhatever.nucleus.regions.data.RegionChunkSection;
+import com.jcwhatever.nucleus.regions.file.IRegionFileData;
+import com.jcwhatever.nucleus.regions.file.IRegionFileLoader.LoadType;
+import com.jcwhatever.nucleus.utils.PreCon;
+import com.jcwhatever.nucleus.utils.coords.ICoords2Di;
+import com.jcwhatever.nucleus.utils.file.BasicByteReader;
+import com.jcwhatever.nucleus.utils.file.SerializableBlockEntity;
+import com.jcwhatever.nucleus.utils.file.SerializableFurnitureEntity;
+import com.jcwhatever.nucleus.utils.observer.future.IFuture;
+import com.jcwhatever.nucleus.utils.performance.queued.QueueProject;
+import com.jcwhatever.nucleus.utils.performance.queued.QueueTask;
+import com.jcwhatever.nucleus.utils.performance.queued.TaskConcurrency;
+
+import org.bukkit.Chunk;
+import org.bukkit.ChunkSnapshot;
+import org.bukkit.Material;
+import org.bukkit.World;
+import org.bukkit.plugin.Plugin;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import javax.annotation.Nullable;
+
+/**
+ * Loads a regions chunk block data from a compact format file or delta file.
+ *
+ * <p>The file is memory mapped and the section table is used to seek directly to
+ * the sections that are loaded.</p>
+ *
+ * <p>When loading {@link LoadType#MISMATCHED} blocks, sections whose stored hash
+ * matches the same section in the world are skipped without being decoded.</p>
+ *
+ * <p>The base snapshot files of a delta file are read first and the changes of
+ * each delta file in the chain are applied on top of them.</p>
+ *
+ * @see CompactChunkFileWriter
+ */
+public class CompactChunkFileLoader {
+
+    public static final int RESTORE_FILE_VERSION = 2;
+
+    private Plugin _plugin;
+    private IRegion _region;
+    private ICoords2Di _coords;
+    private volatile boolean _isLoading;
+
+    /**
+     * Constructor.
+     *
+     * @param region  The region to load a chunk file for.
+     * @param coords  The coords of the chunk that the file was created from.
+     */
+    public CompactChunkFileLoader(IRegion region, ICoords2Di coords) {
+        _region = region;
+        _coords = coords;
+        _plugin = region.getPlugin();
+    }
+
+    /**
+     * Get the chunk.
+     */
+    public ICoords2Di getChunkCoord() {
+        return _coords;
+    }
+
+    /**
+     * Get the region.
+     */
+    public IRegion getRegion() {
+        return _region;
+    }
+
+    /**
+     * Determine if the file is in the process of being loaded.
+     */
+    public boolean isLoading() {
+        return _isLoading;
+    }
+
+    /**
+     * Load data from a specific file.
+     *
+     * @param file      The file.
+     * @param project   The project to add the load task to.
+     * @param loadType  The type of data to load from the file.
+     * @param builder   The data container to load data into.
+     */
+    public IFuture loadInProject(File file, QueueProject project, LoadType loadType, IRegionFileData builder) {
+        return loadInProject(file, project, loadType, builder, 0, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Load data within a range of Y coordinates from a specific file.
+     *
+     * <p>Only the sections that intersect the range are read. Blocks outside
+     * of the range in the intersecting sections are still loaded.</p>
+     *
+     * @param file      The file.
+     * @param project   The project to add the load task to.
+     * @param loadType  The type of data to load from the file.
+     * @param builder   The data container to load data into.
+     * @param yStart    The lowest Y coordinate to load.
+     * @param yEnd      The highest Y coordinate to load.
+     */
+    public IFuture loadInProject(File file, QueueProject project, LoadType loadType,
+                                 IRegionFileData builder, int yStart, int yEnd) {
+        PreCon.notNull(file);
+        PreCon.notNull(project);
+        PreCon.notNull(loadType);
+        PreCon.notNull(builder);
+
+        if (isLoading())
+            return project.cancel("Region cannot load because it is already loading.");
+
+        World world = _region.getWorld();
+
+        if (world == null) {
+            return project.cancel("Failed to get world while loading region '{0}'.",
+                    _region.getName());
+        }
+
+        Chunk chunk = world.getChunkAt(_coords.getX(), _coords.getZ());
+        if (chunk == null) {
+            return project.cancel("Failed to get chunk ({0}, {1}) in world '{2}' while building region '{3}'.",
+                    _coords.getX(), _coords.getZ(), world.getName(), _region.getName());
+        }
+
+        if (!chunk.isLoaded())
+            chunk.load();
+
+        _isLoading = true;
+
+        LoadChunkTask task = new LoadChunkTask(project, file, loadType, builder, chunk,
+                Math.min(yStart, yEnd), Math.max(yStart, yEnd));
+
+        project.addTask(task);
+
+        return task.getResult();
+    }
+
+    /**
+     * Load data from a specific file.
+     *
+     * @param file      The file.
+     * @param loadType  The block load type.
+     *
+     * @return  A future to receive the load results.
+     */
+    public IFuture load(File file, LoadType loadType, IRegionFileData data) {
+
+        QueueProject project = new QueueProject(_plugin);
+
+        IFuture future = loadInProject(file, project, loadType, data);
+
+        project.run();
+
+        return future;
+    }
+
+    /*
+     * Task to read the chunk file.
+     */
+    private final class LoadChunkTask extends QueueTask {
+
+        private final ChunkSnapshot snapshot;
+        private final RegionChunkSection section;
+        private final File file;
+        private final LoadType loadType;
+        private final IRegionFileData builder;
+        private final QueueProject project;
+        private final int yStart;
+        private final int yEnd;
+
+        LoadChunkTask(QueueProject project, File file, LoadType loadType,
+                      IRegionFileData builder, Chunk chunk, int yStart, int yEnd) {
+
+            super(_plugin, TaskConcurrency.ASYNC);
+
+            this.project = project;
+            this.yStart = yStart;
+            this.yEnd = yEnd;
+            this.snapshot = chunk.getChunkSnapshot();
+            this.section = new RegionChunkSection(_region, _coords);
+            this.file = file;
+            this.loadType = loadType;
+            this.builder = builder;
+        }
+
+        @Override
+        protected void onRun() {
+
+            try {
+                read();
+            }
+            catch (IOException | IllegalArgumentException | InstantiationException e) {
+                handleException(e, "Failed to read file for chunk ({0}, {1}).",
+                        snapshot.getX(), snapshot.getZ());
+                return;
+            }
+
+            QueueTask task = this.builder.commit();
+            if (task != null)
+                this.project.addTask(task);
+
+            complete();
+        }
+
+        @Override
+        protected void onEnd() {
+            _isLoading = false;
+        }
+
+        /*
+         * Read the file and add the blocks to the builder.
+         */
+        private void read() throws IOException, InstantiationException {
+
+            // skip sections that already match the world
+            CompactChunkData data = CompactChunkData.read(file, section, yStart, yEnd,
+                    loadType == LoadType.MISMATCHED ? snapshot : null);
+
+            int xStart = section.getStartChunkX();
+            int xEnd = section.getEndChunkX();
+            int zStart = section.getStartChunkZ();
+            int zEnd = section.getEndChunkZ();
+
+            // only sections that intersect the Y range are decoded
+            int yMin = Math.max(section.getStartY(), yStart & ~15);
+            int yMax = Math.min(section.getEndY(), yEnd | 15);
+
+            int blockX = snapshot.getX() * 16;
+            int blockZ = snapshot.getZ() * 16;
+
+            for (int y = yMin; y <= yMax; y++) {
+
+                if (data.isSectionSkipped(y >> 4)) {
+                    // move to the last Y of the section
+                    y |= 15;
+                    continue;
+                }
+
+                for (int x = xStart; x <= xEnd; x++) {
+
+                    int i = data.getIndex(x, y, zStart);
+
+                    for (int z = zStart; z <= zEnd; z++, i++) {
+
+                        int typeId = data.getTypeId(i);
+                        int typeData = data.getData(i);
+
+                        if (loadType == LoadType.MISMATCHED &&
+                                snapshot.getBlockTypeId(x, y, z) == typeId &&
+                                snapshot.getBlockData(x, y, z) == typeData) {
+                            continue;
+                        }
+
+                        Material type = Material.getMaterial(typeId);
+                        int light = data.getLight(i);
+
+                        this.builder.addBlock(blockX + x, y, blockZ + z,
+                                type, typeData, (light >> 4) & 0x0F, light & 0x0F);
+                    }
+                }
+            }
+
+            readEntities(new BasicByteReader(new ByteArrayInputStream(data.getRawEntities())));
+        }
+
+        /*
+         * Read the block entities and entities.
+         */
+        private void readEntities(BasicByteReader reader) throws IOException, InstantiationException {
+
+            // Read block entities
+            int totalEntities = reader.getInteger();
+
+            for (int i=0; i < totalEntities; i++) {
+
+                SerializableBlockEntity state =
+                        reader.deserialize(SerializableBlockEntity.class);
+
+                if (state == null)
+                    continue;
+
+                this.builder.addSerializable(state);
+            }
+
+            // Read entities
+            totalEntities = reader.getInteger();
+
+            for (int i=0; i < totalEntities; i++) {
+
+                SerializableFurnitureEntity state =
+                        reader.deserialize(SerializableFurnitureEntity.class);
+
+                if (state == null)
+                    continue;
+
+                this.builder.addSerializable(state);
+            }
+        }
+
+        /*
+         * Handles displaying error messages and failing the task.
+         */
+        private void handleException(@Nullable Exception e, String message, Object... args) {
+            fail(message, args);
+            NucMsg.warning(message, args);
+            if (e != null)
+                e.printStackTrace();
+        }
+    }
+}
@@ -0,0 +1,296 @@
+/*
+ * This file is part of NucleusFramework for Bukkit, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) JCThePants (www.jcwhatever.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.jcwhatever.nucleus.regions.file.basic;
+
+import com.jcwhatever.nucleus.regions.IRegion;
+import com.jcwhatever.nucleus.regions.data.RegionChunkSection;
+import com.jcwhatever.nucleus.regions.file.basic.CompactRegionFileFormat.Compression;
+import com.jcwhatever.nucleus.utils.PreCon;
+import com.jcwhatever.nucleus.utils.coords.IChunkCoords;
+import com.jcwhatever.nucleus.utils.file.BasicByteWriter;
+import com.jcwhatever.nucleus.utils.file.SerializableBlockEntity;
+import com.jcwhatever.nucleus.utils.file.SerializableFurnitureEntity;
+import com.jcwhatever.nucleus.utils.observer.future.FutureSubscriber;
+import com.jcwhatever.nucleus.utils.observer.future.IFuture;
+import com.jcwhatever.nucleus.utils.observer.future.IFuture.FutureStatus;
+import com.jcwhatever.nucleus.utils.performance.queued.QueueProject;
+import com.jcwhatever.nucleus.utils.performance.queued.QueueTask;
+import com.jcwhatever.nucleus.utils.performance.queued.TaskConcurrency;
+
+import org.bukkit.ChunkSnapshot;
+import org.bukkit.World;
+import org.bukkit.plugin.Plugin;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.Queue;
+import javax.annotation.Nullable;
+
+/**
+ * Writes a regions chunk section to a compact format file.
+ *
+ * <p>File layout:</p>
+ * <ul>
+ *     <li>Header - File version, region name, world name, {@link RegionChunkSection},
+ *     compression and a table containing the Y index, uncompressed length, stored
+ *     length and block hash of each 16 block high section. The stored lengths give
+ *     the offset of each section so a loader can seek directly to a section. The
+ *     hash lets a loader skip sections that already match the world.</li>
+ *     <li>Sections - A byte array for each section in the table. The uncompressed
+ *     section contains the block type palette followed by the run-length encoded
+ *     palette indexes and the run-length encoded light values.</li>
+ *     <li>Entities - The uncompressed length followed by a byte array containing
+ *     the block entities and entities.</li>
+ * </ul>
+ *
+ * <p>A chunk can also be saved to a delta file that only contains the blocks
+ * that are different from a base snapshot. See {@link #saveDelta}.</p>
+ */
+public class CompactChunkFileWriter {
+
+    public static final int SAVE_FILE_VERSION = 2;
+
+    private final Plugin _plugin;
+    private final IRegion _region;
+    private final World _world;
+    private final ChunkSnapshot _snapshot;
+    private final RegionChunkSection _section;
+    private final Compression _compression;
+
+    private final Queue<SerializableBlockEntity> _tileEntities;
+    private final Queue<SerializableFurnitureEntity> _entities;
+
+    private volatile boolean _isSaving;
+
+    /**
+     * Constructor.
+     *
+     * @param region       The region the snapshot is for.
+     * @param coords       The coordinates of the chunk to snapshot.
+     * @param compression  The compression to use.
+     */
+    public CompactChunkFileWriter(IRegion region, IChunkCoords coords, Compression compression) {
+        this(region, coords.getX(), coords.getZ(), compression);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param region       The region the snapshot is for.
+     * @param chunkX       The X coordinates of the chunk.
+     * @param chunkZ       The Z coordinates of the chunk.
+     * @param compression  The compression to use.
+     */
+    public CompactChunkFileWriter(IRegion region, int chunkX, int chunkZ, Compression compression) {
+        PreCon.notNull(compression, "compression");
+
+        RegionChunkCapture capture = new RegionChunkCapture(region, chunkX, chunkZ);
+
+        _plugin = region.getPlugin();
+        _region = region;
+        _world = region.getWorld();
+        _compression = compression;
+        _snapshot = capture.getSnapshot();
+        _section = capture.getSection();
+        _tileEntities = capture.getTileEntities();
+        _entities = capture.getEntities();
+    }
+
+    /**
+     * Get the region the snapshot is for.
+     */
+    public IRegion getRegion() {
+        return _region;
+    }
+
+    /**
+     * Determine if the snapshot is in the process
+     * of saving to a file.
+     */
+    public boolean isSaving() {
+        return _isSaving;
+    }
+
+    /**
+     * Save the chunk section snapshot to a file.
+     *
+     * <p>Runs task immediately.</p>
+     *
+     * @param file  The file to save to.
+     */
+    public IFuture saveData(File file) {
+        return saveData(file, null);
+    }
+
+    /**
+     * Save the chunk section snapshot to a file.
+     *
+     * <p>Runs task immediately if no {@link QueueProject} is provided.</p>
+     *
+     * <p>If a {@link QueueProject} is provided, the task is not run.</p>
+     *
+     * @param file     The file to save to.
+     * @param project  The optional project to add tasks to.
+     */
+    public IFuture saveData(File file, @Nullable QueueProject project) {
+        PreCon.notNull(file);
+
+        return save(new SaveChunkTask(file, null, null), project);
+    }
+
+    /**
+     * Save the chunk section snapshot to a delta file that only contains
+     * the blocks that are different from a base snapshot.
+     *
+     * <p>Runs task immediately if no {@link QueueProject} is provided.</p>
+     *
+     * <p>If a {@link QueueProject} is provided, the task is not run.</p>
+     *
+     * @param file      The file to save to.
+     * @param baseName  The name of the base snapshot.
+     * @param baseFile  The compact format file or delta file of the chunk in the base snapshot.
+     * @param project   The optional project to add tasks to.
+     */
+    public IFuture saveDelta(File file, String baseName, File baseFile, @Nullable QueueProject project) {
+        PreCon.notNull(file);
+        PreCon.notNullOrEmpty(baseName);
+        PreCon.notNull(baseFile);
+
+        return save(new SaveChunkTask(file, baseName, baseFile), project);
+    }
+
+    /*
+     * Add a save task to a project.
+     */
+    private IFuture save(SaveChunkTask task, @Nullable QueueProject project) {
+
+        boolean runNow = project == null;
+
+        if (project == null)
+            project = new QueueProject(_plugin);
+
+        if (isSaving())
+            return project.cancel("Cannot save region because it is already saving.");
+
+        _isSaving = true;
+
+        project.addTask(task);
+
+        if (runNow) {
+            project.run();
+        }
+
+        return task.getResult().onStatus(new FutureSubscriber() {
+            @Override
+            public void on(FutureStatus status, @Nullable CharSequence message) {
+                _isSaving = false;
+            }
+        });
+    }
+
+    /*
+     * Task to encode the snapshot and write it to a file.
+     */
+    private final class SaveChunkTask extends QueueTask {
+
+        private final File file;
+        private final String baseName;
+        private final File baseFile;
+
+        SaveChunkTask(File file, @Nullable String baseName, @Nullable File baseFile) {
+            super(_plugin, TaskConcurrency.ASYNC);
+
+            this.file = file;
+            this.baseName = baseName;
+            this.baseFile = baseFile;
+        }
+
+        @Override
+        protected void onRun() {
+
+            try {
+                write();
+            }
+            catch (IOException io) {
+                io.printStackTrace();
+
+                fail("IOException while writing region chunk file.");
+                return;
+            }
+
+            complete();
+        }
+
+        @Override
+        protected void onEnd() {
+            _isSaving = false;
+        }
+
+        private void write() throws IOException {
+
+            CompactChunkData data = CompactChunkData.capture(_snapshot, _section, encodeEntities());
+
+            if (baseFile == null) {
+                data.write(file, _region.getName(), _world.getName(), _compression);
+                return;
+            }
+
+            CompactChunkData base = CompactChunkData.read(
+                    baseFile, _section, _section.getStartY(), _section.getEndY());
+
+            data.writeDelta(file, _region.getName(), _world.getName(), baseName, base, _compression);
+        }
+
+        /*
+         * Encode the block entities and entities.
+         */
+        private byte[] encodeEntities() throws IOException {
+
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream(1024);
+            BasicByteWriter writer = new BasicByteWriter(buffer);
+
+            // write Block Entities
+            writer.write(_tileEntities.size());
+
+            while (!_tileEntities.isEmpty()) {
+                SerializableBlockEntity tileEntity = _tileEntities.remove();
+                writer.write(tileEntity);
+            }
+
+            // write Entities
+            writer.write(_entities.size());
+
+            while (!_entities.isEmpty()) {
+                SerializableFurnitureEntity entity = _entities.remove();
+                writer.write(entity);
+            }
+
+            writer.flush();
+
+            return buffer.toByteArray();
+        }
+    }
+}
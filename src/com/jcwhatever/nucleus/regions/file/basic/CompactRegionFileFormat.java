@@ -0,0 +1,125 @@
+/*
+ * This file is part of NucleusFramework for Bukkit, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) JCThePants (www.jcwhatever.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.jcwhatever.nucleus.regions.file.basic;
+
+import com.jcwhatever.nucleus.regions.IRegion;
+import com.jcwhatever.nucleus.regions.file.IRegionFileFactory;
+import com.jcwhatever.nucleus.regions.file.IRegionFileFormat;
+import com.jcwhatever.nucleus.regions.file.IRegionFileLoader;
+import com.jcwhatever.nucleus.utils.PreCon;
+
+/**
+ * Compact region file format.
+ *
+ * <p>Stores data in chunk files. Each 16 block high section of a chunk is stored
+ * with a palette of the block types in the section and the block palette indexes
+ * and light values are run-length encoded. Sections are optionally compressed.</p>
+ *
+ * <p>Chunks that have not been saved in the compact format yet are read from
+ * {@link BasicRegionFileFormat} files. The basic format files are deleted when
+ * the chunk is saved in the compact format.</p>
+ *
+ * <p>Chunks can also be saved incrementally. A delta file stores only the blocks that
+ * are different from the same chunk in a base snapshot. Base snapshots are directories
+ * that are siblings of the directory the delta file is saved in, i.e. the snapshots of
+ * a {@link com.jcwhatever.nucleus.regions.MultiSnapshotRegion}.</p>
+ */
+public class CompactRegionFileFormat implements IRegionFileFormat {
+
+    /**
+     * The file extension of compact chunk files.
+     */
+    public static final String FILE_EXTENSION = "cbin";
+
+    /**
+     * The file extension of compact chunk delta files.
+     */
+    public static final String DELTA_FILE_EXTENSION = "dcbin";
+
+    /**
+     * Compression applied to chunk file sections.
+     */
+    public enum Compression {
+        /**
+         * Sections are not compressed.
+         */
+        NONE,
+        /**
+         * Sections are compressed using Deflate.
+         */
+        DEFLATE
+    }
+
+    private final Compression _compression;
+
+    /**
+     * Constructor.
+     *
+     * <p>Sections are compressed using {@link Compression#DEFLATE}.</p>
+     */
+    public CompactRegionFileFormat() {
+        this(Compression.DEFLATE);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param compression  The compression used when writing files.
+     */
+    public CompactRegionFileFormat(Compression compression) {
+        PreCon.notNull(compression);
+
+        _compression = compression;
+    }
+
+    /**
+     * Get the compression used when writing files.
+     */
+    public Compression getCompression() {
+        return _compression;
+    }
+
+    @Override
+    public IRegionFileLoader getLoader(IRegion region, IRegionFileFactory filenameFactory) {
+        return new CompactRegionFileLoader(region, filenameFactory);
+    }
+
+    @Override
+    public CompactRegionFileWriter getWriter(IRegion region, IRegionFileFactory filenameFactory) {
+        return new CompactRegionFileWriter(region, filenameFactory, _compression);
+    }
+
+    /**
+     * Get a writer that saves chunks to delta files against a base snapshot.
+     *
+     * @param region           The region.
+     * @param filenameFactory  The filename factory used to get the file(s) to store data in.
+     * @param baseName         The name of the base snapshot directory.
+     */
+    public CompactRegionFileWriter getDeltaWriter(IRegion region, IRegionFileFactory filenameFactory,
+                                                  String baseName) {
+        return new CompactRegionFileWriter(region, filenameFactory, _compression, baseName);
+    }
+}
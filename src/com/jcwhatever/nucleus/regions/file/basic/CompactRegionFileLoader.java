@@ -0,0 +1,113 @@
+/*
+ * This file is part of NucleusFramework for Bukkit, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) JCThePants (www.jcwhatever.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.jcwhatever.nucleus.regions.file.basic;
+
+import com.jcwhatever.nucleus.providers.regionselect.IRegionSelection;
+import com.jcwhatever.nucleus.regions.IRegion;
+import com.jcwhatever.nucleus.regions.file.IRegionFileData;
+import com.jcwhatever.nucleus.regions.file.IRegionFileFactory;
+import com.jcwhatever.nucleus.utils.coords.IChunkCoords;
+import com.jcwhatever.nucleus.utils.performance.queued.ParallelQueueProject;
+import com.jcwhatever.nucleus.utils.performance.queued.QueueProject;
+
+import java.io.File;
+import java.io.IOException;
+import javax.annotation.Nullable;
+
+/**
+ * Compact region format file loader.
+ *
+ * <p>Compact files are memory mapped. When loading part of a region, only the
+ * sections of a file that intersect the area are read.</p>
+ *
+ * <p>The snapshots of all chunks are taken on the main thread when the load is
+ * started. Chunk files are then decoded concurrently and the decoded blocks are
+ * applied on the main thread within a per tick budget.</p>
+ *
+ * <p>Chunks saved to a delta file are loaded by applying the delta to the
+ * chunk data of its base snapshot.</p>
+ *
+ * <p>Chunks without a compact file are loaded from the basic format file.</p>
+ */
+public class CompactRegionFileLoader extends RegionFileLoader {
+
+    /**
+     * Constructor.
+     *
+     * @param region           The region the loader is for.
+     * @param filenameFactory  The filename factory used to get the filename and path of the regions files.
+     */
+    public CompactRegionFileLoader(IRegion region, IRegionFileFactory filenameFactory) {
+        super(region, filenameFactory);
+    }
+
+    @Override
+    protected boolean canReadChunk(IRegion region, IChunkCoords chunk) throws IOException {
+        return getCompactFile(region, chunk).exists() ||
+                getDeltaFile(region, chunk).exists() ||
+                super.canReadChunk(region, chunk);
+    }
+
+    @Override
+    protected QueueProject createProject(IRegion region) {
+        return new ParallelQueueProject(region.getPlugin());
+    }
+
+    @Override
+    protected void loadChunk(IRegion region, IChunkCoords chunk, QueueProject project,
+                             LoadType loadType, IRegionFileData data, @Nullable IRegionSelection area)
+            throws IOException {
+
+        File file = getCompactFile(region, chunk);
+
+        if (!file.exists())
+            file = getDeltaFile(region, chunk);
+
+        if (!file.exists()) {
+            // load basic format file
+            super.loadChunk(region, chunk, project, loadType, data, area);
+            return;
+        }
+
+        CompactChunkFileLoader loader = new CompactChunkFileLoader(region, chunk);
+
+        if (area == null) {
+            loader.loadInProject(file, project, loadType, data);
+        }
+        else {
+            loader.loadInProject(file, project, loadType, data, area.getYStart(), area.getYEnd());
+        }
+    }
+
+    private File getCompactFile(IRegion region, IChunkCoords chunk) throws IOException {
+        return getChunkFile(region, chunk.getX(), chunk.getZ(),
+                CompactRegionFileFormat.FILE_EXTENSION, false);
+    }
+
+    private File getDeltaFile(IRegion region, IChunkCoords chunk) throws IOException {
+        return getChunkFile(region, chunk.getX(), chunk.getZ(),
+                CompactRegionFileFormat.DELTA_FILE_EXTENSION, false);
+    }
+}
@@ -0,0 +1,317 @@
+/*
+ * This file is part of NucleusFramework for Bukkit, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) JCThePants (www.jcwhatever.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.jcwhatever.nucleus.regions.file.basic;
+
+import com.jcwhatever.nucleus.internal.NucMsg;
+import com.jcwhatever.nucleus.regions.IRegion;
+import com.jcwhatever.nucleus.regions.data.RegionChunkSection;
+import com.jcwhatever.nucleus.regions.file.IRegionFileFactory;
+import com.jcwhatever.nucleus.regions.file.basic.CompactRegionFileFormat.Compression;
+import com.jcwhatever.nucleus.utils.PreCon;
+import com.jcwhatever.nucleus.utils.coords.IChunkCoords;
+import com.jcwhatever.nucleus.utils.observer.future.FutureSubscriber;
+import com.jcwhatever.nucleus.utils.observer.future.IFuture;
+import com.jcwhatever.nucleus.utils.observer.future.IFuture.FutureStatus;
+import com.jcwhatever.nucleus.utils.performance.queued.ParallelQueueProject;
+import com.jcwhatever.nucleus.utils.performance.queued.QueueProject;
+import com.jcwhatever.nucleus.utils.performance.queued.QueueTask;
+import com.jcwhatever.nucleus.utils.performance.queued.QueueWorker;
+import com.jcwhatever.nucleus.utils.performance.queued.TaskConcurrency;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Collection;
+import java.util.List;
+import javax.annotation.Nullable;
+
+/**
+ * Compact region format file writer.
+ *
+ * <p>The snapshots of all chunks are taken on the main thread when the save is
+ * started. Chunk files are then encoded and written concurrently.</p>
+ *
+ * <p>If the writer has a base snapshot, chunks are saved to delta files that only
+ * contain the blocks that are different from the base snapshot. Chunks that are
+ * not in the base snapshot are saved to compact format files.</p>
+ *
+ * <p>The basic format file of a chunk is deleted after the chunk
+ * is successfully saved in the compact format.</p>
+ *
+ * <p>A save is cancelled if another snapshot has delta files that were saved against
+ * the snapshot being written since overwriting it would invalidate them. The dependent
+ * snapshot must be compacted first. See {@link #compactData}.</p>
+ */
+public class CompactRegionFileWriter extends RegionFileWriter {
+
+    private final Compression _compression;
+    private final String _baseName;
+
+    /**
+     * Constructor.
+     *
+     * @param region           The region the writer is for.
+     * @param filenameFactory  The filename factory used to get the file(s) to store data in.
+     * @param compression      The compression to use.
+     */
+    public CompactRegionFileWriter(IRegion region, IRegionFileFactory filenameFactory,
+                                   Compression compression) {
+        this(region, filenameFactory, compression, null);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param region           The region the writer is for.
+     * @param filenameFactory  The filename factory used to get the file(s) to store data in.
+     * @param compression      The compression to use.
+     * @param baseName         The name of the base snapshot directory to save delta files
+     *                         against or null to save full compact format files.
+     */
+    public CompactRegionFileWriter(IRegion region, IRegionFileFactory filenameFactory,
+                                   Compression compression, @Nullable String baseName) {
+        super(region, filenameFactory);
+
+        PreCon.notNull(compression, "compression");
+
+        _compression = compression;
+        _baseName = baseName;
+    }
+
+    /**
+     * Get the compression used.
+     */
+    public Compression getCompression() {
+        return _compression;
+    }
+
+    /**
+     * Get the name of the base snapshot that delta files are saved against.
+     *
+     * @return  The base snapshot name or null if full compact format files are saved.
+     */
+    @Nullable
+    public String getBaseName() {
+        return _baseName;
+    }
+
+    /**
+     * Replace the delta files of the region with compact format files.
+     *
+     * <p>The delta chain of each chunk is folded into a new full compact file so the
+     * data no longer depends on base snapshots.</p>
+     *
+     * @return  A future to receive the results of the operation.
+     *
+     * @throws IOException
+     */
+    public IFuture compactData() throws IOException {
+
+        final IRegion region = getRegion();
+
+        Collection<IChunkCoords> chunks = region.getChunkCoords();
+
+        QueueProject project = createProject(region);
+
+        Boolean isSaving = region.getMeta().get(META_IS_SAVING);
+        Boolean isReading = region.getMeta().get(RegionFileLoader.META_IS_READING);
+
+        if ((isSaving != null && isSaving) || (isReading != null && isReading))
+            return project.cancel("Cannot compact region data while it is saving or loading.");
+
+        region.getMeta().setKey(META_IS_SAVING, true);
+
+        for (IChunkCoords chunk : chunks) {
+
+            File deltaFile = getDeltaFile(region, chunk, false);
+            if (!deltaFile.exists())
+                continue;
+
+            project.addTask(new CompactDeltaTask(new RegionChunkSection(region, chunk),
+                    deltaFile, getCompactFile(region, chunk, false)));
+        }
+
+        QueueWorker.get().addTask(project);
+
+        return project.getResult().onStatus(new FutureSubscriber() {
+            @Override
+            public void on(FutureStatus status, @Nullable CharSequence message) {
+                region.getMeta().setKey(META_IS_SAVING, null);
+            }
+        });
+    }
+
+    @Override
+    public IFuture save() throws IOException {
+
+        IRegion region = getRegion();
+
+        for (IChunkCoords chunk : region.getChunkCoords()) {
+
+            List<File> dependents = CompactChunkData.getDependentFiles(getCompactFile(region, chunk, false));
+            if (dependents.isEmpty())
+                continue;
+
+            return createProject(region).cancel(
+                    "Cannot overwrite the snapshot because snapshot '{0}' was saved against it. " +
+                            "Compact the dependent snapshot first.",
+                    dependents.get(0).getParentFile().getName());
+        }
+
+        return super.save();
+    }
+
+    @Override
+    protected QueueProject createProject(IRegion region) {
+        return new ParallelQueueProject(region.getPlugin());
+    }
+
+    @Override
+    protected void saveChunk(IRegion region, IChunkCoords chunk, QueueProject project) throws IOException {
+
+        final File legacyFile = getChunkFile(region, chunk.getX(), chunk.getZ(), false);
+
+        CompactChunkFileWriter writer = new CompactChunkFileWriter(region, chunk, _compression);
+
+        File baseFile = _baseName != null
+                ? CompactChunkData.getBaseFile(getDeltaFile(region, chunk, false), _baseName)
+                : null;
+
+        IFuture future;
+        final File replacedFile;
+
+        if (baseFile != null) {
+            future = writer.saveDelta(getDeltaFile(region, chunk, true), _baseName, baseFile, project);
+            replacedFile = getCompactFile(region, chunk, false);
+        }
+        else {
+            future = writer.saveData(getCompactFile(region, chunk, true), project);
+            replacedFile = getDeltaFile(region, chunk, false);
+        }
+
+        future.onSuccess(new FutureSubscriber() {
+            @Override
+            public void on(FutureStatus status, @Nullable CharSequence message) {
+                if (legacyFile.exists())
+                    deleteFile(legacyFile);
+
+                if (replacedFile.exists())
+                    deleteFile(replacedFile);
+            }
+        });
+    }
+
+    @Override
+    protected boolean deleteChunkData(IRegion region, IChunkCoords chunk) throws IOException {
+
+        int deleted = 0;
+        int failed = 0;
+
+        for (File file : new File[] {
+                getChunkFile(region, chunk.getX(), chunk.getZ(), false),
+                getCompactFile(region, chunk, false),
+                getDeltaFile(region, chunk, false) }) {
+
+            if (!file.exists())
+                continue;
+
+            if (deleteFile(file)) {
+                deleted++;
+            }
+            else {
+                failed++;
+            }
+        }
+
+        return deleted > 0 && failed == 0;
+    }
+
+    private File getCompactFile(IRegion region, IChunkCoords chunk, boolean doDeleteExisting)
+            throws IOException {
+
+        return getChunkFile(region, chunk.getX(), chunk.getZ(),
+                CompactRegionFileFormat.FILE_EXTENSION, doDeleteExisting);
+    }
+
+    private File getDeltaFile(IRegion region, IChunkCoords chunk, boolean doDeleteExisting)
+            throws IOException {
+
+        return getChunkFile(region, chunk.getX(), chunk.getZ(),
+                CompactRegionFileFormat.DELTA_FILE_EXTENSION, doDeleteExisting);
+    }
+
+    /*
+     * Task to fold the delta chain of a chunk into a compact format file.
+     */
+    private final class CompactDeltaTask extends QueueTask {
+
+        private final RegionChunkSection section;
+        private final File deltaFile;
+        private final File compactFile;
+        private final String regionName;
+        private final String worldName;
+
+        CompactDeltaTask(RegionChunkSection section, File deltaFile, File compactFile) {
+            super(getRegion().getPlugin(), TaskConcurrency.ASYNC);
+
+            this.section = section;
+            this.deltaFile = deltaFile;
+            this.compactFile = compactFile;
+            this.regionName = getRegion().getName();
+            this.worldName = getRegion().getWorld().getName();
+        }
+
+        @Override
+        protected void onRun() {
+
+            File tempFile = new File(compactFile.getPath() + ".tmp");
+
+            try {
+                CompactChunkData data = CompactChunkData.read(
+                        deltaFile, section, section.getStartY(), section.getEndY());
+
+                // write to a temporary file so a failed write does not
+                // leave a partial compact file that takes precedence
+                data.write(tempFile, regionName, worldName, _compression);
+
+                Files.move(tempFile.toPath(), compactFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+            catch (IOException e) {
+                e.printStackTrace();
+
+                if (tempFile.exists() && !tempFile.delete())
+                    NucMsg.debug(getPlugin(), "Failed to delete temporary region file: {0}", tempFile);
+
+                fail("IOException while compacting region chunk file: {0}", deltaFile.getName());
+                return;
+            }
+
+            deleteFile(deltaFile);
+
+            complete();
+        }
+    }
+}
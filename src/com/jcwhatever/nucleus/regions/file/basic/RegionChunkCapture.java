@@ -0,0 +1,133 @@
+/*
+ * This file is part of NucleusFramework for Bukkit, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) JCThePants (www.jcwhatever.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.jcwhatever.nucleus.regions.file.basic;
+
+import com.jcwhatever.nucleus.regions.IRegion;
+import com.jcwhatever.nucleus.regions.data.RegionChunkSection;
+import com.jcwhatever.nucleus.utils.file.SerializableBlockEntity;
+import com.jcwhatever.nucleus.utils.file.SerializableFurnitureEntity;
+
+import org.bukkit.Chunk;
+import org.bukkit.ChunkSnapshot;
+import org.bukkit.Location;
+import org.bukkit.block.BlockState;
+import org.bukkit.entity.Entity;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+
+/**
+ * Captures the blocks, block entities and entities of the part of a region
+ * contained within a chunk so they can be written to file asynchronously.
+ *
+ * <p>Must be constructed on the main thread.</p>
+ */
+class RegionChunkCapture {
+
+    private final ChunkSnapshot _snapshot;
+    private final RegionChunkSection _section;
+    private final Queue<SerializableBlockEntity> _tileEntities;
+    private final Queue<SerializableFurnitureEntity> _entities;
+
+    /**
+     * Constructor.
+     *
+     * @param region  The region to capture.
+     * @param chunkX  The X coordinates of the chunk.
+     * @param chunkZ  The Z coordinates of the chunk.
+     */
+    RegionChunkCapture(IRegion region, int chunkX, int chunkZ) {
+        if (!region.isDefined())
+            throw new RuntimeException("Cannot get a snapshot from an undefined region.");
+
+        //noinspection ConstantConditions
+        Chunk chunk = region.getWorld().getChunkAt(chunkX, chunkZ); // region.getWorld() is not null because region is defined
+        _snapshot = chunk.getChunkSnapshot();
+        _section = new RegionChunkSection(region, _snapshot);
+
+        // get tile entities from chunk
+        BlockState[] tileEntities = chunk.getTileEntities();
+        _tileEntities = new ArrayDeque<>(tileEntities.length);
+
+        for (BlockState tile : tileEntities) {
+
+            // make sure the tile entity is contained within the section
+            if (_section.containsBlockCoords(tile.getX(), tile.getY(), tile.getZ()))
+                _tileEntities.add(new SerializableBlockEntity(tile));
+        }
+
+        // get entities from chunk
+        Entity[] entities = chunk.getEntities();
+        _entities = new ArrayDeque<>(25);
+
+        Location entityLocation = new Location(null, 0, 0, 0);
+
+        for (Entity entity : entities) {
+
+            if (!entity.isValid())
+                continue;
+
+            if (!SerializableFurnitureEntity.isFurnitureEntity(entity))
+                continue;
+
+            entity.getLocation(entityLocation);
+
+            // make sure the entity is contained within the section
+            if (!_section.containsBlockCoords(
+                    entityLocation.getBlockX(), entityLocation.getBlockY(), entityLocation.getBlockZ()))
+                continue;
+
+            _entities.add(new SerializableFurnitureEntity(entity));
+        }
+    }
+
+    /**
+     * Get the chunk snapshot.
+     */
+    ChunkSnapshot getSnapshot() {
+        return _snapshot;
+    }
+
+    /**
+     * Get the region section contained in the chunk.
+     */
+    RegionChunkSection getSection() {
+        return _section;
+    }
+
+    /**
+     * Get the captured block entities.
+     */
+    Queue<SerializableBlockEntity> getTileEntities() {
+        return _tileEntities;
+    }
+
+    /**
+     * Get the captured entities.
+     */
+    Queue<SerializableFurnitureEntity> getEntities() {
+        return _entities;
+    }
+}
@@ -37,20 +37,15 @@ import com.jcwhatever.nucleus.utils.observer.future.IFuture.FutureStatus;
 import com.jcwhatever.nucleus.utils.performance.queued.Iteration3DTask;
 import com.jcwhatever.nucleus.utils.performance.queued.QueueProject;
 import com.jcwhatever.nucleus.utils.performance.queued.TaskConcurrency;
-import org.bukkit.Chunk;
 import org.bukkit.ChunkSnapshot;
-import org.bukkit.Location;
 import org.bukkit.Material;
 import org.bukkit.World;
-import org.bukkit.block.BlockState;
-import org.bukkit.entity.Entity;
 import org.bukkit.plugin.Plugin;
 
 import javax.annotation.Nullable;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
-import java.util.ArrayDeque;
 import java.util.Queue;
 
 /*
@@ -89,51 +84,16 @@ public class RegionChunkFileWriter {
      * @param chunkZ  The Y coordinates of the chunk.
      */
     public RegionChunkFileWriter (IRegion region, int chunkX, int chunkZ) {
-        if (!region.isDefined())
-            throw new RuntimeException("Cannot get a snapshot from an undefined region.");
 
-        //noinspection ConstantConditions
-        Chunk chunk = region.getWorld().getChunkAt(chunkX, chunkZ); // region.getWorld() is not null because region is defined
+        RegionChunkCapture capture = new RegionChunkCapture(region, chunkX, chunkZ);
+
         _plugin = region.getPlugin();
         _region = region;
         _world = region.getWorld();
-        _snapshot = chunk.getChunkSnapshot();
-        _section = new RegionChunkSection(region, _snapshot);
-
-        // get tile entities from chunk
-        BlockState[] tileEntities = chunk.getTileEntities();
-        _tileEntities = new ArrayDeque<>(tileEntities.length);
-
-        for (BlockState tile : tileEntities) {
-
-            // make sure the tile entity is contained within the section
-            if (_section.containsBlockCoords(tile.getX(), tile.getY(), tile.getZ()))
-                _tileEntities.add(new SerializableBlockEntity(tile));
-        }
-
-        // get entities from chunk
-        Entity[] entities = chunk.getEntities();
-        _entities = new ArrayDeque<>(25);
-
-        Location entityLocation = new Location(null, 0, 0, 0);
-
-        for (Entity entity : entities) {
-
-            if (!entity.isValid())
-                continue;
-
-            if (!SerializableFurnitureEntity.isFurnitureEntity(entity))
-                continue;
-
-            entity.getLocation(entityLocation);
-
-            // make sure the entity is contained within the section
-            if (!_section.containsBlockCoords(
-                    entityLocation.getBlockX(), entityLocation.getBlockY(), entityLocation.getBlockZ()))
-                continue;
-
-            _entities.add(new SerializableFurnitureEntity(entity));
-        }
+        _snapshot = capture.getSnapshot();
+        _section = capture.getSection();
+        _tileEntities = capture.getTileEntities();
+        _entities = capture.getEntities();
     }
 
     /**
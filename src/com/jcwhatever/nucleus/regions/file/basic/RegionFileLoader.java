@@ -24,10 +24,11 @@
 
 package com.jcwhatever.nucleus.regions.file.basic;
 
+import com.jcwhatever.nucleus.providers.regionselect.IRegionSelection;
 import com.jcwhatever.nucleus.regions.IRegion;
+import com.jcwhatever.nucleus.regions.file.IRegionFileAreaLoader;
 import com.jcwhatever.nucleus.regions.file.IRegionFileData;
 import com.jcwhatever.nucleus.regions.file.IRegionFileFactory;
-import com.jcwhatever.nucleus.regions.file.IRegionFileLoader;
 import com.jcwhatever.nucleus.utils.MetaKey;
 import com.jcwhatever.nucleus.utils.PreCon;
 import com.jcwhatever.nucleus.utils.coords.IChunkCoords;
@@ -41,12 +42,13 @@ import com.jcwhatever.nucleus.utils.performance.queued.QueueWorker;
 import javax.annotation.Nullable;
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collection;
 
 /**
  * Basic region format file loader.
  */
-public class RegionFileLoader extends AbstractRegionFileAccess implements IRegionFileLoader {
+public class RegionFileLoader extends AbstractRegionFileAccess implements IRegionFileAreaLoader {
 
     public static final MetaKey<Boolean> META_IS_READING= new MetaKey<Boolean>(Boolean.class);
 
@@ -68,29 +70,109 @@ public class RegionFileLoader extends AbstractRegionFileAccess implements IRegio
         Collection<IChunkCoords> chunks = region.getChunkCoords();
 
         for (IChunkCoords chunk : chunks) {
-            File file;
 
             try {
-                file = getChunkFile(region, chunk.getX(), chunk.getZ(), false);
+                if (!canReadChunk(region, chunk))
+                    return false;
             } catch (IOException e) {
                 return false;
             }
-
-            if (file == null || !file.exists())
-                return false;
         }
         return true;
     }
 
     @Override
-    public IFuture load(LoadType loadType, final LoadSpeed speed, IRegionFileData data) throws IOException {
+    public IFuture load(LoadType loadType, LoadSpeed speed, IRegionFileData data) throws IOException {
         PreCon.notNull(loadType);
+        PreCon.notNull(speed);
         PreCon.notNull(data);
 
-        final IRegion region = getRegion();
+        return load(getRegion().getChunkCoords(), null, loadType, speed, data);
+    }
 
-        Collection<IChunkCoords> chunks = region.getChunkCoords();
-        final QueueProject restoreProject = new QueueProject(region.getPlugin());
+    @Override
+    public IFuture load(IRegionSelection area, LoadType loadType, LoadSpeed speed, IRegionFileData data)
+            throws IOException {
+        PreCon.notNull(area);
+        PreCon.notNull(loadType);
+        PreCon.notNull(speed);
+        PreCon.notNull(data);
+
+        Collection<IChunkCoords> regionChunks = getRegion().getChunkCoords();
+        Collection<IChunkCoords> chunks = new ArrayList<>(regionChunks.size());
+
+        // only read the chunks the area intersects
+        for (IChunkCoords chunk : regionChunks) {
+            if (area.intersects(chunk.getX(), chunk.getZ()))
+                chunks.add(chunk);
+        }
+
+        return load(chunks, area, loadType, speed, new AreaFileData(area, data));
+    }
+
+    /**
+     * Determine if the data file for a chunk of the region exists.
+     *
+     * @param region  The region.
+     * @param chunk   The coordinates of the chunk.
+     *
+     * @throws IOException
+     */
+    protected boolean canReadChunk(IRegion region, IChunkCoords chunk) throws IOException {
+
+        File file = getChunkFile(region, chunk.getX(), chunk.getZ(), false);
+        return file.exists();
+    }
+
+    /**
+     * Create the project that chunk load tasks are added to.
+     *
+     * <p>Intended for optional override.</p>
+     *
+     * @param region  The region being loaded.
+     */
+    protected QueueProject createProject(IRegion region) {
+        return new QueueProject(region.getPlugin());
+    }
+
+    /**
+     * Add the tasks that load the data file of a chunk to a project.
+     *
+     * @param region    The region.
+     * @param chunk     The coordinates of the chunk.
+     * @param project   The project to add tasks to.
+     * @param loadType  The load type.
+     * @param data      The {@link IRegionFileData} to put the loaded data into.
+     * @param area      The area being loaded or null if loading the entire region. Blocks
+     *                  outside of the area are already filtered out of the data.
+     *
+     * @throws IOException
+     */
+    protected void loadChunk(IRegion region, IChunkCoords chunk, QueueProject project,
+                             LoadType loadType, IRegionFileData data, @Nullable IRegionSelection area)
+            throws IOException {
+
+        RegionChunkFileLoader loader = new RegionChunkFileLoader(region, chunk);
+
+        // the chunk is loaded in its own project so that the tasks the
+        // loader adds run in order.
+        QueueProject chunkProject = new QueueProject(region.getPlugin());
+
+        loader.loadInProject(
+                getChunkFile(region, chunk.getX(), chunk.getZ(), false),
+                chunkProject, loadType, data);
+
+        project.addTask(chunkProject);
+    }
+
+    /*
+     * Load the data files of the specified chunks.
+     */
+    private IFuture load(Collection<IChunkCoords> chunks, @Nullable IRegionSelection area,
+                         LoadType loadType, final LoadSpeed speed, IRegionFileData data) throws IOException {
+
+        final IRegion region = getRegion();
+        final QueueProject restoreProject = createProject(region);
 
         if (chunks.size() == 0)
             return restoreProject.cancel("No chunks to read.");
@@ -106,16 +188,7 @@ public class RegionFileLoader extends AbstractRegionFileAccess implements IRegio
         region.getMeta().setKey(META_IS_READING, true);
 
         for (IChunkCoords chunk : chunks) {
-
-            QueueProject chunkProject = new QueueProject(region.getPlugin());
-            RegionChunkFileLoader loader = new RegionChunkFileLoader(region, chunk);
-
-            // add load task to chunk project
-            loader.loadInProject(
-                    getChunkFile(region, chunk.getX(), chunk.getZ(), false),
-                    chunkProject, loadType, data);
-
-            restoreProject.addTask(chunkProject);
+            loadChunk(region, chunk, restoreProject, loadType, data, area);
         }
 
         final FutureAgent agent = new FutureAgent();
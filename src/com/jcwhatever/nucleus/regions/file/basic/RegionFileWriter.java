@@ -65,7 +65,7 @@ public class RegionFileWriter extends AbstractRegionFileAccess implements IRegio
 
         Collection<IChunkCoords> chunks = region.getChunkCoords();
 
-        QueueProject project = new QueueProject(region.getPlugin());
+        QueueProject project = createProject(region);
 
         if (chunks.size() == 0)
             return project.cancel("Cannot save region because there are no chunks to save.");
@@ -78,8 +78,7 @@ public class RegionFileWriter extends AbstractRegionFileAccess implements IRegio
         region.getMeta().setKey(META_IS_SAVING, true);
 
         for (IChunkCoords chunk : chunks) {
-            RegionChunkFileWriter writer = new RegionChunkFileWriter(region, chunk);
-            writer.saveData(getChunkFile(region, chunk.getX(), chunk.getZ(), true), project);
+            saveChunk(region, chunk, project);
         }
 
         QueueWorker.get().addTask(project);
@@ -102,25 +101,75 @@ public class RegionFileWriter extends AbstractRegionFileAccess implements IRegio
         int failed = 0;
 
         for (IChunkCoords chunk : chunks) {
-            File file;
 
             try {
-                file = getChunkFile(region, chunk.getX(), chunk.getZ(), false);
+                if (!deleteChunkData(region, chunk))
+                    failed++;
             } catch (IOException e) {
                 failed++;
-                continue;
             }
+        }
+        return failed == 0;
+    }
 
-            if (file == null || !file.exists()) {
-                failed++;
-                continue;
-            }
+    /**
+     * Create the project that chunk save tasks are added to.
+     *
+     * <p>Intended for optional override.</p>
+     *
+     * @param region  The region being saved.
+     */
+    protected QueueProject createProject(IRegion region) {
+        return new QueueProject(region.getPlugin());
+    }
 
-            if (!file.delete()) {
-                failed++;
-                NucMsg.debug(getRegion().getPlugin(), "Failed to delete region file: {0}", file);
-            }
+    /**
+     * Add the tasks that save a chunk of the region to a project.
+     *
+     * <p>Invoked on the main thread.</p>
+     *
+     * @param region   The region.
+     * @param chunk    The coordinates of the chunk.
+     * @param project  The project to add tasks to.
+     *
+     * @throws IOException
+     */
+    protected void saveChunk(IRegion region, IChunkCoords chunk, QueueProject project) throws IOException {
+        RegionChunkFileWriter writer = new RegionChunkFileWriter(region, chunk);
+        writer.saveData(getChunkFile(region, chunk.getX(), chunk.getZ(), true), project);
+    }
+
+    /**
+     * Delete the data file of a chunk of the region.
+     *
+     * @param region  The region.
+     * @param chunk   The coordinates of the chunk.
+     *
+     * @return  True if the file was found and deleted, otherwise false.
+     *
+     * @throws IOException
+     */
+    protected boolean deleteChunkData(IRegion region, IChunkCoords chunk) throws IOException {
+        return deleteFile(getChunkFile(region, chunk.getX(), chunk.getZ(), false));
+    }
+
+    /**
+     * Delete a region data file.
+     *
+     * @param file  The file to delete.
+     *
+     * @return  True if the file was found and deleted, otherwise false.
+     */
+    protected final boolean deleteFile(File file) {
+
+        if (!file.exists())
+            return false;
+
+        if (!file.delete()) {
+            NucMsg.debug(getRegion().getPlugin(), "Failed to delete region file: {0}", file);
+            return false;
         }
-        return failed == 0;
+
+        return true;
     }
 }
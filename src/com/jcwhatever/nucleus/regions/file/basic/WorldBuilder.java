@@ -24,12 +24,12 @@
 
 package com.jcwhatever.nucleus.regions.file.basic;
 
-import com.google.common.collect.Multimap;
-import com.google.common.collect.MultimapBuilder;
+import com.jcwhatever.nucleus.managed.scheduler.Scheduler;
 import com.jcwhatever.nucleus.mixins.IPluginOwned;
 import com.jcwhatever.nucleus.regions.file.IRegionFileData;
 import com.jcwhatever.nucleus.utils.PreCon;
 import com.jcwhatever.nucleus.utils.file.IAppliedSerializable;
+import com.jcwhatever.nucleus.utils.materials.MaterialProperty;
 import com.jcwhatever.nucleus.utils.materials.Materials;
 import com.jcwhatever.nucleus.utils.performance.queued.QueueTask;
 import com.jcwhatever.nucleus.utils.performance.queued.TaskConcurrency;
@@ -42,25 +42,47 @@ import org.bukkit.plugin.Plugin;
 
 import java.util.ArrayDeque;
 import java.util.ArrayList;
-import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.Deque;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Queue;
-import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import javax.annotation.Nullable;
 
 /**
  * Builds region data into a world.
  *
  * <p>Basic implementation of {@link IRegionFileData}</p>
+ *
+ * <p>Committed blocks are grouped by chunk and placed from the bottom up. Blocks
+ * are placed on the main thread within a per tick time budget so that large
+ * builds are spread across multiple ticks. Physics is not applied while a chunk
+ * is being built. When all blocks in a chunk are placed, physics is applied to the
+ * blocks that need it and the chunk is refreshed for players.</p>
+ *
+ * <p>The {@link com.jcwhatever.nucleus.utils.observer.future.IFuture} of a committed
+ * task reports when all of its blocks are placed. Progress can be checked with
+ * {@link #getPlacedBlocks} and {@link #getTotalBlocks}.</p>
  */
 public class WorldBuilder implements IRegionFileData, IPluginOwned {
 
+    /**
+     * The default max time in milliseconds spent placing blocks each tick.
+     */
+    public static final long DEFAULT_TICK_BUDGET = 10;
+
     private final Plugin _plugin;
     private final World _world;
     private final Object _sync = new Object();
 
+    private final AtomicLong _totalBlocks = new AtomicLong();
+    private final AtomicLong _placedBlocks = new AtomicLong();
+    private volatile long _tickBudget = TimeUnit.MILLISECONDS.toNanos(DEFAULT_TICK_BUDGET);
+
     private Builder _builder;
 
     /**
@@ -75,7 +97,7 @@ public class WorldBuilder implements IRegionFileData, IPluginOwned {
 
         _plugin = plugin;
         _world = world;
-        _builder = new Builder(plugin, world);
+        _builder = new Builder();
     }
 
     @Override
@@ -87,11 +109,46 @@ public class WorldBuilder implements IRegionFileData, IPluginOwned {
         return _world;
     }
 
+    /**
+     * Get the max time in milliseconds spent placing blocks each tick.
+     */
+    public long getTickBudget() {
+        return TimeUnit.NANOSECONDS.toMillis(_tickBudget);
+    }
+
+    /**
+     * Set the max time in milliseconds spent placing blocks each tick.
+     *
+     * <p>The default is {@link #DEFAULT_TICK_BUDGET}.</p>
+     *
+     * @param milliseconds  The tick budget in milliseconds.
+     */
+    public void setTickBudget(long milliseconds) {
+        PreCon.positiveNumber(milliseconds, "milliseconds");
+
+        _tickBudget = TimeUnit.MILLISECONDS.toNanos(milliseconds);
+    }
+
+    /**
+     * Get the total number of blocks added to the builder.
+     */
+    public long getTotalBlocks() {
+        return _totalBlocks.get();
+    }
+
+    /**
+     * Get the number of blocks placed into the world.
+     */
+    public long getPlacedBlocks() {
+        return _placedBlocks.get();
+    }
+
     @Override
     public void addBlock(int x, int y, int z, Material material, int data, int light, int skylight) {
         synchronized (_sync) {
-            _builder.blockQueue.add(new BlockInfo(x, y, z, material, data));
+            _builder.blocks.add(new BlockInfo(x, y, z, material, data));
         }
+        _totalBlocks.incrementAndGet();
     }
 
     @Override
@@ -109,19 +166,47 @@ public class WorldBuilder implements IRegionFileData, IPluginOwned {
 
         synchronized (_sync) {
             builder = _builder;
-            _builder = new Builder(getPlugin(), getWorld());
+            _builder = new Builder();
         }
 
+        // group and sort on the committing thread
+        builder.prepare();
+
         return builder;
     }
 
-    private static class BlockInfo implements Comparable<BlockInfo> {
+    /*
+     * Get a packed key from 2 coordinates.
+     */
+    private static long getKey(int x, int z) {
+        return ((long)x << 32) | (z & 0xFFFFFFFFL);
+    }
+
+    /*
+     * Determine if physics should be applied to a material after
+     * its chunk is built.
+     */
+    private static boolean hasPhysics(Material material) {
+        switch (material) {
+            case WATER:
+            case STATIONARY_WATER:
+            case LAVA:
+            case STATIONARY_LAVA:
+                return true;
+            default:
+                return Materials.hasProperty(material, MaterialProperty.GRAVITY) ||
+                        Materials.isRedstoneCompatible(material);
+        }
+    }
+
+    private static class BlockInfo {
 
         final int x;
         final int y;
         final int z;
         final Material material;
         final int data;
+        final boolean isMultiBlock;
 
         BlockInfo(int x, int y, int z, Material material, int data) {
             this.x = x;
@@ -129,99 +214,136 @@ public class WorldBuilder implements IRegionFileData, IPluginOwned {
             this.z = z;
             this.material = material;
             this.data = data;
+            this.isMultiBlock = Materials.isMultiBlock(material);
         }
+    }
 
+    /*
+     * Orders blocks so that regular blocks are placed before multi-blocks, regular
+     * blocks are placed from the bottom up and the parts of a multi-block in the same
+     * column are placed one after the other from the bottom up.
+     */
+    private static final Comparator<BlockInfo> BLOCK_ORDER = new Comparator<BlockInfo>() {
         @Override
-        public int compareTo(BlockInfo o) {
-            //noinspection SuspiciousNameCombination
-            return Integer.compare(this.y, o.y);
+        public int compare(BlockInfo o1, BlockInfo o2) {
+
+            if (o1.isMultiBlock != o2.isMultiBlock)
+                return o1.isMultiBlock ? 1 : -1;
+
+            if (o1.isMultiBlock) {
+                int result = Long.compare(getKey(o1.x, o1.z), getKey(o2.x, o2.z));
+                if (result != 0)
+                    return result;
+            }
+
+            return Integer.compare(o1.y, o2.y);
+        }
+    };
+
+    /*
+     * Blocks of a single chunk.
+     */
+    private static class ChunkBatch {
+
+        final int chunkX;
+        final int chunkZ;
+        final List<BlockInfo> blocks = new ArrayList<>(256);
+        final List<BlockInfo> physics = new ArrayList<>(10);
+        int next;
+
+        ChunkBatch(int chunkX, int chunkZ) {
+            this.chunkX = chunkX;
+            this.chunkZ = chunkZ;
         }
     }
 
     /*
-     * Restore blocks from blockInfo stack on the main thread.
+     * Restore blocks on the main thread within the tick budget.
      */
-    private static class Builder extends QueueTask {
+    private class Builder extends QueueTask {
 
-        World world;
-        Queue<BlockInfo> blockQueue = new ArrayDeque<>(512);
+        List<BlockInfo> blocks = new ArrayList<>(512);
         Queue<IAppliedSerializable> serializables = new ArrayDeque<>(100);
+        Deque<ChunkBatch> batches;
 
-        /**
-         * Constructor.
-         *
-         * @param plugin  The owning plugin.
-         * @param world   The world to build in.
-         */
-        public Builder(Plugin plugin, World world) {
-            super(plugin, TaskConcurrency.MAIN_THREAD);
-
-            this.world = world;
+        Builder() {
+            super(WorldBuilder.this.getPlugin(), TaskConcurrency.MAIN_THREAD);
         }
 
-        @Override
-        protected void onRun() {
+        /*
+         * Group blocks by chunk and sort them.
+         */
+        void prepare() {
+
+            Map<Long, ChunkBatch> chunks = new HashMap<>(16);
+            batches = new ArrayDeque<>(16);
 
-            Deque<BlockInfo> multiBlocks = new ArrayDeque<>(blockQueue.size());
+            for (BlockInfo info : blocks) {
 
-            while (!blockQueue.isEmpty()) {
-                BlockInfo info = blockQueue.remove();
+                int chunkX = info.x >> 4;
+                int chunkZ = info.z >> 4;
+                long key = getKey(chunkX, chunkZ);
 
-                // skip multi-blocks and restore afterwards
-                if (Materials.isMultiBlock(info.material)) {
-                    multiBlocks.add(info);
-                    continue;
+                ChunkBatch batch = chunks.get(key);
+                if (batch == null) {
+                    batch = new ChunkBatch(chunkX, chunkZ);
+                    chunks.put(key, batch);
+                    batches.add(batch);
                 }
 
-                restoreBlock(info);
+                batch.blocks.add(info);
             }
 
-            // Restore block Pairs
-            // keyed to block x, y z value as a string
-            Multimap<String, BlockInfo> placedMultiBlocks =
-                    MultimapBuilder.hashKeys(multiBlocks.size()).hashSetValues(3).build();
+            blocks = null;
+
+            for (ChunkBatch batch : batches) {
+                Collections.sort(batch.blocks, BLOCK_ORDER);
+            }
+        }
+
+        @Override
+        protected void onRun() {
+            build();
+        }
 
-            // Get block pairs
-            while (!multiBlocks.isEmpty()) {
-                BlockInfo info = multiBlocks.remove();
+        /*
+         * Place blocks until the tick budget is used and then continue
+         * in the next tick.
+         */
+        private void build() {
 
-                int x = info.x;
-                int y = info.y;
-                int z = info.z;
+            if (isEnded())
+                return;
 
-                String lowerKey = getKey(x, y - 1, z);
-                Collection<BlockInfo> lowerBlock = placedMultiBlocks.get(lowerKey);
+            long end = System.nanoTime() + _tickBudget;
 
-                if (lowerBlock != null) {
-                    placedMultiBlocks.put(lowerKey, info);
-                    continue;
-                }
+            while (!batches.isEmpty()) {
 
-                String upperKey = getKey(x, y + 1, z);
-                Collection<BlockInfo> upperBlock = placedMultiBlocks.get(upperKey);
-                if (upperBlock != null) {
-                    placedMultiBlocks.put(upperKey, info);
-                    continue;
-                }
+                ChunkBatch batch = batches.peekFirst();
 
-                placedMultiBlocks.put(getKey(x, y, z), info);
-            }
+                while (batch.next < batch.blocks.size()) {
 
-            // Restore pairs
-            Set<String> keys = placedMultiBlocks.keySet();
+                    BlockInfo info = batch.blocks.get(batch.next);
+                    batch.next++;
 
-            for (String key : keys) {
+                    restoreBlock(info);
 
-                Collection<BlockInfo> multiBlockSetSet = placedMultiBlocks.get(key);
-                if (multiBlockSetSet == null)
-                    continue;
+                    if (hasPhysics(info.material))
+                        batch.physics.add(info);
 
-                List<BlockInfo> multiBlockSet = new ArrayList<>(multiBlockSetSet);
+                    // check the time every 64 blocks
+                    if ((batch.next & 63) == 0 && System.nanoTime() >= end) {
+                        scheduleNext();
+                        return;
+                    }
+                }
 
-                Collections.sort(multiBlockSet);
+                finishChunk(batch);
+                batches.removeFirst();
 
-                for (BlockInfo info : multiBlockSet) {
-                    restoreBlock(info);
+                if (System.nanoTime() >= end && !batches.isEmpty()) {
+                    scheduleNext();
+                    return;
                 }
             }
 
@@ -235,28 +357,44 @@ public class WorldBuilder implements IRegionFileData, IPluginOwned {
         }
 
         /*
-         * Get a block map key using its coordinates
+         * Continue building in the next tick.
          */
-        private String getKey(int x, int y, int z) {
-            return String.valueOf(x) + '.' + y + '.' + z;
+        private void scheduleNext() {
+            Scheduler.runTaskLater(getPlugin(), 1, new Runnable() {
+                @Override
+                public void run() {
+                    build();
+                }
+            });
         }
 
         /*
-         * Restore a block
+         * Apply deferred physics and send the chunk to players.
          */
-        private void restoreBlock(BlockInfo info) {
+        private void finishChunk(ChunkBatch batch) {
+
+            for (BlockInfo info : batch.physics) {
+                getWorld().getBlockAt(info.x, info.y, info.z).getState().update(true, true);
+            }
+
+            if (getWorld().isChunkLoaded(batch.chunkX, batch.chunkZ))
+                getWorld().refreshChunk(batch.chunkX, batch.chunkZ);
+        }
 
-            int x = info.x;
-            int y = info.y;
-            int z = info.z;
+        /*
+         * Restore a block without applying physics.
+         */
+        private void restoreBlock(BlockInfo info) {
 
-            Block block = this.world.getBlockAt(x, y, z);
+            Block block = getWorld().getBlockAt(info.x, info.y, info.z);
             BlockState state = block.getState();
 
             state.setType(info.material);
             state.setRawData((byte) info.data);
 
-            state.update(true);
+            state.update(true, false);
+
+            _placedBlocks.incrementAndGet();
         }
     }
 }
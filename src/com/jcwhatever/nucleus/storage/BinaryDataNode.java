@@ -0,0 +1,1224 @@
+/*
+ * This file is part of NucleusFramework for Bukkit, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) JCThePants (www.jcwhatever.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.jcwhatever.nucleus.storage;
+
+import com.jcwhatever.nucleus.collections.observer.agent.AgentMultimap;
+import com.jcwhatever.nucleus.collections.observer.agent.AgentSetMultimap;
+import com.jcwhatever.nucleus.internal.NucMsg;
+import com.jcwhatever.nucleus.managed.scheduler.IScheduledTask;
+import com.jcwhatever.nucleus.managed.scheduler.Scheduler;
+import com.jcwhatever.nucleus.storage.serialize.IDataNodeSerializable;
+import com.jcwhatever.nucleus.utils.PreCon;
+import com.jcwhatever.nucleus.utils.coords.SyncLocation;
+import com.jcwhatever.nucleus.utils.file.BasicByteReader;
+import com.jcwhatever.nucleus.utils.file.BasicByteWriter;
+import com.jcwhatever.nucleus.utils.observer.future.FutureAgent;
+import com.jcwhatever.nucleus.utils.observer.future.IFuture;
+import com.jcwhatever.nucleus.utils.observer.future.IFuture.FutureStatus;
+
+import org.bukkit.Location;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.plugin.Plugin;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Array;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.UUID;
+import javax.annotation.Nullable;
+
+/**
+ * A data node stored in a binary key/value file.
+ *
+ * <p>Values are kept in memory in a map sorted by their full key path. Child
+ * nodes are views of a key path prefix and are only created when requested.
+ * Item stacks are decoded the first time they are retrieved.</p>
+ *
+ * <p>The file is an append only log of set and remove records written using
+ * {@link BasicByteWriter} encodings. Saving appends a record for each key
+ * changed since the previous save. When the log contains too many superseded
+ * records, the file is compacted by rewriting it with only the current values.</p>
+ */
+public class BinaryDataNode extends AbstractDataNode {
+
+    public static final String FILE_EXTENSION = "nbin";
+
+    private static final int FILE_TYPE = 0x4E42494E; // NBIN
+    private static final int FILE_VERSION = 1;
+
+    private static final byte OP_SET = 1;
+    private static final byte OP_REMOVE = 2;
+
+    private static final byte TYPE_BOOLEAN = 1;
+    private static final byte TYPE_INTEGER = 2;
+    private static final byte TYPE_LONG = 3;
+    private static final byte TYPE_DOUBLE = 4;
+    private static final byte TYPE_STRING = 5;
+    private static final byte TYPE_STRING_LIST = 6;
+    private static final byte TYPE_UUID = 7;
+    private static final byte TYPE_LOCATION = 8;
+    private static final byte TYPE_ITEM_STACKS = 9;
+
+    // the file is compacted when it has more records than the
+    // number of values multiplied by the ratio plus the minimum.
+    private static final int COMPACT_RATIO = 2;
+    private static final int COMPACT_MIN_RECORDS = 256;
+
+    // marks a removed node in the changes that are not saved.
+    private static final Object REMOVED = new Object();
+
+    /**
+     * Convert a {@link DataPath} instance to a {@link java.io.File} which
+     * points to a disk based binary file.
+     *
+     * @param plugin    The owning plugin. Used to determine the base
+     *                  path of the file.
+     * @param dataPath  The {@link DataPath} to convert.
+     */
+    public static File dataPathToFile(Plugin plugin, DataPath dataPath) {
+        String[] pathComp = dataPath.getPath();
+
+        if (pathComp.length == 0)
+            throw new IllegalArgumentException("Storage path cannot be empty.");
+
+        File directory = plugin.getDataFolder();
+
+        for (int i = 0; i < pathComp.length - 1; i++) {
+            directory = new File(directory, pathComp[i]);
+        }
+
+        if (!directory.exists() && !directory.mkdirs())
+            throw new RuntimeException("Failed to create folders corresponding to supplied data path.");
+
+        return new File(directory, pathComp[pathComp.length - 1] + '.' + FILE_EXTENSION);
+    }
+
+    private final Plugin _plugin;
+    private final BinaryDataNode _root;
+
+    // instantiated on root only
+    private final File _file;
+    private final TreeMap<String, Object> _values;
+    private final Object _saveSync;
+    private final AgentMultimap<IDataNode, FutureAgent> _saveAgents;
+    private Map<String, Object> _changes;
+    private volatile IScheduledTask _saveTask;
+    private volatile boolean _isLoaded;
+    private int _records;
+    private boolean _isCompactRequired;
+
+    /**
+     * Constructor.
+     *
+     * @param plugin       The owning plugin.
+     * @param storagePath  The storage path.
+     */
+    public BinaryDataNode(Plugin plugin, DataPath storagePath) {
+        this(plugin, dataPathToFile(plugin, storagePath));
+
+        if (!_file.exists()) {
+            try {
+                if (!_file.createNewFile()) {
+                    throw new RuntimeException("Failed to create initial binary file.");
+                }
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param plugin  The owning plugin.
+     * @param file    The binary file.
+     */
+    public BinaryDataNode(Plugin plugin, File file) {
+        PreCon.notNull(plugin);
+        PreCon.notNull(file);
+
+        _plugin = plugin;
+        _root = this;
+        _file = file;
+        _values = new TreeMap<>();
+        _changes = new LinkedHashMap<>(10);
+        _saveSync = new Object();
+        _saveAgents = new AgentSetMultimap<>();
+    }
+
+    /**
+     * Private constructor. Used for child nodes.
+     *
+     * @param root  The root node.
+     * @param path  The full node path.
+     */
+    private BinaryDataNode(BinaryDataNode root, String path) {
+        super(root, path);
+
+        _plugin = root.getPlugin();
+        _root = root;
+        _file = null;
+        _values = null;
+        _changes = null;
+        _saveSync = null;
+        _saveAgents = null;
+    }
+
+    @Override
+    public Plugin getPlugin() {
+        return _plugin;
+    }
+
+    @Override
+    public BinaryDataNode getRoot() {
+        return _root;
+    }
+
+    @Override
+    public boolean isRoot() {
+        return _root == this;
+    }
+
+    @Override
+    public boolean isLoaded() {
+        return _root._isLoaded;
+    }
+
+    @Override
+    public boolean load() {
+
+        if (!isRoot()) {
+            //noinspection TailRecursion
+            return _root.load();
+        }
+
+        if (!_file.exists())
+            return false;
+
+        TreeMap<String, Object> values = new TreeMap<>();
+        int records = 0;
+        boolean isComplete = true;
+        boolean isCorrupt = false;
+
+        if (_file.length() > 0) {
+
+            BasicByteReader reader = null;
+
+            try {
+                reader = new BasicByteReader(new FileInputStream(_file));
+
+                if (reader.getInteger() != FILE_TYPE)
+                    throw new IOException("File is not a binary data node file.");
+
+                int version = reader.getInteger();
+                if (version != FILE_VERSION)
+                    throw new IOException("Unsupported binary data node file version: " + version);
+
+                while (true) {
+
+                    byte operation;
+
+                    try {
+                        operation = reader.getByte();
+                    }
+                    catch (EOFException e) {
+                        break;
+                    }
+
+                    try {
+                        readRecord(reader, operation, values);
+                    }
+                    catch (EOFException e) {
+                        // the last save was interrupted, the records written
+                        // after it cannot be read until the file is compacted.
+                        isComplete = false;
+                        break;
+                    }
+                    catch (IOException e) {
+                        // the record is corrupt, the records after it cannot
+                        // be read and are lost when the file is compacted.
+                        e.printStackTrace();
+                        isComplete = false;
+                        isCorrupt = true;
+                        break;
+                    }
+
+                    records++;
+                }
+            }
+            catch (IOException e) {
+                e.printStackTrace();
+
+                NucMsg.severe("The binary data file '{0}' failed to load.", _file.getName());
+                return _isLoaded = false;
+            }
+            finally {
+                if (reader != null) {
+                    try {
+                        reader.close();
+                    } catch (IOException e) {
+                        e.printStackTrace();
+                    }
+                }
+            }
+        }
+
+        if (isCorrupt) {
+
+            // keep the original file so the unreadable records can be recovered
+            File corrupt = new File(_file.getPath() + ".corrupt");
+
+            try {
+                Files.copy(_file.toPath(), corrupt.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+            catch (IOException e) {
+                e.printStackTrace();
+
+                NucMsg.severe("The binary data file '{0}' contains a corrupt record and " +
+                        "could not be copied. The file was not loaded.", _file.getName());
+                return _isLoaded = false;
+            }
+
+            NucMsg.severe("The binary data file '{0}' contains a corrupt record. " +
+                    "Loaded {1} records. The original file was copied to '{2}'.",
+                    _file.getName(), records, corrupt.getName());
+        }
+        else if (!isComplete) {
+            NucMsg.severe("The binary data file '{0}' ends with an incomplete record. " +
+                    "Loaded {1} records.", _file.getName(), records);
+        }
+
+        synchronized (_saveSync) {
+
+            _write.lock();
+            try {
+                _values.clear();
+                _values.putAll(values);
+                _changes.clear();
+            }
+            finally {
+                _write.unlock();
+            }
+
+            _records = records;
+            _isCompactRequired = !isComplete;
+        }
+
+        return _isLoaded = true;
+    }
+
+    @Override
+    public IFuture loadAsync() {
+
+        final FutureAgent agent = new FutureAgent();
+
+        Scheduler.runTaskLaterAsync(_plugin, 1, new Runnable() {
+
+            @Override
+            public void run() {
+
+                boolean isLoaded = load();
+
+                agent.sendStatus(
+                        isLoaded
+                                ? FutureStatus.SUCCESS
+                                : FutureStatus.ERROR,
+                        null
+                );
+            }
+        });
+
+        return agent.getFuture();
+    }
+
+    @Override
+    public boolean saveSync() {
+
+        if (!isRoot()) {
+            //noinspection TailRecursion
+            return _root.saveSync();
+        }
+
+        // prevent changes from being written out of order
+        synchronized (_saveSync) {
+
+            boolean isCompact = _isCompactRequired || _file.length() == 0;
+            Map<String, Object> changes;
+            TreeMap<String, Object> values = null;
+
+            _write.lock();
+            try {
+
+                if (!isCompact && _changes.isEmpty()) {
+                    cleanAll();
+                    return true;
+                }
+
+                isCompact = isCompact ||
+                        _records + _changes.size() > _values.size() * COMPACT_RATIO + COMPACT_MIN_RECORDS;
+
+                if (isCompact)
+                    values = new TreeMap<>(_values);
+
+                changes = _changes;
+                _changes = new LinkedHashMap<>(10);
+
+                // mark dirty nodes as clean, nodes modified
+                // after the changes are taken are marked dirty again.
+                cleanAll();
+            }
+            finally {
+                _write.unlock();
+            }
+
+            boolean isSaved = isCompact
+                    ? writeCompact(values)
+                    : writeChanges(changes);
+
+            if (!isSaved) {
+                // the current values are written the next time the node is saved
+                _isCompactRequired = true;
+                markDirty();
+            }
+
+            return isSaved;
+        }
+    }
+
+    @Override
+    public IFuture save() {
+
+        final FutureAgent agent = new FutureAgent();
+
+        _root._saveAgents.put(this, agent);
+
+        // check that 1 or more batch operations are not in progress.
+        if (_root._saveTask != null) {
+            return agent.getFuture();
+        }
+
+        if (_plugin.isEnabled()) {
+
+            _root._saveTask = Scheduler.runTaskLaterAsync(_plugin, 1, new Runnable() {
+
+                @Override
+                public void run() {
+
+                    final boolean isSaved = saveSync();
+                    final Collection<FutureAgent> agents =
+                            _root._saveAgents.removeAll(BinaryDataNode.this);
+
+                    _root._saveTask = null;
+
+                    if (agents.isEmpty())
+                        return;
+
+                    // return results on main thread
+                    Scheduler.runTaskSync(_plugin, new Runnable() {
+
+                        @Override
+                        public void run() {
+
+                            for (FutureAgent agent : agents) {
+
+                                if (isSaved)
+                                    agent.success();
+                                else
+                                    agent.error();
+                            }
+                        }
+                    });
+                }
+            });
+        }
+        else {
+            if (saveSync()) {
+                agent.success();
+            } else {
+                agent.error();
+            }
+        }
+
+        return agent.getFuture();
+    }
+
+    @Override
+    public boolean saveSync(File destination) {
+        PreCon.notNull(destination);
+
+        TreeMap<String, Object> values;
+
+        _root._read.lock();
+        try {
+            values = new TreeMap<>(_root._values);
+        }
+        finally {
+            _root._read.unlock();
+        }
+
+        try {
+            writeFile(destination, values);
+            return true;
+        }
+        catch (IOException e) {
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    @Override
+    public IFuture save(final File destination) {
+        PreCon.notNull(destination);
+
+        final FutureAgent agent = new FutureAgent();
+
+        // save on alternate thread
+        Scheduler.runTaskLaterAsync(_plugin, 1, new Runnable() {
+
+            @Override
+            public void run() {
+
+                final boolean isSaved = saveSync(destination);
+
+                if (!agent.hasSubscribers())
+                    return;
+
+                // return results on main thread
+                Scheduler.runTaskSync(_plugin, new Runnable() {
+
+                    @Override
+                    public void run() {
+                        agent.sendStatus(
+                                isSaved
+                                        ? FutureStatus.SUCCESS
+                                        : FutureStatus.ERROR,
+                                null);
+                    }
+                });
+            }
+        });
+
+        return agent.getFuture();
+    }
+
+    @Override
+    public AutoSaveMode getDefaultAutoSaveMode() {
+        return AutoSaveMode.DISABLED;
+    }
+
+    @Override
+    public int size() {
+        return getSubNodeNames("", new HashSet<String>(10)).size();
+    }
+
+    @Override
+    public boolean hasNode(String nodePath) {
+        PreCon.notNull(nodePath);
+
+        String fullPath = getFullPath(nodePath);
+        if (fullPath.isEmpty())
+            return true;
+
+        _root._read.lock();
+        try {
+            return _root._values.containsKey(fullPath) ||
+                    !getSubTree(_root._values, fullPath).isEmpty();
+        }
+        finally {
+            _root._read.unlock();
+        }
+    }
+
+    @Override
+    public IDataNode getNode(String nodePath) {
+        PreCon.notNull(nodePath);
+
+        String fullPath = getFullPath(nodePath);
+        if (fullPath.isEmpty())
+            return _root;
+
+        return new BinaryDataNode(_root, fullPath);
+    }
+
+    @Override
+    public Collection<String> getSubNodeNames() {
+        return getSubNodeNames("", new HashSet<String>(10));
+    }
+
+    @Override
+    public <T extends Collection<String>> T getSubNodeNames(T output) {
+        return getSubNodeNames("", output);
+    }
+
+    @Override
+    public Collection<String> getSubNodeNames(String nodePath) {
+        return getSubNodeNames(nodePath, new HashSet<String>(10));
+    }
+
+    @Override
+    public <T extends Collection<String>> T getSubNodeNames(String nodePath, T output) {
+        PreCon.notNull(nodePath);
+        PreCon.notNull(output);
+
+        String fullPath = getFullPath(nodePath);
+        int start = fullPath.isEmpty() ? 0 : fullPath.length() + 1;
+
+        Set<String> names = new LinkedHashSet<>(10);
+
+        _root._read.lock();
+        try {
+
+            for (String key : getSubTree(_root._values, fullPath).keySet()) {
+
+                int end = key.indexOf('.', start);
+
+                names.add(end == -1
+                        ? key.substring(start)
+                        : key.substring(start, end));
+            }
+        }
+        finally {
+            _root._read.unlock();
+        }
+
+        output.addAll(names);
+        return output;
+    }
+
+    @Override
+    public void clear() {
+
+        _root._write.lock();
+        try {
+            _root.removeNode(_rawPath);
+        }
+        finally {
+            _root._write.unlock();
+        }
+
+        markDirty();
+    }
+
+    @Override
+    public void remove() {
+
+        if (isRoot())
+            throw new UnsupportedOperationException("Cannot remove the root node.");
+
+        clear();
+    }
+
+    @Override
+    public void remove(String nodePath) {
+        PreCon.notNull(nodePath);
+
+        String fullPath = getFullPath(nodePath);
+        if (fullPath.isEmpty())
+            throw new UnsupportedOperationException("Cannot remove the root node.");
+
+        _root._write.lock();
+        try {
+            _root.removeNode(fullPath);
+        }
+        finally {
+            _root._write.unlock();
+        }
+
+        markDirty();
+    }
+
+    @Override
+    public boolean set(String keyPath, @Nullable Object value) {
+        PreCon.notNull(keyPath);
+
+        String fullPath = getFullPath(keyPath);
+
+        if (value instanceof IDataNodeSerializable) {
+
+            _root._write.lock();
+            try {
+                _root.removeNode(fullPath);
+            }
+            finally {
+                _root._write.unlock();
+            }
+
+            IDataNodeSerializable serializable = (IDataNodeSerializable)value;
+            serializable.serialize(getNode(keyPath));
+
+            markDirty();
+            return true;
+        }
+
+        if (fullPath.isEmpty())
+            return false;
+
+        if (value != null)
+            value = toStorageValue(value);
+
+        _root._write.lock();
+        try {
+
+            if (value == null) {
+                _root.removeNode(fullPath);
+            }
+            else {
+                _root.setValue(fullPath, value);
+            }
+        }
+        finally {
+            _root._write.unlock();
+        }
+
+        markDirty();
+        return true;
+    }
+
+    @Nullable
+    @Override
+    public Object get(String keyPath) {
+        PreCon.notNull(keyPath);
+
+        String fullPath = getFullPath(keyPath);
+
+        Object value;
+
+        _root._read.lock();
+        try {
+            value = _root._values.get(fullPath);
+        }
+        finally {
+            _root._read.unlock();
+        }
+
+        if (value instanceof ItemStacksValue)
+            return ((ItemStacksValue) value).getItemStacks();
+
+        return value;
+    }
+
+    @Override
+    public Map<String, Object> getAllValues() {
+
+        int start = _rawPath.isEmpty() ? 0 : _rawPath.length() + 1;
+        Map<String, Object> result;
+
+        _root._read.lock();
+        try {
+
+            SortedMap<String, Object> subTree = getSubTree(_root._values, _rawPath);
+            result = new HashMap<>(subTree.size());
+
+            for (Entry<String, Object> entry : subTree.entrySet()) {
+                result.put(entry.getKey().substring(start), entry.getValue());
+            }
+        }
+        finally {
+            _root._read.unlock();
+        }
+
+        for (Entry<String, Object> entry : result.entrySet()) {
+            if (entry.getValue() instanceof ItemStacksValue)
+                entry.setValue(((ItemStacksValue) entry.getValue()).getItemStacks());
+        }
+
+        return result;
+    }
+
+    @Override
+    public int hashCode() {
+        return _root._file.hashCode() ^ _rawPath.hashCode();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj instanceof BinaryDataNode) {
+            BinaryDataNode other = (BinaryDataNode)obj;
+            return other._root == _root &&
+                    other._rawPath.equals(_rawPath);
+        }
+        return false;
+    }
+
+    /*
+     * Set the value of a key and record the change. Must be invoked on the
+     * root node while holding the write lock.
+     */
+    private void setValue(String fullPath, Object value) {
+        putValue(_values, fullPath, value);
+
+        _changes.remove(fullPath);
+        _changes.put(fullPath, value);
+    }
+
+    /*
+     * Remove a node and its sub nodes and record the change. Must be invoked
+     * on the root node while holding the write lock.
+     */
+    private void removeNode(String fullPath) {
+        removeSubTree(_values, fullPath);
+
+        _changes.remove(fullPath);
+        _changes.put(fullPath, REMOVED);
+    }
+
+    /*
+     * Append the changes to the file.
+     */
+    private boolean writeChanges(Map<String, Object> changes) {
+
+        try (FileOutputStream stream = new FileOutputStream(_file, true)) {
+
+            BasicByteWriter writer = new BasicByteWriter(stream);
+
+            for (Entry<String, Object> entry : changes.entrySet()) {
+                writeRecord(writer, entry.getKey(), entry.getValue());
+            }
+
+            writer.flush();
+        }
+        catch (IOException e) {
+            e.printStackTrace();
+            return false;
+        }
+
+        _records += changes.size();
+        return true;
+    }
+
+    /*
+     * Replace the file with a file that contains only the current values.
+     */
+    private boolean writeCompact(TreeMap<String, Object> values) {
+
+        File temp = new File(_file.getPath() + ".tmp");
+
+        try {
+            writeFile(temp, values);
+        }
+        catch (IOException e) {
+            e.printStackTrace();
+            return false;
+        }
+
+        try {
+            Files.move(temp.toPath(), _file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+        catch (IOException e) {
+            e.printStackTrace();
+
+            NucMsg.severe("Failed to replace binary data file '{0}'.", _file.getName());
+            return false;
+        }
+
+        _records = values.size();
+        _isCompactRequired = false;
+        return true;
+    }
+
+    /*
+     * Write the values to a new file.
+     */
+    private static void writeFile(File file, Map<String, Object> values) throws IOException {
+
+        try (FileOutputStream stream = new FileOutputStream(file)) {
+
+            BasicByteWriter writer = new BasicByteWriter(stream);
+
+            writer.write(FILE_TYPE);
+            writer.write(FILE_VERSION);
+
+            for (Entry<String, Object> entry : values.entrySet()) {
+                writeRecord(writer, entry.getKey(), entry.getValue());
+            }
+
+            writer.flush();
+            stream.getChannel().force(false);
+        }
+    }
+
+    /*
+     * Write a set or remove record.
+     */
+    private static void writeRecord(BasicByteWriter writer,
+                                    String fullPath, Object value) throws IOException {
+
+        if (value == REMOVED) {
+            writer.write(OP_REMOVE);
+            writeText(writer, fullPath);
+            return;
+        }
+
+        writer.write(OP_SET);
+        writeText(writer, fullPath);
+
+        if (value instanceof Boolean) {
+            writer.write(TYPE_BOOLEAN);
+            writer.write((byte) ((Boolean) value ? 1 : 0));
+        }
+        else if (value instanceof Integer) {
+            writer.write(TYPE_INTEGER);
+            writer.write((int) (Integer) value);
+        }
+        else if (value instanceof Long) {
+            writer.write(TYPE_LONG);
+            writer.write((long) (Long) value);
+        }
+        else if (value instanceof Double) {
+            writer.write(TYPE_DOUBLE);
+            writer.write(Double.doubleToLongBits((Double) value));
+        }
+        else if (value instanceof String) {
+            writer.write(TYPE_STRING);
+            writeText(writer, (String) value);
+        }
+        else if (value instanceof List) {
+            List<?> list = (List<?>) value;
+
+            writer.write(TYPE_STRING_LIST);
+            writer.write(list.size());
+
+            for (Object element : list) {
+                writeText(writer, (String) element);
+            }
+        }
+        else if (value instanceof UUID) {
+            writer.write(TYPE_UUID);
+            writer.write((UUID) value);
+        }
+        else if (value instanceof Location) {
+            writer.write(TYPE_LOCATION);
+            writer.write((Location) value);
+        }
+        else if (value instanceof ItemStacksValue) {
+            writer.write(TYPE_ITEM_STACKS);
+            writer.write(((ItemStacksValue) value)._bytes);
+        }
+        else {
+            throw new IOException("Unsupported value type: " + value.getClass().getName());
+        }
+    }
+
+    /*
+     * Read a set or remove record into a map of values.
+     */
+    private static void readRecord(BasicByteReader reader, byte operation,
+                                   TreeMap<String, Object> values) throws IOException {
+
+        String fullPath = readText(reader);
+        if (fullPath == null)
+            throw new IOException("Record key path is missing.");
+
+        switch (operation) {
+
+            case OP_SET:
+                putValue(values, fullPath, readValue(reader));
+                break;
+
+            case OP_REMOVE:
+                removeSubTree(values, fullPath);
+                break;
+
+            default:
+                throw new IOException("Invalid record operation: " + operation);
+        }
+    }
+
+    /*
+     * Read a typed value.
+     */
+    private static Object readValue(BasicByteReader reader) throws IOException {
+
+        byte type = reader.getByte();
+
+        switch (type) {
+
+            case TYPE_BOOLEAN:
+                return reader.getByte() != 0;
+
+            case TYPE_INTEGER:
+                return reader.getInteger();
+
+            case TYPE_LONG:
+                return reader.getLong();
+
+            case TYPE_DOUBLE:
+                return Double.longBitsToDouble(reader.getLong());
+
+            case TYPE_STRING:
+                String text = readText(reader);
+                if (text == null)
+                    throw new IOException("String value is missing.");
+                return text;
+
+            case TYPE_STRING_LIST:
+                int size = reader.getInteger();
+                if (size < 0)
+                    throw new IOException("Invalid list size: " + size);
+
+                List<String> list = new ArrayList<>(size);
+
+                for (int i=0; i < size; i++) {
+                    list.add(readText(reader));
+                }
+                return Collections.unmodifiableList(list);
+
+            case TYPE_UUID:
+                UUID uuid = reader.getUUID();
+                if (uuid == null)
+                    throw new IOException("UUID value is missing.");
+                return uuid;
+
+            case TYPE_LOCATION:
+                return reader.getLocation();
+
+            case TYPE_ITEM_STACKS:
+                byte[] bytes = reader.getBytes();
+                if (bytes == null)
+                    throw new IOException("Item stack value is missing.");
+                return new ItemStacksValue(bytes);
+
+            default:
+                throw new IOException("Invalid value type: " + type);
+        }
+    }
+
+    /*
+     * Write text as length prefixed UTF-8 bytes. Unlike the writers
+     * string encoding, the length is not limited to a short.
+     */
+    private static void writeText(BasicByteWriter writer, @Nullable String text) throws IOException {
+        writer.write(text != null ? text.getBytes(StandardCharsets.UTF_8) : null);
+    }
+
+    /*
+     * Read text written by writeText.
+     */
+    @Nullable
+    private static String readText(BasicByteReader reader) throws IOException {
+        byte[] bytes = reader.getBytes();
+        return bytes != null ? new String(bytes, StandardCharsets.UTF_8) : null;
+    }
+
+    /*
+     * Convert a value to one of the types that can be written to the file.
+     */
+    private static Object toStorageValue(Object value) {
+
+        if (value instanceof Boolean || value instanceof Integer ||
+                value instanceof Long || value instanceof Double ||
+                value instanceof UUID) {
+            return value;
+        }
+        else if (value instanceof Byte || value instanceof Short) {
+            return ((Number) value).intValue();
+        }
+        else if (value instanceof Float) {
+            return ((Number) value).doubleValue();
+        }
+        else if (value instanceof Date) {
+            return ((Date) value).getTime();
+        }
+        else if (value instanceof Location) {
+            return new SyncLocation((Location) value);
+        }
+        else if (value instanceof ItemStack) {
+            return ItemStacksValue.encode(new ItemStack[] { (ItemStack) value });
+        }
+        else if (value instanceof ItemStack[]) {
+            return ItemStacksValue.encode((ItemStack[]) value);
+        }
+        else if (value instanceof Enum<?>) {
+            return ((Enum<?>) value).name();
+        }
+        else if (value instanceof Collection) {
+            Collection<?> collection = (Collection<?>) value;
+            List<String> list = new ArrayList<>(collection.size());
+
+            for (Object element : collection) {
+                list.add(element != null ? String.valueOf(element) : null);
+            }
+
+            return Collections.unmodifiableList(list);
+        }
+        else if (value.getClass().isArray()) {
+            int size = Array.getLength(value);
+            List<String> list = new ArrayList<>(size);
+
+            for (int i=0; i < size; i++) {
+                Object element = Array.get(value, i);
+                list.add(element != null ? String.valueOf(element) : null);
+            }
+
+            return Collections.unmodifiableList(list);
+        }
+
+        return String.valueOf(value);
+    }
+
+    /*
+     * Put a value into a map of values. A node that has a value cannot have
+     * sub nodes, so the sub nodes of the key and the values of its parent
+     * nodes are removed.
+     */
+    private static void putValue(TreeMap<String, Object> values, String fullPath, Object value) {
+
+        removeSubTree(values, fullPath);
+
+        int index = fullPath.lastIndexOf('.');
+
+        while (index > 0) {
+            values.remove(fullPath.substring(0, index));
+            index = fullPath.lastIndexOf('.', index - 1);
+        }
+
+        values.put(fullPath, value);
+    }
+
+    /*
+     * Remove a node and all of its sub nodes from a map of values.
+     */
+    private static void removeSubTree(TreeMap<String, Object> values, String fullPath) {
+
+        if (fullPath.isEmpty()) {
+            values.clear();
+            return;
+        }
+
+        values.remove(fullPath);
+        getSubTree(values, fullPath).clear();
+    }
+
+    /*
+     * Get a view of the values of the sub nodes of a node.
+     */
+    private static SortedMap<String, Object> getSubTree(TreeMap<String, Object> values, String fullPath) {
+
+        if (fullPath.isEmpty())
+            return values;
+
+        // '/' is the character after '.', the range contains
+        // all keys that start with the path followed by a dot.
+        return values.subMap(fullPath + '.', fullPath + '/');
+    }
+
+    /*
+     * Item stacks encoded when set or loaded and decoded
+     * the first time they are retrieved.
+     */
+    private static class ItemStacksValue {
+
+        final byte[] _bytes;
+        volatile ItemStack[] _itemStacks;
+
+        static ItemStacksValue encode(ItemStack[] itemStacks) {
+
+            ByteArrayOutputStream stream = new ByteArrayOutputStream(64 * itemStacks.length + 4);
+
+            try (BasicByteWriter writer = new BasicByteWriter(stream)) {
+
+                writer.write(itemStacks.length);
+
+                for (ItemStack itemStack : itemStacks) {
+                    writer.write(itemStack);
+                }
+            }
+            catch (IOException e) {
+                throw new RuntimeException("Failed to encode item stacks.", e);
+            }
+
+            ItemStacksValue value = new ItemStacksValue(stream.toByteArray());
+            value._itemStacks = cloneItemStacks(itemStacks);
+
+            return value;
+        }
+
+        ItemStacksValue(byte[] bytes) {
+            _bytes = bytes;
+        }
+
+        @Nullable
+        ItemStack[] getItemStacks() {
+
+            ItemStack[] itemStacks = _itemStacks;
+
+            if (itemStacks == null) {
+
+                try (BasicByteReader reader = new BasicByteReader(new ByteArrayInputStream(_bytes))) {
+
+                    int size = reader.getInteger();
+                    if (size < 0)
+                        throw new IOException("Invalid item stack array size: " + size);
+
+                    itemStacks = new ItemStack[size];
+
+                    for (int i=0; i < size; i++) {
+                        itemStacks[i] = reader.getItemStack();
+                    }
+                }
+                catch (IOException e) {
+                    e.printStackTrace();
+                    return null;
+                }
+
+                _itemStacks = itemStacks;
+            }
+
+            return cloneItemStacks(itemStacks);
+        }
+
+        static ItemStack[] cloneItemStacks(ItemStack[] itemStacks) {
+
+            ItemStack[] result = new ItemStack[itemStacks.length];
+
+            for (int i=0; i < itemStacks.length; i++) {
+                result[i] = itemStacks[i] != null ? itemStacks[i].clone() : null;
+            }
+
+            return result;
+        }
+    }
+}
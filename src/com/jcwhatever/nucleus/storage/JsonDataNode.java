@@ -65,6 +65,10 @@ import java.util.UUID;
 
 /**
  * A JSON based data node.
+ *
+ * <p>Modifications are made while holding the write lock. When saving, a copy
+ * of the json tree is taken while holding the read lock and the copy is
+ * serialized after the lock is released.</p>
  */
 public class JsonDataNode extends AbstractDataNode {
 
@@ -101,6 +105,7 @@ public class JsonDataNode extends AbstractDataNode {
     private boolean _isLoaded;
     private final JsonDataNode _root;
     private final Deque<FutureAgent> _saveAgents;
+    private final Object _saveSync;
     private IScheduledTask _saveTask;
     private File _file;
     private String _json;
@@ -119,6 +124,7 @@ public class JsonDataNode extends AbstractDataNode {
         _file = file;
         _object = _gson.fromJson("{}", JsonObject.class);
         _saveAgents = new ArrayDeque<>(5);
+        _saveSync = new Object();
     }
 
     /**
@@ -135,6 +141,7 @@ public class JsonDataNode extends AbstractDataNode {
         _root = this;
         _json = json;
         _saveAgents = new ArrayDeque<>(5);
+        _saveSync = new Object();
     }
 
     /**
@@ -151,6 +158,7 @@ public class JsonDataNode extends AbstractDataNode {
         _plugin = root.getPlugin();
         _gson = root._gson;
         _saveAgents = null;
+        _saveSync = null;
         _isLoaded = true;
     }
 
@@ -201,13 +209,23 @@ public class JsonDataNode extends AbstractDataNode {
             return false;
         }
 
+        JsonObject object;
+
         try {
-            _object = _gson.fromJson(reader, JsonObject.class);
+            object = _gson.fromJson(reader, JsonObject.class);
         } catch (JsonIOException | JsonSyntaxException e) {
             e.printStackTrace();
             return false;
         }
 
+        _write.lock();
+        try {
+            _object = object;
+        }
+        finally {
+            _write.unlock();
+        }
+
         _isLoaded = true;
         return true;
     }
@@ -233,12 +251,19 @@ public class JsonDataNode extends AbstractDataNode {
 
     @Override
     public boolean saveSync() {
+
+        if (!isRoot()) {
+            //noinspection TailRecursion
+            return _root.saveSync();
+        }
+
         if (_file != null) {
             return saveSync(_file);
         }
         else {
-            _json = _gson.toJson(_object);
-            clean();
+            synchronized (_saveSync) {
+                _json = _gson.toJson(snapshot(true));
+            }
             return true;
         }
     }
@@ -290,27 +315,36 @@ public class JsonDataNode extends AbstractDataNode {
     @Override
     public boolean saveSync(File destination) {
 
-        String json = _gson.toJson(_object);
+        boolean isRootFile = destination == _root._file;
 
-        if (destination == _file) {
-            _json = json;
-            clean();
-        }
+        // prevent an older snapshot from being written after a newer one
+        synchronized (_root._saveSync) {
 
-        try {
-            if (!destination.exists() && !destination.createNewFile()) {
+            String json = _gson.toJson(_root.snapshot(isRootFile));
+
+            if (isRootFile)
+                _root._json = json;
+
+            try {
+                if (!destination.exists() && !destination.createNewFile()) {
+                    if (isRootFile)
+                        _root.markDirty();
+                    return false;
+                }
+            } catch (IOException e) {
+                e.printStackTrace();
+                if (isRootFile)
+                    _root.markDirty();
+                return false;
+            }
+
+            int written = FileUtils.writeTextFile(destination, StandardCharsets.UTF_8, json);
+            if (written == -1) {
+                if (isRootFile)
+                    _root.markDirty();
                 return false;
             }
-        } catch (IOException e) {
-            e.printStackTrace();
-            return false;
-        }
 
-        int written = FileUtils.writeTextFile(destination, StandardCharsets.UTF_8, json);
-        if (written == -1) {
-            return false;
-        } else {
-            clean();
             return true;
         }
     }
@@ -632,6 +666,69 @@ public class JsonDataNode extends AbstractDataNode {
         return result;
     }
 
+    /**
+     * Copy the root json object so it can be serialized without
+     * holding the data node lock.
+     *
+     * <p>Must be invoked on the root node.</p>
+     *
+     * @param clean  True to mark all nodes as clean when the copy is taken.
+     */
+    protected JsonObject snapshot(boolean clean) {
+
+        _read.lock();
+        try {
+
+            JsonObject snapshot = copyObject(_object);
+
+            // nodes modified after the snapshot is taken are marked dirty again.
+            if (clean)
+                cleanAll();
+
+            return snapshot;
+        }
+        finally {
+            _read.unlock();
+        }
+    }
+
+    /*
+     * Deep copy a json object. Primitives are immutable and are not copied.
+     */
+    private static JsonObject copyObject(JsonObject object) {
+
+        JsonObject copy = new JsonObject();
+
+        for (Map.Entry<String, JsonElement> entry : object.entrySet()) {
+            copy.add(entry.getKey(), copyElement(entry.getValue()));
+        }
+
+        return copy;
+    }
+
+    /*
+     * Deep copy a json element.
+     */
+    private static JsonElement copyElement(JsonElement element) {
+
+        if (element.isJsonObject())
+            return copyObject(element.getAsJsonObject());
+
+        if (element.isJsonArray()) {
+
+            JsonArray array = element.getAsJsonArray();
+            JsonArray copy = new JsonArray();
+
+            for (JsonElement child : array) {
+                copy.add(copyElement(child));
+            }
+
+            return copy;
+        }
+
+        return element;
+    }
+
     private void getAllValuesRecursive(JsonObject object, String basePath, Map<String, Object> result) {
 
         Set<Map.Entry<String, JsonElement>> entrySet = object.entrySet();
@@ -652,6 +749,18 @@ public class JsonDataNode extends AbstractDataNode {
     // path requires full path
     private void removeKey(String[] path) {
 
+        _root._write.lock();
+        try {
+            removeKeyLocked(path);
+        }
+        finally {
+            _root._write.unlock();
+        }
+    }
+
+    // path requires full path
+    private void removeKeyLocked(String[] path) {
+
         if (path.length == 1) {
             _root._object.remove(path[0]);
             return;
@@ -678,6 +787,18 @@ public class JsonDataNode extends AbstractDataNode {
     // path requires full path
     private void addKey(String[] path, Object value) {
 
+        _root._write.lock();
+        try {
+            addKeyLocked(path, value);
+        }
+        finally {
+            _root._write.unlock();
+        }
+    }
+
+    // path requires full path
+    private void addKeyLocked(String[] path, Object value) {
+
         if (path.length == 1) {
             _root._object.add(path[0], _gson.toJsonTree(value));
             return;
@@ -48,18 +48,24 @@ import org.bukkit.plugin.Plugin;
 import javax.annotation.Nullable;
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.UUID;
 
 /**
  * A YAML based data node.
+ *
+ * <p>When saving, a copy of the configuration is taken while holding the read
+ * lock and the copy is serialized after the lock is released so readers are
+ * not blocked while the YAML is written.</p>
  */
 public class YamlDataNode extends AbstractDataNode {
 
@@ -96,6 +102,7 @@ public class YamlDataNode extends AbstractDataNode {
     private final ConfigurationSection _section;
     private final Map<String, YamlDataNode> _cachedNodes;
     private final AgentMultimap<IDataNode, FutureAgent> _saveAgents;
+    private final Object _saveSync;
     private volatile boolean _isLoaded;
     private volatile IScheduledTask _saveTask;
     protected String _yamlString;
@@ -172,6 +179,7 @@ public class YamlDataNode extends AbstractDataNode {
         _section = yaml;
         _root = this;
         _saveAgents = new AgentSetMultimap<>();
+        _saveSync = new Object();
         _cachedNodes = new HashMap<>(10);
     }
 
@@ -187,6 +195,7 @@ public class YamlDataNode extends AbstractDataNode {
         _section = null;
         _plugin = root.getPlugin();
         _saveAgents = null;
+        _saveSync = null;
         _cachedNodes = null;
     }
 
@@ -283,38 +292,43 @@ public class YamlDataNode extends AbstractDataNode {
             return getRoot().saveSync();
         }
 
-        YamlConfiguration yaml = (YamlConfiguration)_section;
+        // prevent an older snapshot from being written after a newer one
+        synchronized (_saveSync) {
 
-        boolean isSaved;
+            YamlConfiguration snapshot;
 
-        _write.lock();
-        try {
+            _read.lock();
+            try {
+                snapshot = snapshot();
+
+                // mark dirty nodes as clean, nodes modified
+                // after the snapshot is taken are marked dirty again.
+                cleanAll();
+            }
+            finally {
+                _read.unlock();
+            }
 
             try {
 
                 // save yaml
                 if (_file != null) {
-                    yaml.save(_file);
+                    snapshot.save(_file);
                 }
                 else {
-                    _yamlString = yaml.getKeys(false).size() == 0 ? "" : yaml.saveToString();
+                    _yamlString = snapshot.getKeys(false).size() == 0 ? "" : snapshot.saveToString();
                 }
 
-                isSaved = true;
-
-                // mark dirty nodes as clean
-                cleanAll();
+                return true;
 
             } catch (Exception e) {
                 e.printStackTrace();
-                isSaved = false;
+
+                // the snapshot was not saved
+                markDirty();
+                return false;
             }
         }
-        finally {
-            _write.unlock();
-        }
-
-        return isSaved;
     }
 
     @Override
@@ -378,16 +392,20 @@ public class YamlDataNode extends AbstractDataNode {
     @Override
     public boolean saveSync(File destination) {
 
-        getRoot()._write.lock();
+        YamlConfiguration snapshot;
+
+        getRoot()._read.lock();
         try {
-            try {
-                getYamlConfiguration().save(destination);
-            } catch (IOException e) {
-                e.printStackTrace();
-            }
+            snapshot = getRoot().snapshot();
         }
         finally {
-            getRoot()._write.unlock();
+            getRoot()._read.unlock();
+        }
+
+        try {
+            snapshot.save(destination);
+        } catch (IOException e) {
+            e.printStackTrace();
         }
 
         return true;
@@ -680,4 +698,47 @@ public class YamlDataNode extends AbstractDataNode {
     public YamlConfiguration getYamlConfiguration() {
         return (YamlConfiguration)getRoot()._section;
     }
+
+    /**
+     * Copy the root configuration so it can be serialized without
+     * holding the data node lock.
+     *
+     * <p>Must be invoked on the root node while holding the read lock.
+     * Sections and lists are copied, values are assumed to be immutable.</p>
+     */
+    protected YamlConfiguration snapshot() {
+
+        YamlConfiguration yaml = (YamlConfiguration)_section;
+
+        YamlConfiguration snapshot = new YamlConfiguration();
+        snapshot.options()
+                .indent(yaml.options().indent())
+                .header(yaml.options().header())
+                .copyHeader(yaml.options().copyHeader());
+
+        copySection(yaml, snapshot);
+
+        return snapshot;
+    }
+
+    /*
+     * Copy the values of a configuration section into another section.
+     */
+    private static void copySection(ConfigurationSection source, ConfigurationSection destination) {
+
+        for (String key : source.getKeys(false)) {
+
+            Object value = source.get(key);
+
+            if (value instanceof ConfigurationSection) {
+                copySection((ConfigurationSection) value, destination.createSection(key));
+            }
+            else if (value instanceof List) {
+                destination.set(key, new ArrayList<>((List<?>) value));
+            }
+            else {
+                destination.set(key, value);
+            }
+        }
+    }
 }
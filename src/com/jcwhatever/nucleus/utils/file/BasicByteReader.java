@@ -38,6 +38,7 @@ import org.bukkit.util.EulerAngle;
 import org.bukkit.util.Vector;
 
 import javax.annotation.Nullable;
+import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.ObjectInputStream;
@@ -48,20 +49,34 @@ import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import java.util.UUID;
 
 /**
  * Read bytes from a stream. Bytes from the stream need to have been
  * generated by {@link BasicByteWriter} in order to be read.
+ *
+ * <p>The reader buffers the stream internally and may read ahead of the
+ * bytes it has returned. The underlying stream should not be read directly
+ * while the reader is in use.</p>
  */
 public class BasicByteReader extends InputStream implements IByteReader {
 
     private static final byte[] BOOLEAN_FLAGS = new byte[] { 1, 2, 4, 8, 16, 32, 64 };
 
+    private static final int BUFFER_SIZE = 8192;
+    private static final int STRING_CACHE_SIZE = 64;
+
     private final InputStream _stream;
-    private final byte[] _buffer = new byte[1024];
+    private final byte[] _buffer = new byte[BUFFER_SIZE];
+    private int _position;
+    private int _limit;
     private long _bytesRead = 0;
 
+    // small strings that were already decoded, indexed by hash of their bytes
+    private byte[][] _cachedStringBytes;
+    private String[] _cachedStrings;
+
     private int _booleanReadCount = 7; // resets to 7
     private byte[] _booleanBuffer = new byte[1];
 
@@ -89,8 +104,48 @@ public class BasicByteReader extends InputStream implements IByteReader {
 
         resetBooleanBuffer();
 
+        if (_position == _limit && fill() == -1)
+            return -1;
+
         _bytesRead++;
-        return _stream.read();
+        return _buffer[_position++] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] bytes, int offset, int length) throws IOException {
+        PreCon.notNull(bytes);
+
+        resetBooleanBuffer();
+
+        if (length == 0)
+            return 0;
+
+        if (_position == _limit) {
+
+            // large reads bypass the buffer
+            if (length >= _buffer.length) {
+                int read = _stream.read(bytes, offset, length);
+                if (read > 0)
+                    _bytesRead += read;
+
+                return read;
+            }
+
+            if (fill() == -1)
+                return -1;
+        }
+
+        int read = Math.min(length, _limit - _position);
+        System.arraycopy(_buffer, _position, bytes, offset, read);
+        _position += read;
+        _bytesRead += read;
+
+        return read;
+    }
+
+    @Override
+    public int available() throws IOException {
+        return (_limit - _position) + _stream.available();
     }
 
     /**
@@ -104,7 +159,17 @@ public class BasicByteReader extends InputStream implements IByteReader {
      */
     @Override
     public long skip(long byteDistance) throws IOException {
-        return _stream.skip(byteDistance);
+
+        if (byteDistance <= 0)
+            return 0;
+
+        long skipped = Math.min(byteDistance, _limit - _position);
+        _position += skipped;
+
+        if (skipped < byteDistance)
+            skipped += _stream.skip(byteDistance - skipped);
+
+        return skipped;
     }
 
     /**
@@ -121,7 +186,9 @@ public class BasicByteReader extends InputStream implements IByteReader {
     public boolean getBoolean() throws IOException {
 
         if (_booleanReadCount == 7) {
-            _bytesRead += (byte)_stream.read(_booleanBuffer, 0, 1);
+            require(1);
+            _booleanBuffer[0] = _buffer[_position++];
+            _bytesRead++;
             _booleanReadCount = 0;
         }
 
@@ -143,8 +210,9 @@ public class BasicByteReader extends InputStream implements IByteReader {
 
         resetBooleanBuffer();
 
-        _bytesRead += _stream.read(_buffer, 0, 1);
-        return _buffer[0];
+        require(1);
+        _bytesRead++;
+        return _buffer[_position++];
     }
 
     /**
@@ -168,9 +236,12 @@ public class BasicByteReader extends InputStream implements IByteReader {
         if (size == 0)
             return new byte[0];
 
+        if (size < 0)
+            throw new IOException("Invalid byte array length: " + size);
+
         byte[] bytes = new byte[size];
 
-        _bytesRead += _stream.read(bytes);
+        readFully(bytes, 0, size);
 
         return bytes;
     }
@@ -185,10 +256,54 @@ public class BasicByteReader extends InputStream implements IByteReader {
 
         resetBooleanBuffer();
 
-        _bytesRead += (long)_stream.read(_buffer, 0, 2);
+        require(2);
+        int i = _position;
+        _position += 2;
+        _bytesRead += 2;
 
-        return (short)(((_buffer[0] & 0xFF) << 8)
-                + (_buffer[1] & 0xFF));
+        return (short)(((_buffer[i] & 0xFF) << 8)
+                + (_buffer[i + 1] & 0xFF));
+    }
+
+    /**
+     * Read the next group of 16-bit numbers (2 bytes each) into an array.
+     *
+     * <p>Reads the number of values needed to fill the array. The values are
+     * expected to have been written by {@link BasicByteWriter#writeShorts} or by
+     * writing each value individually.</p>
+     *
+     * @param output  The array to fill.
+     *
+     * @return  The output array.
+     *
+     * @throws IOException
+     */
+    @Override
+    public short[] getShorts(short[] output) throws IOException {
+        PreCon.notNull(output);
+
+        resetBooleanBuffer();
+
+        int index = 0;
+
+        while (index < output.length) {
+
+            if (_limit - _position < 2)
+                require(2);
+
+            int count = Math.min(output.length - index, (_limit - _position) >> 1);
+            int i = _position;
+
+            for (int end = index + count; index < end; index++, i += 2) {
+                output[index] = (short)(((_buffer[i] & 0xFF) << 8)
+                        + (_buffer[i + 1] & 0xFF));
+            }
+
+            _position = i;
+            _bytesRead += count * 2L;
+        }
+
+        return output;
     }
 
     /**
@@ -201,11 +316,58 @@ public class BasicByteReader extends InputStream implements IByteReader {
 
         resetBooleanBuffer();
 
-        _bytesRead += (long)_stream.read(_buffer, 0, 4);
-        return ((_buffer[0] & 0xFF) << 24)
-                + ((_buffer[1] & 0xFF) << 16)
-                + ((_buffer[2] & 0xFF) << 8)
-                + (_buffer[3] & 0xFF);
+        require(4);
+        int i = _position;
+        _position += 4;
+        _bytesRead += 4;
+
+        return ((_buffer[i] & 0xFF) << 24)
+                + ((_buffer[i + 1] & 0xFF) << 16)
+                + ((_buffer[i + 2] & 0xFF) << 8)
+                + (_buffer[i + 3] & 0xFF);
+    }
+
+    /**
+     * Read the next group of 32-bit numbers (4 bytes each) into an array.
+     *
+     * <p>Reads the number of values needed to fill the array. The values are
+     * expected to have been written by {@link BasicByteWriter#writeInts} or by
+     * writing each value individually.</p>
+     *
+     * @param output  The array to fill.
+     *
+     * @return  The output array.
+     *
+     * @throws IOException
+     */
+    @Override
+    public int[] getInts(int[] output) throws IOException {
+        PreCon.notNull(output);
+
+        resetBooleanBuffer();
+
+        int index = 0;
+
+        while (index < output.length) {
+
+            if (_limit - _position < 4)
+                require(4);
+
+            int count = Math.min(output.length - index, (_limit - _position) >> 2);
+            int i = _position;
+
+            for (int end = index + count; index < end; index++, i += 4) {
+                output[index] = ((_buffer[i] & 0xFF) << 24)
+                        + ((_buffer[i + 1] & 0xFF) << 16)
+                        + ((_buffer[i + 2] & 0xFF) << 8)
+                        + (_buffer[i + 3] & 0xFF);
+            }
+
+            _position = i;
+            _bytesRead += count * 4L;
+        }
+
+        return output;
     }
 
     /**
@@ -218,15 +380,19 @@ public class BasicByteReader extends InputStream implements IByteReader {
 
         resetBooleanBuffer();
 
-        _bytesRead+=(long)_stream.read(_buffer, 0, 8);
-        return ((_buffer[0] & 0xFFL) << 56)
-                + ((_buffer[1] & 0xFFL) << 48)
-                + ((_buffer[2] & 0xFFL) << 40)
-                + ((_buffer[3] & 0xFFL) << 32)
-                + ((_buffer[4] & 0xFFL) << 24)
-                + ((_buffer[5] & 0xFFL) << 16)
-                + ((_buffer[6] & 0xFFL) << 8)
-                + (_buffer[7] & 0xFFL);
+        require(8);
+        int i = _position;
+        _position += 8;
+        _bytesRead += 8;
+
+        return ((_buffer[i] & 0xFFL) << 56)
+                + ((_buffer[i + 1] & 0xFFL) << 48)
+                + ((_buffer[i + 2] & 0xFFL) << 40)
+                + ((_buffer[i + 3] & 0xFFL) << 32)
+                + ((_buffer[i + 4] & 0xFFL) << 24)
+                + ((_buffer[i + 5] & 0xFFL) << 16)
+                + ((_buffer[i + 6] & 0xFFL) << 8)
+                + (_buffer[i + 7] & 0xFFL);
     }
 
     /**
@@ -315,15 +481,22 @@ public class BasicByteReader extends InputStream implements IByteReader {
         if (len == 0)
             return "";
 
-        if (len >= _buffer.length) {
+        if (len < 0)
+            throw new IOException("Invalid string length: " + len);
+
+        if (len > _buffer.length) {
             byte[] buffer = new byte[len];
-            _bytesRead += (long) _stream.read(buffer, 0, len);
+            readFully(buffer, 0, len);
             return new String(buffer, 0, len, charset);
         }
-        else {
-            _bytesRead += (long) _stream.read(_buffer, 0, len);
-            return new String(_buffer, 0, len, charset);
-        }
+
+        require(len);
+
+        String result = new String(_buffer, _position, len, charset);
+        _position += len;
+        _bytesRead += len;
+
+        return result;
     }
 
     /**
@@ -336,30 +509,16 @@ public class BasicByteReader extends InputStream implements IByteReader {
      *
      * <p>If the original string written was null, then null is returned.</p>
      *
+     * <p>Small strings such as names tend to repeat, so the reader returns the
+     * same string instance for a string it has recently read instead of decoding
+     * it again.</p>
+     *
      * @throws IOException
      */
     @Override
     @Nullable
     public String getSmallString() throws IOException {
-
-        resetBooleanBuffer();
-
-        int len = getByte();
-        if (len == -1)
-            return null;
-
-        if (len == 0)
-            return "";
-
-        if (len >= _buffer.length) {
-            byte[] buffer = new byte[len];
-            _bytesRead += (long) _stream.read(buffer, 0, len);
-            return new String(buffer, 0, len, StandardCharsets.UTF_8);
-        }
-        else {
-            _bytesRead += (long) _stream.read(_buffer, 0, len);
-            return new String(_buffer, 0, len, StandardCharsets.UTF_8);
-        }
+        return readSmallString(true);
     }
 
     /**
@@ -375,7 +534,7 @@ public class BasicByteReader extends InputStream implements IByteReader {
 
         resetBooleanBuffer();
 
-        String str = getSmallString();
+        String str = readSmallString(false);
         if (str == null || str.isEmpty())
             throw new IOException("Failed to read float value.");
 
@@ -409,7 +568,7 @@ public class BasicByteReader extends InputStream implements IByteReader {
 
         resetBooleanBuffer();
 
-        String str = getSmallString();
+        String str = readSmallString(false);
         if (str == null || str.isEmpty())
             throw new IOException("Failed to read double value.");
 
@@ -800,4 +959,138 @@ public class BasicByteReader extends InputStream implements IByteReader {
         _booleanReadCount = 7;
         _booleanBuffer[0] = 0;
     }
+
+    /*
+     * Read a small UTF-8 string. If intern is true, a previously read string
+     * with the same bytes is returned instead of decoding a new one.
+     */
+    @Nullable
+    private String readSmallString(boolean intern) throws IOException {
+
+        resetBooleanBuffer();
+
+        int len = getByte();
+        if (len == -1)
+            return null;
+
+        if (len == 0)
+            return "";
+
+        if (len < 0)
+            throw new IOException("Invalid small string length: " + len);
+
+        require(len);
+
+        String result = intern
+                ? internString(_position, len)
+                : new String(_buffer, _position, len, StandardCharsets.UTF_8);
+
+        _position += len;
+        _bytesRead += len;
+
+        return result;
+    }
+
+    /*
+     * Get the string encoded in the specified range of the buffer from the
+     * string cache or decode it and add it to the cache.
+     */
+    private String internString(int start, int length) {
+
+        if (_cachedStrings == null) {
+            _cachedStrings = new String[STRING_CACHE_SIZE];
+            _cachedStringBytes = new byte[STRING_CACHE_SIZE][];
+        }
+
+        int hash = length;
+        for (int i = start, end = start + length; i < end; i++) {
+            hash = 31 * hash + _buffer[i];
+        }
+
+        int slot = (hash ^ (hash >>> 16)) & (STRING_CACHE_SIZE - 1);
+
+        byte[] cached = _cachedStringBytes[slot];
+
+        if (cached != null && cached.length == length) {
+
+            int i = 0;
+            while (i < length && cached[i] == _buffer[start + i])
+                i++;
+
+            if (i == length)
+                return _cachedStrings[slot];
+        }
+
+        String result = new String(_buffer, start, length, StandardCharsets.UTF_8);
+
+        _cachedStringBytes[slot] = Arrays.copyOfRange(_buffer, start, start + length);
+        _cachedStrings[slot] = result;
+
+        return result;
+    }
+
+    /*
+     * Make sure the specified number of bytes are available in the buffer
+     * starting at the current position. The count cannot be larger than
+     * the buffer.
+     */
+    private void require(int count) throws IOException {
+
+        int available = _limit - _position;
+        if (available >= count)
+            return;
+
+        // move the remaining bytes to the start of the buffer
+        if (_position > 0) {
+            System.arraycopy(_buffer, _position, _buffer, 0, available);
+            _position = 0;
+            _limit = available;
+        }
+
+        while (_limit < count) {
+
+            int read = _stream.read(_buffer, _limit, _buffer.length - _limit);
+            if (read == -1)
+                throw new EOFException("Unexpected end of stream.");
+
+            _limit += read;
+        }
+    }
+
+    /*
+     * Read bytes into an array until the specified number of bytes are read.
+     */
+    private void readFully(byte[] bytes, int offset, int length) throws IOException {
+
+        int copied = Math.min(length, _limit - _position);
+        System.arraycopy(_buffer, _position, bytes, offset, copied);
+        _position += copied;
+        _bytesRead += copied;
+
+        while (copied < length) {
+
+            int read = _stream.read(bytes, offset + copied, length - copied);
+            if (read == -1)
+                throw new EOFException("Unexpected end of stream.");
+
+            copied += read;
+            _bytesRead += read;
+        }
+    }
+
+    /*
+     * Refill the buffer from the stream. Returns the number of bytes
+     * read or -1 if the end of the stream is reached.
+     */
+    private int fill() throws IOException {
+
+        _position = 0;
+        _limit = 0;
+
+        int read = _stream.read(_buffer, 0, _buffer.length);
+        if (read > 0)
+            _limit = read;
+
+        return read;
+    }
 }
@@ -28,6 +28,7 @@ package com.jcwhatever.nucleus.utils.file;
 import com.jcwhatever.nucleus.Nucleus;
 import com.jcwhatever.nucleus.managed.items.meta.IItemMetaHandler;
 import com.jcwhatever.nucleus.managed.items.meta.ItemMetaValue;
+import com.jcwhatever.nucleus.utils.PreCon;
 import com.jcwhatever.nucleus.utils.coords.SyncLocation;
 
 import org.bukkit.Location;
@@ -52,13 +53,20 @@ import javax.annotation.Nullable;
 /**
  * Write bytes to a stream. In order to read the stream
  * properly, {@link BasicByteReader} needs to be used.
+ *
+ * <p>Writes are buffered internally and are not written to the underlying
+ * stream until the buffer is full or {@link #flush} or {@link #close}
+ * is invoked.</p>
  */
 public class BasicByteWriter extends OutputStream implements IByteWriter {
 
     private static final byte[] BOOLEAN_FLAGS = new byte[] { 1, 2, 4, 8, 16, 32, 64 };
 
+    private static final int BUFFER_SIZE = 8192;
+
     private final OutputStream _stream;
-    private final byte[] _buffer = new byte[64];
+    private final byte[] _buffer = new byte[BUFFER_SIZE];
+    private int _count;
     private long _bytesWritten = 0;
 
     private int _booleanCount = 0;
@@ -121,7 +129,8 @@ public class BasicByteWriter extends OutputStream implements IByteWriter {
         // write buffered booleans
         writeBooleans();
 
-        _stream.write(byteValue);
+        ensureCapacity(1);
+        _buffer[_count++] = byteValue;
         _bytesWritten++;
     }
 
@@ -154,8 +163,29 @@ public class BasicByteWriter extends OutputStream implements IByteWriter {
         }
 
         write(byteArray.length);
-        _stream.write(byteArray, 0, byteArray.length);
-        _bytesWritten += byteArray.length;
+        writeRaw(byteArray, 0, byteArray.length);
+    }
+
+    /**
+     * Write bytes from an array without a length prefix.
+     *
+     * <p>Used when the writer is the target of another stream, such as
+     * an {@link ObjectOutputStream}.</p>
+     *
+     * @param byteArray  The byte array.
+     * @param offset     The index of the first byte to write.
+     * @param length     The number of bytes to write.
+     *
+     * @throws IOException
+     */
+    @Override
+    public void write(byte[] byteArray, int offset, int length) throws IOException {
+        PreCon.notNull(byteArray);
+
+        // write buffered booleans
+        writeBooleans();
+
+        writeRaw(byteArray, offset, length);
     }
 
     /**
@@ -171,13 +201,49 @@ public class BasicByteWriter extends OutputStream implements IByteWriter {
         // write buffered booleans
         writeBooleans();
 
-        _buffer[0] = (byte)(shortValue >> 8 & 0xFF);
-        _buffer[1] = (byte)(shortValue & 0xFF);
+        ensureCapacity(2);
+
+        _buffer[_count++] = (byte)(shortValue >> 8 & 0xFF);
+        _buffer[_count++] = (byte)(shortValue & 0xFF);
 
-        _stream.write(_buffer, 0, 2);
         _bytesWritten += 2;
     }
 
+    /**
+     * Write an array of 16-bit numbers (2 bytes each).
+     *
+     * <p>Only the values are written. The array length is not. The result is the
+     * same as writing each value with {@link #write(short)}.</p>
+     *
+     * @param shortValues  The shorts.
+     *
+     * @throws IOException
+     */
+    @Override
+    public void writeShorts(short[] shortValues) throws IOException {
+        PreCon.notNull(shortValues);
+
+        // write buffered booleans
+        writeBooleans();
+
+        int index = 0;
+
+        while (index < shortValues.length) {
+
+            ensureCapacity(2);
+
+            int count = Math.min(shortValues.length - index, (_buffer.length - _count) >> 1);
+
+            for (int end = index + count; index < end; index++) {
+                short value = shortValues[index];
+                _buffer[_count++] = (byte)(value >> 8 & 0xFF);
+                _buffer[_count++] = (byte)(value & 0xFF);
+            }
+
+            _bytesWritten += count * 2L;
+        }
+    }
+
     /**
      * Write a 32-bit number (4 bytes).
      *
@@ -191,14 +257,53 @@ public class BasicByteWriter extends OutputStream implements IByteWriter {
         // write buffered booleans
         writeBooleans();
 
-        _buffer[0] = (byte)(integerValue >> 24 & 0xFF);
-        _buffer[1] = (byte)(integerValue >> 16 & 0xFF);
-        _buffer[2] = (byte)(integerValue >> 8 & 0xFF);
-        _buffer[3] = (byte)(integerValue & 0xFF);
-        _stream.write(_buffer, 0, 4);
+        ensureCapacity(4);
+
+        _buffer[_count++] = (byte)(integerValue >> 24 & 0xFF);
+        _buffer[_count++] = (byte)(integerValue >> 16 & 0xFF);
+        _buffer[_count++] = (byte)(integerValue >> 8 & 0xFF);
+        _buffer[_count++] = (byte)(integerValue & 0xFF);
+
         _bytesWritten+=4;
     }
 
+    /**
+     * Write an array of 32-bit numbers (4 bytes each).
+     *
+     * <p>Only the values are written. The array length is not. The result is the
+     * same as writing each value with {@link #write(int)}.</p>
+     *
+     * @param integerValues  The integers.
+     *
+     * @throws IOException
+     */
+    @Override
+    public void writeInts(int[] integerValues) throws IOException {
+        PreCon.notNull(integerValues);
+
+        // write buffered booleans
+        writeBooleans();
+
+        int index = 0;
+
+        while (index < integerValues.length) {
+
+            ensureCapacity(4);
+
+            int count = Math.min(integerValues.length - index, (_buffer.length - _count) >> 2);
+
+            for (int end = index + count; index < end; index++) {
+                int value = integerValues[index];
+                _buffer[_count++] = (byte)(value >> 24 & 0xFF);
+                _buffer[_count++] = (byte)(value >> 16 & 0xFF);
+                _buffer[_count++] = (byte)(value >> 8 & 0xFF);
+                _buffer[_count++] = (byte)(value & 0xFF);
+            }
+
+            _bytesWritten += count * 4L;
+        }
+    }
+
     /**
      * Write a 64 bit number (8 bytes).
      *
@@ -212,15 +317,17 @@ public class BasicByteWriter extends OutputStream implements IByteWriter {
         // write buffered booleans
         writeBooleans();
 
-        _buffer[0] = (byte)(longValue >> 56 & 0xFF);
-        _buffer[1] = (byte)(longValue >> 48 & 0xFF);
-        _buffer[2] = (byte)(longValue >> 40 & 0xFF);
-        _buffer[3] = (byte)(longValue >> 32 & 0xFF);
-        _buffer[4] = (byte)(longValue >> 24 & 0xFF);
-        _buffer[5] = (byte)(longValue >> 16 & 0xFF);
-        _buffer[6] = (byte)(longValue >> 8 & 0xFF);
-        _buffer[7] = (byte)(longValue & 0xFF);
-        _stream.write(_buffer, 0, 8);
+        ensureCapacity(8);
+
+        _buffer[_count++] = (byte)(longValue >> 56 & 0xFF);
+        _buffer[_count++] = (byte)(longValue >> 48 & 0xFF);
+        _buffer[_count++] = (byte)(longValue >> 40 & 0xFF);
+        _buffer[_count++] = (byte)(longValue >> 32 & 0xFF);
+        _buffer[_count++] = (byte)(longValue >> 24 & 0xFF);
+        _buffer[_count++] = (byte)(longValue >> 16 & 0xFF);
+        _buffer[_count++] = (byte)(longValue >> 8 & 0xFF);
+        _buffer[_count++] = (byte)(longValue & 0xFF);
+
         _bytesWritten+=8;
     }
 
@@ -368,10 +475,7 @@ public class BasicByteWriter extends OutputStream implements IByteWriter {
         write((short)bytes.length);
 
         // write string bytes
-        _stream.write(bytes);
-
-        // record bytes written
-        _bytesWritten+=bytes.length;
+        writeRaw(bytes, 0, bytes.length);
     }
 
     /**
@@ -416,10 +520,7 @@ public class BasicByteWriter extends OutputStream implements IByteWriter {
         write((byte)bytes.length);
 
         // write string bytes
-        _stream.write(bytes);
-
-        // record bytes written
-        _bytesWritten+=bytes.length;
+        writeRaw(bytes, 0, bytes.length);
     }
 
     /**
@@ -673,15 +774,55 @@ public class BasicByteWriter extends OutputStream implements IByteWriter {
         // write buffered booleans
         writeBooleans();
 
+        flushBuffer();
+
         _stream.flush();
     }
 
     private void writeBooleans() throws IOException {
         if (_booleanCount > 0) {
-            _stream.write(_booleanBuffer, 0, 1);
+            ensureCapacity(1);
+            _buffer[_count++] = _booleanBuffer[0];
             _booleanBuffer[0] = 0;
             _bytesWritten++;
             _booleanCount = 0;
         }
     }
+
+    /*
+     * Write bytes without a length prefix. Large arrays are written
+     * directly to the stream.
+     */
+    private void writeRaw(byte[] bytes, int offset, int length) throws IOException {
+
+        if (length >= _buffer.length) {
+            flushBuffer();
+            _stream.write(bytes, offset, length);
+        }
+        else {
+            ensureCapacity(length);
+            System.arraycopy(bytes, offset, _buffer, _count, length);
+            _count += length;
+        }
+
+        _bytesWritten += length;
+    }
+
+    /*
+     * Make sure the buffer has room for the specified number of bytes.
+     */
+    private void ensureCapacity(int length) throws IOException {
+        if (_buffer.length - _count < length)
+            flushBuffer();
+    }
+
+    /*
+     * Write the buffered bytes to the stream.
+     */
+    private void flushBuffer() throws IOException {
+        if (_count > 0) {
+            _stream.write(_buffer, 0, _count);
+            _count = 0;
+        }
+    }
 }
@@ -90,6 +90,17 @@ public interface IByteReader {
      */
     short getShort() throws IOException;
 
+    /**
+     * Read the next group of 16-bit numbers (2 bytes each) into an array.
+     *
+     * @param output  The array to fill.
+     *
+     * @return  The output array.
+     *
+     * @throws IOException
+     */
+    short[] getShorts(short[] output) throws IOException;
+
     /**
      * Read the next 4 bytes and return them as an integer.
      *
@@ -97,6 +108,17 @@ public interface IByteReader {
      */
     int getInteger() throws IOException;
 
+    /**
+     * Read the next group of 32-bit numbers (4 bytes each) into an array.
+     *
+     * @param output  The array to fill.
+     *
+     * @return  The output array.
+     *
+     * @throws IOException
+     */
+    int[] getInts(int[] output) throws IOException;
+
     /**
      * Read the next 8 bytes an return them as a long value.
      *
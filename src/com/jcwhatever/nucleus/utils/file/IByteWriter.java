@@ -83,6 +83,17 @@ public interface IByteWriter {
      */
     void write(short shortValue) throws IOException;
 
+    /**
+     * Write an array of 16-bit numbers (2 bytes each).
+     *
+     * <p>Only the values are written. The array length is not.</p>
+     *
+     * @param shortValues  The shorts.
+     *
+     * @throws IOException
+     */
+    void writeShorts(short[] shortValues) throws IOException;
+
     /**
      * Write a 32-bit number (4 bytes).
      *
@@ -92,6 +103,17 @@ public interface IByteWriter {
      */
     void write(int integerValue) throws IOException;
 
+    /**
+     * Write an array of 32-bit numbers (4 bytes each).
+     *
+     * <p>Only the values are written. The array length is not.</p>
+     *
+     * @param integerValues  The integers.
+     *
+     * @throws IOException
+     */
+    void writeInts(int[] integerValues) throws IOException;
+
     /**
      * Write a 64 bit number (8 bytes).
      *
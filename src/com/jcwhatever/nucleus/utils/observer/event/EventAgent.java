@@ -29,25 +29,29 @@ import com.jcwhatever.nucleus.mixins.IDisposable;
 import com.jcwhatever.nucleus.utils.PreCon;
 import com.jcwhatever.nucleus.utils.observer.ISubscriber;
 
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashSet;
-import java.util.List;
-import java.util.ListIterator;
 import java.util.Set;
 import javax.annotation.Nullable;
 
 /**
  * An event agent that {@link IEventSubscriber}'s can register with.
+ *
+ * <p>Event subscribers are kept in an immutable array sorted by priority that is
+ * replaced whenever a subscriber is added or removed. Calling an event iterates the
+ * current array without locking.</p>
  */
 public class EventAgent implements IEventAgent, IDisposable {
 
+    private static final IEventSubscriber[] EMPTY = new IEventSubscriber[0];
+
     private final Set<ISubscriber> _subscribers = new HashSet<>(3);
-    private final List<IEventSubscriber> _eventSubscribers = new ArrayList<>(5);
-    private boolean _isDisposed;
+    private volatile IEventSubscriber[] _eventSubscribers = EMPTY;
+    private volatile boolean _isDisposed;
 
     @Override
-    public synchronized void call(@Nullable Object caller, Object event) {
+    public void call(@Nullable Object caller, Object event) {
 
         if (isDisposed())
             throw new RuntimeException("Cannot use a disposed EventProducer");
@@ -63,22 +67,25 @@ public class EventAgent implements IEventAgent, IDisposable {
 
         callEvent = event instanceof IEventWrapper ? ((IEventWrapper) event).getEvent() : event;
 
-        List<IEventSubscriber> skippedSubscribers = new ArrayList<>(_eventSubscribers.size());
-        ListIterator<IEventSubscriber> iterator = new ArrayList<>(_eventSubscribers).listIterator();
+        IEventSubscriber[] subscribers = _eventSubscribers;
+
+        // index of the first subscriber skipped since the event was cancelled.
+        int skippedIndex = -1;
 
-        while (iterator.hasNext()) {
+        for (int i = 0; i < subscribers.length; i++) {
 
             boolean preCancel = isCancelled;
 
             @SuppressWarnings("unchecked")
-            IEventSubscriber<Object> subscriber = iterator.next();
+            IEventSubscriber<Object> subscriber = subscribers[i];
 
             // check for cancelled event and determine if the subscriber
             // will still be notified of the event.
-            if (subscriber.getPriority() != EventSubscriberPriority.WATCHER &&
-                    isCancelled && !subscriber.isInvokedForCancelled()) {
+            if (isCancelled && isSkippedForCancelled(subscriber)) {
+
+                if (skippedIndex == -1)
+                    skippedIndex = i;
 
-                skippedSubscribers.add(subscriber);
                 continue;
             }
 
@@ -98,11 +105,10 @@ public class EventAgent implements IEventAgent, IDisposable {
                         "cannot cancel or un-cancel an event.");
 
             // if cancelled event is uncancelled, run skipped subscribers next
-            if (!preCancel && postCancel && !skippedSubscribers.isEmpty()) {
-                for (IEventSubscriber skipped : skippedSubscribers) {
-                    iterator.add(skipped);
-                }
-                skippedSubscribers.clear();
+            if (preCancel && !postCancel && skippedIndex != -1) {
+                subscribers = requeueSkipped(subscribers, skippedIndex, i);
+                skippedIndex = -1;
+                i = -1;
             }
         }
     }
@@ -114,12 +120,9 @@ public class EventAgent implements IEventAgent, IDisposable {
         if (_subscribers.add(subscriber)) {
             subscriber.registerReference(this);
 
-            if (subscriber instanceof IEventSubscriber) {
-                _eventSubscribers.add((IEventSubscriber)subscriber);
+            if (subscriber instanceof IEventSubscriber)
+                addEventSubscriber((IEventSubscriber) subscriber);
 
-                // sort subscribers
-                Collections.sort(_eventSubscribers);
-            }
             return true;
         }
 
@@ -132,8 +135,7 @@ public class EventAgent implements IEventAgent, IDisposable {
 
         if (_subscribers.remove(subscriber)) {
             subscriber.unregisterReference(this);
-            //noinspection SuspiciousMethodCalls
-            _eventSubscribers.remove(subscriber);
+            removeEventSubscriber(subscriber);
             return true;
         }
         return false;
@@ -145,7 +147,7 @@ public class EventAgent implements IEventAgent, IDisposable {
 
         if (_subscribers.add(subscriber)) {
             if (subscriber instanceof IEventSubscriber)
-                _eventSubscribers.add((IEventSubscriber)subscriber);
+                addEventSubscriber((IEventSubscriber) subscriber);
 
             return true;
         }
@@ -156,23 +158,22 @@ public class EventAgent implements IEventAgent, IDisposable {
     public synchronized boolean unregisterReference(ISubscriber subscriber) {
         PreCon.notNull(subscriber);
 
-        //noinspection SuspiciousMethodCalls
-        _eventSubscribers.remove(subscriber);
+        removeEventSubscriber(subscriber);
         return _subscribers.remove(subscriber);
     }
 
     @Override
-    public synchronized Set<ISubscriber> getSubscribers() {
+    public Set<ISubscriber> getSubscribers() {
 
-        Set<ISubscriber> result = new HashSet<>(_eventSubscribers.size());
-        for (IEventSubscriber subscriber : _eventSubscribers) {
-            result.add(subscriber);
-        }
+        IEventSubscriber[] subscribers = _eventSubscribers;
+
+        Set<ISubscriber> result = new HashSet<>(subscribers.length);
+        Collections.addAll(result, subscribers);
         return result;
     }
 
     @Override
-    public synchronized boolean isDisposed() {
+    public boolean isDisposed() {
         return _isDisposed;
     }
 
@@ -186,8 +187,113 @@ public class EventAgent implements IEventAgent, IDisposable {
             subscriber.unregisterReference(this);
         }
 
-        _eventSubscribers.clear();
+        boolean hadSubscribers = _eventSubscribers.length != 0;
+
+        _eventSubscribers = EMPTY;
 
         _isDisposed = true;
+
+        if (hadSubscribers)
+            onLastEventSubscriberRemoved();
+    }
+
+    /**
+     * Invoked when the first event subscriber is added to the agent.
+     *
+     * <p>Invoked while the agent is synchronized.</p>
+     *
+     * <p>Intended for optional override.</p>
+     */
+    protected void onFirstEventSubscriberAdded() {}
+
+    /**
+     * Invoked when the last event subscriber is removed from the agent
+     * or the agent is disposed while it has event subscribers.
+     *
+     * <p>Invoked while the agent is synchronized.</p>
+     *
+     * <p>Intended for optional override.</p>
+     */
+    protected void onLastEventSubscriberRemoved() {}
+
+    /*
+     * Replace the event subscriber array with a sorted copy that includes
+     * the specified subscriber. Must be invoked while synchronized.
+     */
+    private void addEventSubscriber(IEventSubscriber subscriber) {
+
+        IEventSubscriber[] current = _eventSubscribers;
+        IEventSubscriber[] subscribers = Arrays.copyOf(current, current.length + 1);
+        subscribers[current.length] = subscriber;
+
+        // sort subscribers
+        //noinspection unchecked
+        Arrays.sort(subscribers);
+
+        _eventSubscribers = subscribers;
+
+        if (current.length == 0)
+            onFirstEventSubscriberAdded();
+    }
+
+    /*
+     * Replace the event subscriber array with a copy that does not include
+     * the specified subscriber. Must be invoked while synchronized.
+     */
+    private void removeEventSubscriber(ISubscriber subscriber) {
+
+        IEventSubscriber[] current = _eventSubscribers;
+
+        for (int i = 0; i < current.length; i++) {
+
+            if (!subscriber.equals(current[i]))
+                continue;
+
+            IEventSubscriber[] subscribers = new IEventSubscriber[current.length - 1];
+            System.arraycopy(current, 0, subscribers, 0, i);
+            System.arraycopy(current, i + 1, subscribers, i, current.length - i - 1);
+
+            _eventSubscribers = subscribers;
+
+            if (subscribers.length == 0)
+                onLastEventSubscriberRemoved();
+            return;
+        }
+    }
+
+    /*
+     * Determine if a subscriber is skipped when an event is cancelled.
+     */
+    private static boolean isSkippedForCancelled(IEventSubscriber subscriber) {
+        return subscriber.getPriority() != EventSubscriberPriority.WATCHER &&
+                !subscriber.isInvokedForCancelled();
+    }
+
+    /*
+     * Create an array of subscribers to run after an event is un-cancelled. The
+     * array contains the subscribers that were skipped while the event was cancelled
+     * followed by the subscribers that have not been run yet.
+     */
+    private static IEventSubscriber[] requeueSkipped(
+            IEventSubscriber[] subscribers, int skippedIndex, int currentIndex) {
+
+        int skippedCount = 0;
+        for (int i = skippedIndex; i < currentIndex; i++) {
+            if (isSkippedForCancelled(subscribers[i]))
+                skippedCount++;
+        }
+
+        int remaining = subscribers.length - currentIndex - 1;
+        IEventSubscriber[] result = new IEventSubscriber[skippedCount + remaining];
+
+        int index = 0;
+        for (int i = skippedIndex; i < currentIndex; i++) {
+            if (isSkippedForCancelled(subscribers[i]))
+                result[index++] = subscribers[i];
+        }
+
+        System.arraycopy(subscribers, currentIndex + 1, result, index, remaining);
+
+        return result;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,364 @@
+/*
+ * This file is part of NucleusFramework for Bukkit, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) JCThePants (www.jcwhatever.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.jcwhatever.nucleus.utils.performance.queued;
+
+import com.jcwhatever.nucleus.managed.scheduler.IScheduledTask;
+import com.jcwhatever.nucleus.managed.scheduler.Scheduler;
+import com.jcwhatever.nucleus.utils.PreCon;
+
+import org.bukkit.plugin.Plugin;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A project that runs its {@link QueueTask}'s concurrently instead of in
+ * synchronous order.
+ *
+ * <p>Tasks whose concurrency is {@link TaskConcurrency#ASYNC} or
+ * {@link TaskConcurrency#CURRENT_THREAD} are run on a bounded number of
+ * asynchronous worker threads. Tasks whose concurrency is
+ * {@link TaskConcurrency#MAIN_THREAD} are run on the main thread one at a time in
+ * the order they are added, as many per tick as fit into the tick budget. A main
+ * thread task that does not end when its run method returns, i.e. because it
+ * schedules the rest of its work, must end before the next main thread task
+ * is started.</p>
+ *
+ * <p>Tasks can be added while the project is running, i.e. an asynchronous task can
+ * add a main thread task to apply its results. The project completes when all tasks
+ * have ended and fails if any of its tasks failed or were cancelled.</p>
+ *
+ * @see QueueProject
+ */
+public class ParallelQueueProject extends QueueProject {
+
+    private final int _maxThreads;
+    private final Object _sync = new Object();
+
+    // tasks waiting to be run
+    private final Deque<QueueTask> _asyncTasks = new ArrayDeque<>(10);
+    private final Deque<QueueTask> _mainTasks = new ArrayDeque<>(10);
+
+    private volatile long _tickBudget = TimeUnit.MILLISECONDS.toNanos(10);
+
+    private int _pending;
+    private int _workers;
+    private boolean _isFailed;
+    private IScheduledTask _mainTask;
+
+    // main thread task that was started but has not ended
+    private QueueTask _currentMainTask;
+
+    /**
+     * Constructor.
+     *
+     * <p>The number of worker threads is half of the available processors
+     * and no more than 4 so the project does not compete with the server
+     * for all of the processors.</p>
+     *
+     * @param plugin  The owning plugin.
+     */
+    public ParallelQueueProject(Plugin plugin) {
+        this(plugin, Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() / 2)));
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param plugin      The owning plugin.
+     * @param maxThreads  The max number of tasks to run at the same time.
+     */
+    public ParallelQueueProject(Plugin plugin, int maxThreads) {
+        super(plugin);
+
+        PreCon.positiveNumber(maxThreads, "maxThreads");
+
+        _maxThreads = maxThreads;
+    }
+
+    /**
+     * Get the max number of tasks that are run at the same time.
+     */
+    public int getMaxThreads() {
+        return _maxThreads;
+    }
+
+    /**
+     * Get the max time in milliseconds spent running main thread tasks
+     * each tick.
+     */
+    public long getTickBudget() {
+        return TimeUnit.NANOSECONDS.toMillis(_tickBudget);
+    }
+
+    /**
+     * Set the max time in milliseconds spent running main thread tasks
+     * each tick.
+     *
+     * <p>At least one main thread task is run each tick regardless of the budget.</p>
+     *
+     * @param milliseconds  The tick budget in milliseconds.
+     */
+    public void setTickBudget(long milliseconds) {
+        PreCon.positiveNumber(milliseconds, "milliseconds");
+
+        _tickBudget = TimeUnit.MILLISECONDS.toNanos(milliseconds);
+    }
+
+    @Override
+    public void addTask(QueueTask task) {
+        PreCon.notNull(task);
+
+        task.setParentProject(this);
+
+        synchronized (_sync) {
+
+            if (task.getConcurrency() == TaskConcurrency.MAIN_THREAD) {
+                _mainTasks.add(task);
+            }
+            else {
+                _asyncTasks.add(task);
+            }
+
+            _pending++;
+
+            if (isRunning())
+                startWorkers();
+        }
+    }
+
+    @Override
+    public List<QueueTask> getTasks() {
+
+        synchronized (_sync) {
+            List<QueueTask> result = new ArrayList<>(_asyncTasks.size() + _mainTasks.size());
+            result.addAll(_asyncTasks);
+            result.addAll(_mainTasks);
+            return result;
+        }
+    }
+
+    /**
+     * Run all tasks immediately on the current thread.
+     */
+    @Override
+    public void runFast() {
+
+        synchronized (_sync) {
+            if (_pending == 0) {
+                complete();
+                return;
+            }
+        }
+
+        while (true) {
+
+            QueueTask task;
+
+            synchronized (_sync) {
+                task = _asyncTasks.pollFirst();
+                if (task == null)
+                    task = _mainTasks.pollFirst();
+            }
+
+            if (task == null)
+                return;
+
+            if (!task.isCancelled())
+                task.run();
+        }
+    }
+
+    @Override
+    protected void onRun() {
+
+        synchronized (_sync) {
+
+            if (_pending == 0) {
+                complete();
+                return;
+            }
+
+            startWorkers();
+
+            if (_mainTask == null)
+                _mainTask = Scheduler.runTaskRepeat(getPlugin(), 1, 1, new MainThreadRunner());
+        }
+    }
+
+    @Override
+    protected void onEnd() {
+
+        Collection<QueueTask> remaining;
+
+        synchronized (_sync) {
+
+            if (_mainTask != null) {
+                _mainTask.cancel();
+                _mainTask = null;
+            }
+
+            remaining = new HashSet<>(_asyncTasks.size() + _mainTasks.size() + 1);
+            remaining.addAll(_asyncTasks);
+            remaining.addAll(_mainTasks);
+            _asyncTasks.clear();
+            _mainTasks.clear();
+
+            if (_currentMainTask != null && !_currentMainTask.isEnded())
+                remaining.add(_currentMainTask);
+
+            _currentMainTask = null;
+        }
+
+        // cancel tasks that never ran or have not ended, i.e. if the project is cancelled
+        for (QueueTask task : remaining)
+            task.cancel("Project ended.");
+    }
+
+    @Override
+    void update(QueueTask task) {
+
+        if (!task.isEnded())
+            return;
+
+        boolean isFinished;
+        boolean isFailed;
+
+        synchronized (_sync) {
+
+            if (task.isFailed() || task.isCancelled())
+                _isFailed = true;
+
+            _pending--;
+
+            isFinished = _pending == 0;
+            isFailed = _isFailed;
+        }
+
+        if (!isFinished)
+            return;
+
+        if (isFailed) {
+            fail("One or more tasks in the project failed or were cancelled.");
+        }
+        else {
+            complete();
+        }
+    }
+
+    /*
+     * Start worker threads up to the max number of threads.
+     * Must be invoked while synchronized.
+     */
+    private void startWorkers() {
+
+        while (_workers < _maxThreads && _workers < _asyncTasks.size()) {
+            _workers++;
+            Scheduler.runTaskLaterAsync(getPlugin(), 1, new AsyncWorker());
+        }
+    }
+
+    /*
+     * Runs asynchronous tasks until there are none left.
+     */
+    private class AsyncWorker implements Runnable {
+
+        @Override
+        public void run() {
+
+            while (true) {
+
+                QueueTask task;
+
+                synchronized (_sync) {
+                    task = _asyncTasks.pollFirst();
+                    if (task == null) {
+                        _workers--;
+                        return;
+                    }
+                }
+
+                if (task.isCancelled())
+                    continue;
+
+                try {
+                    task.run();
+                }
+                catch (RuntimeException e) {
+                    e.printStackTrace();
+                    task.cancel("Task threw an exception: {0}", e.getMessage());
+                }
+            }
+        }
+    }
+
+    /*
+     * Runs main thread tasks within the tick budget, one at a time.
+     */
+    private class MainThreadRunner implements Runnable {
+
+        @Override
+        public void run() {
+
+            long end = System.nanoTime() + _tickBudget;
+
+            do {
+
+                QueueTask task;
+
+                synchronized (_sync) {
+
+                    // make sure the current task is finished before
+                    // starting the next one
+                    if (_currentMainTask != null && !_currentMainTask.isEnded())
+                        return;
+
+                    task = _mainTasks.pollFirst();
+                    _currentMainTask = task;
+                }
+
+                if (task == null)
+                    return;
+
+                if (task.isCancelled())
+                    continue;
+
+                try {
+                    task.run();
+                }
+                catch (RuntimeException e) {
+                    e.printStackTrace();
+                    task.cancel("Task threw an exception: {0}", e.getMessage());
+                }
+
+            } while (System.nanoTime() < end);
+        }
+    }
+}
@@ -9,6 +9,7 @@ import com.jcwhatever.nucleus.regions._RegionsTestSuite;
 import com.jcwhatever.nucleus.storage._StorageTestSuite;
 import com.jcwhatever.nucleus.utils._UtilsTestSuite;
 import com.jcwhatever.nucleus.utils.performance.pool._PoolTestSuite;
+import com.jcwhatever.nucleus.utils.performance.queued._QueuedTestSuite;
 import com.jcwhatever.nucleus.utils.signs._SignsTestSuite;
 import com.jcwhatever.nucleus.views._ViewTestSuite;
 
@@ -22,6 +23,7 @@ import org.junit.runners.Suite;
         _ManagerTestSuite.class,
         _InternalTestSuite.class,
         _PoolTestSuite.class,
+        _QueuedTestSuite.class,
         _RegionsTestSuite.class,
         _SignsTestSuite.class,
         _SoundsTestSuite.class,
@@ -0,0 +1,176 @@
+package com.jcwhatever.nucleus.collections.timed;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.jcwhatever.v1_8_R3.BukkitTester;
+import com.jcwhatever.v1_8_R3.MockPlugin;
+import com.jcwhatever.nucleus.NucleusTest;
+import com.jcwhatever.nucleus.collections.java.MapRunnable;
+import com.jcwhatever.nucleus.utils.TimeScale;
+import com.jcwhatever.nucleus.utils.observer.update.IUpdateSubscriber;
+
+import org.junit.Test;
+
+import java.util.Map.Entry;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ConcurrentTimedHashMapTest {
+
+    @Test
+    public void testMapInterface() {
+
+        NucleusTest.init();
+
+        MockPlugin plugin = new MockPlugin("dummy");
+        plugin.onEnable();
+
+        ConcurrentTimedHashMap<String, String> map = new ConcurrentTimedHashMap<String, String>(plugin);
+
+        MapRunnable<String, String> mapTest = new MapRunnable<String, String>(map, "a", "b", "c", "a", "b", "c");
+
+        mapTest.run();
+    }
+
+    /**
+     * Make sure entry is removed.
+     */
+    @Test
+    public void testEntryLifespan() throws Exception {
+
+        NucleusTest.init();
+
+        MockPlugin plugin = new MockPlugin("dummy");
+        plugin.onEnable();
+
+        ConcurrentTimedHashMap<String, String> map = new ConcurrentTimedHashMap<String, String>(plugin);
+
+        map.put("a", "b", 1000, TimeScale.MILLISECONDS);
+
+        long expires = System.currentTimeMillis() + 1000;
+
+        while (System.currentTimeMillis() < expires + 100) {
+
+            assertEquals(map.containsKey("a"), System.currentTimeMillis() < expires);
+
+            Thread.sleep(5);
+        }
+    }
+
+    /**
+     * Make sure entry is removed without a direct check on the entry.
+     * Tests the scheduled janitor task.
+     */
+    @Test
+    public void testEntryLifespan1() throws Exception {
+
+        NucleusTest.init();
+
+        MockPlugin plugin = new MockPlugin("dummy");
+        plugin.onEnable();
+
+        ConcurrentTimedHashMap<String, String> map = new ConcurrentTimedHashMap<String, String>(plugin);
+
+        final AtomicInteger ended = new AtomicInteger();
+
+        map.onLifespanEnd(new IUpdateSubscriber<Entry<String, String>>() {
+            @Override
+            public void on(Entry<String, String> argument) {
+                ended.incrementAndGet();
+            }
+        });
+
+        map.put("a", "b", 20, TimeScale.TICKS);
+
+        BukkitTester.pause(30);
+
+        assertEquals(1, ended.get());
+        assertEquals(0, map.size());
+    }
+
+    /**
+     * Make sure an expired value is replaced by putIfAbsent.
+     */
+    @Test
+    public void testPutIfAbsent() throws Exception {
+
+        NucleusTest.init();
+
+        MockPlugin plugin = new MockPlugin("dummy");
+        plugin.onEnable();
+
+        ConcurrentTimedHashMap<String, String> map = new ConcurrentTimedHashMap<String, String>(plugin);
+
+        assertNull(map.putIfAbsent("a", "b", 20, TimeScale.MILLISECONDS));
+        assertEquals("b", map.putIfAbsent("a", "c", 20, TimeScale.MILLISECONDS));
+
+        Thread.sleep(30);
+
+        assertNull(map.putIfAbsent("a", "c", 20, TimeScale.MILLISECONDS));
+        assertEquals("c", map.get("a"));
+    }
+
+    /**
+     * Make sure each expired entry is reported exactly once when
+     * the map is accessed from multiple threads.
+     */
+    @Test
+    public void testContention() throws Exception {
+
+        NucleusTest.init();
+
+        MockPlugin plugin = new MockPlugin("dummy");
+        plugin.onEnable();
+
+        final ConcurrentTimedHashMap<Integer, Integer> map =
+                new ConcurrentTimedHashMap<Integer, Integer>(plugin, 64, 5, TimeScale.MILLISECONDS);
+
+        final AtomicInteger added = new AtomicInteger();
+        final AtomicInteger ended = new AtomicInteger();
+
+        map.onLifespanEnd(new IUpdateSubscriber<Entry<Integer, Integer>>() {
+            @Override
+            public void on(Entry<Integer, Integer> argument) {
+                ended.incrementAndGet();
+            }
+        });
+
+        Thread[] threads = new Thread[4];
+
+        for (int i=0; i < threads.length; i++) {
+
+            final Random random = new Random(i);
+
+            threads[i] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int j=0; j < 50000; j++) {
+
+                        int key = random.nextInt(64);
+
+                        if (random.nextInt(4) == 0) {
+                            if (map.putIfAbsent(key, key) == null)
+                                added.incrementAndGet();
+                        }
+                        else {
+                            Integer value = map.get(key);
+                            assertTrue(value == null || value == key);
+                        }
+                    }
+                }
+            });
+            threads[i].start();
+        }
+
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        Thread.sleep(10);
+
+        assertEquals(0, map.size());
+        assertEquals(added.get(), ended.get());
+    }
+}
@@ -0,0 +1,78 @@
+package com.jcwhatever.nucleus.collections.timed;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class ExpiryHeapTest {
+
+    private static class TestNode extends ExpiryHeap.Node {
+        TestNode(long expires) {
+            this.expires = expires;
+        }
+    }
+
+    /**
+     * Make sure expired nodes are polled in order of expiration.
+     */
+    @Test
+    public void testPollExpired() {
+
+        ExpiryHeap<TestNode> heap = new ExpiryHeap<>(2);
+
+        TestNode a = new TestNode(30);
+        TestNode b = new TestNode(10);
+        TestNode c = new TestNode(20);
+        TestNode d = new TestNode(100);
+
+        heap.add(a);
+        heap.add(b);
+        heap.add(c);
+        heap.add(d);
+
+        assertEquals(4, heap.size());
+        assertEquals(10, heap.getNextExpiration());
+
+        assertEquals(b, heap.pollExpired(50));
+        assertEquals(c, heap.pollExpired(50));
+        assertEquals(a, heap.pollExpired(50));
+        assertNull(heap.pollExpired(50));
+
+        assertEquals(1, heap.size());
+        assertEquals(100, heap.getNextExpiration());
+    }
+
+    /**
+     * Make sure updated and removed nodes are re-positioned.
+     */
+    @Test
+    public void testUpdateRemove() {
+
+        ExpiryHeap<TestNode> heap = new ExpiryHeap<>(10);
+
+        TestNode a = new TestNode(10);
+        TestNode b = new TestNode(20);
+
+        heap.add(a);
+        heap.add(b);
+
+        a.expires = 30;
+        heap.update(a);
+
+        assertEquals(20, heap.getNextExpiration());
+
+        assertTrue(heap.remove(b));
+        assertFalse(heap.remove(b));
+
+        assertEquals(30, heap.getNextExpiration());
+
+        heap.clear();
+
+        assertTrue(heap.isEmpty());
+        assertEquals(Long.MAX_VALUE, heap.getNextExpiration());
+        assertFalse(heap.remove(a));
+    }
+}
@@ -8,7 +8,9 @@ import org.junit.runners.Suite;
  */
 @RunWith(Suite.class)
 @Suite.SuiteClasses({
+        ConcurrentTimedHashMapTest.class,
         DecayListTest.class,
+        ExpiryHeapTest.class,
         TimedArrayListTest.class,
         TimedDistributorTest.class,
         TimedHashMapTest.class,
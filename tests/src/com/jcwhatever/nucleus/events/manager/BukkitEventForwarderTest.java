@@ -0,0 +1,336 @@
+package com.jcwhatever.nucleus.events.manager;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.jcwhatever.nucleus.Nucleus;
+import com.jcwhatever.nucleus.NucleusTest;
+import com.jcwhatever.nucleus.utils.observer.event.EventSubscriber;
+
+import org.bukkit.Bukkit;
+import org.bukkit.event.Event;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.HandlerList;
+import org.bukkit.plugin.Plugin;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import javax.annotation.Nullable;
+
+/**
+ * Tests {@link BukkitEventForwarder}.
+ */
+public class BukkitEventForwarderTest {
+
+    @BeforeClass
+    public static void init() {
+        NucleusTest.init();
+    }
+
+    /**
+     * Make sure a global event type is forwarded while an event manager
+     * has a subscriber for it.
+     */
+    @Test
+    public void testManagerDemand() throws Exception {
+
+        Plugin plugin = Nucleus.getPlugin();
+        BukkitEventForwarder.registerGlobal(plugin, ManagerDemandEvent.class);
+
+        assertFalse(BukkitEventForwarder.isForwarding(ManagerDemandEvent.class));
+
+        EventManager manager1 = new EventManager(plugin, null);
+        EventManager manager2 = new EventManager(plugin, null);
+        Subscriber<ManagerDemandEvent> subscriber1 = new Subscriber<>();
+        Subscriber<ManagerDemandEvent> subscriber2 = new Subscriber<>();
+
+        manager1.register(plugin, ManagerDemandEvent.class, subscriber1);
+
+        assertTrue(BukkitEventForwarder.isForwarding(ManagerDemandEvent.class));
+
+        manager2.register(plugin, ManagerDemandEvent.class, subscriber2);
+        manager1.unregister(subscriber1);
+
+        assertTrue(BukkitEventForwarder.isForwarding(ManagerDemandEvent.class));
+
+        manager2.unregister(subscriber2);
+
+        assertFalse(BukkitEventForwarder.isForwarding(ManagerDemandEvent.class));
+    }
+
+    /**
+     * Make sure an event type registered after demand for it
+     * exists is forwarded immediately.
+     */
+    @Test
+    public void testRegisterAfterDemand() throws Exception {
+
+        Plugin plugin = Nucleus.getPlugin();
+        EventManager manager = new EventManager(plugin, null);
+        Subscriber<LateRegisterEvent> subscriber = new Subscriber<>();
+
+        manager.register(plugin, LateRegisterEvent.class, subscriber);
+
+        BukkitEventForwarder.registerGlobal(plugin, LateRegisterEvent.class);
+
+        assertTrue(BukkitEventForwarder.isForwarding(LateRegisterEvent.class));
+
+        manager.dispose();
+
+        assertFalse(BukkitEventForwarder.isForwarding(LateRegisterEvent.class));
+    }
+
+    /**
+     * Make sure a forwarder is demand for global event types and
+     * receives them until it is disposed.
+     */
+    @Test
+    public void testForwarderDemand() throws Exception {
+
+        Plugin plugin = Nucleus.getPlugin();
+        BukkitEventForwarder.registerGlobal(plugin, ForwarderDemandEvent.class);
+
+        assertFalse(BukkitEventForwarder.isForwarding(ForwarderDemandEvent.class));
+
+        TestForwarder forwarder = new TestForwarder(true);
+
+        assertTrue(BukkitEventForwarder.isForwarding(ForwarderDemandEvent.class));
+
+        Bukkit.getPluginManager().callEvent(new ForwarderDemandEvent());
+
+        assertEquals(1, forwarder.received);
+        assertEquals(1, BukkitEventForwarder.getForwardedCount(ForwarderDemandEvent.class));
+
+        forwarder.dispose();
+
+        assertFalse(BukkitEventForwarder.isForwarding(ForwarderDemandEvent.class));
+
+        Bukkit.getPluginManager().callEvent(new ForwarderDemandEvent());
+
+        assertEquals(1, forwarder.received);
+        assertEquals(1, BukkitEventForwarder.getForwardedCount(ForwarderDemandEvent.class));
+    }
+
+    /**
+     * Make sure a forwarder that is not global demand does not cause global
+     * event types to be forwarded but still receives them when there is
+     * other demand.
+     */
+    @Test
+    public void testNoForwarderDemand() throws Exception {
+
+        Plugin plugin = Nucleus.getPlugin();
+        BukkitEventForwarder.registerGlobal(plugin, NoDemandEvent.class);
+
+        TestForwarder forwarder = new TestForwarder(false);
+
+        assertFalse(BukkitEventForwarder.isForwarding(NoDemandEvent.class));
+
+        EventManager manager = new EventManager(plugin, null);
+        Subscriber<NoDemandEvent> subscriber = new Subscriber<>();
+        manager.register(plugin, NoDemandEvent.class, subscriber);
+
+        Bukkit.getPluginManager().callEvent(new NoDemandEvent());
+
+        assertEquals(1, forwarder.received);
+
+        manager.unregister(subscriber);
+
+        assertFalse(BukkitEventForwarder.isForwarding(NoDemandEvent.class));
+
+        forwarder.dispose();
+    }
+
+    /**
+     * Make sure disposing a forwarder more than once does not
+     * remove demand added by another forwarder.
+     */
+    @Test
+    public void testDisposeTwice() throws Exception {
+
+        Plugin plugin = Nucleus.getPlugin();
+        BukkitEventForwarder.registerGlobal(plugin, DisposeTwiceEvent.class);
+
+        TestForwarder forwarder1 = new TestForwarder(true);
+        TestForwarder forwarder2 = new TestForwarder(true);
+
+        forwarder1.dispose();
+        forwarder1.dispose();
+
+        assertTrue(BukkitEventForwarder.isForwarding(DisposeTwiceEvent.class));
+
+        forwarder2.dispose();
+
+        assertFalse(BukkitEventForwarder.isForwarding(DisposeTwiceEvent.class));
+    }
+
+    /**
+     * Make sure forwarders can be disposed and constructed by a forwarder
+     * while an event is forwarded and that a forwarder disposed during
+     * the event does not receive it afterwards.
+     */
+    @Test
+    public void testDisposeWhileForwarding() throws Exception {
+
+        Plugin plugin = Nucleus.getPlugin();
+        BukkitEventForwarder.registerGlobal(plugin, DisposeWhileForwardingEvent.class);
+
+        final TestForwarder[] others = new TestForwarder[5];
+        for (int i=0; i < others.length; i++) {
+            others[i] = new TestForwarder(true);
+        }
+
+        final List<TestForwarder> constructed = new ArrayList<>(1);
+
+        TestForwarder disposer = new TestForwarder(true) {
+            @Override
+            protected void onEvent(Event event) {
+                super.onEvent(event);
+
+                for (TestForwarder other : others) {
+                    other.dispose();
+                }
+
+                constructed.add(new TestForwarder(true));
+                dispose();
+            }
+        };
+
+        Bukkit.getPluginManager().callEvent(new DisposeWhileForwardingEvent());
+
+        assertEquals(1, disposer.received);
+        assertEquals(1, constructed.size());
+
+        // forwarders that were disposed first do not receive the event
+        int[] received = new int[others.length];
+        for (int i=0; i < others.length; i++) {
+            received[i] = others[i].received;
+            assertTrue(received[i] <= 1);
+        }
+
+        // a forwarder constructed during the event receives the next event
+        TestForwarder forwarder = constructed.get(0);
+        assertEquals(0, forwarder.received);
+
+        Bukkit.getPluginManager().callEvent(new DisposeWhileForwardingEvent());
+
+        assertEquals(1, forwarder.received);
+        assertEquals(1, disposer.received);
+
+        for (int i=0; i < others.length; i++) {
+            assertEquals(received[i], others[i].received);
+        }
+
+        forwarder.dispose();
+
+        assertFalse(BukkitEventForwarder.isForwarding(DisposeWhileForwardingEvent.class));
+    }
+
+    private static class TestForwarder extends BukkitEventForwarder {
+
+        int received;
+
+        TestForwarder(boolean isGlobalDemand) {
+            super(Nucleus.getPlugin(), EventPriority.NORMAL, isGlobalDemand);
+        }
+
+        @Override
+        protected void onEvent(Event event) {
+            received++;
+        }
+    }
+
+    private static class Subscriber<E> extends EventSubscriber<E> {
+        @Override
+        public void onEvent(@Nullable Object caller, E event) {
+            // do nothing
+        }
+    }
+
+    public static class ManagerDemandEvent extends Event {
+
+        private static final HandlerList handlers = new HandlerList();
+
+        @Override
+        public HandlerList getHandlers() {
+            return handlers;
+        }
+
+        public static HandlerList getHandlerList() {
+            return handlers;
+        }
+    }
+
+    public static class LateRegisterEvent extends Event {
+
+        private static final HandlerList handlers = new HandlerList();
+
+        @Override
+        public HandlerList getHandlers() {
+            return handlers;
+        }
+
+        public static HandlerList getHandlerList() {
+            return handlers;
+        }
+    }
+
+    public static class ForwarderDemandEvent extends Event {
+
+        private static final HandlerList handlers = new HandlerList();
+
+        @Override
+        public HandlerList getHandlers() {
+            return handlers;
+        }
+
+        public static HandlerList getHandlerList() {
+            return handlers;
+        }
+    }
+
+    public static class NoDemandEvent extends Event {
+
+        private static final HandlerList handlers = new HandlerList();
+
+        @Override
+        public HandlerList getHandlers() {
+            return handlers;
+        }
+
+        public static HandlerList getHandlerList() {
+            return handlers;
+        }
+    }
+
+    public static class DisposeTwiceEvent extends Event {
+
+        private static final HandlerList handlers = new HandlerList();
+
+        @Override
+        public HandlerList getHandlers() {
+            return handlers;
+        }
+
+        public static HandlerList getHandlerList() {
+            return handlers;
+        }
+    }
+
+    public static class DisposeWhileForwardingEvent extends Event {
+
+        private static final HandlerList handlers = new HandlerList();
+
+        @Override
+        public HandlerList getHandlers() {
+            return handlers;
+        }
+
+        public static HandlerList getHandlerList() {
+            return handlers;
+        }
+    }
+}
@@ -75,6 +75,110 @@ public class EventManagerTest {
 
     }
 
+    /**
+     * Make sure annotated methods of a registered listener are invoked,
+     * including private methods.
+     */
+    @Test
+    public void testListener() {
+
+        NucleusTest.init();
+
+        EventManager manager = new EventManager(plugin, null);
+
+        TestListener listener = new TestListener();
+        manager.register(listener);
+
+        TestEvent event = new TestEvent();
+        manager.call(this, event);
+
+        assertEquals(1, listener.publicCalls);
+        assertEquals(1, listener.privateCalls);
+        assertEquals(event, listener.lastEvent);
+
+        manager.unregister(listener);
+
+        manager.call(this, new TestEvent());
+
+        assertEquals(1, listener.publicCalls);
+        assertEquals(1, listener.privateCalls);
+    }
+
+    /**
+     * Make sure an event forwarded from a parent manager to a child manager
+     * does not bubble back to the parent.
+     */
+    @Test
+    public void testForwardToChild() {
+
+        NucleusTest.init();
+
+        final EventManager parent = new EventManager(plugin, null);
+        final EventManager child = new EventManager(plugin, parent);
+
+        final int[] parentCalls = new int[1];
+        final int[] childCalls = new int[1];
+
+        parent.register(plugin, TestEvent.class, new EventSubscriber<TestEvent>() {
+            @Override
+            public void onEvent(@Nullable Object caller, TestEvent event) {
+                parentCalls[0]++;
+
+                // forward to child, bubbles back to parent
+                child.call(caller, event);
+            }
+        });
+
+        child.register(plugin, TestEvent.class, new EventSubscriber<TestEvent>() {
+            @Override
+            public void onEvent(@Nullable Object caller, TestEvent event) {
+                childCalls[0]++;
+            }
+        });
+
+        TestEvent event = new TestEvent();
+
+        parent.call(this, event);
+
+        assertEquals(1, parentCalls[0]);
+        assertEquals(1, childCalls[0]);
+
+        // calling from child bubbles to parent, which forwards back to child
+        child.call(this, new TestEvent());
+
+        assertEquals(2, parentCalls[0]);
+        assertEquals(2, childCalls[0]);
+
+        // the same instance can be called again once the previous call has finished
+        parent.call(this, event);
+
+        assertEquals(3, parentCalls[0]);
+        assertEquals(3, childCalls[0]);
+    }
+
+    public class TestListener implements IEventListener {
+
+        int publicCalls;
+        int privateCalls;
+        TestEvent lastEvent;
+
+        @Override
+        public Plugin getPlugin() {
+            return plugin;
+        }
+
+        @EventMethod
+        public void onPublic(TestEvent event) {
+            publicCalls++;
+            lastEvent = event;
+        }
+
+        @EventMethod
+        private void onPrivate(TestEvent event) {
+            privateCalls++;
+        }
+    }
+
     public class TestEventSubscriber<E> extends EventSubscriber<E>{
 
         boolean isCancellable;
@@ -5,7 +5,8 @@ import org.junit.runners.Suite;
 
 @RunWith(Suite.class)
 @Suite.SuiteClasses({
-        EventManagerTest.class
+        EventManagerTest.class,
+        BukkitEventForwarderTest.class
 })
 public class _ManagerTestSuite {
 }
@@ -1,20 +1,25 @@
 package com.jcwhatever.nucleus.internal;
 
 import com.jcwhatever.nucleus.internal.managed.reflection._ReflectionTestSuite;
+import com.jcwhatever.nucleus.internal.providers.PlayerNameIndexTest;
 import com.jcwhatever.nucleus.internal.providers.bankitems._InternalBankItemsTestSuite;
 import com.jcwhatever.nucleus.internal.providers.economy._InternalEconomyTestSuite;
 import com.jcwhatever.nucleus.internal.providers.friends._InternalFriendsTestSuite;
 import com.jcwhatever.nucleus.internal.providers.math._InternalMathTestSuite;
+import com.jcwhatever.nucleus.internal.regions._InternalRegionsTestSuite;
 import org.junit.runner.RunWith;
 import org.junit.runners.Suite;
 
 @RunWith(Suite.class)
 @Suite.SuiteClasses({
+        PlayerNameIndexTest.class,
+
         _ReflectionTestSuite.class,
         _InternalBankItemsTestSuite.class,
         _InternalEconomyTestSuite.class,
         _InternalFriendsTestSuite.class,
-        _InternalMathTestSuite.class
+        _InternalMathTestSuite.class,
+        _InternalRegionsTestSuite.class
 })
 public class _InternalTestSuite {
 }
@@ -0,0 +1,199 @@
+package com.jcwhatever.nucleus.internal.providers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.jcwhatever.v1_8_R3.BukkitTester;
+import com.jcwhatever.nucleus.NucleusTest;
+import com.jcwhatever.nucleus.storage.IDataNode;
+import com.jcwhatever.nucleus.storage.MemoryDataNode;
+
+import org.bukkit.plugin.Plugin;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+
+public class PlayerNameIndexTest {
+
+    private static Plugin plugin;
+
+    @BeforeClass
+    public static void init() {
+        NucleusTest.init();
+        plugin = BukkitTester.mockPlugin("nameIndexTest");
+    }
+
+    /**
+     * Make sure names are looked up without regard to case.
+     */
+    @Test
+    public void testGetPlayerId() throws Exception {
+
+        PlayerNameIndex index = new PlayerNameIndex();
+
+        UUID playerId = UUID.randomUUID();
+
+        index.add(playerId, "Notch");
+
+        assertEquals(playerId, index.getPlayerId("Notch"));
+        assertEquals(playerId, index.getPlayerId("notch"));
+        assertEquals(playerId, index.getPlayerId("NOTCH"));
+        assertEquals(null, index.getPlayerId("Notc"));
+
+        assertEquals("Notch", index.getName(playerId));
+    }
+
+    /**
+     * Make sure the previous name of a renamed player is removed.
+     */
+    @Test
+    public void testRename() throws Exception {
+
+        PlayerNameIndex index = new PlayerNameIndex();
+
+        UUID playerId = UUID.randomUUID();
+
+        index.add(playerId, "OldName");
+        index.add(playerId, "NewName");
+
+        assertEquals(1, index.size());
+        assertEquals(null, index.getPlayerId("OldName"));
+        assertEquals(playerId, index.getPlayerId("NewName"));
+        assertEquals("NewName", index.getName(playerId));
+
+        assertEquals(0, index.search("old", 10).size());
+        assertEquals(1, index.search("new", 10).size());
+
+        // change of case only
+        index.add(playerId, "newname");
+
+        assertEquals(1, index.size());
+        assertEquals(playerId, index.getPlayerId("NewName"));
+        assertEquals("newname", index.getName(playerId));
+    }
+
+    /**
+     * Make sure a name taken by a different player is moved to that player
+     * and the previous owner is removed from the index.
+     */
+    @Test
+    public void testNameChangedOwner() throws Exception {
+
+        PlayerNameIndex index = new PlayerNameIndex();
+
+        UUID playerId1 = UUID.randomUUID();
+        UUID playerId2 = UUID.randomUUID();
+
+        index.add(playerId1, "Name");
+        index.add(playerId2, "Name");
+
+        assertEquals(1, index.size());
+        assertEquals(playerId2, index.getPlayerId("Name"));
+        assertEquals(null, index.getName(playerId1));
+
+        // the previous owner renamed, the current owner keeps the name
+        index.add(playerId1, "Other");
+
+        assertEquals(2, index.size());
+        assertEquals(playerId2, index.getPlayerId("Name"));
+        assertEquals(playerId1, index.getPlayerId("Other"));
+    }
+
+    /**
+     * Make sure the player that logged in most recently is indexed when
+     * the stored data of two players has the same name.
+     */
+    @Test
+    public void testAddAllSharedName() throws Exception {
+
+        UUID playerId1 = UUID.randomUUID();
+        UUID playerId2 = UUID.randomUUID();
+        UUID playerId3 = UUID.randomUUID();
+
+        IDataNode data = new MemoryDataNode(plugin);
+
+        data.set(playerId1 + ".name", "Shared");
+        data.set(playerId1 + ".last", new Date(2000));
+
+        data.set(playerId2 + ".name", "shared");
+        data.set(playerId2 + ".last", new Date(1000));
+
+        data.set(playerId3 + ".name", "Unique");
+        data.set(playerId3 + ".last", new Date(1000));
+
+        PlayerNameIndex index = new PlayerNameIndex();
+        index.addAll(data);
+
+        assertEquals(2, index.size());
+        assertEquals(playerId1, index.getPlayerId("shared"));
+        assertEquals(playerId3, index.getPlayerId("unique"));
+        assertEquals(null, index.getName(playerId2));
+
+        // same result when the older login is stored last
+        data = new MemoryDataNode(plugin);
+
+        data.set(playerId2 + ".name", "shared");
+        data.set(playerId2 + ".last", new Date(1000));
+
+        data.set(playerId1 + ".name", "Shared");
+        data.set(playerId1 + ".last", new Date(2000));
+
+        index = new PlayerNameIndex();
+        index.addAll(data);
+
+        assertEquals(1, index.size());
+        assertEquals(playerId1, index.getPlayerId("shared"));
+    }
+
+    /**
+     * Make sure prefix matches are first, names that contain the search
+     * text fill the remaining results and searches stop at the max results.
+     */
+    @Test
+    public void testSearch() throws Exception {
+
+        PlayerNameIndex index = new PlayerNameIndex();
+
+        UUID bob = UUID.randomUUID();
+        UUID bobby = UUID.randomUUID();
+        UUID bobcat = UUID.randomUUID();
+        UUID jimbob = UUID.randomUUID();
+        UUID alice = UUID.randomUUID();
+
+        index.add(bobcat, "Bobcat");
+        index.add(jimbob, "JimBob");
+        index.add(bobby, "Bobby");
+        index.add(alice, "Alice");
+        index.add(bob, "Bob");
+
+        // prefix matches in name order, then names that contain the search text
+        List<UUID> result = index.search("BOB", 10);
+        assertEquals(4, result.size());
+        assertEquals(bob, result.get(0));
+        assertEquals(bobby, result.get(1));
+        assertEquals(bobcat, result.get(2));
+        assertEquals(jimbob, result.get(3));
+
+        // stops at max results
+        result = index.search("bob", 2);
+        assertEquals(2, result.size());
+        assertEquals(bob, result.get(0));
+        assertEquals(bobby, result.get(1));
+
+        // contains matches stop at max results
+        index.add(UUID.randomUUID(), "xImbx");
+        index.add(UUID.randomUUID(), "yImby");
+
+        result = index.search("imb", 2);
+        assertEquals(2, result.size());
+
+        result = index.search("imb", 10);
+        assertEquals(3, result.size());
+        assertTrue(result.contains(jimbob));
+
+        assertEquals(0, index.search("bob", 0).size());
+    }
+}
@@ -0,0 +1,211 @@
+package com.jcwhatever.nucleus.internal.providers.economy;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.jcwhatever.v1_8_R3.BukkitTester;
+import com.jcwhatever.nucleus.NucleusTest;
+import com.jcwhatever.nucleus.storage.IDataNode;
+import com.jcwhatever.nucleus.storage.MemoryDataNode;
+
+import org.bukkit.plugin.Plugin;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+public class AccountJournalTest {
+
+    private static Plugin plugin;
+
+    @BeforeClass
+    public static void init() {
+        NucleusTest.init();
+        plugin = BukkitTester.mockPlugin("dummy");
+    }
+
+    /**
+     * Make sure balances written to the journal are replayed into
+     * the data node of a new journal.
+     */
+    @Test
+    public void testReplay() throws Exception {
+
+        File file = File.createTempFile("accounts", "." + AccountJournal.FILE_EXTENSION);
+        file.deleteOnExit();
+
+        UUID playerId1 = UUID.randomUUID();
+        UUID playerId2 = UUID.randomUUID();
+
+        AccountJournal journal = new AccountJournal(plugin,
+                new NodeAccountStorage(new MemoryDataNode(plugin)), file);
+
+        journal.record(playerId1, 10.0D);
+        journal.record(playerId2, 5.0D);
+        journal.record(playerId1, 20.0D);
+        journal.flush();
+
+        assertTrue(file.length() > 0);
+
+        IDataNode dataNode = new MemoryDataNode(plugin);
+        AccountJournal replayed = new AccountJournal(plugin,
+                new NodeAccountStorage(dataNode), file);
+
+        assertEquals(20.0D, dataNode.getDouble(playerId1 + ".balance"), 0.0D);
+        assertEquals(5.0D, dataNode.getDouble(playerId2 + ".balance"), 0.0D);
+
+        // journal is compacted after replay
+        assertFalse(file.exists());
+
+        replayed.close();
+        journal.close();
+    }
+
+    /**
+     * Make sure removed accounts are removed from the data node
+     * when the journal is replayed.
+     */
+    @Test
+    public void testReplayRemoved() throws Exception {
+
+        File file = File.createTempFile("accounts", "." + AccountJournal.FILE_EXTENSION);
+        file.deleteOnExit();
+
+        UUID playerId = UUID.randomUUID();
+
+        IDataNode dataNode = new MemoryDataNode(plugin);
+        dataNode.set(playerId + ".balance", 10.0D);
+
+        AccountJournal journal = new AccountJournal(plugin,
+                new NodeAccountStorage(new MemoryDataNode(plugin)), file);
+
+        journal.recordRemoved(playerId);
+        journal.flush();
+
+        AccountJournal replayed = new AccountJournal(plugin,
+                new NodeAccountStorage(dataNode), file);
+
+        assertFalse(dataNode.hasNode(playerId.toString()));
+
+        replayed.close();
+        journal.close();
+    }
+
+    /**
+     * Make sure an incomplete record at the end of the journal is ignored.
+     */
+    @Test
+    public void testIncompleteRecord() throws Exception {
+
+        File file = File.createTempFile("accounts", "." + AccountJournal.FILE_EXTENSION);
+        file.deleteOnExit();
+
+        UUID playerId = UUID.randomUUID();
+
+        AccountJournal journal = new AccountJournal(plugin,
+                new NodeAccountStorage(new MemoryDataNode(plugin)), file);
+
+        journal.record(playerId, 10.0D);
+        journal.record(UUID.randomUUID(), 5.0D);
+        journal.flush();
+
+        // remove the last bytes of the second record
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(raf.length() - 3);
+        }
+
+        IDataNode dataNode = new MemoryDataNode(plugin);
+        AccountJournal replayed = new AccountJournal(plugin,
+                new NodeAccountStorage(dataNode), file);
+
+        assertEquals(10.0D, dataNode.getDouble(playerId + ".balance"), 0.0D);
+
+        replayed.close();
+        journal.close();
+    }
+
+    /**
+     * Make sure balances recorded as a batch are replayed and supersede
+     * balances recorded before the batch.
+     */
+    @Test
+    public void testBatchReplay() throws Exception {
+
+        File file = File.createTempFile("accounts", "." + AccountJournal.FILE_EXTENSION);
+        file.deleteOnExit();
+
+        UUID playerId1 = UUID.randomUUID();
+        UUID playerId2 = UUID.randomUUID();
+
+        AccountJournal journal = new AccountJournal(plugin,
+                new NodeAccountStorage(new MemoryDataNode(plugin)), file);
+
+        Map<UUID, Double> batch = new HashMap<>(2);
+        batch.put(playerId1, 15.0D);
+        batch.put(playerId2, 25.0D);
+
+        journal.record(playerId1, 10.0D);
+        journal.record(batch);
+        journal.record(playerId2, 30.0D);
+        journal.flush();
+
+        IDataNode dataNode = new MemoryDataNode(plugin);
+        AccountJournal replayed = new AccountJournal(plugin,
+                new NodeAccountStorage(dataNode), file);
+
+        assertEquals(15.0D, dataNode.getDouble(playerId1 + ".balance"), 0.0D);
+        assertEquals(30.0D, dataNode.getDouble(playerId2 + ".balance"), 0.0D);
+
+        replayed.close();
+        journal.close();
+    }
+
+    /**
+     * Make sure none of the balances in a batch that was not completely
+     * written are replayed.
+     */
+    @Test
+    public void testIncompleteBatch() throws Exception {
+
+        File file = File.createTempFile("accounts", "." + AccountJournal.FILE_EXTENSION);
+        file.deleteOnExit();
+
+        UUID playerId1 = UUID.randomUUID();
+        UUID playerId2 = UUID.randomUUID();
+        UUID playerId3 = UUID.randomUUID();
+
+        AccountJournal journal = new AccountJournal(plugin,
+                new NodeAccountStorage(new MemoryDataNode(plugin)), file);
+
+        journal.record(playerId1, 10.0D);
+        journal.flush();
+
+        Map<UUID, Double> batch = new HashMap<>(2);
+        batch.put(playerId2, 15.0D);
+        batch.put(playerId3, 25.0D);
+
+        journal.record(batch);
+        journal.flush();
+
+        // remove the last bytes of the batch
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(raf.length() - 3);
+        }
+
+        IDataNode dataNode = new MemoryDataNode(plugin);
+        AccountJournal replayed = new AccountJournal(plugin,
+                new NodeAccountStorage(dataNode), file);
+
+        assertEquals(10.0D, dataNode.getDouble(playerId1 + ".balance"), 0.0D);
+        assertFalse(dataNode.hasNode(playerId2.toString()));
+        assertFalse(dataNode.hasNode(playerId3.toString()));
+
+        replayed.close();
+        journal.close();
+    }
+}
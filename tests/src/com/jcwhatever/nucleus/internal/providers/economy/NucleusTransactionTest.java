@@ -0,0 +1,379 @@
+package com.jcwhatever.nucleus.internal.providers.economy;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.jcwhatever.v1_8_R3.BukkitTester;
+import com.jcwhatever.nucleus.Nucleus;
+import com.jcwhatever.nucleus.NucleusTest;
+import com.jcwhatever.nucleus.providers.economy.IAccount;
+import com.jcwhatever.nucleus.providers.economy.IEconomyTransaction;
+import com.jcwhatever.nucleus.providers.economy.events.EconTransactionEvent;
+import com.jcwhatever.nucleus.storage.IDataNode;
+import com.jcwhatever.nucleus.storage.MemoryDataNode;
+import com.jcwhatever.nucleus.utils.observer.event.EventSubscriber;
+import com.jcwhatever.nucleus.utils.observer.future.FutureResultSubscriber;
+import com.jcwhatever.nucleus.utils.observer.future.IFutureResult;
+import com.jcwhatever.nucleus.utils.observer.future.Result;
+
+import org.bukkit.plugin.Plugin;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import javax.annotation.Nullable;
+
+public class NucleusTransactionTest {
+
+    private static Plugin plugin;
+    private static NucleusEconomyProvider provider;
+
+    private CountingJournal _journal;
+    private CountingJournal _bankJournal;
+    private NucleusBank _bank;
+
+    @BeforeClass
+    public static void init() {
+        NucleusTest.init();
+        plugin = BukkitTester.mockPlugin("transactionTest");
+        provider = new NucleusEconomyProvider(Nucleus.getPlugin());
+    }
+
+    @Before
+    public void before() throws Exception {
+        _journal = new CountingJournal();
+        _bankJournal = new CountingJournal();
+        _bank = new NucleusBank(provider, "bank", null, new MemoryDataNode(plugin), _bankJournal);
+    }
+
+    @After
+    public void after() {
+        _journal.close();
+        _bankJournal.close();
+    }
+
+    private NucleusAccount account(UUID playerId, double balance) {
+        IDataNode dataNode = new MemoryDataNode(plugin);
+        dataNode.set("balance", balance);
+        return new NucleusAccount(provider, playerId, null, dataNode, _journal);
+    }
+
+    private NucleusAccount bankAccount(UUID playerId, double balance) {
+        IDataNode dataNode = new MemoryDataNode(plugin);
+        dataNode.set("balance", balance);
+        return new NucleusAccount(provider, playerId, _bank, dataNode, _bankJournal);
+    }
+
+    /*
+     * Determine if the result of a committed transaction is a success.
+     */
+    private static boolean isSuccess(IFutureResult<IEconomyTransaction> future) {
+
+        final boolean[] isSuccess = new boolean[1];
+
+        future.onResult(new FutureResultSubscriber<IEconomyTransaction>() {
+            @Override
+            public void on(Result<IEconomyTransaction> result) {
+                isSuccess[0] = result.isSuccess();
+            }
+        });
+
+        return isSuccess[0];
+    }
+
+    /**
+     * Make sure a transaction between accounts is committed and the new
+     * balances are recorded in each journal as a single batch.
+     */
+    @Test
+    public void testCommitBatch() throws Exception {
+
+        NucleusAccount account1 = account(UUID.randomUUID(), 20.0D);
+        NucleusAccount account2 = account(UUID.randomUUID(), 0.0D);
+        NucleusAccount account3 = bankAccount(UUID.randomUUID(), 5.0D);
+
+        NucleusTransaction transaction = new NucleusTransaction();
+        assertTrue(transaction.withdraw(account1, 15.0D));
+        assertTrue(transaction.deposit(account2, 10.0D));
+        assertTrue(transaction.deposit(account3, 5.0D));
+
+        assertTrue(isSuccess(transaction.commit()));
+        assertTrue(transaction.isCommitted());
+
+        assertEquals(5.0D, account1.getBalance(), 0.0D);
+        assertEquals(10.0D, account2.getBalance(), 0.0D);
+        assertEquals(10.0D, account3.getBalance(), 0.0D);
+
+        // single batch per journal
+        assertEquals(1, _journal.batches.size());
+        assertEquals(0, _journal.records);
+        assertEquals(2, _journal.batches.get(0).size());
+        assertEquals(5.0D, _journal.batches.get(0).get(account1.getPlayerId()), 0.0D);
+        assertEquals(10.0D, _journal.batches.get(0).get(account2.getPlayerId()), 0.0D);
+
+        assertEquals(1, _bankJournal.batches.size());
+        assertEquals(0, _bankJournal.records);
+        assertEquals(10.0D, _bankJournal.batches.get(0).get(account3.getPlayerId()), 0.0D);
+    }
+
+    /**
+     * Make sure a deposit into an account with a negative balance does not
+     * fail the funds check of a transaction that is not forced.
+     */
+    @Test
+    public void testDepositIntoNegativeBalance() throws Exception {
+
+        NucleusAccount account1 = account(UUID.randomUUID(), 20.0D);
+        NucleusAccount account2 = account(UUID.randomUUID(), -10.0D);
+
+        NucleusTransaction transaction = new NucleusTransaction();
+        assertTrue(transaction.withdraw(account1, 5.0D));
+        assertTrue(transaction.deposit(account2, 5.0D));
+
+        assertTrue(isSuccess(transaction.commit()));
+
+        assertEquals(15.0D, account1.getBalance(), 0.0D);
+        assertEquals(-5.0D, account2.getBalance(), 0.0D);
+    }
+
+    /**
+     * Make sure a cancelled transaction event does not change any
+     * balance and nothing is recorded in the journal.
+     */
+    @Test
+    public void testCancelledEvent() throws Exception {
+
+        NucleusAccount account1 = account(UUID.randomUUID(), 20.0D);
+        NucleusAccount account2 = account(UUID.randomUUID(), 0.0D);
+
+        final EconTransactionEvent[] called = new EconTransactionEvent[1];
+
+        EventSubscriber<EconTransactionEvent> subscriber = new EventSubscriber<EconTransactionEvent>() {
+            @Override
+            public void onEvent(@Nullable Object caller, EconTransactionEvent event) {
+                called[0] = event;
+                event.setCancelled(true);
+            }
+        };
+
+        Nucleus.getEventManager().register(plugin, EconTransactionEvent.class, subscriber);
+
+        try {
+            NucleusTransaction transaction = new NucleusTransaction();
+            assertTrue(transaction.withdraw(account1, 15.0D));
+            assertTrue(transaction.deposit(account2, 15.0D));
+
+            assertFalse(isSuccess(transaction.commit()));
+        }
+        finally {
+            Nucleus.getEventManager().unregister(subscriber);
+        }
+
+        assertTrue(called[0] != null);
+        assertEquals(-15.0D, called[0].getDelta(account1), 0.0D);
+        assertEquals(15.0D, called[0].getDelta(account2), 0.0D);
+
+        assertEquals(20.0D, account1.getBalance(), 0.0D);
+        assertEquals(0.0D, account2.getBalance(), 0.0D);
+
+        assertEquals(0, _journal.batches.size());
+        assertEquals(0, _journal.records);
+    }
+
+    /**
+     * Make sure the monitors of the accounts in a transaction are not held
+     * while the transaction event is called.
+     */
+    @Test
+    public void testAccountsNotLockedDuringEvent() throws Exception {
+
+        final NucleusAccount account1 = account(UUID.randomUUID(), 20.0D);
+        final NucleusAccount account2 = bankAccount(UUID.randomUUID(), 0.0D);
+
+        final boolean[] isLocked = new boolean[] { true };
+
+        EventSubscriber<EconTransactionEvent> subscriber = new EventSubscriber<EconTransactionEvent>() {
+            @Override
+            public void onEvent(@Nullable Object caller, EconTransactionEvent event) {
+                isLocked[0] = Thread.holdsLock(account1) || Thread.holdsLock(account2);
+            }
+        };
+
+        Nucleus.getEventManager().register(plugin, EconTransactionEvent.class, subscriber);
+
+        try {
+            NucleusTransaction transaction = new NucleusTransaction();
+            assertTrue(transaction.withdraw(account1, 15.0D));
+            assertTrue(transaction.deposit(account2, 15.0D));
+
+            assertTrue(isSuccess(transaction.commit()));
+        }
+        finally {
+            Nucleus.getEventManager().unregister(subscriber);
+        }
+
+        assertFalse(isLocked[0]);
+    }
+
+    /**
+     * Make sure the funds of a transaction are checked again after the
+     * transaction event is called.
+     */
+    @Test
+    public void testFundsCheckedAfterEvent() throws Exception {
+
+        final NucleusAccount account1 = account(UUID.randomUUID(), 20.0D);
+        final NucleusAccount account2 = account(UUID.randomUUID(), 0.0D);
+
+        EventSubscriber<EconTransactionEvent> subscriber = new EventSubscriber<EconTransactionEvent>() {
+            @Override
+            public void onEvent(@Nullable Object caller, EconTransactionEvent event) {
+                // spend the funds while the event is called
+                account1.withdraw(10.0D);
+            }
+        };
+
+        Nucleus.getEventManager().register(plugin, EconTransactionEvent.class, subscriber);
+
+        try {
+            NucleusTransaction transaction = new NucleusTransaction();
+            assertTrue(transaction.withdraw(account1, 15.0D));
+            assertTrue(transaction.deposit(account2, 15.0D));
+
+            assertFalse(isSuccess(transaction.commit()));
+        }
+        finally {
+            Nucleus.getEventManager().unregister(subscriber);
+        }
+
+        assertEquals(10.0D, account1.getBalance(), 0.0D);
+        assertEquals(0.0D, account2.getBalance(), 0.0D);
+    }
+
+    /**
+     * Make sure account monitors are ordered by bank name with the global
+     * bank first, then by player ID.
+     */
+    @Test
+    public void testLockOrder() throws Exception {
+
+        UUID low = new UUID(0L, 1L);
+        UUID high = new UUID(0L, 2L);
+
+        NucleusAccount globalLow = account(low, 0.0D);
+        NucleusAccount globalHigh = account(high, 0.0D);
+        NucleusAccount bankLow = bankAccount(low, 0.0D);
+        NucleusAccount bankHigh = bankAccount(high, 0.0D);
+
+        List<NucleusAccount> accounts = new ArrayList<>(4);
+        accounts.add(bankHigh);
+        accounts.add(globalHigh);
+        accounts.add(bankLow);
+        accounts.add(globalLow);
+
+        Collections.sort(accounts, NucleusTransaction.LOCK_ORDER);
+
+        assertTrue(accounts.get(0) == globalLow);
+        assertTrue(accounts.get(1) == globalHigh);
+        assertTrue(accounts.get(2) == bankLow);
+        assertTrue(accounts.get(3) == bankHigh);
+    }
+
+    /**
+     * Make sure transactions committed concurrently in opposite directions
+     * between the same accounts do not deadlock.
+     */
+    @Test
+    public void testConcurrentCommit() throws Exception {
+
+        final NucleusAccount account1 = account(UUID.randomUUID(), 1000.0D);
+        final NucleusAccount account2 = account(UUID.randomUUID(), 1000.0D);
+
+        Transfers transfers1 = new Transfers(account1, account2);
+        Transfers transfers2 = new Transfers(account2, account1);
+
+        Thread thread1 = new Thread(transfers1);
+        Thread thread2 = new Thread(transfers2);
+
+        thread1.start();
+        thread2.start();
+
+        thread1.join(10000);
+        thread2.join(10000);
+
+        assertFalse(thread1.isAlive());
+        assertFalse(thread2.isAlive());
+
+        assertEquals(Transfers.TOTAL, transfers1.committed);
+        assertEquals(Transfers.TOTAL, transfers2.committed);
+
+        assertEquals(2000.0D, account1.getBalance() + account2.getBalance(), 0.0D);
+    }
+
+    private static class Transfers implements Runnable {
+
+        static final int TOTAL = 500;
+
+        final IAccount from;
+        final IAccount to;
+        volatile int committed;
+
+        Transfers(IAccount from, IAccount to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        public void run() {
+            for (int i=0; i < TOTAL; i++) {
+                NucleusTransaction transaction = new NucleusTransaction();
+                transaction.withdraw(from, 1.0D);
+                transaction.deposit(to, 1.0D);
+
+                if (isSuccess(transaction.commit()))
+                    committed++;
+            }
+        }
+    }
+
+    /*
+     * Journal that counts recorded balances and batches.
+     */
+    private static class CountingJournal extends AccountJournal {
+
+        final List<Map<UUID, Double>> batches = Collections.synchronizedList(
+                new ArrayList<Map<UUID, Double>>(5));
+
+        volatile int records;
+
+        CountingJournal() throws Exception {
+            super(plugin, new NodeAccountStorage(new MemoryDataNode(plugin)), tempFile());
+        }
+
+        @Override
+        void record(UUID playerId, double balance) {
+            records++;
+            super.record(playerId, balance);
+        }
+
+        @Override
+        void record(Map<UUID, Double> balances) {
+            batches.add(balances);
+            super.record(balances);
+        }
+
+        private static File tempFile() throws Exception {
+            File file = File.createTempFile("transaction", "." + AccountJournal.FILE_EXTENSION);
+            file.deleteOnExit();
+            return file;
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.jcwhatever.nucleus.internal.providers.economy;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import com.jcwhatever.v1_8_R3.BukkitTester;
+import com.jcwhatever.nucleus.NucleusTest;
+import com.jcwhatever.nucleus.storage.IDataNode;
+import com.jcwhatever.nucleus.storage.MemoryDataNode;
+
+import org.bukkit.plugin.Plugin;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.UUID;
+
+public class ShardedAccountStorageTest {
+
+    private static Plugin plugin;
+
+    @BeforeClass
+    public static void init() {
+        NucleusTest.init();
+        plugin = BukkitTester.mockPlugin("dummy");
+    }
+
+    /**
+     * Make sure account nodes are saved into their own file and
+     * loaded by a new storage instance.
+     */
+    @Test
+    public void testSaveAndLoad() throws Exception {
+
+        File folder = Files.createTempDirectory("accounts").toFile();
+        folder.deleteOnExit();
+
+        UUID playerId = UUID.randomUUID();
+
+        ShardedAccountStorage storage = new ShardedAccountStorage(plugin, folder);
+
+        IDataNode node = storage.getNode(playerId);
+        node.set("balance", 10.0D);
+
+        // the same node is returned while it is referenced
+        assertSame(node, storage.getNode(playerId));
+
+        storage.setChanged(playerId);
+        assertTrue(storage.saveSync());
+
+        File shard = new File(folder, playerId.toString().substring(0, 2));
+        assertTrue(new File(shard, playerId + ".yml").exists());
+
+        ShardedAccountStorage loaded = new ShardedAccountStorage(plugin, folder);
+
+        assertEquals(10.0D, loaded.getNode(playerId).getDouble("balance"), 0.0D);
+    }
+
+    /**
+     * Make sure removing an account deletes its file.
+     */
+    @Test
+    public void testRemove() throws Exception {
+
+        File folder = Files.createTempDirectory("accounts").toFile();
+        folder.deleteOnExit();
+
+        UUID playerId = UUID.randomUUID();
+
+        ShardedAccountStorage storage = new ShardedAccountStorage(plugin, folder);
+
+        storage.getNode(playerId).set("balance", 10.0D);
+        storage.setChanged(playerId);
+        storage.saveSync();
+
+        storage.remove(playerId);
+
+        File shard = new File(folder, playerId.toString().substring(0, 2));
+        assertFalse(new File(shard, playerId + ".yml").exists());
+    }
+
+    /**
+     * Make sure accounts are imported from a single data node.
+     */
+    @Test
+    public void testImportAccounts() throws Exception {
+
+        File folder = Files.createTempDirectory("accounts").toFile();
+        folder.deleteOnExit();
+
+        UUID playerId1 = UUID.randomUUID();
+        UUID playerId2 = UUID.randomUUID();
+
+        IDataNode dataNode = new MemoryDataNode(plugin);
+        dataNode.set(playerId1 + ".balance", 10.0D);
+        dataNode.set(playerId2 + ".balance", 20.0D);
+        dataNode.set("not-an-account.balance", 30.0D);
+
+        ShardedAccountStorage storage = new ShardedAccountStorage(plugin, folder);
+
+        assertEquals(2, storage.importAccounts(dataNode));
+        assertTrue(storage.saveSync());
+
+        ShardedAccountStorage loaded = new ShardedAccountStorage(plugin, folder);
+
+        assertEquals(10.0D, loaded.getNode(playerId1).getDouble("balance"), 0.0D);
+        assertEquals(20.0D, loaded.getNode(playerId2).getDouble("balance"), 0.0D);
+    }
+}
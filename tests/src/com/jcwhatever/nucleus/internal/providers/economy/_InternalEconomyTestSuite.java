@@ -5,7 +5,10 @@ import org.junit.runners.Suite;
 
 @RunWith(Suite.class)
 @Suite.SuiteClasses({
-        NucleusEconomyProviderTest.class
+        AccountJournalTest.class,
+        NucleusEconomyProviderTest.class,
+        NucleusTransactionTest.class,
+        ShardedAccountStorageTest.class
 })
 public class _InternalEconomyTestSuite {
 }
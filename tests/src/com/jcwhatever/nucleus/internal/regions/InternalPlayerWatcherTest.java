@@ -0,0 +1,240 @@
+package com.jcwhatever.nucleus.internal.regions;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.jcwhatever.nucleus.Nucleus;
+import com.jcwhatever.nucleus.NucleusTest;
+import com.jcwhatever.nucleus.regions.BasicRegion;
+import com.jcwhatever.nucleus.regions.IRegionEventHandler;
+import com.jcwhatever.nucleus.regions.options.EnterRegionReason;
+import com.jcwhatever.nucleus.regions.options.LeaveRegionReason;
+import com.jcwhatever.v1_8_R3.BukkitTester;
+
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.entity.Player;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Tests {@link InternalPlayerWatcher}.
+ */
+public class InternalPlayerWatcherTest {
+
+    @BeforeClass
+    public static void init() {
+        NucleusTest.init();
+    }
+
+    /*
+     * Login players with the specified name prefix.
+     */
+    private static List<Player> login(String prefix, int total) {
+
+        List<Player> players = new ArrayList<>(total);
+
+        for (int i=0; i < total; i++) {
+            players.add(BukkitTester.login(prefix + i));
+        }
+
+        return players;
+    }
+
+    /*
+     * Register a listener region that covers (0, 0, 0) to (10, 10, 10) with a
+     * region manager.
+     */
+    private static BasicRegion region(InternalRegionManager manager, String name,
+                                      World world, Handler handler) {
+
+        BasicRegion region = new BasicRegion(Nucleus.getPlugin(), name);
+        region.setCoords(new Location(world, 0, 0, 0), new Location(world, 10, 10, 10));
+        region.addEventHandler(handler);
+
+        manager.register(region);
+
+        return region;
+    }
+
+    /*
+     * Record a movement sample for each player.
+     */
+    private static void move(InternalPlayerWatcher watcher, List<Player> players, Location location) {
+
+        for (Player player : players) {
+            watcher.updatePlayerLocation(player, location, RegionEventReason.MOVE);
+        }
+    }
+
+    /*
+     * Get the players in the order the watcher queues them.
+     */
+    private static List<Player> queueOrder(World world, List<Player> players) {
+
+        List<Player> result = new ArrayList<>(players.size());
+
+        for (Player player : world.getPlayers()) {
+            if (players.contains(player))
+                result.add(player);
+        }
+
+        return result;
+    }
+
+    /**
+     * Make sure region events detected by different shards are called in the
+     * order the players were queued, regardless of the order the shards are run.
+     */
+    @Test
+    public void testShardEventOrder() throws Exception {
+
+        InternalRegionManager manager = new InternalRegionManager(Nucleus.getPlugin());
+        InternalPlayerWatcher watcher = new InternalPlayerWatcher(manager, 4, false);
+
+        List<Player> players = login("watcherOrder", 12);
+        World world = players.get(0).getWorld();
+
+        Handler handler = new Handler();
+        region(manager, "testShardEventOrder", world, handler);
+
+        List<Player> expected = queueOrder(world, players);
+        assertEquals(12, expected.size());
+
+        move(watcher, players, new Location(world, 5, 5, 5));
+
+        watcher.fillQueues();
+        assertTrue(watcher.getRunningShards() > 1);
+
+        // run the shards in reverse order
+        for (int i=3; i >= 0; i--) {
+            watcher.runShard(i);
+        }
+
+        assertEquals(0, watcher.getRunningShards());
+        assertEquals(0, handler.entered.size());
+
+        // events are called by the next cycle
+        watcher.fillQueues();
+
+        assertEquals(expected, handler.entered);
+
+        move(watcher, players, new Location(world, 50, 5, 50));
+
+        watcher.fillQueues();
+
+        for (int i=0; i < 4; i++) {
+            watcher.runShard(i);
+        }
+
+        watcher.fillQueues();
+
+        assertEquals(expected, handler.left);
+    }
+
+    /**
+     * Make sure a batch queued into a shard is processed once when the shard is run
+     * more than once at the same time, i.e. by overlapping async repeating tasks.
+     */
+    @Test
+    public void testShardRunOnce() throws Exception {
+
+        InternalRegionManager manager = new InternalRegionManager(Nucleus.getPlugin());
+        final InternalPlayerWatcher watcher = new InternalPlayerWatcher(manager, 4, false);
+
+        List<Player> players = login("watcherOnce", 8);
+        World world = players.get(0).getWorld();
+
+        Handler handler = new Handler();
+        region(manager, "testShardRunOnce", world, handler);
+
+        for (int cycle=0; cycle < 10; cycle++) {
+
+            move(watcher, players, cycle % 2 == 0
+                    ? new Location(world, 5, 5, 5)
+                    : new Location(world, 50, 5, 50));
+
+            watcher.fillQueues();
+            assertTrue(watcher.getRunningShards() > 0);
+
+            for (int i=0; i < 4; i++) {
+
+                final int index = i;
+                final CountDownLatch start = new CountDownLatch(1);
+
+                List<Thread> threads = new ArrayList<>(3);
+
+                for (int j=0; j < 3; j++) {
+                    Thread thread = new Thread(new Runnable() {
+                        @Override
+                        public void run() {
+                            try {
+                                start.await();
+                            } catch (InterruptedException e) {
+                                return;
+                            }
+                            watcher.runShard(index);
+                        }
+                    });
+                    thread.start();
+                    threads.add(thread);
+                }
+
+                start.countDown();
+
+                for (Thread thread : threads) {
+                    thread.join(5000);
+                }
+
+                // the batch is already claimed
+                watcher.runShard(index);
+            }
+
+            assertEquals(0, watcher.getRunningShards());
+        }
+
+        watcher.fillQueues();
+
+        assertEquals(5 * 8, handler.entered.size());
+        assertEquals(5 * 8, handler.left.size());
+
+        // each player entered and left once per cycle
+        for (int cycle=0; cycle < 5; cycle++) {
+            int start = cycle * 8;
+            assertEquals(8, new HashSet<>(handler.entered.subList(start, start + 8)).size());
+            assertEquals(8, new HashSet<>(handler.left.subList(start, start + 8)).size());
+        }
+    }
+
+    private static class Handler implements IRegionEventHandler {
+
+        final List<Player> entered = Collections.synchronizedList(new ArrayList<Player>(50));
+        final List<Player> left = Collections.synchronizedList(new ArrayList<Player>(50));
+
+        @Override
+        public boolean canDoPlayerEnter(Player player, EnterRegionReason reason) {
+            return true;
+        }
+
+        @Override
+        public boolean canDoPlayerLeave(Player player, LeaveRegionReason reason) {
+            return true;
+        }
+
+        @Override
+        public void onPlayerEnter(Player player, EnterRegionReason reason) {
+            entered.add(player);
+        }
+
+        @Override
+        public void onPlayerLeave(Player player, LeaveRegionReason reason) {
+            left.add(player);
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.jcwhatever.nucleus.internal.regions;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.jcwhatever.nucleus.Nucleus;
+import com.jcwhatever.nucleus.NucleusTest;
+import com.jcwhatever.nucleus.regions.BasicRegion;
+import com.jcwhatever.v1_8_R3.BukkitTester;
+import com.jcwhatever.v1_8_R3.MockWorld;
+
+import org.bukkit.Location;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Tests {@link InternalRegionManager}.
+ */
+public class InternalRegionManagerTest {
+
+    MockWorld _world = BukkitTester.world("regionManagerWorld");
+
+    @BeforeClass
+    public static void init() {
+        NucleusTest.init();
+    }
+
+    private BasicRegion region(String name, int x) {
+        BasicRegion region = new BasicRegion(Nucleus.getPlugin(), name);
+        region.setCoords(new Location(_world, x, 0, 0), new Location(_world, x + 10, 10, 10));
+        return region;
+    }
+
+    /**
+     * Make sure regions registered by a batch operation are registered when
+     * the outermost batch operation ends.
+     */
+    @Test
+    public void testBatchOperation() throws Exception {
+
+        final InternalRegionManager manager = new InternalRegionManager(Nucleus.getPlugin());
+
+        final BasicRegion region1 = region("testBatchOperation1", 0);
+        final BasicRegion region2 = region("testBatchOperation2", 100);
+
+        manager.runBatchOperation(new Runnable() {
+            @Override
+            public void run() {
+
+                manager.register(region1);
+
+                manager.runBatchOperation(new Runnable() {
+                    @Override
+                    public void run() {
+                        manager.register(region2);
+                    }
+                });
+
+                // the outer batch operation has not ended
+                assertFalse(manager.hasRegion(new Location(_world, 5, 5, 5)));
+                assertFalse(manager.hasRegion(new Location(_world, 105, 5, 5)));
+            }
+        });
+
+        assertTrue(manager.hasRegion(new Location(_world, 5, 5, 5)));
+        assertTrue(manager.hasRegion(new Location(_world, 105, 5, 5)));
+    }
+
+    /**
+     * Make sure a region registered on a different thread while a batch operation
+     * is running is registered immediately.
+     */
+    @Test
+    public void testBatchOperationOtherThread() throws Exception {
+
+        final InternalRegionManager manager = new InternalRegionManager(Nucleus.getPlugin());
+
+        final BasicRegion batchRegion = region("testBatchOperationOtherThread1", 200);
+        final BasicRegion otherRegion = region("testBatchOperationOtherThread2", 300);
+
+        final boolean[] isRegistered = new boolean[1];
+
+        manager.runBatchOperation(new Runnable() {
+            @Override
+            public void run() {
+
+                manager.register(batchRegion);
+
+                Thread thread = new Thread(new Runnable() {
+                    @Override
+                    public void run() {
+                        manager.register(otherRegion);
+                    }
+                });
+
+                thread.start();
+
+                try {
+                    thread.join(5000);
+                } catch (InterruptedException e) {
+                    throw new RuntimeException(e);
+                }
+
+                isRegistered[0] = manager.hasRegion(new Location(_world, 305, 5, 5));
+
+                assertFalse(manager.hasRegion(new Location(_world, 205, 5, 5)));
+            }
+        });
+
+        assertTrue(isRegistered[0]);
+        assertTrue(manager.hasRegion(new Location(_world, 205, 5, 5)));
+    }
+}
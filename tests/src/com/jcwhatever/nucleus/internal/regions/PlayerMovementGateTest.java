@@ -0,0 +1,212 @@
+package com.jcwhatever.nucleus.internal.regions;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.jcwhatever.nucleus.Nucleus;
+import com.jcwhatever.nucleus.NucleusTest;
+import com.jcwhatever.nucleus.internal.regions.PlayerMovementGate.SkipReason;
+import com.jcwhatever.nucleus.regions.BasicRegion;
+import com.jcwhatever.nucleus.regions.IRegion;
+import com.jcwhatever.nucleus.regions.IRegionEventHandler;
+import com.jcwhatever.nucleus.regions.options.EnterRegionReason;
+import com.jcwhatever.nucleus.regions.options.LeaveRegionReason;
+import com.jcwhatever.v1_8_R3.BukkitTester;
+import com.jcwhatever.v1_8_R3.MockWorld;
+
+import org.bukkit.Location;
+import org.bukkit.entity.Player;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Tests {@link PlayerMovementGate}.
+ */
+public class PlayerMovementGateTest {
+
+    MockWorld _world = BukkitTester.world("gateWorld");
+    MockWorld _otherWorld = BukkitTester.world("gateOtherWorld");
+
+    @BeforeClass
+    public static void init() {
+        NucleusTest.init();
+    }
+
+    /*
+     * Get a region manager with a listener region that covers
+     * (10, 0, 10) to (20, 10, 20).
+     */
+    private RegionTypeManager<IRegion> manager(String name) {
+
+        RegionTypeManager<IRegion> manager = new RegionTypeManager<>(IRegion.class);
+        manager.register(region(name, 10, 0, 10, 20, 10, 20));
+
+        return manager;
+    }
+
+    private BasicRegion region(String name, int x1, int y1, int z1, int x2, int y2, int z2) {
+        BasicRegion region = new BasicRegion(Nucleus.getPlugin(), name);
+        region.setCoords(new Location(_world, x1, y1, z1), new Location(_world, x2, y2, z2));
+        region.addEventHandler(new Handler());
+        return region;
+    }
+
+    /**
+     * Make sure the first sample is never skipped and a sample in the
+     * same block as the previous sample is skipped.
+     */
+    @Test
+    public void testSameBlock() throws Exception {
+
+        RegionTypeManager<IRegion> manager = manager("testSameBlock");
+        PlayerMovementGate gate = new PlayerMovementGate();
+
+        assertFalse(gate.isValid("gateWorld", manager.getIndexVersion()));
+
+        assertNull(gate.check(manager, _world, 2, 5, 2));
+        assertTrue(gate.isValid("gateWorld", manager.getIndexVersion()));
+
+        assertEquals(SkipReason.SAME_BLOCK, gate.check(manager, _world, 2, 5, 2));
+        assertEquals(SkipReason.SAME_BLOCK, gate.check(manager, _world, 2, 5, 2));
+    }
+
+    /**
+     * Make sure samples within the boundary distance of the gate sample are
+     * skipped, including a sample exactly at the boundary distance, and the
+     * first sample beyond it is evaluated.
+     */
+    @Test
+    public void testBoundaryDistance() throws Exception {
+
+        RegionTypeManager<IRegion> manager = manager("testBoundaryDistance");
+        PlayerMovementGate gate = new PlayerMovementGate();
+
+        // 5 blocks from the chunk edge, 5 blocks from the region
+        assertNull(gate.check(manager, _world, 5, 5, 5));
+        assertEquals(4, gate.getBoundaryDistance());
+        assertFalse(gate.isInRegion());
+
+        assertEquals(SkipReason.NEAR_BOUNDARY, gate.check(manager, _world, 6, 6, 6));
+
+        // edge of the boundary distance, still outside of the region
+        assertEquals(SkipReason.NEAR_BOUNDARY, gate.check(manager, _world, 9, 5, 9));
+        assertEquals(SkipReason.NEAR_BOUNDARY, gate.check(manager, _world, 1, 1, 1));
+
+        // the gate sample is not moved by skipped samples
+        assertEquals(4, gate.getDistance(9, 5, 9));
+
+        // one block beyond the boundary distance is inside the region
+        assertNull(gate.check(manager, _world, 10, 5, 10));
+        assertTrue(gate.isInRegion());
+        assertEquals(0, gate.getBoundaryDistance());
+
+        // leaving the region is never skipped
+        assertNull(gate.check(manager, _world, 9, 5, 10));
+        assertFalse(gate.isInRegion());
+    }
+
+    /**
+     * Make sure samples that are not in a listener region and whose gate sample was
+     * not in a listener region are skipped after they are evaluated.
+     */
+    @Test
+    public void testOutsideRegions() throws Exception {
+
+        RegionTypeManager<IRegion> manager = manager("testOutsideRegions");
+        PlayerMovementGate gate = new PlayerMovementGate();
+
+        // no listener regions in the chunk, limited to the chunk edge
+        assertNull(gate.check(manager, _world, 100, 5, 100));
+        assertEquals(4, gate.getBoundaryDistance());
+
+        assertEquals(SkipReason.NEAR_BOUNDARY, gate.check(manager, _world, 100, 5, 104));
+
+        // beyond the boundary distance, evaluated and skipped
+        assertEquals(SkipReason.NO_REGION, gate.check(manager, _world, 100, 5, 105));
+        assertEquals(0, gate.getDistance(100, 5, 105));
+
+        // entering the region from outside is not skipped
+        gate.check(manager, _world, 18, 5, 22);
+        assertNull(gate.check(manager, _world, 18, 5, 19));
+        assertTrue(gate.isInRegion());
+    }
+
+    /**
+     * Make sure the next sample is evaluated after the gate is reset, i.e.
+     * when the player teleports.
+     */
+    @Test
+    public void testReset() throws Exception {
+
+        RegionTypeManager<IRegion> manager = manager("testReset");
+        PlayerMovementGate gate = new PlayerMovementGate();
+
+        assertNull(gate.check(manager, _world, 2, 5, 2));
+        assertEquals(SkipReason.SAME_BLOCK, gate.check(manager, _world, 2, 5, 2));
+
+        gate.reset();
+
+        assertFalse(gate.isValid("gateWorld", manager.getIndexVersion()));
+        assertNull(gate.check(manager, _world, 2, 5, 2));
+    }
+
+    /**
+     * Make sure the gate sample is not used for a sample in a different world.
+     */
+    @Test
+    public void testWorldChange() throws Exception {
+
+        RegionTypeManager<IRegion> manager = manager("testWorldChange");
+        PlayerMovementGate gate = new PlayerMovementGate();
+
+        assertNull(gate.check(manager, _world, 2, 5, 2));
+
+        assertFalse(gate.isValid("gateOtherWorld", manager.getIndexVersion()));
+        assertNull(gate.check(manager, _otherWorld, 2, 5, 2));
+        assertTrue(gate.isValid("gateOtherWorld", manager.getIndexVersion()));
+
+        assertNull(gate.check(manager, _world, 2, 5, 2));
+    }
+
+    /**
+     * Make sure the gate sample is not used after a region is registered.
+     */
+    @Test
+    public void testIndexChanged() throws Exception {
+
+        RegionTypeManager<IRegion> manager = manager("testIndexChanged");
+        PlayerMovementGate gate = new PlayerMovementGate();
+
+        assertNull(gate.check(manager, _world, 2, 5, 2));
+
+        manager.register(region("testIndexChanged2", 0, 0, 0, 3, 10, 3));
+
+        assertNull(gate.check(manager, _world, 2, 5, 2));
+        assertTrue(gate.isInRegion());
+    }
+
+    private static class Handler implements IRegionEventHandler {
+
+        @Override
+        public boolean canDoPlayerEnter(Player player, EnterRegionReason reason) {
+            return true;
+        }
+
+        @Override
+        public boolean canDoPlayerLeave(Player player, LeaveRegionReason reason) {
+            return true;
+        }
+
+        @Override
+        public void onPlayerEnter(Player player, EnterRegionReason reason) {
+            // do nothing
+        }
+
+        @Override
+        public void onPlayerLeave(Player player, LeaveRegionReason reason) {
+            // do nothing
+        }
+    }
+}
@@ -0,0 +1,225 @@
+package com.jcwhatever.nucleus.internal.regions;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import com.jcwhatever.nucleus.Nucleus;
+import com.jcwhatever.nucleus.NucleusTest;
+import com.jcwhatever.nucleus.internal.regions.RegionChunkIndex.ChunkBucket;
+import com.jcwhatever.nucleus.internal.regions.RegionChunkIndex.ChunkTable;
+import com.jcwhatever.nucleus.internal.regions.RegionChunkIndex.IndexedRegion;
+import com.jcwhatever.nucleus.regions.BasicRegion;
+import com.jcwhatever.nucleus.regions.IRegion;
+import com.jcwhatever.v1_8_R3.BukkitTester;
+import com.jcwhatever.v1_8_R3.MockWorld;
+
+import org.bukkit.Location;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Tests {@link RegionChunkIndex}.
+ */
+public class RegionChunkIndexTest {
+
+    MockWorld _world = BukkitTester.world("world");
+
+    @BeforeClass
+    public static void init() {
+        NucleusTest.init();
+    }
+
+    private BasicRegion region(String name, int x1, int y1, int z1, int x2, int y2, int z2) {
+        BasicRegion region = new BasicRegion(Nucleus.getPlugin(), name);
+        region.setCoords(new Location(_world, x1, y1, z1), new Location(_world, x2, y2, z2));
+        return region;
+    }
+
+    /**
+     * Make sure regions are found at the locations they contain.
+     */
+    @Test
+    public void testGetRegions() throws Exception {
+
+        RegionChunkIndex<IRegion> index = new RegionChunkIndex<>();
+
+        BasicRegion region1 = region("testGetRegions1", -20, 0, -20, 20, 10, 20);
+        BasicRegion region2 = region("testGetRegions2", 15, 0, 15, 40, 10, 40);
+
+        index.add(region1);
+        index.add(region2);
+
+        assertEquals(2, index.size());
+
+        List<IRegion> output = new ArrayList<>(5);
+
+        index.getRegions("world", -20, 5, -20, output);
+        assertEquals(1, output.size());
+        assertEquals(region1, output.get(0));
+
+        output.clear();
+        index.getRegions("world", 17, 5, 17, output);
+        assertEquals(2, output.size());
+
+        output.clear();
+        index.getRegions("world", 17, 11, 17, output);
+        assertEquals(0, output.size());
+
+        output.clear();
+        index.getRegions("world", -21, 5, -20, output);
+        assertEquals(0, output.size());
+
+        output.clear();
+        index.getRegions("otherWorld", 0, 5, 0, output);
+        assertEquals(0, output.size());
+
+        assertEquals(true, index.contains("world", 40, 10, 40));
+        assertEquals(false, index.contains("world", 41, 10, 40));
+    }
+
+    /**
+     * Make sure removed regions are no longer found.
+     */
+    @Test
+    public void testRemove() throws Exception {
+
+        RegionChunkIndex<IRegion> index = new RegionChunkIndex<>();
+
+        BasicRegion region = region("testRemove", 0, 0, 0, 50, 10, 50);
+
+        assertNull(index.add(region));
+        assertNotNull(index.add(region));
+        assertEquals(1, index.size());
+
+        assertNotNull(index.remove(region));
+        assertNull(index.remove(region));
+
+        assertEquals(0, index.size());
+        assertEquals(false, index.contains("world", 10, 5, 10));
+        assertEquals(0, index.getRegionsInChunk("world", 0, 0, new ArrayList<IRegion>(0)).size());
+    }
+
+    /**
+     * Make sure regions added in bulk are found and previous entries
+     * are replaced.
+     */
+    @Test
+    public void testAddAll() throws Exception {
+
+        RegionChunkIndex<IRegion> index = new RegionChunkIndex<>();
+
+        BasicRegion region1 = region("testAddAll1", 0, 0, 0, 40, 10, 40);
+        BasicRegion region2 = region("testAddAll2", 20, 0, 20, 60, 10, 60);
+
+        index.add(region1);
+
+        Map<IRegion, IndexedRegion> previous = index.addAll(Arrays.<IRegion>asList(region1, region2));
+
+        assertEquals(1, previous.size());
+        assertNotNull(previous.get(region1));
+        assertEquals(2, index.size());
+
+        List<IRegion> output = index.getRegions("world", 30, 5, 30, new ArrayList<IRegion>(2));
+        assertEquals(2, output.size());
+
+        output = index.getRegionsInChunk("world", 0, 0, new ArrayList<IRegion>(2));
+        assertEquals(1, output.size());
+        assertEquals(region1, output.get(0));
+    }
+
+    /**
+     * Make sure regions are found in a chunk dense enough to use a chunk R-tree.
+     */
+    @Test
+    public void testDenseChunk() throws Exception {
+
+        RegionChunkIndex<IRegion> index = new RegionChunkIndex<>();
+
+        int total = RegionChunkIndex.DENSE_BUCKET_SIZE * 2;
+
+        for (int i = 0; i < total; i++) {
+            index.add(region("testDenseChunk" + i, 0, i, 0, 15, i, 15));
+        }
+
+        List<IRegion> output = new ArrayList<>(5);
+
+        for (int i = 0; i < total; i++) {
+            output.clear();
+            index.getRegions("world", 5, i, 5, output);
+
+            assertEquals(1, output.size());
+            assertEquals("testDenseChunk" + i, output.get(0).getName());
+            assertEquals(true, index.contains("world", 5, i, 5));
+        }
+
+        assertEquals(false, index.contains("world", 5, total, 5));
+    }
+
+    /**
+     * Make sure box intersection lookups return the correct regions.
+     */
+    @Test
+    public void testGetRegionsInBox() throws Exception {
+
+        RegionChunkIndex<IRegion> index = new RegionChunkIndex<>();
+
+        BasicRegion region1 = region("testGetRegionsInBox1", 0, 0, 0, 10, 10, 10);
+        BasicRegion region2 = region("testGetRegionsInBox2", 100, 0, 100, 110, 10, 110);
+
+        index.add(region1);
+        index.add(region2);
+
+        List<IRegion> output = index.getRegions("world", 5, 5, 5, 105, 5, 105, new ArrayList<IRegion>(2));
+        assertEquals(2, output.size());
+
+        output = index.getRegions("world", 11, 0, 11, 99, 10, 99, new ArrayList<IRegion>(2));
+        assertEquals(0, output.size());
+
+        index.remove(region2);
+
+        output = index.getRegions("world", 5, 5, 5, 105, 5, 105, new ArrayList<IRegion>(2));
+        assertEquals(1, output.size());
+        assertEquals(region1, output.get(0));
+    }
+
+    /**
+     * Make sure the chunk table returns the correct buckets after many
+     * puts and removes.
+     */
+    @Test
+    public void testChunkTable() throws Exception {
+
+        ChunkTable table = new ChunkTable(4);
+        Map<Long, ChunkBucket> expected = new HashMap<>(100);
+        Random random = new Random(1);
+
+        for (int i = 0; i < 20000; i++) {
+
+            long key = RegionChunkIndex.getChunkKey(random.nextInt(40) - 20, random.nextInt(40) - 20);
+
+            if (random.nextBoolean()) {
+                ChunkBucket bucket = new ChunkBucket(new ArrayList<IndexedRegion>(0));
+                expected.put(key, bucket);
+                table.put(key, bucket);
+            }
+            else {
+                expected.remove(key);
+                table.put(key, null);
+            }
+        }
+
+        assertEquals(expected.size(), table.size());
+
+        for (Map.Entry<Long, ChunkBucket> entry : expected.entrySet()) {
+            assertEquals(entry.getValue(), table.get(entry.getKey()));
+        }
+    }
+}
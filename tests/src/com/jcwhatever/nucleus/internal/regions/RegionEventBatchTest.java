@@ -0,0 +1,196 @@
+package com.jcwhatever.nucleus.internal.regions;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.jcwhatever.nucleus.Nucleus;
+import com.jcwhatever.nucleus.NucleusTest;
+import com.jcwhatever.nucleus.regions.BasicRegion;
+import com.jcwhatever.nucleus.regions.IRegionBatchEventListener;
+import com.jcwhatever.nucleus.regions.options.EnterRegionReason;
+import com.jcwhatever.nucleus.regions.options.LeaveRegionReason;
+import com.jcwhatever.v1_8_R3.BukkitTester;
+
+import org.bukkit.entity.Player;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Tests {@link RegionEventBatch}.
+ */
+public class RegionEventBatchTest {
+
+    @BeforeClass
+    public static void init() {
+        NucleusTest.init();
+    }
+
+    /**
+     * Make sure an enter followed by a leave in the same batch is not delivered.
+     */
+    @Test
+    public void testEnterLeaveCancels() throws Exception {
+
+        Player player = BukkitTester.login("batchPlayer1");
+        BatchListener listener = new BatchListener();
+        RegionEventBatch batch = new RegionEventBatch(
+                new BasicRegion(Nucleus.getPlugin(), "testEnterLeaveCancels"), listener);
+
+        batch.add(player, RegionEventReason.MOVE, true);
+        batch.add(player, RegionEventReason.MOVE, false);
+        batch.call();
+
+        assertEquals(0, listener.calls.size());
+    }
+
+    /**
+     * Make sure a leave followed by an enter in the same batch is not delivered.
+     */
+    @Test
+    public void testLeaveEnterCancels() throws Exception {
+
+        Player player = BukkitTester.login("batchPlayer1");
+        BatchListener listener = new BatchListener();
+        RegionEventBatch batch = new RegionEventBatch(
+                new BasicRegion(Nucleus.getPlugin(), "testLeaveEnterCancels"), listener);
+
+        batch.add(player, RegionEventReason.TELEPORT, false);
+        batch.add(player, RegionEventReason.TELEPORT, true);
+        batch.call();
+
+        assertEquals(0, listener.calls.size());
+    }
+
+    /**
+     * Make sure the net transition of a player is delivered with
+     * the reason of its last transition.
+     */
+    @Test
+    public void testNetTransition() throws Exception {
+
+        Player player = BukkitTester.login("batchPlayer1");
+        BatchListener listener = new BatchListener();
+        RegionEventBatch batch = new RegionEventBatch(
+                new BasicRegion(Nucleus.getPlugin(), "testNetTransition"), listener);
+
+        batch.add(player, RegionEventReason.MOVE, true);
+        batch.add(player, RegionEventReason.MOVE, false);
+        batch.add(player, RegionEventReason.TELEPORT, true);
+        batch.call();
+
+        assertEquals(1, listener.calls.size());
+        assertEquals(1, listener.entered.size());
+        assertEquals(EnterRegionReason.TELEPORT, listener.entered.get(0).get(player));
+    }
+
+    /**
+     * Make sure leaving players are delivered before entering players and
+     * players are in the order their first transition was added.
+     */
+    @Test
+    public void testOrder() throws Exception {
+
+        Player player1 = BukkitTester.login("batchPlayer1");
+        Player player2 = BukkitTester.login("batchPlayer2");
+        Player player3 = BukkitTester.login("batchPlayer3");
+        Player player4 = BukkitTester.login("batchPlayer4");
+
+        BatchListener listener = new BatchListener();
+        RegionEventBatch batch = new RegionEventBatch(
+                new BasicRegion(Nucleus.getPlugin(), "testOrder"), listener);
+
+        batch.add(player3, RegionEventReason.MOVE, true);
+        batch.add(player1, RegionEventReason.MOVE, true);
+        batch.add(player4, RegionEventReason.QUIT_SERVER, false);
+        batch.add(player2, RegionEventReason.DEAD, false);
+
+        batch.call();
+
+        assertEquals(2, listener.calls.size());
+        assertEquals("leave", listener.calls.get(0));
+        assertEquals("enter", listener.calls.get(1));
+
+        List<Player> left = new ArrayList<>(listener.left.get(0).keySet());
+        assertEquals(player4, left.get(0));
+        assertEquals(player2, left.get(1));
+        assertEquals(LeaveRegionReason.QUIT_SERVER, listener.left.get(0).get(player4));
+        assertEquals(LeaveRegionReason.DEAD, listener.left.get(0).get(player2));
+
+        List<Player> entered = new ArrayList<>(listener.entered.get(0).keySet());
+        assertEquals(player3, entered.get(0));
+        assertEquals(player1, entered.get(1));
+    }
+
+    /**
+     * Make sure the batch is cleared after it is called.
+     */
+    @Test
+    public void testClearedAfterCall() throws Exception {
+
+        Player player = BukkitTester.login("batchPlayer1");
+        BatchListener listener = new BatchListener();
+        RegionEventBatch batch = new RegionEventBatch(
+                new BasicRegion(Nucleus.getPlugin(), "testClearedAfterCall"), listener);
+
+        batch.add(player, RegionEventReason.MOVE, true);
+        batch.call();
+
+        assertTrue(batch.isEmpty());
+
+        batch.call();
+
+        assertEquals(1, listener.calls.size());
+    }
+
+    /**
+     * Make sure a batch is not delivered to a disposed region.
+     */
+    @Test
+    public void testDisposedRegion() throws Exception {
+
+        Player player = BukkitTester.login("batchPlayer1");
+        BatchListener listener = new BatchListener();
+        BasicRegion region = new BasicRegion(Nucleus.getPlugin(), "testDisposedRegion");
+        RegionEventBatch batch = new RegionEventBatch(region, listener);
+
+        batch.add(player, RegionEventReason.MOVE, true);
+        region.dispose();
+        batch.call();
+
+        assertEquals(0, listener.calls.size());
+        assertTrue(batch.isEmpty());
+    }
+
+    private static class BatchListener implements IRegionBatchEventListener {
+
+        List<String> calls = new ArrayList<>(5);
+        List<Map<Player, EnterRegionReason>> entered = new ArrayList<>(5);
+        List<Map<Player, LeaveRegionReason>> left = new ArrayList<>(5);
+
+        @Override
+        public void onPlayersEnter(Map<Player, EnterRegionReason> players) {
+            calls.add("enter");
+            entered.add(players);
+        }
+
+        @Override
+        public void onPlayersLeave(Map<Player, LeaveRegionReason> players) {
+            calls.add("leave");
+            left.add(players);
+        }
+
+        @Override
+        public void onPlayerEnter(Player player, EnterRegionReason reason) {
+            // do nothing
+        }
+
+        @Override
+        public void onPlayerLeave(Player player, LeaveRegionReason reason) {
+            // do nothing
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.jcwhatever.nucleus.internal.regions;
+
+import org.junit.runner.RunWith;
+import org.junit.runners.Suite;
+
+@RunWith(Suite.class)
+@Suite.SuiteClasses({
+        InternalPlayerWatcherTest.class,
+        InternalRegionManagerTest.class,
+        PlayerMovementGateTest.class,
+        RegionChunkIndexTest.class,
+        RegionEventBatchTest.class
+})
+public class _InternalRegionsTestSuite {
+}
@@ -0,0 +1,176 @@
+package com.jcwhatever.nucleus.regions;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.jcwhatever.nucleus.Nucleus;
+import com.jcwhatever.nucleus.NucleusTest;
+import com.jcwhatever.nucleus.regions.options.EnterRegionReason;
+import com.jcwhatever.nucleus.regions.options.LeaveRegionReason;
+import com.jcwhatever.v1_8_R3.BukkitTester;
+
+import org.bukkit.entity.Player;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Tests dispatching of region events to {@link IRegionEventHandler}'s.
+ */
+public class RegionEventHandlerTest {
+
+    @BeforeClass
+    public static void init() {
+        NucleusTest.init();
+    }
+
+    /**
+     * Make sure a region without batch event handlers does not use a batch listener.
+     */
+    @Test
+    public void testBatchListenerOptIn() throws Exception {
+
+        BasicRegion region = new BasicRegion(Nucleus.getPlugin(), "testBatchListenerOptIn");
+        List<String> calls = new ArrayList<>(5);
+
+        Handler handler = new Handler("a", calls);
+        region.addEventHandler(handler);
+
+        assertFalse(region.getEventListener() instanceof IRegionBatchEventListener);
+
+        BatchHandler batchHandler = new BatchHandler("b", calls);
+        region.addEventHandler(batchHandler);
+
+        assertTrue(region.getEventListener() instanceof IRegionBatchEventListener);
+
+        region.removeEventHandler(batchHandler);
+
+        assertFalse(region.getEventListener() instanceof IRegionBatchEventListener);
+    }
+
+    /**
+     * Make sure per player events are delivered to handlers in order, including
+     * an enter and leave of the same player, and are not delivered to batch handlers.
+     */
+    @Test
+    public void testPerPlayerOrder() throws Exception {
+
+        Player player = BukkitTester.login("regionEventPlayer");
+        BasicRegion region = new BasicRegion(Nucleus.getPlugin(), "testPerPlayerOrder");
+        List<String> calls = new ArrayList<>(10);
+
+        region.addEventHandler(new Handler("a", calls));
+        region.addEventHandler(new BatchHandler("b", calls));
+        region.addEventHandler(new Handler("c", calls));
+
+        IRegionEventListener listener = region.getEventListener();
+        listener.onPlayerEnter(player, EnterRegionReason.MOVE);
+        listener.onPlayerLeave(player, LeaveRegionReason.MOVE);
+
+        assertEquals(4, calls.size());
+        assertEquals("a:enter", calls.get(0));
+        assertEquals("c:enter", calls.get(1));
+        assertEquals("a:leave", calls.get(2));
+        assertEquals("c:leave", calls.get(3));
+    }
+
+    /**
+     * Make sure batches are only delivered to batch handlers.
+     */
+    @Test
+    public void testBatchDelivery() throws Exception {
+
+        Player player = BukkitTester.login("regionEventPlayer");
+        BasicRegion region = new BasicRegion(Nucleus.getPlugin(), "testBatchDelivery");
+        List<String> calls = new ArrayList<>(10);
+
+        region.addEventHandler(new Handler("a", calls));
+        region.addEventHandler(new BatchHandler("b", calls));
+
+        IRegionBatchEventListener listener = (IRegionBatchEventListener)region.getEventListener();
+        listener.onPlayersEnter(Collections.singletonMap(player, EnterRegionReason.MOVE));
+        listener.onPlayersLeave(Collections.singletonMap(player, LeaveRegionReason.MOVE));
+
+        assertEquals(2, calls.size());
+        assertEquals("b:enter:1", calls.get(0));
+        assertEquals("b:leave:1", calls.get(1));
+    }
+
+    /**
+     * Make sure an exception thrown by a handler does not prevent
+     * other handlers from receiving the event.
+     */
+    @Test
+    public void testHandlerException() throws Exception {
+
+        Player player = BukkitTester.login("regionEventPlayer");
+        BasicRegion region = new BasicRegion(Nucleus.getPlugin(), "testHandlerException");
+        List<String> calls = new ArrayList<>(10);
+
+        region.addEventHandler(new Handler("a", calls) {
+            @Override
+            public void onPlayerEnter(Player player, EnterRegionReason reason) {
+                throw new RuntimeException("Intentional exception.");
+            }
+        });
+        region.addEventHandler(new Handler("b", calls));
+
+        region.getEventListener().onPlayerEnter(player, EnterRegionReason.MOVE);
+
+        assertEquals(1, calls.size());
+        assertEquals("b:enter", calls.get(0));
+    }
+
+    private static class Handler implements IRegionEventHandler {
+
+        final String name;
+        final List<String> calls;
+
+        Handler(String name, List<String> calls) {
+            this.name = name;
+            this.calls = calls;
+        }
+
+        @Override
+        public boolean canDoPlayerEnter(Player player, EnterRegionReason reason) {
+            return true;
+        }
+
+        @Override
+        public boolean canDoPlayerLeave(Player player, LeaveRegionReason reason) {
+            return true;
+        }
+
+        @Override
+        public void onPlayerEnter(Player player, EnterRegionReason reason) {
+            calls.add(name + ":enter");
+        }
+
+        @Override
+        public void onPlayerLeave(Player player, LeaveRegionReason reason) {
+            calls.add(name + ":leave");
+        }
+    }
+
+    private static class BatchHandler extends Handler implements IRegionBatchEventHandler {
+
+        BatchHandler(String name, List<String> calls) {
+            super(name, calls);
+        }
+
+        @Override
+        public void onPlayersEnter(Map<Player, EnterRegionReason> players) {
+            calls.add(name + ":enter:" + players.size());
+        }
+
+        @Override
+        public void onPlayersLeave(Map<Player, LeaveRegionReason> players) {
+            calls.add(name + ":leave:" + players.size());
+        }
+    }
+}
@@ -1,11 +1,18 @@
 package com.jcwhatever.nucleus.regions;
 
+import com.jcwhatever.nucleus.regions.data.RegionChunkSectionTest;
+import com.jcwhatever.nucleus.regions.file.basic._BasicRegionFileTestSuite;
+
 import org.junit.runner.RunWith;
 import org.junit.runners.Suite;
 
 @RunWith(Suite.class)
 @Suite.SuiteClasses({
-        _SelectionTestSuite.class
+        _SelectionTestSuite.class,
+        RegionEventHandlerTest.class,
+
+        RegionChunkSectionTest.class,
+        _BasicRegionFileTestSuite.class
 })
 public class _RegionsTestSuite {
 }
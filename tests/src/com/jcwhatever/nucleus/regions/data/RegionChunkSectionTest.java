@@ -0,0 +1,107 @@
+package com.jcwhatever.nucleus.regions.data;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.jcwhatever.nucleus.NucleusTest;
+import com.jcwhatever.nucleus.regions.SimpleRegionSelection;
+import com.jcwhatever.nucleus.utils.file.BasicByteReader;
+import com.jcwhatever.nucleus.utils.file.BasicByteWriter;
+import com.jcwhatever.v1_8_R3.BukkitTester;
+
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+
+/**
+ * Tests {@link RegionChunkSection}.
+ */
+public class RegionChunkSectionTest {
+
+    private World _world = BukkitTester.world("world");
+
+    @BeforeClass
+    public static void init() {
+        NucleusTest.init();
+    }
+
+    /*
+     * Get a selection that starts inside of chunk 0, 0 and ends inside of chunk 1, 0.
+     */
+    private SimpleRegionSelection selection() {
+        return new SimpleRegionSelection(
+                new Location(_world, 2, 3, 1), new Location(_world, 20, 40, 13));
+    }
+
+    /**
+     * Make sure the block bounds of a section that does not start or end
+     * on a chunk boundary are offset from the chunk.
+     */
+    @Test
+    public void testBlockBounds() throws Exception {
+
+        RegionChunkSection section = new RegionChunkSection(selection(), 0, 0);
+
+        assertEquals(2, section.getStartChunkX());
+        assertEquals(15, section.getEndChunkX());
+        assertEquals(1, section.getStartChunkZ());
+        assertEquals(13, section.getEndChunkZ());
+
+        assertEquals(2, section.getStartBlockX());
+        assertEquals(15, section.getEndBlockX());
+        assertEquals(1, section.getStartBlockZ());
+        assertEquals(13, section.getEndBlockZ());
+
+        assertTrue(section.containsBlockCoords(15, 10, 13));
+        assertFalse(section.containsBlockCoords(16, 10, 13));
+        assertFalse(section.containsBlockCoords(15, 10, 14));
+
+        section = new RegionChunkSection(selection(), 1, 0);
+
+        assertEquals(0, section.getStartChunkX());
+        assertEquals(4, section.getEndChunkX());
+
+        assertEquals(16, section.getStartBlockX());
+        assertEquals(20, section.getEndBlockX());
+
+        assertTrue(section.containsBlockCoords(20, 10, 13));
+        assertFalse(section.containsBlockCoords(21, 10, 13));
+    }
+
+    /**
+     * Make sure a deserialized section has the same bounds as the
+     * section that was serialized.
+     */
+    @Test
+    public void testSerialize() throws Exception {
+
+        RegionChunkSection section = new RegionChunkSection(selection(), 0, 0);
+
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        BasicByteWriter writer = new BasicByteWriter(stream);
+
+        try {
+            writer.write(section);
+        }
+        finally {
+            writer.close();
+        }
+
+        BasicByteReader reader = new BasicByteReader(new ByteArrayInputStream(stream.toByteArray()));
+        RegionChunkSection result = reader.deserialize(RegionChunkSection.class);
+
+        assertEquals(section.getStartChunkX(), result.getStartChunkX());
+        assertEquals(section.getEndChunkX(), result.getEndChunkX());
+        assertEquals(section.getStartChunkZ(), result.getStartChunkZ());
+        assertEquals(section.getEndChunkZ(), result.getEndChunkZ());
+        assertEquals(section.getStartY(), result.getStartY());
+        assertEquals(section.getEndY(), result.getEndY());
+        assertEquals(section.getEndBlockX(), result.getEndBlockX());
+        assertEquals(section.getEndBlockZ(), result.getEndBlockZ());
+    }
+}
@@ -0,0 +1,697 @@
+package com.jcwhatever.nucleus.regions.file.basic;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.jcwhatever.nucleus.NucleusTest;
+import com.jcwhatever.nucleus.regions.SimpleRegionSelection;
+import com.jcwhatever.nucleus.regions.data.RegionChunkSection;
+import com.jcwhatever.nucleus.regions.file.basic.CompactRegionFileFormat.Compression;
+import com.jcwhatever.nucleus.utils.file.BasicByteWriter;
+import com.jcwhatever.v1_8_R3.BukkitTester;
+
+import org.bukkit.ChunkSnapshot;
+import org.bukkit.Location;
+import org.bukkit.Material;
+import org.bukkit.World;
+import org.bukkit.block.Biome;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Tests {@link CompactChunkData}.
+ */
+public class CompactChunkDataTest {
+
+    private static final Material[] TYPES = new Material[] {
+            Material.AIR, Material.STONE, Material.DIRT, Material.GLASS, Material.WOOL
+    };
+
+    private World _world = BukkitTester.world("world");
+
+    @BeforeClass
+    public static void init() {
+        NucleusTest.init();
+    }
+
+    /*
+     * Get a chunk section that does not start or end on chunk boundaries.
+     * Y 3 to 40 covers sections 0 to 2.
+     */
+    private RegionChunkSection section() {
+        return new RegionChunkSection(new SimpleRegionSelection(
+                new Location(_world, 2, 3, 1), new Location(_world, 13, 40, 15)), 0, 0);
+    }
+
+    /*
+     * Get a chunk section that covers full 16x16x16 sections.
+     */
+    private RegionChunkSection fullSection() {
+        return new RegionChunkSection(new SimpleRegionSelection(
+                new Location(_world, 0, 0, 0), new Location(_world, 15, 47, 15)), 0, 0);
+    }
+
+    /*
+     * Create a snapshot folder and return the chunk file with the specified extension.
+     */
+    private static File file(File root, String snapshotName, String extension) {
+        File folder = new File(root, snapshotName);
+        if (!folder.exists() && !folder.mkdirs())
+            throw new AssertionError("Failed to create folder: " + folder);
+
+        folder.deleteOnExit();
+
+        File file = new File(folder, "0_0." + extension);
+        file.deleteOnExit();
+        return file;
+    }
+
+    private static File root() throws IOException {
+        File root = Files.createTempDirectory("compact").toFile();
+        root.deleteOnExit();
+        return root;
+    }
+
+    private static CompactChunkData readAll(File file, RegionChunkSection section) throws IOException {
+        return CompactChunkData.read(file, section, section.getStartY(), section.getEndY());
+    }
+
+    /*
+     * Make sure the data matches the snapshot within a Y range.
+     */
+    private static void assertBlocks(TestSnapshot snapshot, CompactChunkData data, int yStart, int yEnd) {
+
+        RegionChunkSection section = data.getSection();
+
+        for (int y = Math.max(yStart, section.getStartY()); y <= Math.min(yEnd, section.getEndY()); y++) {
+            for (int x = section.getStartChunkX(); x <= section.getEndChunkX(); x++) {
+                for (int z = section.getStartChunkZ(); z <= section.getEndChunkZ(); z++) {
+
+                    int index = data.getIndex(x, y, z);
+                    String at = x + ", " + y + ", " + z;
+
+                    assertEquals(at, snapshot.getBlockTypeId(x, y, z), data.getTypeId(index));
+                    assertEquals(at, snapshot.getBlockData(x, y, z), data.getData(index));
+                    assertEquals(at, snapshot.light[x][y][z], data.getLight(index));
+                }
+            }
+        }
+    }
+
+    /*
+     * Create a snapshot with random blocks, data and light.
+     */
+    private static TestSnapshot randomSnapshot(long seed) {
+
+        Random random = new Random(seed);
+        TestSnapshot snapshot = new TestSnapshot();
+
+        for (int x=0; x < 16; x++) {
+            for (int y=0; y < 256; y++) {
+                for (int z=0; z < 16; z++) {
+
+                    // mostly layered terrain with random blocks mixed in
+                    Material type = y < 20 ? Material.STONE : y < 22 ? Material.DIRT : Material.AIR;
+                    if (random.nextInt(10) == 0)
+                        type = TYPES[random.nextInt(TYPES.length)];
+
+                    snapshot.set(x, y, z, type, type == Material.WOOL ? random.nextInt(16) : 0,
+                            y > 22 ? 15 : random.nextInt(256));
+                }
+            }
+        }
+
+        return snapshot;
+    }
+
+    /**
+     * Make sure a section that contains a single block type is read
+     * back the same as it was written.
+     */
+    @Test
+    public void testUniformSection() throws Exception {
+
+        RegionChunkSection section = section();
+        TestSnapshot snapshot = new TestSnapshot();
+        snapshot.fill(Material.STONE, 0, 15);
+
+        for (Compression compression : Compression.values()) {
+
+            File file = file(root(), "uniform", CompactRegionFileFormat.FILE_EXTENSION);
+
+            CompactChunkData.capture(snapshot, section, new byte[0]).write(file, "region", "world", compression);
+
+            assertBlocks(snapshot, readAll(file, section), 0, 255);
+        }
+    }
+
+    /**
+     * Make sure sections with mixed block types, data and light are
+     * read back the same as they were written.
+     */
+    @Test
+    public void testMixedSections() throws Exception {
+
+        RegionChunkSection section = section();
+        TestSnapshot snapshot = randomSnapshot(1);
+
+        for (Compression compression : Compression.values()) {
+
+            File file = file(root(), "mixed", CompactRegionFileFormat.FILE_EXTENSION);
+
+            CompactChunkData.capture(snapshot, section, new byte[0]).write(file, "region", "world", compression);
+
+            assertBlocks(snapshot, readAll(file, section), 0, 255);
+        }
+    }
+
+    /**
+     * Make sure full 16x16x16 sections made of a single run and sections
+     * where no 2 adjacent blocks are the same are read back correctly.
+     */
+    @Test
+    public void testMaxRunSections() throws Exception {
+
+        RegionChunkSection section = fullSection();
+        TestSnapshot snapshot = new TestSnapshot();
+
+        // section 0 is a single run of 4096 blocks with a single light run
+        snapshot.fill(Material.STONE, 0, 0);
+
+        // section 1 alternates every block
+        for (int x=0; x < 16; x++) {
+            for (int y=16; y < 32; y++) {
+                for (int z=0; z < 16; z++) {
+                    int i = x + y + z;
+                    snapshot.set(x, y, z, Material.WOOL, i & 0xF, i & 0xFF);
+                }
+            }
+        }
+
+        // section 2 is a single run of air
+        for (int x=0; x < 16; x++) {
+            for (int y=32; y < 48; y++) {
+                for (int z=0; z < 16; z++) {
+                    snapshot.set(x, y, z, Material.AIR, 0, 15);
+                }
+            }
+        }
+
+        for (Compression compression : Compression.values()) {
+
+            File file = file(root(), "runs", CompactRegionFileFormat.FILE_EXTENSION);
+
+            CompactChunkData.capture(snapshot, section, new byte[0]).write(file, "region", "world", compression);
+
+            assertBlocks(snapshot, readAll(file, section), 0, 255);
+        }
+    }
+
+    /**
+     * Make sure block entities and entities are read back the same as they were written.
+     */
+    @Test
+    public void testEntities() throws Exception {
+
+        RegionChunkSection section = section();
+        byte[] entities = new byte[] { 1, 2, 3, 4, 5 };
+
+        for (Compression compression : Compression.values()) {
+
+            File file = file(root(), "entities", CompactRegionFileFormat.FILE_EXTENSION);
+
+            CompactChunkData.capture(new TestSnapshot(), section, entities)
+                    .write(file, "region", "world", compression);
+
+            assertArrayEquals(entities, readAll(file, section).getRawEntities());
+        }
+    }
+
+    /**
+     * Make sure only the sections that intersect the Y range are decoded
+     * when a compact file is partially read.
+     */
+    @Test
+    public void testPartialRead() throws Exception {
+
+        RegionChunkSection section = section();
+        TestSnapshot snapshot = new TestSnapshot();
+        snapshot.fill(Material.STONE, 0, 15);
+
+        File file = file(root(), "partial", CompactRegionFileFormat.FILE_EXTENSION);
+
+        CompactChunkData.capture(snapshot, section, new byte[0]).write(file, "region", "world", Compression.DEFLATE);
+
+        CompactChunkData data = CompactChunkData.read(file, section, 17, 18);
+
+        // section 1 is decoded
+        assertBlocks(snapshot, data, 16, 31);
+
+        // sections 0 and 2 are not
+        assertEquals(0, data.getTypeId(data.getIndex(5, 5, 5)));
+        assertEquals(0, data.getTypeId(data.getIndex(5, 35, 5)));
+    }
+
+    /**
+     * Make sure truncated compact files are rejected.
+     */
+    @Test
+    public void testTruncatedFile() throws Exception {
+
+        RegionChunkSection section = section();
+        TestSnapshot snapshot = randomSnapshot(2);
+
+        File file = file(root(), "truncated", CompactRegionFileFormat.FILE_EXTENSION);
+
+        CompactChunkData.capture(snapshot, section, new byte[] { 1, 2, 3 })
+                .write(file, "region", "world", Compression.DEFLATE);
+
+        long length = file.length();
+
+        for (long truncated = length - 1; truncated > 0; truncated -= Math.max(1, length / 50)) {
+
+            try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+                raf.setLength(truncated);
+            }
+
+            try {
+                readAll(file, section);
+                fail("Truncated file was read: " + truncated + " of " + length + " bytes.");
+            }
+            catch (IOException ignore) {}
+        }
+    }
+
+    /**
+     * Make sure a corrupt section table is rejected.
+     */
+    @Test
+    public void testCorruptSectionTable() throws Exception {
+
+        RegionChunkSection section = section();
+        File root = root();
+
+        // wrong number of sections
+        File file = file(root, "count", CompactRegionFileFormat.FILE_EXTENSION);
+        writeSectionTable(file, section, (short)2, new int[] { 0, 1 }, new int[] { 0, 0 });
+        assertRejected(file, section);
+
+        // negative section count
+        file = file(root, "negative", CompactRegionFileFormat.FILE_EXTENSION);
+        writeSectionTable(file, section, (short)-1, new int[0], new int[0]);
+        assertRejected(file, section);
+
+        // sections out of order
+        file = file(root, "order", CompactRegionFileFormat.FILE_EXTENSION);
+        writeSectionTable(file, section, (short)3, new int[] { 0, 2, 1 }, new int[] { 0, 0, 0 });
+        assertRejected(file, section);
+
+        // negative stored length
+        file = file(root, "length", CompactRegionFileFormat.FILE_EXTENSION);
+        writeSectionTable(file, section, (short)3, new int[] { 0, 1, 2 }, new int[] { 0, -20, 0 });
+        assertRejected(file, section);
+
+        // stored lengths past the end of the file
+        file = file(root, "overflow", CompactRegionFileFormat.FILE_EXTENSION);
+        writeSectionTable(file, section, (short)3, new int[] { 0, 1, 2 },
+                new int[] { Integer.MAX_VALUE, Integer.MAX_VALUE, 10 });
+        assertRejected(file, section);
+    }
+
+    /*
+     * Write a compact file header and a section table followed by empty sections
+     * and no entities.
+     */
+    private static void writeSectionTable(File file, RegionChunkSection section, short totalSections,
+                                          int[] sectionYs, int[] storedLengths) throws IOException {
+
+        BasicByteWriter writer = new BasicByteWriter(new FileOutputStream(file));
+
+        try {
+            writer.write(CompactChunkData.COMPACT_FILE_VERSION);
+            writer.write("region");
+            writer.write("world");
+            writer.write(section);
+            writer.write((byte)Compression.NONE.ordinal());
+            writer.write(totalSections);
+
+            for (int i=0; i < sectionYs.length; i++) {
+                writer.write((byte)sectionYs[i]);
+                writer.write(storedLengths[i]);
+                writer.write(storedLengths[i]);
+                writer.write(0L);
+            }
+
+            for (int i=0; i < sectionYs.length; i++) {
+                writer.write(new byte[0]);
+            }
+
+            writer.write(0);
+            writer.write(new byte[0]);
+        }
+        finally {
+            writer.close();
+        }
+    }
+
+    private static void assertRejected(File file, RegionChunkSection section) {
+        try {
+            readAll(file, section);
+            fail("Corrupt file was read: " + file);
+        }
+        catch (IOException ignore) {}
+    }
+
+    /**
+     * Make sure a section hash calculated from data matches the hash of
+     * the same section in the snapshot it was captured from.
+     */
+    @Test
+    public void testSectionHash() throws Exception {
+
+        RegionChunkSection section = section();
+        TestSnapshot snapshot = randomSnapshot(3);
+
+        CompactChunkData data = CompactChunkData.capture(snapshot, section, new byte[0]);
+
+        for (int sectionY=0; sectionY < 3; sectionY++) {
+            assertEquals(CompactChunkData.getSectionHash(snapshot, section, sectionY),
+                    data.getSectionHash(sectionY));
+        }
+
+        TestSnapshot changed = snapshot.copy();
+        changed.set(4, 20, 4, Material.GLASS, 0, 0);
+
+        assertEquals(CompactChunkData.getSectionHash(snapshot, section, 0),
+                CompactChunkData.getSectionHash(changed, section, 0));
+
+        assertFalse(CompactChunkData.getSectionHash(snapshot, section, 1) ==
+                CompactChunkData.getSectionHash(changed, section, 1));
+    }
+
+    /**
+     * Make sure sections whose stored hash matches the snapshot the file
+     * is read with are skipped and the other sections are decoded.
+     */
+    @Test
+    public void testSkipMatchingSections() throws Exception {
+
+        RegionChunkSection section = section();
+        TestSnapshot snapshot = randomSnapshot(4);
+
+        File file = file(root(), "skip", CompactRegionFileFormat.FILE_EXTENSION);
+
+        CompactChunkData.capture(snapshot, section, new byte[0]).write(file, "region", "world", Compression.DEFLATE);
+
+        TestSnapshot world = snapshot.copy();
+        world.set(4, 20, 4, Material.GLASS, 0, 0);
+
+        CompactChunkData data = CompactChunkData.read(file, section, 0, 255, world);
+
+        assertTrue(data.isSectionSkipped(0));
+        assertFalse(data.isSectionSkipped(1));
+        assertTrue(data.isSectionSkipped(2));
+
+        assertBlocks(snapshot, data, 16, 31);
+    }
+
+    /**
+     * Make sure a delta file is applied to its base snapshot.
+     */
+    @Test
+    public void testDelta() throws Exception {
+
+        RegionChunkSection section = section();
+        File root = root();
+
+        TestSnapshot base = randomSnapshot(5);
+        TestSnapshot changed = base.copy();
+        changed.set(3, 10, 3, Material.WOOL, 14, 7);
+        changed.set(12, 40, 15, Material.GLASS, 0, 0);
+
+        File baseFile = file(root, "base", CompactRegionFileFormat.FILE_EXTENSION);
+        File deltaFile = file(root, "changed", CompactRegionFileFormat.DELTA_FILE_EXTENSION);
+
+        CompactChunkData.capture(base, section, new byte[] { 1 })
+                .write(baseFile, "region", "world", Compression.DEFLATE);
+
+        CompactChunkData.capture(changed, section, new byte[] { 2 })
+                .writeDelta(deltaFile, "region", "world", "base", readAll(baseFile, section), Compression.DEFLATE);
+
+        assertTrue(deltaFile.length() < baseFile.length());
+        assertEquals("base", CompactChunkData.readBaseName(deltaFile));
+
+        CompactChunkData data = readAll(deltaFile, section);
+
+        assertBlocks(changed, data, 0, 255);
+
+        // entities are read from the delta file only
+        assertArrayEquals(new byte[] { 2 }, data.getRawEntities());
+    }
+
+    /**
+     * Make sure a chain of delta files is applied in order.
+     */
+    @Test
+    public void testDeltaChain() throws Exception {
+
+        RegionChunkSection section = section();
+        File root = root();
+
+        TestSnapshot base = randomSnapshot(6);
+        TestSnapshot changed1 = base.copy();
+        changed1.set(3, 10, 3, Material.WOOL, 14, 7);
+
+        TestSnapshot changed2 = changed1.copy();
+        changed2.set(3, 10, 3, Material.AIR, 0, 15);
+        changed2.set(5, 30, 5, Material.DIRT, 0, 0);
+
+        File baseFile = file(root, "base", CompactRegionFileFormat.FILE_EXTENSION);
+        File deltaFile1 = file(root, "changed1", CompactRegionFileFormat.DELTA_FILE_EXTENSION);
+        File deltaFile2 = file(root, "changed2", CompactRegionFileFormat.DELTA_FILE_EXTENSION);
+
+        CompactChunkData.capture(base, section, new byte[0])
+                .write(baseFile, "region", "world", Compression.NONE);
+
+        CompactChunkData.capture(changed1, section, new byte[0])
+                .writeDelta(deltaFile1, "region", "world", "base", readAll(baseFile, section), Compression.NONE);
+
+        assertEquals(deltaFile1, CompactChunkData.getBaseFile(deltaFile2, "changed1"));
+
+        CompactChunkData.capture(changed2, section, new byte[0])
+                .writeDelta(deltaFile2, "region", "world", "changed1", readAll(deltaFile1, section), Compression.NONE);
+
+        assertBlocks(changed2, readAll(deltaFile2, section), 0, 255);
+
+        // a partial read of a delta file still applies changes from all sections
+        assertBlocks(changed2, CompactChunkData.read(deltaFile2, section, 17, 18), 0, 255);
+    }
+
+    /**
+     * Make sure a delta file is not applied to a base snapshot whose
+     * data changed after the delta file was saved.
+     */
+    @Test
+    public void testDeltaBaseChanged() throws Exception {
+
+        RegionChunkSection section = section();
+        File root = root();
+
+        TestSnapshot base = randomSnapshot(7);
+        TestSnapshot changed = base.copy();
+        changed.set(3, 10, 3, Material.WOOL, 14, 7);
+
+        File baseFile = file(root, "base", CompactRegionFileFormat.FILE_EXTENSION);
+        File deltaFile = file(root, "changed", CompactRegionFileFormat.DELTA_FILE_EXTENSION);
+
+        CompactChunkData.capture(base, section, new byte[0])
+                .write(baseFile, "region", "world", Compression.DEFLATE);
+
+        CompactChunkData.capture(changed, section, new byte[0])
+                .writeDelta(deltaFile, "region", "world", "base", readAll(baseFile, section), Compression.DEFLATE);
+
+        // rewriting the base with the same blocks keeps the delta valid
+        CompactChunkData.capture(base, section, new byte[0])
+                .write(baseFile, "region", "world", Compression.NONE);
+
+        assertBlocks(changed, readAll(deltaFile, section), 0, 255);
+
+        // a changed base is rejected
+        TestSnapshot changedBase = base.copy();
+        changedBase.set(6, 6, 6, Material.GLASS, 0, 0);
+
+        CompactChunkData.capture(changedBase, section, new byte[0])
+                .write(baseFile, "region", "world", Compression.DEFLATE);
+
+        assertRejected(deltaFile, section);
+    }
+
+    /**
+     * Make sure circular delta chains and missing base files are rejected.
+     */
+    @Test
+    public void testInvalidDeltaChain() throws Exception {
+
+        RegionChunkSection section = section();
+        File root = root();
+
+        TestSnapshot snapshot = randomSnapshot(8);
+        CompactChunkData data = CompactChunkData.capture(snapshot, section, new byte[0]);
+
+        File deltaFile1 = file(root, "delta1", CompactRegionFileFormat.DELTA_FILE_EXTENSION);
+        File deltaFile2 = file(root, "delta2", CompactRegionFileFormat.DELTA_FILE_EXTENSION);
+
+        // base does not exist
+        data.writeDelta(deltaFile1, "region", "world", "missing", data, Compression.NONE);
+        assertRejected(deltaFile1, section);
+
+        // delta1 and delta2 are saved against each other
+        data.writeDelta(deltaFile1, "region", "world", "delta2", data, Compression.NONE);
+        data.writeDelta(deltaFile2, "region", "world", "delta1", data, Compression.NONE);
+        assertRejected(deltaFile1, section);
+    }
+
+    /**
+     * Make sure the delta files saved against a snapshot are found.
+     */
+    @Test
+    public void testDependentFiles() throws Exception {
+
+        RegionChunkSection section = section();
+        File root = root();
+
+        CompactChunkData data = CompactChunkData.capture(new TestSnapshot(), section, new byte[0]);
+
+        File baseFile = file(root, "base", CompactRegionFileFormat.FILE_EXTENSION);
+        File deltaFile1 = file(root, "delta1", CompactRegionFileFormat.DELTA_FILE_EXTENSION);
+        File deltaFile2 = file(root, "delta2", CompactRegionFileFormat.DELTA_FILE_EXTENSION);
+
+        data.write(baseFile, "region", "world", Compression.NONE);
+        data.writeDelta(deltaFile1, "region", "world", "base", data, Compression.NONE);
+        data.writeDelta(deltaFile2, "region", "world", "delta1", data, Compression.NONE);
+
+        List<File> dependents = CompactChunkData.getDependentFiles(baseFile);
+        assertEquals(1, dependents.size());
+        assertEquals(deltaFile1, dependents.get(0));
+
+        dependents = CompactChunkData.getDependentFiles(deltaFile1);
+        assertEquals(1, dependents.size());
+        assertEquals(deltaFile2, dependents.get(0));
+
+        assertEquals(0, CompactChunkData.getDependentFiles(deltaFile2).size());
+    }
+
+    /*
+     * Chunk snapshot backed by arrays.
+     */
+    private static class TestSnapshot implements ChunkSnapshot {
+
+        final int[][][] types = new int[16][256][16];
+        final int[][][] data = new int[16][256][16];
+        final int[][][] light = new int[16][256][16];
+
+        void set(int x, int y, int z, Material type, int blockData, int blockLight) {
+            types[x][y][z] = type.getId();
+            data[x][y][z] = blockData;
+            light[x][y][z] = blockLight;
+        }
+
+        void fill(Material type, int blockData, int blockLight) {
+            for (int x=0; x < 16; x++) {
+                for (int y=0; y < 256; y++) {
+                    for (int z=0; z < 16; z++) {
+                        set(x, y, z, type, blockData, blockLight);
+                    }
+                }
+            }
+        }
+
+        TestSnapshot copy() {
+            TestSnapshot copy = new TestSnapshot();
+            for (int x=0; x < 16; x++) {
+                for (int y=0; y < 256; y++) {
+                    copy.types[x][y] = types[x][y].clone();
+                    copy.data[x][y] = data[x][y].clone();
+                    copy.light[x][y] = light[x][y].clone();
+                }
+            }
+            return copy;
+        }
+
+        @Override
+        public int getX() {
+            return 0;
+        }
+
+        @Override
+        public int getZ() {
+            return 0;
+        }
+
+        @Override
+        public String getWorldName() {
+            return "world";
+        }
+
+        @Override
+        public int getBlockTypeId(int x, int y, int z) {
+            return types[x][y][z];
+        }
+
+        @Override
+        public int getBlockData(int x, int y, int z) {
+            return data[x][y][z];
+        }
+
+        @Override
+        public int getBlockSkyLight(int x, int y, int z) {
+            return light[x][y][z] & 0xF;
+        }
+
+        @Override
+        public int getBlockEmittedLight(int x, int y, int z) {
+            return light[x][y][z] >> 4;
+        }
+
+        @Override
+        public int getHighestBlockYAt(int x, int z) {
+            return 255;
+        }
+
+        @Override
+        public Biome getBiome(int x, int z) {
+            return Biome.PLAINS;
+        }
+
+        @Override
+        public double getRawBiomeTemperature(int x, int z) {
+            return 0;
+        }
+
+        @Override
+        public double getRawBiomeRainfall(int x, int z) {
+            return 0;
+        }
+
+        @Override
+        public long getCaptureFullTime() {
+            return 0;
+        }
+
+        @Override
+        public boolean isSectionEmpty(int sy) {
+            return false;
+        }
+    }
+}
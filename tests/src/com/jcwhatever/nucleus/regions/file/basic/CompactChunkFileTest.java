@@ -0,0 +1,301 @@
+package com.jcwhatever.nucleus.regions.file.basic;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.jcwhatever.nucleus.Nucleus;
+import com.jcwhatever.nucleus.NucleusTest;
+import com.jcwhatever.nucleus.regions.BasicRegion;
+import com.jcwhatever.nucleus.regions.SimpleRegionSelection;
+import com.jcwhatever.nucleus.regions.file.IRegionFileData;
+import com.jcwhatever.nucleus.regions.file.IRegionFileLoader.LoadType;
+import com.jcwhatever.nucleus.regions.file.basic.CompactRegionFileFormat.Compression;
+import com.jcwhatever.nucleus.utils.coords.IChunkCoords;
+import com.jcwhatever.nucleus.utils.file.IAppliedSerializable;
+import com.jcwhatever.nucleus.utils.observer.future.FutureSubscriber;
+import com.jcwhatever.nucleus.utils.observer.future.IFuture;
+import com.jcwhatever.nucleus.utils.observer.future.IFuture.FutureStatus;
+import com.jcwhatever.nucleus.utils.performance.queued.QueueProject;
+import com.jcwhatever.nucleus.utils.performance.queued.QueueTask;
+import com.jcwhatever.v1_8_R3.BukkitTester;
+import com.jcwhatever.v1_8_R3.MockWorld;
+
+import org.bukkit.Location;
+import org.bukkit.Material;
+import org.bukkit.block.Block;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.Map;
+import javax.annotation.Nullable;
+
+/**
+ * Tests {@link CompactChunkFileWriter} and {@link CompactChunkFileLoader}.
+ */
+public class CompactChunkFileTest {
+
+    private MockWorld _world = BukkitTester.world("compactChunkFileWorld");
+
+    @BeforeClass
+    public static void init() {
+        NucleusTest.init();
+    }
+
+    /*
+     * Get a region that covers 3 full 16x16x16 sections of a chunk.
+     */
+    private BasicRegion region(String name, int chunkX) {
+        BasicRegion region = new BasicRegion(Nucleus.getPlugin(), name);
+        region.setCoords(new Location(_world, chunkX * 16, 0, 0),
+                new Location(_world, chunkX * 16 + 15, 47, 15));
+        return region;
+    }
+
+    private static File file() throws Exception {
+        File file = File.createTempFile("compact", "." + CompactRegionFileFormat.FILE_EXTENSION);
+        file.deleteOnExit();
+        return file;
+    }
+
+    /*
+     * Wait for a future to finish and return its status.
+     */
+    private static FutureStatus await(IFuture future) {
+
+        final FutureStatus[] result = new FutureStatus[1];
+
+        future.onStatus(new FutureSubscriber() {
+            @Override
+            public void on(FutureStatus status, @Nullable CharSequence message) {
+                result[0] = status;
+            }
+        });
+
+        for (int i=0; i < 100 && result[0] == null; i++) {
+            BukkitTester.pause(1);
+        }
+
+        return result[0];
+    }
+
+    /*
+     * Fill the region with layered terrain and a row of colored wool.
+     */
+    private void fill(BasicRegion region) {
+
+        int xStart = region.getXStart();
+
+        for (int x = xStart; x < xStart + 16; x++) {
+            for (int y=0; y < 48; y++) {
+                for (int z=0; z < 16; z++) {
+
+                    Block block = _world.getBlockAt(x, y, z);
+
+                    if (y == 30) {
+                        block.setType(Material.WOOL);
+                        block.setData((byte)z);
+                    }
+                    else {
+                        block.setType(y < 20 ? Material.STONE : y < 22 ? Material.DIRT : Material.AIR);
+                        block.setData((byte)0);
+                    }
+                }
+            }
+        }
+    }
+
+    private FutureStatus save(BasicRegion region, File file, Compression compression) {
+        return await(new CompactChunkFileWriter(region, chunk(region), compression)
+                .saveData(file));
+    }
+
+    private FutureStatus load(BasicRegion region, File file, LoadType loadType, IRegionFileData data) {
+        return await(new CompactChunkFileLoader(region, chunk(region))
+                .load(file, loadType, data));
+    }
+
+    private static IChunkCoords chunk(BasicRegion region) {
+        return region.getChunkCoords().iterator().next();
+    }
+
+    /**
+     * Make sure all blocks of a region chunk are loaded the same as
+     * they were saved with each compression.
+     */
+    @Test
+    public void testRoundTrip() throws Exception {
+
+        BasicRegion region = region("testRoundTrip", 0);
+        fill(region);
+
+        for (Compression compression : Compression.values()) {
+
+            File file = file();
+
+            assertEquals(FutureStatus.SUCCESS, save(region, file, compression));
+
+            BlockData data = new BlockData();
+
+            assertEquals(FutureStatus.SUCCESS, load(region, file, LoadType.ALL_BLOCKS, data));
+
+            assertEquals(16 * 48 * 16, data.types.size());
+            assertEquals(1, data.commits);
+
+            for (int x=0; x < 16; x++) {
+                for (int y=0; y < 48; y++) {
+                    for (int z=0; z < 16; z++) {
+
+                        String key = BlockData.key(x, y, z);
+                        Block block = _world.getBlockAt(x, y, z);
+
+                        assertEquals(key, block.getType(), data.types.get(key));
+                        assertEquals(key, (int)block.getData(), (int)data.datas.get(key));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Make sure only blocks that do not match the world are loaded
+     * when loading mismatched blocks.
+     */
+    @Test
+    public void testMismatched() throws Exception {
+
+        BasicRegion region = region("testMismatched", 1);
+        fill(region);
+
+        File file = file();
+
+        assertEquals(FutureStatus.SUCCESS, save(region, file, Compression.DEFLATE));
+
+        _world.getBlockAt(20, 5, 5).setType(Material.GLASS);
+        _world.getBlockAt(21, 40, 6).setType(Material.GLASS);
+
+        BlockData data = new BlockData();
+
+        assertEquals(FutureStatus.SUCCESS, load(region, file, LoadType.MISMATCHED, data));
+
+        assertEquals(2, data.types.size());
+        assertEquals(Material.STONE, data.types.get(BlockData.key(20, 5, 5)));
+        assertEquals(Material.AIR, data.types.get(BlockData.key(21, 40, 6)));
+    }
+
+    /**
+     * Make sure only the sections that intersect the Y range are loaded
+     * when a Y range is specified.
+     */
+    @Test
+    public void testPartialLoad() throws Exception {
+
+        BasicRegion region = region("testPartialLoad", 3);
+        fill(region);
+
+        File file = file();
+
+        assertEquals(FutureStatus.SUCCESS, save(region, file, Compression.DEFLATE));
+
+        BlockData data = new BlockData();
+        QueueProject project = new QueueProject(Nucleus.getPlugin());
+
+        IFuture future = new CompactChunkFileLoader(region, chunk(region))
+                .loadInProject(file, project, LoadType.ALL_BLOCKS, data, 17, 18);
+
+        project.run();
+
+        assertEquals(FutureStatus.SUCCESS, await(future));
+
+        // all of section 1 is loaded
+        assertEquals(16 * 16 * 16, data.types.size());
+        assertEquals(Material.WOOL, data.types.get(BlockData.key(50, 30, 7)));
+        assertEquals(Material.DIRT, data.types.get(BlockData.key(50, 21, 7)));
+        assertEquals(null, data.types.get(BlockData.key(50, 15, 7)));
+        assertEquals(null, data.types.get(BlockData.key(50, 32, 7)));
+    }
+
+    /**
+     * Make sure only blocks inside of an area are passed on by {@link AreaFileData}.
+     */
+    @Test
+    public void testAreaFileData() throws Exception {
+
+        BasicRegion region = region("testAreaFileData", 4);
+        fill(region);
+
+        File file = file();
+
+        assertEquals(FutureStatus.SUCCESS, save(region, file, Compression.NONE));
+
+        SimpleRegionSelection area = new SimpleRegionSelection(
+                new Location(_world, 62, 18, 2), new Location(_world, 67, 21, 3));
+
+        BlockData data = new BlockData();
+
+        assertEquals(FutureStatus.SUCCESS,
+                load(region, file, LoadType.ALL_BLOCKS, new AreaFileData(area, data)));
+
+        // X 64 to 67 of the chunk, Y 18 to 21, Z 2 to 3
+        assertEquals(4 * 4 * 2, data.types.size());
+        assertEquals(Material.STONE, data.types.get(BlockData.key(64, 19, 2)));
+        assertEquals(Material.DIRT, data.types.get(BlockData.key(67, 21, 3)));
+        assertEquals(1, data.commits);
+    }
+
+    /**
+     * Make sure a file is not loaded into a region whose bounds are different
+     * from the region the file was saved from.
+     */
+    @Test
+    public void testBoundsMismatch() throws Exception {
+
+        BasicRegion region = region("testBoundsMismatch", 2);
+        fill(region);
+
+        File file = file();
+
+        assertEquals(FutureStatus.SUCCESS, save(region, file, Compression.NONE));
+
+        region.setCoords(new Location(_world, 32, 0, 0), new Location(_world, 47, 63, 15));
+
+        BlockData data = new BlockData();
+
+        assertTrue(load(region, file, LoadType.ALL_BLOCKS, data) != FutureStatus.SUCCESS);
+        assertEquals(0, data.types.size());
+    }
+
+    /*
+     * Region file data that collects loaded blocks.
+     */
+    private static class BlockData implements IRegionFileData {
+
+        final Map<String, Material> types = new HashMap<>(16 * 48 * 16);
+        final Map<String, Integer> datas = new HashMap<>(16 * 48 * 16);
+        int commits;
+
+        static String key(int x, int y, int z) {
+            return x + ", " + y + ", " + z;
+        }
+
+        @Override
+        public synchronized void addBlock(int x, int y, int z, Material material,
+                                          int data, int light, int skylight) {
+            types.put(key(x, y, z), material);
+            datas.put(key(x, y, z), data);
+        }
+
+        @Override
+        public void addSerializable(IAppliedSerializable blockEntity) {
+            // do nothing
+        }
+
+        @Nullable
+        @Override
+        public synchronized QueueTask commit() {
+            commits++;
+            return null;
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.jcwhatever.nucleus.regions.file.basic;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.jcwhatever.v1_8_R3.BukkitTester;
+import com.jcwhatever.v1_8_R3.MockWorld;
+import com.jcwhatever.nucleus.NucleusTest;
+import com.jcwhatever.nucleus.utils.performance.queued.QueueTask;
+
+import org.bukkit.Material;
+import org.bukkit.plugin.Plugin;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Tests {@link WorldBuilder}.
+ */
+public class WorldBuilderTest {
+
+    private Plugin _plugin = BukkitTester.mockPlugin("WorldBuilderTest");
+    private MockWorld _world = BukkitTester.world("worldBuilderWorld");
+
+    @BeforeClass
+    public static void init() {
+        NucleusTest.init();
+    }
+
+    /*
+     * Run a committed task and wait for it to end.
+     */
+    private static void build(QueueTask task) {
+
+        task.run();
+
+        for (int i=0; i < 100 && !task.isEnded(); i++) {
+            BukkitTester.pause(1);
+        }
+
+        assertTrue(task.isComplete());
+    }
+
+    /**
+     * Make sure blocks added to the builder in multiple chunks are
+     * placed into the world when the committed task is run.
+     */
+    @Test
+    public void testBuild() throws Exception {
+
+        WorldBuilder builder = new WorldBuilder(_plugin, _world);
+
+        // add blocks top down in 4 chunks
+        for (int y=10; y >= 0; y--) {
+            for (int x=-8; x < 8; x++) {
+                for (int z=-8; z < 8; z++) {
+                    builder.addBlock(x, y, z, y % 2 == 0 ? Material.STONE : Material.DIRT, 0, 0, 15);
+                }
+            }
+        }
+
+        assertEquals(11 * 16 * 16, builder.getTotalBlocks());
+        assertEquals(0, builder.getPlacedBlocks());
+
+        build(builder.commit());
+
+        assertEquals(builder.getTotalBlocks(), builder.getPlacedBlocks());
+
+        for (int y=10; y >= 0; y--) {
+            for (int x=-8; x < 8; x++) {
+                for (int z=-8; z < 8; z++) {
+                    assertEquals(y % 2 == 0 ? Material.STONE : Material.DIRT,
+                            _world.getBlockAt(x, y, z).getType());
+                }
+            }
+        }
+    }
+
+    /**
+     * Make sure all blocks are placed when the tick budget is too small
+     * to place them in a single tick.
+     */
+    @Test
+    public void testTickBudget() throws Exception {
+
+        WorldBuilder builder = new WorldBuilder(_plugin, _world);
+        builder.setTickBudget(1);
+
+        assertEquals(1, builder.getTickBudget());
+
+        for (int x=0; x < 64; x++) {
+            for (int z=0; z < 64; z++) {
+                for (int y=20; y < 30; y++) {
+                    builder.addBlock(x, y, z, Material.GLASS, 0, 0, 15);
+                }
+            }
+        }
+
+        build(builder.commit());
+
+        assertEquals(64 * 64 * 10, builder.getPlacedBlocks());
+        assertEquals(Material.GLASS, _world.getBlockAt(63, 29, 63).getType());
+    }
+
+    /**
+     * Make sure blocks added after a commit are not part of the committed task.
+     */
+    @Test
+    public void testCommit() throws Exception {
+
+        WorldBuilder builder = new WorldBuilder(_plugin, _world);
+
+        builder.addBlock(100, 5, 100, Material.WOOD, 0, 0, 15);
+
+        QueueTask first = builder.commit();
+
+        builder.addBlock(101, 5, 100, Material.WOOD, 0, 0, 15);
+
+        build(first);
+
+        assertEquals(1, builder.getPlacedBlocks());
+        assertEquals(Material.WOOD, _world.getBlockAt(100, 5, 100).getType());
+
+        build(builder.commit());
+
+        assertEquals(2, builder.getPlacedBlocks());
+        assertEquals(Material.WOOD, _world.getBlockAt(101, 5, 100).getType());
+    }
+}
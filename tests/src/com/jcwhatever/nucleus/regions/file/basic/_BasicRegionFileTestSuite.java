@@ -0,0 +1,13 @@
+package com.jcwhatever.nucleus.regions.file.basic;
+
+import org.junit.runner.RunWith;
+import org.junit.runners.Suite;
+
+@RunWith(Suite.class)
+@Suite.SuiteClasses({
+        CompactChunkDataTest.class,
+        CompactChunkFileTest.class,
+        WorldBuilderTest.class
+})
+public class _BasicRegionFileTestSuite {
+}
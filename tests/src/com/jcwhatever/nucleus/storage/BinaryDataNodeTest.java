@@ -0,0 +1,165 @@
+package com.jcwhatever.nucleus.storage;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import com.jcwhatever.v1_8_R3.MockPlugin;
+
+import org.bukkit.plugin.Plugin;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+public class BinaryDataNodeTest extends IDataNodeTest {
+
+    public BinaryDataNodeTest() {
+
+        final Plugin plugin = new MockPlugin("dummy").enable();
+
+        setNodeGenerator(new IDataNodeGenerator() {
+            @Override
+            public IDataNode generateRoot() {
+                BinaryDataNode node = new BinaryDataNode(plugin, createFile());
+                node.load();
+
+                return node;
+            }
+        });
+    }
+
+    /**
+     * Make sure values appended by multiple saves are loaded.
+     */
+    @Test
+    public void testSaveAndLoad() throws Exception {
+
+        Plugin plugin = new MockPlugin("dummy").enable();
+        File file = createFile();
+
+        BinaryDataNode dataNode = new BinaryDataNode(plugin, file);
+        dataNode.load();
+
+        dataNode.set("string", "value");
+        dataNode.set("node1.node2.integer", 10);
+        dataNode.set("list", Arrays.asList("a", "b"));
+        assertEquals(true, dataNode.saveSync());
+
+        dataNode.set("node1.node2.integer", 20);
+        dataNode.remove("string");
+        dataNode.set("node1.double", 1.5D);
+        assertEquals(true, dataNode.saveSync());
+
+        BinaryDataNode loaded = new BinaryDataNode(plugin, file);
+        assertEquals(true, loaded.load());
+
+        assertEquals(false, loaded.hasNode("string"));
+        assertEquals(20, loaded.getInteger("node1.node2.integer"));
+        assertEquals(1.5D, loaded.getDouble("node1.double"), 0.0D);
+        assertEquals(Arrays.asList("a", "b"), loaded.getStringList("list", null));
+    }
+
+    /**
+     * Make sure an incomplete record at the end of the file is ignored
+     * and the file can be saved again.
+     */
+    @Test
+    public void testIncompleteRecord() throws Exception {
+
+        Plugin plugin = new MockPlugin("dummy").enable();
+        File file = createFile();
+
+        BinaryDataNode dataNode = new BinaryDataNode(plugin, file);
+        dataNode.load();
+
+        dataNode.set("key1", "value1");
+        dataNode.saveSync();
+
+        dataNode.set("key2", "value2");
+        dataNode.saveSync();
+
+        // remove the last bytes of the second record
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(raf.length() - 3);
+        }
+
+        BinaryDataNode loaded = new BinaryDataNode(plugin, file);
+        assertEquals(true, loaded.load());
+
+        assertEquals("value1", loaded.getString("key1"));
+        assertEquals(false, loaded.hasNode("key2"));
+
+        loaded.set("key3", "value3");
+        assertEquals(true, loaded.saveSync());
+
+        loaded = new BinaryDataNode(plugin, file);
+        assertEquals(true, loaded.load());
+
+        assertEquals("value1", loaded.getString("key1"));
+        assertEquals("value3", loaded.getString("key3"));
+    }
+
+    /**
+     * Make sure the records before a corrupt record are loaded and the original
+     * file is copied before it is compacted.
+     */
+    @Test
+    public void testCorruptRecord() throws Exception {
+
+        Plugin plugin = new MockPlugin("dummy").enable();
+        File file = createFile();
+
+        BinaryDataNode dataNode = new BinaryDataNode(plugin, file);
+        dataNode.load();
+
+        dataNode.set("key1", "value1");
+        dataNode.saveSync();
+
+        long recordStart = file.length();
+
+        dataNode.set("key2", "value2");
+        dataNode.saveSync();
+
+        // replace the operation of the second record with an invalid operation
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.seek(recordStart);
+            raf.write(127);
+        }
+
+        byte[] original = Files.readAllBytes(file.toPath());
+
+        File corrupt = new File(file.getPath() + ".corrupt");
+        corrupt.deleteOnExit();
+
+        BinaryDataNode loaded = new BinaryDataNode(plugin, file);
+        assertEquals(true, loaded.load());
+
+        assertEquals("value1", loaded.getString("key1"));
+        assertEquals(false, loaded.hasNode("key2"));
+
+        assertEquals(true, corrupt.exists());
+        assertArrayEquals(original, Files.readAllBytes(corrupt.toPath()));
+
+        loaded.set("key3", "value3");
+        assertEquals(true, loaded.saveSync());
+
+        loaded = new BinaryDataNode(plugin, file);
+        assertEquals(true, loaded.load());
+
+        assertEquals("value1", loaded.getString("key1"));
+        assertEquals("value3", loaded.getString("key3"));
+    }
+
+    private static File createFile() {
+        try {
+            File file = File.createTempFile("binaryDataNode", "." + BinaryDataNode.FILE_EXTENSION);
+            file.deleteOnExit();
+            return file;
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
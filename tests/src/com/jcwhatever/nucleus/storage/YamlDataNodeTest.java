@@ -1,8 +1,14 @@
 package com.jcwhatever.nucleus.storage;
 
+import static org.junit.Assert.assertEquals;
+
 import com.jcwhatever.v1_8_R3.MockPlugin;
 
 import org.bukkit.plugin.Plugin;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.Arrays;
 
 
 public class YamlDataNodeTest extends IDataNodeTest{
@@ -21,4 +27,37 @@ public class YamlDataNodeTest extends IDataNodeTest{
             }
         });
     }
-}
\ No newline at end of file
+
+    /**
+     * Make sure saving writes the values set before the save, including
+     * nested nodes and lists, and does not change the saved node.
+     */
+    @Test
+    public void testSaveSnapshot() throws Exception {
+
+        Plugin plugin = new MockPlugin("dummy").enable();
+
+        File file = File.createTempFile("testSaveSnapshot", ".yml");
+        file.deleteOnExit();
+
+        YamlDataNode dataNode = new YamlDataNode(plugin, file);
+        dataNode.set("string", "value");
+        dataNode.set("node1.node2.integer", 10);
+        dataNode.set("list", Arrays.asList("a", "b"));
+
+        assertEquals(true, dataNode.saveSync());
+        assertEquals(false, dataNode.isDirty());
+
+        dataNode.set("string", "changed");
+
+        YamlDataNode loaded = new YamlDataNode(plugin, file);
+        assertEquals(true, loaded.load());
+
+        assertEquals("value", loaded.getString("string"));
+        assertEquals(10, loaded.getInteger("node1.node2.integer"));
+        assertEquals(Arrays.asList("a", "b"), loaded.getStringList("list", null));
+
+        assertEquals("changed", dataNode.getString("string"));
+        assertEquals(10, dataNode.getInteger("node1.node2.integer"));
+    }
+}
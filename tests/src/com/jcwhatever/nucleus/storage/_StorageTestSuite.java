@@ -10,6 +10,7 @@ import org.junit.runners.Suite;
         MemoryDataNodeTest.class,
         YamlDataNodeTest.class,
         JsonDataNodeTest.class,
+        BinaryDataNodeTest.class,
         DataFieldSerializerTest.class
 })
 public class _StorageTestSuite {
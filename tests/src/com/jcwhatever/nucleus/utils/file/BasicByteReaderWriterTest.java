@@ -2,6 +2,7 @@ package com.jcwhatever.nucleus.utils.file;
 
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
 
 import com.jcwhatever.v1_8_R3.BukkitTester;
 import com.jcwhatever.nucleus.utils.coords.SyncLocation;
@@ -12,6 +13,9 @@ import org.junit.Test;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
 
 /**
  * Tests {@link BasicByteReader} and {@link BasicByteWriter} inter-compatibility.
@@ -464,4 +468,145 @@ public class BasicByteReaderWriterTest {
 
         input.close();
     }
+
+    /**
+     * Make sure the reader understands the writers bulk integers and shorts
+     * when they are larger than the internal buffers.
+     */
+    @Test
+    public void testBulkNumbers() throws Exception {
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        BasicByteWriter writer =  new BasicByteWriter(stream);
+
+        int[] integers = new int[5000];
+        short[] shorts = new short[5001];
+
+        for (int i=0; i < integers.length; i++) {
+            integers[i] = i * 104729;
+        }
+
+        for (int i=0; i < shorts.length; i++) {
+            shorts[i] = (short)(i * 7919);
+        }
+
+        writer.write((byte)1);
+        writer.writeInts(integers);
+        writer.writeShorts(shorts);
+        writer.write(5);
+        writer.flush();
+
+        byte[] bytes = stream.toByteArray();
+        writer.close();
+
+        ByteArrayInputStream input = new ByteArrayInputStream(bytes);
+        BasicByteReader reader = new BasicByteReader(input);
+
+        assertEquals(1, reader.getByte());
+        assertArrayEquals(integers, reader.getInts(new int[integers.length]));
+        assertArrayEquals(shorts, reader.getShorts(new short[shorts.length]));
+        assertEquals(5, reader.getInteger());
+        assertEquals(bytes.length, reader.getBytesRead());
+
+        input.close();
+    }
+
+    /**
+     * Make sure the reader returns the correct values when the stream
+     * returns fewer bytes than requested.
+     */
+    @Test
+    public void testShortReads() throws Exception {
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        BasicByteWriter writer =  new BasicByteWriter(stream);
+
+        writer.write((short)300);
+        writer.write(123456789);
+        writer.write(Long.MAX_VALUE);
+        writer.write("text");
+        writer.flush();
+
+        byte[] bytes = stream.toByteArray();
+        writer.close();
+
+        // stream that only returns 1 byte per read
+        InputStream input = new ByteArrayInputStream(bytes) {
+            @Override
+            public synchronized int read(byte[] b, int off, int len) {
+                return super.read(b, off, Math.min(len, 1));
+            }
+        };
+        BasicByteReader reader = new BasicByteReader(input);
+
+        assertEquals(300, reader.getShort());
+        assertEquals(123456789, reader.getInteger());
+        assertEquals(Long.MAX_VALUE, reader.getLong());
+        assertEquals("text", reader.getString());
+
+        input.close();
+    }
+
+    /**
+     * Make sure the reader returns the same instance for repeated small strings.
+     */
+    @Test
+    public void testSmallStringIntern() throws Exception {
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        BasicByteWriter writer =  new BasicByteWriter(stream);
+
+        writer.writeSmallString("STONE");
+        writer.writeSmallString("DIRT");
+        writer.writeSmallString("STONE");
+        writer.flush();
+
+        byte[] bytes = stream.toByteArray();
+        writer.close();
+
+        ByteArrayInputStream input = new ByteArrayInputStream(bytes);
+        BasicByteReader reader = new BasicByteReader(input);
+
+        String stone = reader.getSmallString();
+
+        assertEquals("STONE", stone);
+        assertEquals("DIRT", reader.getSmallString());
+        assertSame(stone, reader.getSmallString());
+
+        input.close();
+    }
+
+    /**
+     * Make sure the reader understands the writers serialized objects.
+     */
+    @Test
+    public void testBigDecimal() throws Exception {
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        BasicByteWriter writer =  new BasicByteWriter(stream);
+
+        writer.write(new BigDecimal("12345.6789"));
+        writer.write(5);
+        writer.flush();
+
+        byte[] bytes = stream.toByteArray();
+        writer.close();
+
+        ByteArrayInputStream input = new ByteArrayInputStream(bytes);
+        BasicByteReader reader = new BasicByteReader(input);
+
+        assertEquals(new BigDecimal("12345.6789"), reader.getBigDecimal());
+        assertEquals(5, reader.getInteger());
+
+        input.close();
+    }
+
+    /**
+     * Make sure the reader throws an exception when the stream ends
+     * before a value is fully read.
+     */
+    @Test(expected=IOException.class)
+    public void testEndOfStream() throws Exception {
+
+        ByteArrayInputStream input = new ByteArrayInputStream(new byte[] { 0, 1 });
+        BasicByteReader reader = new BasicByteReader(input);
+
+        reader.getInteger();
+    }
 }
@@ -184,6 +184,53 @@ public class EventAgentTest {
         assertEquals(4, callResults.size());
     }
 
+    @Test
+    public void testEventUncancelRunsSkipped() {
+
+        final List<String> callResults = new ArrayList<>(10);
+
+        EventAgent agent = new EventAgent() {};
+
+        EventSubscriber<CancelEvent> first = getCancellingSubscriber(callResults)
+                .setPriority(EventSubscriberPriority.FIRST);
+
+        EventSubscriber<CancelEvent> high = getSubscriber(callResults)
+                .setPriority(EventSubscriberPriority.HIGH);
+
+        EventSubscriber<CancelEvent> normal = getUncancellingSubscriber(callResults);
+                normal.setInvokedForCancelled(true)
+                .setPriority(EventSubscriberPriority.NORMAL);
+
+        EventSubscriber<CancelEvent> low = getSubscriber(callResults)
+                .setPriority(EventSubscriberPriority.LOW);
+
+        EventSubscriber<CancelEvent> watcher = getSubscriber(callResults)
+                .setPriority(EventSubscriberPriority.WATCHER);
+
+        agent.addSubscriber(watcher);
+        agent.addSubscriber(low);
+        agent.addSubscriber(normal);
+        agent.addSubscriber(high);
+        agent.addSubscriber(first);
+
+        CancelEvent event = new CancelEvent();
+
+        agent.call(this, event);
+
+        // 1. first cancels event
+        // 2. high is skipped
+        // 3. normal ignores cancelled and un-cancels it
+        // 4. skipped high is run
+        // 5. low and watcher are run
+        assertEquals(5, callResults.size());
+        assertEquals("FIRST", callResults.get(0));
+        assertEquals("NORMAL", callResults.get(1));
+        assertEquals("HIGH", callResults.get(2));
+        assertEquals("LOW", callResults.get(3));
+        assertEquals("WATCHER", callResults.get(4));
+        assertEquals(false, event.isCancelled());
+    }
+
 
 
 
@@ -0,0 +1,294 @@
+package com.jcwhatever.nucleus.utils.performance.queued;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.jcwhatever.v1_8_R3.BukkitTester;
+import com.jcwhatever.nucleus.NucleusTest;
+import com.jcwhatever.nucleus.managed.scheduler.Scheduler;
+import com.jcwhatever.nucleus.utils.observer.future.FutureSubscriber;
+import com.jcwhatever.nucleus.utils.observer.future.IFuture;
+import com.jcwhatever.nucleus.utils.observer.future.IFuture.FutureStatus;
+
+import org.bukkit.plugin.Plugin;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import javax.annotation.Nullable;
+
+/**
+ * Tests {@link ParallelQueueProject}.
+ */
+public class ParallelQueueProjectTest {
+
+    private static Plugin plugin;
+
+    @BeforeClass
+    public static void init() {
+        NucleusTest.init();
+        plugin = BukkitTester.mockPlugin("ParallelQueueProjectTest");
+    }
+
+    /*
+     * Run a project and wait for it to end. Returns the final status.
+     */
+    private static FutureStatus run(ParallelQueueProject project) {
+
+        final FutureStatus[] result = new FutureStatus[1];
+
+        project.getResult().onStatus(new FutureSubscriber() {
+            @Override
+            public void on(FutureStatus status, @Nullable CharSequence message) {
+                result[0] = status;
+            }
+        });
+
+        project.run();
+
+        for (int i=0; i < 200 && result[0] == null; i++) {
+            BukkitTester.pause(1);
+        }
+
+        return result[0];
+    }
+
+    /**
+     * Make sure the default number of worker threads is at least 1 and
+     * no more than 4.
+     */
+    @Test
+    public void testDefaultMaxThreads() throws Exception {
+
+        ParallelQueueProject project = new ParallelQueueProject(plugin);
+
+        assertTrue(project.getMaxThreads() >= 1);
+        assertTrue(project.getMaxThreads() <= 4);
+    }
+
+    /**
+     * Make sure all asynchronous and main thread tasks are run and main
+     * thread tasks are run in the order they are added.
+     */
+    @Test
+    public void testOrder() throws Exception {
+
+        ParallelQueueProject project = new ParallelQueueProject(plugin, 2);
+
+        List<String> asyncRun = Collections.synchronizedList(new ArrayList<String>(10));
+        List<String> mainRun = Collections.synchronizedList(new ArrayList<String>(10));
+
+        for (int i=0; i < 10; i++) {
+            project.addTask(new TestTask(TaskConcurrency.ASYNC, "async" + i, asyncRun));
+            project.addTask(new TestTask(TaskConcurrency.MAIN_THREAD, "main" + i, mainRun));
+        }
+
+        assertEquals(20, project.getTasks().size());
+
+        assertEquals(FutureStatus.SUCCESS, run(project));
+        assertTrue(project.isComplete());
+
+        assertEquals(10, asyncRun.size());
+        assertEquals(10, mainRun.size());
+
+        for (int i=0; i < 10; i++) {
+            assertTrue(asyncRun.contains("async" + i));
+            assertEquals("main" + i, mainRun.get(i));
+        }
+    }
+
+    /**
+     * Make sure a main thread task that does not end when its run method
+     * returns must end before the next main thread task is started.
+     */
+    @Test
+    public void testDeferredMainTask() throws Exception {
+
+        ParallelQueueProject project = new ParallelQueueProject(plugin, 2);
+
+        final List<String> mainRun = Collections.synchronizedList(new ArrayList<String>(2));
+
+        final QueueTask deferred = new QueueTask(plugin, TaskConcurrency.MAIN_THREAD) {
+            @Override
+            protected void onRun() {
+                mainRun.add("deferred");
+
+                // end the task a few ticks later
+                Scheduler.runTaskLater(plugin, 5, new Runnable() {
+                    @Override
+                    public void run() {
+                        complete();
+                    }
+                });
+            }
+        };
+
+        final boolean[] isDeferredEnded = new boolean[1];
+
+        QueueTask next = new QueueTask(plugin, TaskConcurrency.MAIN_THREAD) {
+            @Override
+            protected void onRun() {
+                mainRun.add("next");
+                isDeferredEnded[0] = deferred.isEnded();
+                complete();
+            }
+        };
+
+        project.addTask(deferred);
+        project.addTask(next);
+
+        assertEquals(FutureStatus.SUCCESS, run(project));
+
+        assertEquals(2, mainRun.size());
+        assertEquals("deferred", mainRun.get(0));
+        assertEquals("next", mainRun.get(1));
+        assertTrue(isDeferredEnded[0]);
+    }
+
+    /**
+     * Make sure the project fails if one of its tasks fails.
+     */
+    @Test
+    public void testFailedTask() throws Exception {
+
+        ParallelQueueProject project = new ParallelQueueProject(plugin, 2);
+
+        List<String> run = Collections.synchronizedList(new ArrayList<String>(3));
+
+        project.addTask(new TestTask(TaskConcurrency.ASYNC, "async", run));
+        project.addTask(new TestTask(TaskConcurrency.MAIN_THREAD, "main", run));
+        project.addTask(new QueueTask(plugin, TaskConcurrency.ASYNC) {
+            @Override
+            protected void onRun() {
+                fail("Test failure.");
+            }
+        });
+
+        assertEquals(FutureStatus.ERROR, run(project));
+        assertTrue(project.isFailed());
+
+        // the other tasks are still run
+        assertEquals(2, run.size());
+    }
+
+    /**
+     * Make sure the project fails if one of its tasks throws an exception.
+     */
+    @Test
+    public void testTaskException() throws Exception {
+
+        for (TaskConcurrency concurrency : new TaskConcurrency[] {
+                TaskConcurrency.ASYNC, TaskConcurrency.MAIN_THREAD }) {
+
+            ParallelQueueProject project = new ParallelQueueProject(plugin, 2);
+
+            List<String> run = Collections.synchronizedList(new ArrayList<String>(1));
+
+            QueueTask throwing = new QueueTask(plugin, concurrency) {
+                @Override
+                protected void onRun() {
+                    throw new RuntimeException("Test exception.");
+                }
+            };
+
+            project.addTask(throwing);
+            project.addTask(new TestTask(concurrency, "other", run));
+
+            assertEquals(concurrency.name(), FutureStatus.ERROR, run(project));
+            assertTrue(concurrency.name(), throwing.isCancelled());
+            assertEquals(concurrency.name(), 1, run.size());
+        }
+    }
+
+    /**
+     * Make sure a task added by a running task is run before the
+     * project completes.
+     */
+    @Test
+    public void testAddWhileRunning() throws Exception {
+
+        final ParallelQueueProject project = new ParallelQueueProject(plugin, 2);
+
+        final List<String> run = Collections.synchronizedList(new ArrayList<String>(2));
+        final TestTask added = new TestTask(TaskConcurrency.MAIN_THREAD, "added", run);
+
+        project.addTask(new QueueTask(plugin, TaskConcurrency.ASYNC) {
+            @Override
+            protected void onRun() {
+                run.add("async");
+
+                // apply results on the main thread
+                project.addTask(added);
+                complete();
+            }
+        });
+
+        assertEquals(FutureStatus.SUCCESS, run(project));
+
+        assertTrue(added.isComplete());
+        assertEquals(2, run.size());
+        assertEquals("async", run.get(0));
+        assertEquals("added", run.get(1));
+    }
+
+    /**
+     * Make sure runFast runs all tasks on the current thread and
+     * completes the project.
+     */
+    @Test
+    public void testRunFast() throws Exception {
+
+        ParallelQueueProject project = new ParallelQueueProject(plugin, 2);
+
+        List<String> run = Collections.synchronizedList(new ArrayList<String>(4));
+        List<TestTask> tasks = new ArrayList<>(4);
+
+        tasks.add(new TestTask(TaskConcurrency.ASYNC, "async1", run));
+        tasks.add(new TestTask(TaskConcurrency.MAIN_THREAD, "main1", run));
+        tasks.add(new TestTask(TaskConcurrency.ASYNC, "async2", run));
+        tasks.add(new TestTask(TaskConcurrency.MAIN_THREAD, "main2", run));
+
+        project.addTasks(tasks);
+        project.runFast();
+
+        assertEquals(4, run.size());
+        assertTrue(project.isComplete());
+        assertTrue(project.getTasks().isEmpty());
+
+        for (TestTask task : tasks) {
+            assertTrue(task.isComplete());
+            assertTrue(task.thread == Thread.currentThread());
+        }
+
+        // empty project
+        project = new ParallelQueueProject(plugin, 2);
+        project.runFast();
+
+        assertTrue(project.isComplete());
+    }
+
+    /*
+     * Task that records its name when run and completes.
+     */
+    private static class TestTask extends QueueTask {
+
+        final String name;
+        final List<String> run;
+        volatile Thread thread;
+
+        TestTask(TaskConcurrency concurrency, String name, List<String> run) {
+            super(plugin, concurrency);
+            this.name = name;
+            this.run = run;
+        }
+
+        @Override
+        protected void onRun() {
+            thread = Thread.currentThread();
+            run.add(name);
+            complete();
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package com.jcwhatever.nucleus.utils.performance.queued;
+
+import org.junit.runner.RunWith;
+import org.junit.runners.Suite;
+
+@RunWith(Suite.class)
+@Suite.SuiteClasses({
+        ParallelQueueProjectTest.class
+})
+public class _QueuedTestSuite {
+}